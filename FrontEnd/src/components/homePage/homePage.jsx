@@ -380,7 +380,9 @@ const HomePage = () => {
         const response = await fetch(`http://127.0.0.1:8080/playlist/from-mood?mood=${mood}&limit=10`, {
          //const response = await fetch(`http://127.0.0.1:8080/mood/by?mood=${mood}`, {
         method: "GET",
-        credentials: "include"
+        headers: {
+            "Authorization": `Bearer ${localStorage.getItem("authToken")}`,
+        },
     });
 
 
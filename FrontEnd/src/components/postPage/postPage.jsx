@@ -77,10 +77,6 @@ const PostPage = () => {
             const formData = new FormData();
             formData.append("content", content);
 
-            if (image) {
-                formData.append("picture", image);
-            }
-
             const token = localStorage.getItem("authToken");
             if (!token) {
                 setErrorMsg("You must be logged in.");
@@ -88,6 +84,43 @@ const PostPage = () => {
                 return;
             }
 
+            if (image) {
+                // 1) ask backend for presigned upload URL
+                const urlRes = await fetch("http://127.0.0.1:8080/api/v1/feed/posts/picture/upload-url", {
+                    method: "POST",
+                    headers: {
+                        "Content-Type": "application/json",
+                        Authorization: `Bearer ${token}`
+                    },
+                    body: JSON.stringify({
+                        contentType: image.type,
+                        fileSize: image.size
+                    })
+                });
+
+                if (!urlRes.ok) {
+                    throw new Error("Could not upload the picture");
+                }
+
+                const { uploadUrl, objectKey } = await urlRes.json();
+
+                // 2) upload directly to storage
+                const putRes = await fetch(uploadUrl, {
+                    method: "PUT",
+                    headers: {
+                        "Content-Type": image.type // MUST match what backend signed
+                    },
+                    body: image
+                });
+
+                if (!putRes.ok) {
+                    throw new Error("Could not upload the picture");
+                }
+
+                // 3) the post only carries the object key
+                formData.append("pictureKey", objectKey);
+            }
+
             const response = await fetch("http://127.0.0.1:8080/api/posts", {
                 method: "POST",
                 headers: {
@@ -820,8 +820,16 @@ const ProfilePage = () => {
       <div className="connect-spotify-box">
         <button
           className="connect-spotify-btn"
-          onClick={() => {
-            window.location.href = 'http://127.0.0.1:8080/login';
+          onClick={async () => {
+            // Ask the backend for a Spotify login URL tied to the logged-in user
+            const token = localStorage.getItem("authToken");
+            const res = await fetch('http://127.0.0.1:8080/spotify/authorize', {
+              headers: { "Authorization": `Bearer ${token}` },
+            });
+            if (res.ok) {
+              const { url } = await res.json();
+              window.location.href = url;
+            }
           }}
         >
           Refresh your Spotify Token
@@ -28,8 +28,18 @@ const ConnectSpotify = () => {
       <div className="connect-spotify-box">
         <button
           className="connect-spotify-btn"
-            onClick={() => {
-               window.location.href = 'http://127.0.0.1:8080/login';
+            onClick={async () => {
+               // Ask the backend for a Spotify login URL tied to the logged-in user
+               const token = localStorage.getItem("authToken");
+               const res = await fetch('http://127.0.0.1:8080/spotify/authorize', {
+                 headers: { "Authorization": `Bearer ${token}` },
+               });
+               if (!res.ok) {
+                 navigate("/login");
+                 return;
+               }
+               const { url } = await res.json();
+               window.location.href = url;
               }}
               >
                 Connect your Spotify
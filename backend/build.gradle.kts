@@ -5,6 +5,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.5.6"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.musicApp"
@@ -58,6 +59,7 @@ dependencies {
 
     //test
     testImplementation("com.h2database:h2")
+    testImplementation("com.icegreen:greenmail-junit5:2.1.2") // local SMTP server for mail tests
 
     //Amazon / Cloudflare R2
     implementation("software.amazon.awssdk:s3:2.41.13")
@@ -71,6 +73,16 @@ dependencies {
 
     //OpenAI
     // implementation("com.openai:openai-java:4.26.0")
+
+    // --- Benchmarks (./gradlew jmh) ---
+    jmh("org.springframework:spring-test")
+    jmh("org.mockito:mockito-core")
+}
+
+jmh {
+    warmupIterations = 2
+    iterations = 5
+    fork = 1
 }
 
 tasks.withType<Test> {
@@ -0,0 +1,105 @@
+/**
+ * Class Name: AuthenticationFilterBenchmark
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.filter;
+
+import com.musicApp.backend.features.authentication.model.AuthenticationUser;
+import com.musicApp.backend.features.authentication.service.AuthenticationService;
+import com.musicApp.backend.features.authentication.service.PresenceRegistry;
+import com.musicApp.backend.features.authentication.service.TokenRevocationService;
+import com.musicApp.backend.features.authentication.utils.JsonWebToken;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the per-request overhead of the authentication filter. The "legacy"
+ * benchmark replicates the old classification (a linear list scan plus suffix checks)
+ * and its unconditional console logging, written to a discarding stream so only the
+ * string building and locking are measured. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthenticationFilterBenchmark {
+
+    private static final List<String> LEGACY_UNSECURED = Arrays.asList(
+            "/api/v1/authentication/login",
+            "/api/v1/authentication/register",
+            "/api/v1/authentication/send-password-reset-token",
+            "/api/v1/authentication/reset-password",
+            "/login", "/logout", "/callback", "/me/top", "/mood/by",
+            "/playlist", "/playlist/add", "/playlist/from-mood", "/", "/peekaboo"
+    );
+
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    @Param({"/api/v1/feed", "/playlist/from-mood", "/static/app.css"})
+    public String path;
+
+    private AuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        JsonWebToken jsonWebToken = mock(JsonWebToken.class);
+        AuthenticationService authenticationService = mock(AuthenticationService.class);
+        when(jsonWebToken.verifyToken(anyString()))
+                .thenReturn(Jwts.claims().subject("bench@example.com")
+                        .add("uid", 1L).add("username", "bench").build());
+        when(authenticationService.getUser(anyString()))
+                .thenReturn(new AuthenticationUser("Bench", "User", "bench", "bench@example.com", "password"));
+        filter = new AuthenticationFilter(jsonWebToken, authenticationService, mock(PresenceRegistry.class),
+                mock(TokenRevocationService.class), 100);
+
+        request = new MockHttpServletRequest("GET", path);
+        request.addHeader("Authorization", "Bearer benchmark-token");
+    }
+
+    @Benchmark
+    public boolean legacyClassification() {
+        DISCARD.println("Request URI: " + request.getRequestURI());
+        DISCARD.println("Authorization header: " + request.getHeader("Authorization"));
+        DISCARD.println("Unsecured endpoints: " + LEGACY_UNSECURED);
+        return LEGACY_UNSECURED.contains(path)
+                || path.startsWith("/static/")
+                || path.endsWith(".ico")
+                || path.endsWith(".js")
+                || path.endsWith(".css");
+    }
+
+    @Benchmark
+    public boolean routeTable() {
+        return AuthenticationFilter.PUBLIC_ROUTES.isPublic(path);
+    }
+
+    @Benchmark
+    public void fullFilter(Blackhole blackhole) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        blackhole.consume(response.getStatus());
+    }
+}
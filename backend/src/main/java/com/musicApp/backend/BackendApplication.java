@@ -8,6 +8,7 @@ package com.musicApp.backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 import io.github.cdimascio.dotenv.Dotenv;
 
@@ -18,6 +19,7 @@ import io.github.cdimascio.dotenv.Dotenv;
  * from a .env file, and configures essential beans like RestTemplate for HTTP operations.
  */
 @SpringBootApplication
+@EnableScheduling
 public class BackendApplication {
   
 	/**
@@ -8,7 +8,7 @@ package com.musicApp.backend.configuration;
 
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
-import com.musicApp.backend.features.authentication.utils.Encoder;
+import com.musicApp.backend.features.authentication.utils.PasswordHasher;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,15 +23,15 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 public class LoadDatabaseConfiguration {
-    private final Encoder encoder;
+    private final PasswordHasher passwordHasher;
 
     /**
-     * Constructs the {@code LoadDatabaseConfiguration} with a password encoder dependency.
+     * Constructs the {@code LoadDatabaseConfiguration} with a password hasher dependency.
      *
-     * @param encoder the {@link Encoder} utility used for encrypting user passwords before saving them
+     * @param passwordHasher the {@link PasswordHasher} used for hashing user passwords before saving them
      */
-    public LoadDatabaseConfiguration(Encoder encoder) {
-        this.encoder = encoder;
+    public LoadDatabaseConfiguration(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
     }
 
     /**
@@ -44,7 +44,7 @@ public class LoadDatabaseConfiguration {
     public CommandLineRunner initDatabase(AuthenticationUserRepository authenticationUserRepository){
         return args -> {
             if (authenticationUserRepository.findByEmail("jose@example.com").isEmpty()) {
-            AuthenticationUser authenticationUser = new AuthenticationUser("Jose", "Test", "testing", "jose@example.com", encoder.encode("jose"));
+            AuthenticationUser authenticationUser = new AuthenticationUser("Jose", "Test", "testing", "jose@example.com", passwordHasher.hash("jose"));
             authenticationUserRepository.save(authenticationUser);
         }
         };
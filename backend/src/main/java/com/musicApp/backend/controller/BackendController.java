@@ -6,7 +6,9 @@
  
 package com.musicApp.backend.controller;
 
+import com.musicApp.backend.features.authentication.utils.RateLimitExceededException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -18,6 +20,7 @@ import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.nio.file.NoSuchFileException;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Global exception handler for the MusicApp backend. This class centralizes
@@ -108,6 +111,31 @@ public class BackendController {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "File not found"));
     }
 
+    /**
+     * Handles work that was turned away because a bounded worker pool, such as the
+     * password hasher, is saturated.
+     * @param e the {@link RejectedExecutionException} thrown when a worker queue is full
+     * @return a {@link ResponseEntity} with an error message, a Retry-After header, and HTTP 503 (Service Unavailable) status
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> handleRejectedExecutionException(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", e.getMessage()));
+    }
+
+    /**
+     * Handles requests rejected by the rate limiter.
+     * @param e the {@link RateLimitExceededException} thrown when a client exceeds a route's limit
+     * @return a {@link ResponseEntity} with an error message, a Retry-After header, and HTTP 429 (Too Many Requests) status
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Map<String, String>> handleRateLimitExceededException(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("message", e.getMessage()));
+    }
+
     /**
      * Catches all other unhandled exceptions and returns a generic error response.
      * @param e the generic {@link Exception} thrown during request processing
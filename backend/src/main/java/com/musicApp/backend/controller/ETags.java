@@ -0,0 +1,55 @@
+/**
+ * Class Name: ETags
+ * Date: October 17, 2026
+ */
+package com.musicApp.backend.controller;
+
+import java.util.StringJoiner;
+
+/**
+ * Builds the strong ETags of conditional GET endpoints from versions read from
+ * the database and version counters kept in memory. The counters restart at zero
+ * with the application and differ between instances, so an ETag built with them
+ * also carries the time this instance started; a tag issued before a restart or by
+ * another instance never matches. An ETag built only from stored versions leaves
+ * it out and matches on every instance.
+ */
+public final class ETags {
+
+    private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    /**
+     * Returns a strong ETag for a response identified by the given parts.
+     *
+     * @param parts what the response depends on: its name, parameters and versions; {@code null} parts are allowed
+     * @return the quoted ETag
+     */
+    public static String of(Object... parts) {
+        return join(INSTANCE, parts);
+    }
+
+    /**
+     * Returns a strong ETag for a response that only depends on stored versions,
+     * which every instance builds alike.
+     *
+     * @param parts what the response depends on: its name, parameters and stored versions; {@code null} parts are allowed
+     * @return the quoted ETag
+     */
+    public static String ofStored(Object... parts) {
+        return join(null, parts);
+    }
+
+    private static String join(String instance, Object[] parts) {
+        StringJoiner tag = new StringJoiner("-", "\"", "\"");
+        if (instance != null) {
+            tag.add(instance);
+        }
+        for (Object part : parts) {
+            tag.add(part == null ? "" : part.toString().replace("\"", ""));
+        }
+        return tag.toString();
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Class Name: MetricsController
+ * Date: October 17, 2026
+ */
+package com.musicApp.backend.controller;
+
+import com.musicApp.backend.features.authentication.service.AccountDeletionService;
+import com.musicApp.backend.features.authentication.service.AuthenticatedUserCache;
+import com.musicApp.backend.features.authentication.service.AvailabilityIndex;
+import com.musicApp.backend.features.authentication.service.PresenceRegistry;
+import com.musicApp.backend.features.authentication.service.TokenRevocationService;
+import com.musicApp.backend.features.authentication.utils.PasswordHasher;
+import com.musicApp.backend.features.authentication.utils.RateLimiter;
+import com.musicApp.backend.features.authentication.utils.VerifiedTokenCache;
+import com.musicApp.backend.features.email.service.EmailDispatcher;
+import com.musicApp.backend.features.feed.service.AffinityIndex;
+import com.musicApp.backend.features.feed.service.FeedChangeLog;
+import com.musicApp.backend.features.feed.service.FeedEventHub;
+import com.musicApp.backend.features.feed.service.PostSearchIndex;
+import com.musicApp.backend.features.feed.service.FeedRanker;
+import com.musicApp.backend.features.feed.service.LikeCounter;
+import com.musicApp.backend.features.feed.service.PostImageService;
+import com.musicApp.backend.features.feed.service.StoredVersions;
+import com.musicApp.backend.features.feed.service.TimelineService;
+import com.musicApp.backend.features.feed.service.ViewCounter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This controller exposes the in-process counters kept by the backend's caches
+ * and background workers, so their effect can be observed under load.
+ */
+@RestController
+@RequestMapping("/api/v1/metrics")
+public class MetricsController {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AuthenticatedUserCache authenticatedUserCache;
+    private final PasswordHasher passwordHasher;
+    private final PresenceRegistry presenceRegistry;
+    private final EmailDispatcher emailDispatcher;
+    private final TokenRevocationService tokenRevocationService;
+    private final RateLimiter rateLimiter;
+    private final AvailabilityIndex availabilityIndex;
+    private final AccountDeletionService accountDeletionService;
+    private final TimelineService timelineService;
+    private final LikeCounter likeCounter;
+    private final AffinityIndex affinityIndex;
+    private final FeedRanker feedRanker;
+    private final PostImageService postImageService;
+    private final FeedEventHub feedEventHub;
+    private final PostSearchIndex postSearchIndex;
+    private final FeedChangeLog feedChangeLog;
+    private final ViewCounter viewCounter;
+    private final StoredVersions storedVersions;
+
+    /**
+     * Creates a MetricsController with the components whose counters are reported.
+     *
+     * @param verifiedTokenCache the cache of verified JWT claims
+     * @param authenticatedUserCache the cache of users resolved for authenticated requests
+     * @param passwordHasher the password hashing pool
+     * @param presenceRegistry the in-memory registry of online users
+     * @param emailDispatcher the background sender of queued emails
+     * @param tokenRevocationService the revocation list and its Bloom filter
+     * @param rateLimiter the per-route request limiter
+     * @param availabilityIndex the in-memory index of taken usernames and emails
+     * @param accountDeletionService the background account deletion worker
+     * @param timelineService the materialized home timelines
+     * @param likeCounter the buffered like counts of posts
+     * @param affinityIndex the users' affinity scores to authors
+     * @param feedRanker the ranker of the ranked feed
+     * @param postImageService the post picture upload and resize workers
+     * @param feedEventHub the live feed stream
+     * @param postSearchIndex the post search index
+     * @param feedChangeLog the feed change log clients sync from
+     * @param viewCounter the buffered view sketches of posts and profiles
+     * @param storedVersions the stored versions conditional GETs are tagged with
+     */
+    public MetricsController(VerifiedTokenCache verifiedTokenCache, AuthenticatedUserCache authenticatedUserCache,
+                             PasswordHasher passwordHasher, PresenceRegistry presenceRegistry,
+                             EmailDispatcher emailDispatcher, TokenRevocationService tokenRevocationService,
+                             RateLimiter rateLimiter, AvailabilityIndex availabilityIndex,
+                             AccountDeletionService accountDeletionService, TimelineService timelineService,
+                             LikeCounter likeCounter, AffinityIndex affinityIndex, FeedRanker feedRanker,
+                             PostImageService postImageService, FeedEventHub feedEventHub,
+                             PostSearchIndex postSearchIndex, FeedChangeLog feedChangeLog,
+                             ViewCounter viewCounter, StoredVersions storedVersions) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.authenticatedUserCache = authenticatedUserCache;
+        this.passwordHasher = passwordHasher;
+        this.presenceRegistry = presenceRegistry;
+        this.emailDispatcher = emailDispatcher;
+        this.tokenRevocationService = tokenRevocationService;
+        this.rateLimiter = rateLimiter;
+        this.availabilityIndex = availabilityIndex;
+        this.accountDeletionService = accountDeletionService;
+        this.timelineService = timelineService;
+        this.likeCounter = likeCounter;
+        this.affinityIndex = affinityIndex;
+        this.feedRanker = feedRanker;
+        this.postImageService = postImageService;
+        this.feedEventHub = feedEventHub;
+        this.postSearchIndex = postSearchIndex;
+        this.feedChangeLog = feedChangeLog;
+        this.viewCounter = viewCounter;
+        this.storedVersions = storedVersions;
+    }
+
+    /**
+     * Returns a snapshot of all counters.
+     *
+     * @return a map of metric groups to their current values
+     */
+    @GetMapping
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("jwtCache", Map.of(
+                "hits", verifiedTokenCache.getHitCount(),
+                "misses", verifiedTokenCache.getMissCount(),
+                "evictions", verifiedTokenCache.getEvictionCount(),
+                "size", verifiedTokenCache.size()
+        ));
+        metrics.put("userCache", Map.of(
+                "hits", authenticatedUserCache.getHitCount(),
+                "misses", authenticatedUserCache.getMissCount(),
+                "size", authenticatedUserCache.size()
+        ));
+        metrics.put("passwordHasher", Map.of(
+                "iterations", passwordHasher.getIterations(),
+                "queueDepth", passwordHasher.getQueueDepth(),
+                "active", passwordHasher.getActiveCount(),
+                "hashes", passwordHasher.getHashCount(),
+                "verifications", passwordHasher.getVerificationCount(),
+                "rejections", passwordHasher.getRejectionCount()
+        ));
+        metrics.put("presence", Map.of(
+                "online", presenceRegistry.getOnlineCount(),
+                "heartbeats", presenceRegistry.getHeartbeatCount(),
+                "snapshotWrites", presenceRegistry.getSnapshotWriteCount()
+        ));
+        metrics.put("emailOutbox", Map.of(
+                "pending", emailDispatcher.getPendingCount(),
+                "sent", emailDispatcher.getSentCount(),
+                "retried", emailDispatcher.getRetriedCount(),
+                "failed", emailDispatcher.getFailedCount(),
+                "purged", emailDispatcher.getPurgedCount()
+        ));
+        metrics.put("tokenRevocation", Map.of(
+                "checks", tokenRevocationService.getCheckCount(),
+                "storeLookups", tokenRevocationService.getStoreLookupCount(),
+                "filterSize", tokenRevocationService.getFilterSize(),
+                "observedFalsePositiveRate", tokenRevocationService.getObservedFalsePositiveRate(),
+                "expectedFalsePositiveRate", tokenRevocationService.getExpectedFalsePositiveRate()
+        ));
+        metrics.put("rateLimiter", Map.of(
+                "allowed", rateLimiter.getAllowedCount(),
+                "limited", rateLimiter.getLimitedCount(),
+                "evictions", rateLimiter.getEvictionCount(),
+                "buckets", rateLimiter.size()
+        ));
+        metrics.put("availabilityIndex", Map.of(
+                "usernames", availabilityIndex.size(),
+                "checks", availabilityIndex.getCheckCount(),
+                "filterMisses", availabilityIndex.getFilterMissCount()
+        ));
+        metrics.put("accountDeletion", Map.of(
+                "pending", accountDeletionService.getPendingCount(),
+                "requested", accountDeletionService.getRequestedCount(),
+                "completed", accountDeletionService.getCompletedCount(),
+                "chunks", accountDeletionService.getChunkCount(),
+                "rowsDeleted", accountDeletionService.getRowsDeletedCount(),
+                "failures", accountDeletionService.getFailureCount()
+        ));
+        metrics.put("timeline", Map.of(
+                "cached", timelineService.getCachedTimelineCount(),
+                "fanOuts", timelineService.getFanOutCount(),
+                "entriesWritten", timelineService.getEntriesWrittenCount(),
+                "reads", timelineService.getReadCount(),
+                "loads", timelineService.getLoadCount(),
+                "refreshes", timelineService.getRefreshCount(),
+                "rebuilds", timelineService.getRebuildCount(),
+                "repairs", timelineService.getRepairCount(),
+                "entriesTrimmed", timelineService.getEntriesTrimmedCount()
+        ));
+        metrics.put("likeCounter", Map.of(
+                "pending", likeCounter.getPendingCount(),
+                "updates", likeCounter.getUpdateCount(),
+                "flushes", likeCounter.getFlushCount(),
+                "rowsFlushed", likeCounter.getRowsFlushedCount(),
+                "failures", likeCounter.getFailureCount()
+        ));
+        metrics.put("ranking", Map.of(
+                "affinityUsers", affinityIndex.getCachedUserCount(),
+                "affinitySeeds", affinityIndex.getSeedCount(),
+                "affinityUpdates", affinityIndex.getUpdateCount(),
+                "affinityAuthorsDropped", affinityIndex.getAuthorsDroppedCount(),
+                "rankings", feedRanker.getRankingCount(),
+                "candidatesScored", feedRanker.getCandidatesScoredCount()
+        ));
+        metrics.put("postImages", Map.of(
+                "uploadUrls", postImageService.getUploadUrlCount(),
+                "queued", postImageService.getQueuedCount(),
+                "processed", postImageService.getProcessedCount(),
+                "variantsWritten", postImageService.getVariantsWrittenCount(),
+                "unusable", postImageService.getUnusableCount(),
+                "failures", postImageService.getFailureCount(),
+                "rejections", postImageService.getRejectionCount()
+        ));
+        metrics.put("feedStream", Map.of(
+                "subscribers", feedEventHub.getSubscriberCount(),
+                "published", feedEventHub.getPublishedCount(),
+                "delivered", feedEventHub.getDeliveredCount(),
+                "dropped", feedEventHub.getDroppedCount(),
+                "disconnects", feedEventHub.getDisconnectCount(),
+                "expired", feedEventHub.getExpiredCount()
+        ));
+        metrics.put("search", Map.of(
+                "posts", postSearchIndex.getPostCount(),
+                "terms", postSearchIndex.getTermCount(),
+                "postingBytes", postSearchIndex.getPostingBytes(),
+                "queries", postSearchIndex.getQueryCount(),
+                "synced", postSearchIndex.getSyncedCount(),
+                "reloads", postSearchIndex.getReloadCount()
+        ));
+        metrics.put("feedChanges", Map.of(
+                "recorded", feedChangeLog.getRecordedCount(),
+                "syncs", feedChangeLog.getSyncCount(),
+                "resets", feedChangeLog.getResetCount(),
+                "served", feedChangeLog.getServedCount(),
+                "pruned", feedChangeLog.getPrunedCount()
+        ));
+        metrics.put("views", Map.of(
+                "views", viewCounter.getViewCount(),
+                "pending", viewCounter.getPendingCount(),
+                "flushes", viewCounter.getFlushCount(),
+                "rowsFlushed", viewCounter.getRowsFlushedCount(),
+                "failures", viewCounter.getFailureCount()
+        ));
+        metrics.put("storedVersions", Map.of(
+                "reads", storedVersions.getReadCount()
+        ));
+        return metrics;
+    }
+}
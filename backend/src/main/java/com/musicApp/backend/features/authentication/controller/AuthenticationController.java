@@ -8,13 +8,18 @@ package com.musicApp.backend.features.authentication.controller;
 
 import com.musicApp.backend.features.authentication.dto.AuthenticationRequestBody;
 import com.musicApp.backend.features.authentication.dto.AuthenticationResponseBody;
+import com.musicApp.backend.features.authentication.dto.OnlineUserResponse;
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.service.AuthenticationService;
+import com.musicApp.backend.features.authentication.service.AvailabilityIndex;
 import com.musicApp.backend.features.authentication.utils.EmailService;
 import com.musicApp.backend.features.authentication.utils.JsonWebToken;
+import com.musicApp.backend.features.authentication.utils.RateLimiter;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
 
 import jakarta.mail.MessagingException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,7 +29,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.UnsupportedEncodingException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /** 
@@ -44,16 +51,45 @@ public class AuthenticationController {
     private final JsonWebToken jsonWebToken;
     private final EmailService emailService;
     private final AuthenticationUserRepository authenticationUserRepository;
+    private final RateLimiter rateLimiter;
+    private final AvailabilityIndex availabilityIndex;
 
     @Autowired
     public AuthenticationController(AuthenticationUserRepository authenticationUserRepository,    
                                     AuthenticationService authenticationService,
                                     JsonWebToken jsonWebToken,
-                                    EmailService emailService) {
+                                    EmailService emailService,
+                                    RateLimiter rateLimiter,
+                                    AvailabilityIndex availabilityIndex) {
         this.authenticationUserRepository = authenticationUserRepository;
         this.authenticationService = authenticationService;
         this.jsonWebToken = jsonWebToken;
         this.emailService = emailService;
+        this.rateLimiter = rateLimiter;
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    /**
+     * Checks whether a username and/or email can still be registered. Served from
+     * memory, so it is cheap enough to call while the user types.
+     * @param username the username to check (optional)
+     * @param email the email to check (optional)
+     * @param request the HTTP request, used to rate-limit by client address
+     * @return a map with an "available" flag for each name that was given
+     */
+    @GetMapping("/availability")
+    public Map<String, Boolean> checkAvailability(@RequestParam(required = false) String username,
+                                                  @RequestParam(required = false) String email,
+                                                  HttpServletRequest request) {
+        rateLimiter.check("availability", request.getRemoteAddr());
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null && !username.isBlank()) {
+            availability.put("username", availabilityIndex.isUsernameAvailable(username));
+        }
+        if (email != null && !email.isBlank()) {
+            availability.put("email", availabilityIndex.isEmailAvailable(email));
+        }
+        return availability;
     }
 
     /**
@@ -63,25 +99,36 @@ public class AuthenticationController {
      */
     @GetMapping("/user")
     public AuthenticationUser getUser(@RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser) {
-        return authenticationService.getUser(authenticationUser.getEmail());
+        // Loaded fresh (not from the user cache) so its lazy collections can be serialized
+        return authenticationUserRepository.findByEmail(authenticationUser.getEmail())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
     }
 
     /**
      *  Handles user login and JWT token generation.
      * @param loginRequestBody the {@link AuthenticationRequestBody} containing user email and password
+     * @param request the HTTP request, used to rate-limit by client address
      * @return an {@link AuthenticationResponseBody} with the JWT token and basic user details
      */
     @PostMapping("/login")
-    public AuthenticationResponseBody loginPage(@Valid @RequestBody AuthenticationRequestBody loginRequestBody) {
+    public AuthenticationResponseBody loginPage(@Valid @RequestBody AuthenticationRequestBody loginRequestBody,
+                                                HttpServletRequest request) {
+        rateLimiter.check("login", request.getRemoteAddr(), loginRequestBody.getEmail());
         return authenticationService.login(loginRequestBody);
     }
 
 
 
+    /**
+     * Disables the current user's account and queues its data for deletion in the background.
+     * @param principal the authenticated caller
+     * @return a confirmation message
+     */
     @DeleteMapping("/delete")
-    public String deleteUser(@RequestAttribute("authenticatedUser") AuthenticationUser user){
-        authenticationService.deleteUser(user.getId());
-        return "User deleted successfully.";
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public String deleteUser(@RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal){
+        authenticationService.deleteUser(principal.id());
+        return "Account deletion started.";
     }
 
 
@@ -95,14 +142,16 @@ public class AuthenticationController {
     /**
      * Handles new user registration and sends a verification email.
      * @param registerRequestBody the {@link AuthenticationRequestBody} containing registration data
+     * @param request the HTTP request, used to rate-limit by client address
      * @return an {@link AuthenticationResponseBody} with user info and confirmation message
      * @throws MessagingException if there is an issue while sending the verification email
      * @throws UnsupportedEncodingException if the email encoding is unsupported
      */
     @PostMapping("/register")
-    public AuthenticationResponseBody registerPage(@Valid @RequestBody AuthenticationRequestBody registerRequestBody)
+    public AuthenticationResponseBody registerPage(@Valid @RequestBody AuthenticationRequestBody registerRequestBody,
+                                                   HttpServletRequest request)
             throws MessagingException, UnsupportedEncodingException {
-        System.out.println("Received register request for: " + registerRequestBody.getEmail());
+        rateLimiter.check("register", request.getRemoteAddr(), registerRequestBody.getEmail());
         return authenticationService.register(registerRequestBody);
     }
 
@@ -124,10 +173,10 @@ public class AuthenticationController {
 
     /**
     *     Retrieves all currently active (logged-in) users.
-     * @return a list of {@link AuthenticationUser} objects representing active users
+     * @return a list of {@link OnlineUserResponse} objects representing active users
      */
     @GetMapping("/online-users")
-    public List<AuthenticationUser> getOnlineUsers() {
+    public List<OnlineUserResponse> getOnlineUsers() {
         return authenticationService.getOnlineUsers();
     }
 
@@ -160,9 +209,8 @@ public class AuthenticationController {
             // Node 4 exit (user not found)
 
             // Node 5: Mark user as active (verified)
-            user.setLoginStatus(true); // mark as "active" now
-            // Node 6: Save updated user
-            authenticationUserRepository.save(user);
+            // Node 6: Presence is kept in memory, no row update needed
+            authenticationService.markOnline(user);
             // Node 7: Return success response
             return ResponseEntity.ok("Email verified successfully.");
         } catch (IllegalArgumentException e) {
@@ -189,10 +237,12 @@ public class AuthenticationController {
     /**
      * Sends a password reset token to the given email address.
      * @param email the email address to which the password reset token will be sent
+     * @param request the HTTP request, used to rate-limit by client address
      * @return a confirmation message indicating that the token was sent
      */
     @PutMapping("/send-password-reset-token")
-    public String sendPasswordResetToken(@RequestParam String email) {
+    public String sendPasswordResetToken(@RequestParam String email, HttpServletRequest request) {
+        rateLimiter.check("password-reset", request.getRemoteAddr(), email);
         authenticationService.sendPasswordResetToken(email);
         return "Password reset token sent successfully.";
     }
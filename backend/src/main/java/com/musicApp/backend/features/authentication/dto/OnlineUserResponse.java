@@ -0,0 +1,15 @@
+/**
+ * Class Name: OnlineUserResponse
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.dto;
+
+/**
+ * Compact view of an online user returned by the online-users endpoint.
+ *
+ * @param id the user's id
+ * @param username the user's username
+ * @param lastSeen when the user's last request was seen, in epoch milliseconds
+ */
+public record OnlineUserResponse(Long id, String username, long lastSeen) {}
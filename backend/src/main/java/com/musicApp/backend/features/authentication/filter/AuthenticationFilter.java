@@ -6,19 +6,27 @@
 package com.musicApp.backend.features.authentication.filter;
 
 
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.service.AuthenticationService;
+import com.musicApp.backend.features.authentication.service.PresenceRegistry;
+import com.musicApp.backend.features.authentication.service.TokenRevocationService;
 import com.musicApp.backend.features.authentication.utils.JsonWebToken;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpFilter;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The AuthenticationFilter is a servlet filter that intercepts all incoming HTTP
@@ -33,27 +41,31 @@ import java.util.List;
  */
 @Component
 public class AuthenticationFilter extends HttpFilter {
-    private final List<String> unsecuredEndpoints = Arrays.asList(
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationFilter.class);
+
+    /**
+     * Public routes, compiled once into hash-set lookups.
+     */
+    static final PublicRouteTable PUBLIC_ROUTES = new PublicRouteTable(List.of(
             "/api/v1/authentication/login",
             "/api/v1/authentication/register",
             "/api/v1/authentication/send-password-reset-token",
             "/api/v1/authentication/reset-password",
-            // Spotify login
-            "/login",
-            "/logout",        
+            "/api/v1/authentication/availability",
+            // Spotify OAuth callback; its signed state names the user
             "/callback",
-            "/me/top",
-            "/mood/by",
-            "/playlist",
-            "/playlist/add",
-            "/playlist/from-mood",
             "/",
             "/peekaboo"
-
-    );
+    ),
+            List.of("/static/"),              // static resources
+            List.of("ico", "js", "css"));     // favicon, JS and CSS files
 
     private final JsonWebToken jsonWebTokenService;
     private final AuthenticationService authenticationService;
+    private final PresenceRegistry presenceRegistry;
+    private final TokenRevocationService tokenRevocationService;
+    private final int logSampleRate;
+    private final AtomicLong requestCount = new AtomicLong();
 
 
     /**
@@ -61,11 +73,19 @@ public class AuthenticationFilter extends HttpFilter {
      *
      * @param jsonWebTokenService the {@link JsonWebToken} utility used for validating and decoding JWTs
      * @param authenticationService the {@link AuthenticationService} used to retrieve user details based on token data
+     * @param presenceRegistry the {@link PresenceRegistry} that records each authenticated request as a heartbeat
+     * @param tokenRevocationService the {@link TokenRevocationService} used to reject tokens revoked on logout
+     * @param logSampleRate log one in this many requests at DEBUG level
      */
-    public AuthenticationFilter(JsonWebToken jsonWebTokenService, AuthenticationService authenticationService) {
+    public AuthenticationFilter(JsonWebToken jsonWebTokenService, AuthenticationService authenticationService,
+                                PresenceRegistry presenceRegistry,
+                                TokenRevocationService tokenRevocationService,
+                                @Value("${auth.filter.log-sample-rate:100}") int logSampleRate) {
         this.jsonWebTokenService = jsonWebTokenService;
         this.authenticationService = authenticationService;
-
+        this.presenceRegistry = presenceRegistry;
+        this.tokenRevocationService = tokenRevocationService;
+        this.logSampleRate = Math.max(1, logSampleRate);
     }
 
     /**
@@ -84,15 +104,14 @@ public class AuthenticationFilter extends HttpFilter {
      */    
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
-       
-        // Using for testing
-        System.out.println("Request URI: " + request.getRequestURI());
-        System.out.println("Authorization header: " + request.getHeader("Authorization"));
-        System.out.println("Unsecured endpoints: " + unsecuredEndpoints);
-        /////////////////////
-       
-       
-       
+        String path = request.getRequestURI();
+
+        // Sampled request logging; the Authorization header itself is never logged
+        if (log.isDebugEnabled() && requestCount.incrementAndGet() % logSampleRate == 0) {
+            log.debug("{} {} (authorization header present: {})",
+                    request.getMethod(), path, request.getHeader("Authorization") != null);
+        }
+
         response.setHeader("Access-Control-Allow-Origin", "http://127.0.0.1:5173");  //Change address to whatever frontend port
         response.setHeader("Access-Control-Allow-Credentials", "true");
         response.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
@@ -104,33 +123,12 @@ public class AuthenticationFilter extends HttpFilter {
             return;
         }
 
-        String path = request.getRequestURI();
-
-        if (unsecuredEndpoints.contains(path) 
-        || path.startsWith("/static/")  // Optional: skip all static resources
-        || path.endsWith(".ico")        // Favicon
-        || path.endsWith(".js")         // JS files
-        || path.endsWith(".css")) {     // CSS files
-        chain.doFilter(request, response);
-        return;
-    }
-
-
-
-//     if (unsecuredEndpoints.stream().anyMatch(path::startsWith)
-//     || path.startsWith("/static/")
-//     || path.endsWith(".ico")
-//     || path.endsWith(".js")
-//     || path.endsWith(".css")) {
-
-//     chain.doFilter(request, response);
-//     return;
-// }
-
-
+        if (PUBLIC_ROUTES.isPublic(path)) {
+            chain.doFilter(request, response);
+            return;
+        }
 
         try{
-            System.out.println("Request URI: " + path);
             String authorization = request.getHeader("Authorization");
 
             if(authorization == null || !authorization.startsWith("Bearer ")){
@@ -139,13 +137,29 @@ public class AuthenticationFilter extends HttpFilter {
 
             String token = authorization.substring(7);
 
-            if(jsonWebTokenService.isTokenExpired(token)){
-                throw new ServletException("Invalid token");
+            // Verifies signature and expiry once; repeat tokens are served from the verified-token cache
+            Claims claims = jsonWebTokenService.verifyToken(token);
+            // Almost always answered by the in-memory Bloom filter without a database lookup
+            if (tokenRevocationService.isRevoked(claims.getId())) {
+                throw new ServletException("Token revoked.");
+            }
+            AuthenticatedPrincipal principal = AuthenticatedPrincipal.fromClaims(claims);
+            if (principal != null) {
+                // Identity comes from the token; the user entity is only loaded if a handler asks for it
+                request = new LazyUserRequest(request, principal, authenticationService);
+            } else {
+                // Token issued before the identity claims were added
+                AuthenticationUser user = authenticationService.getUser(claims.getSubject());
+                request.setAttribute("authenticatedUser", user);
+                principal = user == null ? null : AuthenticatedPrincipal.fromUser(user, claims.getId());
+            }
+            if (principal != null && tokenRevocationService.isUserRevoked(principal.id())) {
+                throw new ServletException("Account disabled.");
+            }
+            request.setAttribute("authenticatedPrincipal", principal);
+            if (principal != null) {
+                presenceRegistry.heartbeat(principal.id(), principal.username());
             }
-
-            String email = jsonWebTokenService.getEmailFromToken(token);
-            AuthenticationUser user = authenticationService.getUser(email);
-            request.setAttribute("authenticatedUser", user);
             chain.doFilter(request, response);
 
         } catch(Exception e){
@@ -154,4 +168,29 @@ public class AuthenticationFilter extends HttpFilter {
             response.getWriter().write("{\"message\": \"Invalid authentication token, or token missing.\"}");
         }
     }
+
+    /**
+     * Request wrapper that resolves the "authenticatedUser" attribute on first use,
+     * through the user cache, for handlers that still take the full entity.
+     */
+    private static final class LazyUserRequest extends HttpServletRequestWrapper {
+        private final AuthenticatedPrincipal principal;
+        private final AuthenticationService authenticationService;
+        private boolean userLoaded;
+
+        LazyUserRequest(HttpServletRequest request, AuthenticatedPrincipal principal, AuthenticationService authenticationService) {
+            super(request);
+            this.principal = principal;
+            this.authenticationService = authenticationService;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            if (!userLoaded && "authenticatedUser".equals(name)) {
+                userLoaded = true;
+                super.setAttribute(name, authenticationService.getUserWithId(principal.id()));
+            }
+            return super.getAttribute(name);
+        }
+    }
 }
@@ -0,0 +1,63 @@
+/**
+ * Class Name: PublicRouteTable
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.filter;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * This class decides whether a request path is public (no JWT required). It is
+ * compiled once when the filter is created and answers every lookup with at most
+ * three hash-set probes, instead of scanning a list of endpoints per request:<br>
+ * - exact paths, such as "/api/v1/authentication/login"<br>
+ * - first-segment prefixes, such as "/static/", matched against everything below them<br>
+ * - file extensions, such as "css", matched against the last path segment
+ */
+public final class PublicRouteTable {
+
+    private final Set<String> exactPaths;
+    private final Set<String> segmentPrefixes;
+    private final Set<String> extensions;
+
+    /**
+     * Compiles a route table from its three kinds of rules.
+     *
+     * @param exactPaths paths that are public exactly as written
+     * @param segmentPrefixes single-segment prefixes ending in "/", such as "/static/"
+     * @param extensions file extensions without the dot, such as "js"
+     * @throws IllegalArgumentException if a prefix spans more than one path segment
+     */
+    public PublicRouteTable(Collection<String> exactPaths, Collection<String> segmentPrefixes, Collection<String> extensions) {
+        for (String prefix : segmentPrefixes) {
+            if (!prefix.startsWith("/") || !prefix.endsWith("/") || prefix.indexOf('/', 1) != prefix.length() - 1) {
+                throw new IllegalArgumentException("Prefix must be a single path segment like \"/static/\": " + prefix);
+            }
+        }
+        this.exactPaths = Set.copyOf(exactPaths);
+        this.segmentPrefixes = Set.copyOf(segmentPrefixes);
+        this.extensions = Set.copyOf(extensions);
+    }
+
+    /**
+     * Returns whether the given request path can be served without authentication.
+     *
+     * @param path the request URI, without query string
+     * @return {@code true} if the path matches an exact path, prefix, or extension rule
+     */
+    public boolean isPublic(String path) {
+        if (exactPaths.contains(path)) {
+            return true;
+        }
+
+        int secondSlash = path.indexOf('/', 1);
+        if (secondSlash > 0 && segmentPrefixes.contains(path.substring(0, secondSlash + 1))) {
+            return true;
+        }
+
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/') && extensions.contains(path.substring(dot + 1));
+    }
+}
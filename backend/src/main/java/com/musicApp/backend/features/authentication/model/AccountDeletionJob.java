@@ -0,0 +1,213 @@
+/**
+ * Class Name: AccountDeletionJob
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A pending or finished deletion of a user account. The job records which step of
+ * the deletion it has reached and how many rows it has deleted so far, so an
+ * interrupted deletion resumes where it stopped. Finished jobs are kept; they are
+ * how tokens of deleted users stay rejected on every instance and after a restart.
+ */
+@Entity
+@Table(name = "account_deletion_jobs", indexes = {
+        @Index(name = "idx_account_deletion_jobs_step", columnList = "step")
+})
+public class AccountDeletionJob {
+
+    /**
+     * The steps of a deletion, in the order they run. Each step deletes one kind
+     * of dependent row in chunks, children before parents, and ends the user row.
+     * A step may run more than one statement per chunk; the last one deletes the
+     * rows and its count decides when the step is finished. <br>
+     *
+     * Other users can still like, comment on and befriend a disabled account, so
+     * child rows may appear after their own step has run. The steps that delete
+     * parent rows therefore clear those children again for the same chunk first,
+     * or the parent delete would fail on a foreign key and be retried forever.
+     */
+    public enum Step {
+        // Lower the stored like count of the posts in the chunk before its likes go
+        LIKES("UPDATE posts SET like_count = GREATEST(like_count - 1, 0) WHERE id IN (SELECT post_id FROM " +
+                "(SELECT post_id FROM posts_likes WHERE user_id = :userId ORDER BY post_id LIMIT :limit) chunk)",
+                "DELETE FROM posts_likes WHERE user_id = :userId ORDER BY post_id LIMIT :limit"),
+        LIKES_ON_POSTS("DELETE FROM posts_likes WHERE post_id IN (SELECT id FROM posts WHERE author_id = :userId) LIMIT :limit"),
+        // Lower the comment count of the posts in the chunk and leave tombstones for syncing clients before its comments go
+        COMMENTS("UPDATE posts p JOIN (SELECT post_id, COUNT(*) AS n FROM " +
+                "(SELECT post_id FROM comments WHERE author_id = :userId ORDER BY id LIMIT :limit) chunk " +
+                "GROUP BY post_id) c ON c.post_id = p.id SET p.comment_count = GREATEST(p.comment_count - c.n, 0)",
+                "INSERT INTO feed_changes (type, post_id, comment_id) SELECT 'COMMENT_DELETED', post_id, id " +
+                "FROM comments WHERE author_id = :userId ORDER BY id LIMIT :limit",
+                "DELETE FROM comments WHERE author_id = :userId ORDER BY id LIMIT :limit"),
+        COMMENTS_ON_POSTS("DELETE FROM comments WHERE post_id IN (SELECT id FROM posts WHERE author_id = :userId) LIMIT :limit"),
+        TIMELINE("DELETE FROM timeline_entries WHERE user_id = :userId LIMIT :limit"),
+        TIMELINE_POSTS("DELETE FROM timeline_entries WHERE post_id IN (SELECT id FROM posts WHERE author_id = :userId) LIMIT :limit"),
+        // Leave tombstones for syncing clients and clear likes and comments added since
+        // their steps ran before the posts in the chunk go
+        POSTS("INSERT INTO feed_changes (type, post_id) SELECT 'POST_DELETED', id " +
+                "FROM posts WHERE author_id = :userId ORDER BY id LIMIT :limit",
+                "DELETE FROM posts_likes WHERE post_id IN (SELECT id FROM " +
+                "(SELECT id FROM posts WHERE author_id = :userId ORDER BY id LIMIT :limit) chunk)",
+                "DELETE FROM comments WHERE post_id IN (SELECT id FROM " +
+                "(SELECT id FROM posts WHERE author_id = :userId ORDER BY id LIMIT :limit) chunk)",
+                "DELETE FROM posts WHERE author_id = :userId ORDER BY id LIMIT :limit"),
+        NOTIFICATIONS("DELETE FROM notifications WHERE recipient_id = :userId OR sender_id = :userId LIMIT :limit"),
+        FRIENDSHIPS("DELETE FROM friendship WHERE user1_id = :userId OR user2_id = :userId LIMIT :limit"),
+        REVIEWS("DELETE FROM reviews WHERE userid = :userId LIMIT :limit"),
+        PLAYLIST_SONGS("DELETE FROM playlist_songs WHERE playlistid IN (SELECT playlistid FROM playlists WHERE userid = :userId) LIMIT :limit"),
+        PLAYLISTS("DELETE FROM playlists WHERE userid = :userId LIMIT :limit"),
+        // Clear friend requests and notifications sent to the user since their steps ran
+        USER("DELETE FROM notifications WHERE recipient_id = :userId OR sender_id = :userId",
+                "DELETE FROM friendship WHERE user1_id = :userId OR user2_id = :userId",
+                "DELETE FROM users WHERE id = :userId LIMIT :limit"),
+        DONE();
+
+        private final String[] statements;
+
+        Step(String... statements) {
+            this.statements = statements;
+        }
+
+        /**
+         * Returns the native statements of one chunk of this step, with the named
+         * parameters "userId" and "limit".
+         *
+         * @return the statements, in order; empty for {@link #DONE}
+         */
+        public String[] getStatements() {
+            return statements.clone();
+        }
+
+        public Step next() {
+            return this == DONE ? DONE : values()[ordinal() + 1];
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, unique = true)
+    private Long userId;
+
+    private String username;
+
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step", nullable = false, length = 32)
+    private Step step = Step.LIKES;
+
+    @Column(name = "rows_deleted", nullable = false)
+    private long rowsDeleted;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    public AccountDeletionJob() {
+    }
+
+    public AccountDeletionJob(Long userId, String username, String email) {
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    /**
+     * Records one deleted chunk. A chunk smaller than the limit means the current
+     * step has nothing left, so the job moves on to the next step.
+     *
+     * @param deleted the number of rows the chunk deleted
+     * @param limit the chunk size the chunk was run with
+     */
+    public void recordChunk(int deleted, int limit) {
+        rowsDeleted += deleted;
+        if (deleted < limit) {
+            step = step.next();
+            if (step == Step.DONE) {
+                completedAt = Instant.now();
+            }
+        }
+        lastError = null;
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Records a failed chunk; the job retries the same step on its next run.
+     *
+     * @param error the failure's message
+     */
+    public void recordFailure(String error) {
+        attempts++;
+        lastError = error == null || error.length() <= 1000 ? error : error.substring(0, 1000);
+        updatedAt = Instant.now();
+    }
+
+    public boolean isDone() {
+        return step == Step.DONE;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Step getStep() {
+        return step;
+    }
+
+    public long getRowsDeleted() {
+        return rowsDeleted;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+}
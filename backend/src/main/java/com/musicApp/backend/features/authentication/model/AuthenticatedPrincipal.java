@@ -0,0 +1,57 @@
+/**
+ * Class Name: AuthenticatedPrincipal
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.model;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * The identity of the caller of a secured endpoint, built by the authentication
+ * filter from the verified JWT alone. Handlers that only need to know who is
+ * calling should take this instead of the full {@link AuthenticationUser}, which
+ * costs a user lookup. <br>
+ *
+ * The username is the one the token was issued with; it is refreshed when the
+ * user logs in again after renaming.
+ *
+ * @param id the user's id ("uid" claim)
+ * @param username the user's username ("username" claim)
+ * @param email the user's email (token subject)
+ * @param tokenId the token's id ("jti" claim), or {@code null} for older tokens
+ */
+public record AuthenticatedPrincipal(Long id, String username, String email, String tokenId) {
+
+    /** Name of the claim holding the user's id. */
+    public static final String USER_ID_CLAIM = "uid";
+
+    /** Name of the claim holding the user's username. */
+    public static final String USERNAME_CLAIM = "username";
+
+    /**
+     * Builds a principal from verified claims.
+     *
+     * @param claims the verified claims of the request's token
+     * @return the principal, or {@code null} if the token predates the "uid" claim
+     */
+    public static AuthenticatedPrincipal fromClaims(Claims claims) {
+        Number id = claims.get(USER_ID_CLAIM, Number.class);
+        if (id == null) {
+            return null;
+        }
+        return new AuthenticatedPrincipal(id.longValue(), claims.get(USERNAME_CLAIM, String.class),
+                claims.getSubject(), claims.getId());
+    }
+
+    /**
+     * Builds a principal from a loaded user, for tokens issued without identity claims.
+     *
+     * @param user the user the token belongs to
+     * @param tokenId the token's id, or {@code null}
+     * @return the principal
+     */
+    public static AuthenticatedPrincipal fromUser(AuthenticationUser user, String tokenId) {
+        return new AuthenticatedPrincipal(user.getId(), user.getUsername(), user.getEmail(), tokenId);
+    }
+}
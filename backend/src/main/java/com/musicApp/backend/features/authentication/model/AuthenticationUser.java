@@ -11,6 +11,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,7 +33,9 @@ import com.musicApp.backend.features.feed.model.Post;;
  */ 
 // @Entity(name="users")
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_changed_at", columnList = "changed_at")
+})
 public class AuthenticationUser {
 
     @Id
@@ -58,6 +61,12 @@ public class AuthenticationUser {
     private String passwordResetToken = null;
     private LocalDateTime passwordResetTokenExpiryDate = null;
     private Boolean loginStatus = false; //find a way to change when someone is online
+    @JsonIgnore
+    private Boolean disabled = false;
+
+    // Spotify account linked through the Spotify OAuth callback
+    @Column(name = "spotify_user_id", unique = true, length = 128)
+    private String spotifyUserId;
     private int playlist_count;
     private int friends_count;
     private int color = 12901359;
@@ -91,6 +100,28 @@ public class AuthenticationUser {
 
     private String profilePicture = null;
 
+    /**
+     * Approximate count of the distinct users who viewed the profile, and the
+     * HyperLogLog sketch it is estimated from. Only {@code ViewCounter} writes them,
+     * with native updates, so saving a user never overwrites them.
+     */
+    @ColumnDefault("0")
+    @Column(name = "profile_view_count", nullable = false, insertable = false, updatable = false)
+    private long profileViewCount;
+
+    @Column(name = "profile_view_sketch", length = 2050, insertable = false, updatable = false)
+    private byte[] profileViewSketch;
+
+    /**
+     * When the row was inserted or last changed, set by the database on every
+     * change except profile view counts. {@code StoredVersions} tags responses with
+     * it, and a cached user older than the stored one is reloaded.
+     */
+    @JsonIgnore
+    @Column(name = "changed_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime changedAt;
+
     @JsonIgnore
     @OneToMany(
         mappedBy =  "author",
@@ -341,6 +372,38 @@ public class AuthenticationUser {
         this.loginStatus = loginStatus;
     }
 
+    /**
+     * Returns the id of the user's linked Spotify account.
+     * @return the Spotify user id, or null if no account is linked
+     */
+    public String getSpotifyUserId(){
+        return spotifyUserId;
+    }
+
+    /**
+     * Links a Spotify account to the user.
+     * @param spotifyUserId the Spotify user id, or null to unlink
+     */
+    public void setSpotifyUserId(String spotifyUserId){
+        this.spotifyUserId = spotifyUserId;
+    }
+
+    /**
+     * Returns if the account is disabled, which it is while it is being deleted.
+     * @return true if the user can no longer log in
+     */
+    public boolean isDisabled(){
+        return Boolean.TRUE.equals(disabled);
+    }
+
+    /**
+     * Disables or re-enables the account.
+     * @param disabled true to stop the user from logging in
+     */
+    public void setDisabled(Boolean disabled){
+        this.disabled = disabled;
+    }
+
     /**
      * Assigns a new mood to the user.
      * @param currentMood {@link Mood} object representing current emotional state
@@ -405,6 +468,20 @@ public class AuthenticationUser {
         return profileImageUpdatedAt;
     }
 
+    /**
+     * Left out of the user's JSON: profile view flushes do not move
+     * {@link #changedAt}, so responses that embed users would not be retagged.
+     * The profile endpoint returns the count on its own.
+     */
+    @JsonIgnore
+    public long getProfileViewCount() {
+        return profileViewCount;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
     public void setPosition(String position) {
         this.position = position;
     }
@@ -0,0 +1,53 @@
+/**
+ * Class Name: RevokedToken
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A JWT that was revoked before it expired, for example on logout. Tokens are
+ * identified by their "jti" claim; the row can be deleted once the token's own
+ * expiry has passed.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+public class RevokedToken {
+
+    @Id
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String tokenId, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+        this.revokedAt = Instant.now();
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+}
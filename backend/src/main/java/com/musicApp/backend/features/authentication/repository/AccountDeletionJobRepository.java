@@ -0,0 +1,44 @@
+/**
+ * Class Name: AccountDeletionJobRepository
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.repository;
+
+import com.musicApp.backend.features.authentication.model.AccountDeletionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for account deletion jobs.
+ */
+public interface AccountDeletionJobRepository extends JpaRepository<AccountDeletionJob, Long> {
+
+    boolean existsByUserId(Long userId);
+
+    /**
+     * Locks the unfinished job that progressed least recently. Jobs locked by
+     * another transaction are skipped, so each instance claims a different job
+     * and a chunk is never run twice. Must be called inside a transaction; the
+     * lock is held until it ends.
+     * @return the claimed job, or empty if every unfinished job is locked or there is none
+     */
+    @Query(value = "SELECT * FROM account_deletion_jobs WHERE step <> 'DONE' ORDER BY updated_at, id LIMIT 1 " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<AccountDeletionJob> claimNext();
+
+    /**
+     * Returns the jobs requested after the given time.
+     * @param since the earliest request time to include
+     * @return a {@link List} of jobs
+     */
+    @Query("SELECT j FROM AccountDeletionJob j WHERE j.createdAt > :since")
+    List<AccountDeletionJob> findRequestedSince(@Param("since") Instant since);
+
+    long countByStepNot(AccountDeletionJob.Step step);
+}
@@ -7,6 +7,10 @@ package com.musicApp.backend.features.authentication.repository;
 
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -47,5 +51,56 @@ public interface AuthenticationUserRepository extends JpaRepository<Authenticati
      */
     // Find all currently logged-in users
     List<AuthenticationUser> findByLoginStatusTrue();
-}
 
+    /**
+     * Returns every username, for loading the availability index.
+     * @return a {@link List} of all usernames
+     */
+    @Query("SELECT u.username FROM AuthenticationUser u WHERE u.username IS NOT NULL")
+    List<String> findAllUsernames();
+
+    /**
+     * Returns every email, for loading the availability index.
+     * @return a {@link List} of all emails
+     */
+    @Query("SELECT u.email FROM AuthenticationUser u WHERE u.email IS NOT NULL")
+    List<String> findAllEmails();
+
+    /**
+     * Sets the login status of several users in one statement. Used by the presence
+     * snapshot instead of saving each user.
+     * @param ids the ids of the users to update
+     * @param status the new login status
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AuthenticationUser u SET u.loginStatus = :status WHERE u.id IN :ids")
+    int updateLoginStatus(@Param("ids") List<Long> ids, @Param("status") boolean status);
+
+    /**
+     * Marks every user as logged out.
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AuthenticationUser u SET u.loginStatus = false WHERE u.loginStatus = true")
+    int clearLoginStatus();
+
+    /**
+     * Disables a user so they can no longer log in, without loading the entity.
+     * @param id the id of the user
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AuthenticationUser u SET u.disabled = true WHERE u.id = :id")
+    int disable(@Param("id") Long id);
+
+    /**
+     * Finds the user a Spotify account is linked to.
+     * @param spotifyUserId the Spotify user id
+     * @return an {@link Optional} containing the user if the account is linked
+     */
+    Optional<AuthenticationUser> findBySpotifyUserId(String spotifyUserId);
+}
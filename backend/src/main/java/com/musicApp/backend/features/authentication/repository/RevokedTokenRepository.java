@@ -0,0 +1,41 @@
+/**
+ * Class Name: RevokedTokenRepository
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.repository;
+
+import com.musicApp.backend.features.authentication.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for revoked JWTs, keyed by token id.
+ */
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Returns the ids of revoked tokens that have not expired yet.
+     * @param now the current time
+     * @return a {@link List} of token ids
+     */
+    @Query("SELECT r.tokenId FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findActiveTokenIds(@Param("now") Instant now);
+
+    /**
+     * Deletes revoked tokens whose expiry has passed; they are rejected by the
+     * signature check anyway.
+     * @param now the current time
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,233 @@
+/**
+ * Class Name: AccountDeletionService
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.service;
+
+import com.musicApp.backend.features.authentication.model.AccountDeletionJob;
+import com.musicApp.backend.features.authentication.model.AuthenticationUser;
+import com.musicApp.backend.features.authentication.repository.AccountDeletionJobRepository;
+import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This service deletes user accounts in the background. A deletion request only
+ * disables the account, revokes the user's tokens and records an
+ * {@link AccountDeletionJob}; the request returns straight away. <br>
+ *
+ * A scheduled worker then removes the user's likes, comments, timeline entries, posts, notifications,
+ * friendships, reviews and playlists with native DELETE statements of at most
+ * {@code auth.deletion.chunk-size} rows, each in its own short transaction that
+ * also saves the job's progress, and finally removes the user row. Each run does
+ * one chunk of one job, so a large account does not hold the scheduler thread.
+ * The chunk's transaction locks the job row and skips jobs locked by other
+ * instances, so every chunk runs exactly once however many instances poll.
+ * Unfinished jobs are picked up again after a restart. <br>
+ *
+ * The job rows are also the stored record of revoked users: every instance
+ * reloads the recent ones on a schedule, so a deleted user's tokens are rejected
+ * everywhere within {@code auth.deletion.revocation-sync-millis}, and straight
+ * away on the instance that took the request.
+ */
+@Service
+public class AccountDeletionService {
+    private static final Logger logger = LoggerFactory.getLogger(AccountDeletionService.class);
+
+    /**
+     * Tokens live for 10 hours; deleted users stay revoked at least that long.
+     */
+    private static final Duration TOKEN_LIFETIME = Duration.ofHours(10);
+
+    private final AccountDeletionJobRepository jobRepository;
+    private final AuthenticationUserRepository authenticationUserRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final AuthenticatedUserCache userCache;
+    private final PresenceRegistry presenceRegistry;
+    private final AvailabilityIndex availabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder rowsDeleted = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Creates an AccountDeletionService.
+     *
+     * @param jobRepository the store of deletion jobs
+     * @param authenticationUserRepository the repository used to disable accounts
+     * @param tokenRevocationService the service that rejects the deleted user's tokens
+     * @param userCache the cache the user is removed from
+     * @param presenceRegistry the registry the user is marked offline in
+     * @param availabilityIndex the index whose username and email are freed once the user row is gone
+     * @param transactionManager the transaction manager each chunk runs in
+     * @param chunkSize the maximum number of rows one DELETE statement removes
+     */
+    public AccountDeletionService(AccountDeletionJobRepository jobRepository,
+                                  AuthenticationUserRepository authenticationUserRepository,
+                                  TokenRevocationService tokenRevocationService,
+                                  AuthenticatedUserCache userCache,
+                                  PresenceRegistry presenceRegistry,
+                                  AvailabilityIndex availabilityIndex,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${auth.deletion.chunk-size:500}") int chunkSize) {
+        this.jobRepository = jobRepository;
+        this.authenticationUserRepository = authenticationUserRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userCache = userCache;
+        this.presenceRegistry = presenceRegistry;
+        this.availabilityIndex = availabilityIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Revokes the tokens of users whose deletion was requested, on any instance,
+     * recently enough that they may still hold an unexpired token.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${auth.deletion.revocation-sync-millis:2000}",
+            initialDelayString = "${auth.deletion.revocation-sync-millis:2000}")
+    public void syncRevokedUsers() {
+        List<AccountDeletionJob> jobs = jobRepository.findRequestedSince(Instant.now().minus(TOKEN_LIFETIME));
+        jobs.forEach(job -> tokenRevocationService.revokeUser(job.getUserId(), job.getCreatedAt().plus(TOKEN_LIFETIME)));
+        logger.debug("Synced token revocation for {} deleted users", jobs.size());
+    }
+
+    /**
+     * Disables a user's account and queues its deletion. Calling this again for the
+     * same user has no further effect.
+     *
+     * @param userId the id of the user to delete
+     * @throws IllegalArgumentException if no user is found with the given id
+     */
+    public void requestDeletion(Long userId) {
+        AuthenticationUser user = authenticationUserRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found."));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jobRepository.existsByUserId(userId)) {
+                return;
+            }
+            authenticationUserRepository.disable(userId);
+            jobRepository.save(new AccountDeletionJob(userId, user.getUsername(), user.getEmail()));
+            requested.increment();
+        });
+        tokenRevocationService.revokeUser(userId, Instant.now().plus(TOKEN_LIFETIME));
+        userCache.invalidateId(userId);
+        presenceRegistry.markOffline(userId);
+    }
+
+    /**
+     * Runs one chunk of the unfinished job that progressed least recently and is
+     * not being run by another instance, so jobs take turns. A failing job is left
+     * at its current step and retried on a later run.
+     */
+    @Scheduled(fixedDelayString = "${auth.deletion.poll-millis:1000}")
+    public void processPendingJobs() {
+        Long[] claimed = new Long[1];
+        int[] rows = new int[1];
+        try {
+            Optional<AccountDeletionJob> finished = transactionTemplate.execute(status -> {
+                Optional<AccountDeletionJob> next = jobRepository.claimNext();
+                if (next.isEmpty()) {
+                    return Optional.empty();
+                }
+                AccountDeletionJob job = next.get();
+                claimed[0] = job.getId();
+                rows[0] = runChunk(job);
+                return job.isDone() ? next : Optional.empty();
+            });
+            if (claimed[0] != null) {
+                chunks.increment();
+                rowsDeleted.add(rows[0]);
+            }
+            finished.ifPresent(this::complete);
+        } catch (RuntimeException e) {
+            failures.increment();
+            if (claimed[0] == null) {
+                logger.warn("Claiming an account deletion job failed; will retry", e);
+                return;
+            }
+            // The failed chunk rolled back, so record the failure on the job as it was last saved
+            jobRepository.findById(claimed[0]).ifPresent(saved -> {
+                saved.recordFailure(e.getMessage());
+                jobRepository.save(saved);
+                logger.warn("Deleting user {} failed at step {}; will retry", saved.getUserId(), saved.getStep(), e);
+            });
+        }
+    }
+
+    /**
+     * Runs one chunk of the job's current step and saves its progress. Must run in
+     * the transaction that claimed the job.
+     *
+     * @return the number of rows the chunk deleted
+     */
+    private int runChunk(AccountDeletionJob job) {
+        int rows = 0;
+        for (String sql : job.getStep().getStatements()) {
+            Query query = entityManager.createNativeQuery(sql).setParameter("userId", job.getUserId());
+            // Statements that clear late child rows have no limit; they must clear all of them
+            if (sql.contains(":limit")) {
+                query.setParameter("limit", chunkSize);
+            }
+            rows = query.executeUpdate();
+        }
+        job.recordChunk(rows, chunkSize);
+        jobRepository.save(job);
+        return rows;
+    }
+
+    private void complete(AccountDeletionJob job) {
+        availabilityIndex.release(job.getUsername(), job.getEmail());
+        userCache.invalidateId(job.getUserId());
+        completed.increment();
+        logger.info("Deleted user {} ({} rows)", job.getUserId(), job.getRowsDeleted());
+    }
+
+    public long getRequestedCount() {
+        return requested.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getChunkCount() {
+        return chunks.sum();
+    }
+
+    public long getRowsDeletedCount() {
+        return rowsDeleted.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public long getPendingCount() {
+        return jobRepository.countByStepNot(AccountDeletionJob.Step.DONE);
+    }
+}
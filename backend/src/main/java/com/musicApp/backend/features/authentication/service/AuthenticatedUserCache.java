@@ -0,0 +1,213 @@
+/**
+ * Class Name: AuthenticatedUserCache
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.service;
+
+import com.musicApp.backend.features.authentication.model.AuthenticationUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class caches the users resolved for authenticated requests, keyed by both
+ * email and id, so the request filter and the profile endpoints do not query the
+ * "users" table on every request. The cache is bounded, entries expire after a
+ * configurable time, and {@link AuthenticationService} invalidates a user whenever
+ * it is changed. Cached users are detached entities and must be treated as read-only;
+ * code that modifies a user should load it through the repository instead. <br>
+ *
+ * Because every change to a user goes through an invalidation, the cache also
+ * counts them: each user has a version, kept in a fixed number of shared slots, and
+ * there is one version for all users. Conditional GETs of profiles and feeds use
+ * these as part of their ETags.
+ */
+@Component
+public class AuthenticatedUserCache {
+
+    private record Entry(AuthenticationUser user, long expiresAtMillis) {}
+
+    private static final int VERSION_SLOTS = 4096;
+
+    private final Map<String, Entry> byEmail = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_SLOTS);
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Creates an AuthenticatedUserCache with the configured capacity and time to live.
+     *
+     * @param maxEntries the maximum number of users kept in memory
+     * @param ttlSeconds how long a cached user is served before it is reloaded
+     */
+    public AuthenticatedUserCache(
+            @Value("${auth.user-cache.max-entries:10000}") int maxEntries,
+            @Value("${auth.user-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Returns the cached user with the given email.
+     *
+     * @param email the user's email
+     * @return the cached {@link AuthenticationUser}, or {@code null} on a miss
+     */
+    public AuthenticationUser getByEmail(String email) {
+        return unwrap(byEmail.get(email));
+    }
+
+    /**
+     * Returns the cached user with the given id.
+     *
+     * @param id the user's id
+     * @return the cached {@link AuthenticationUser}, or {@code null} on a miss
+     */
+    public AuthenticationUser getById(Long id) {
+        return unwrap(byId.get(id));
+    }
+
+    /**
+     * Adds a user loaded from the database to the cache under its email and id.
+     *
+     * @param user the user to cache
+     */
+    public void put(AuthenticationUser user) {
+        if (user == null || user.getId() == null || user.getEmail() == null) {
+            return;
+        }
+        if (byId.size() >= maxEntries) {
+            evict();
+        }
+        Entry entry = new Entry(user, System.currentTimeMillis() + ttlMillis);
+        byEmail.put(user.getEmail(), entry);
+        byId.put(user.getId(), entry);
+    }
+
+    /**
+     * Removes a user from the cache under both of its keys.
+     *
+     * @param user the user that was changed or deleted
+     */
+    public void invalidate(AuthenticationUser user) {
+        if (user == null) {
+            return;
+        }
+        if (user.getId() != null) {
+            invalidateId(user.getId());
+        }
+        if (user.getEmail() != null) {
+            invalidateEmail(user.getEmail());
+        }
+    }
+
+    /**
+     * Removes the user with the given id from the cache.
+     *
+     * @param id the id of the user that was changed or deleted
+     */
+    public void invalidateId(Long id) {
+        versions.incrementAndGet(versionSlot(id));
+        changes.incrementAndGet();
+        Entry entry = byId.remove(id);
+        if (entry != null) {
+            byEmail.remove(entry.user().getEmail(), entry);
+        }
+    }
+
+    /**
+     * Removes the user with the given email from the cache.
+     *
+     * @param email the email of the user that was changed or deleted
+     */
+    public void invalidateEmail(String email) {
+        Entry entry = byEmail.remove(email);
+        changes.incrementAndGet();
+        if (entry != null) {
+            versions.incrementAndGet(versionSlot(entry.user().getId()));
+            byId.remove(entry.user().getId(), entry);
+        }
+    }
+
+    private AuthenticationUser unwrap(Entry entry) {
+        if (entry == null || entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            if (entry != null) {
+                // Expiry is not a change, so it leaves the versions alone
+                byId.remove(entry.user().getId(), entry);
+                byEmail.remove(entry.user().getEmail(), entry);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.user();
+    }
+
+    /**
+     * Drops expired users first; if the cache is still full, drops users in
+     * iteration order until a tenth of the capacity is free again.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        byId.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        byEmail.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<Entry> entries = byId.values().iterator();
+        while (byId.size() > target && entries.hasNext()) {
+            Entry entry = entries.next();
+            entries.remove();
+            byEmail.remove(entry.user().getEmail(), entry);
+        }
+    }
+
+    /**
+     * Returns the version of a user, which changes whenever the user is invalidated.
+     * Users sharing a slot share a version.
+     *
+     * @param id the user's id
+     * @return the user's version
+     */
+    public long getVersion(Long id) {
+        return versions.get(versionSlot(id));
+    }
+
+    /**
+     * Returns the version of all users, which changes whenever any user is invalidated.
+     *
+     * @return the version of all users
+     */
+    public long getChangeVersion() {
+        return changes.get();
+    }
+
+    private static int versionSlot(Long id) {
+        return Math.floorMod(Long.hashCode(id), VERSION_SLOTS);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+}
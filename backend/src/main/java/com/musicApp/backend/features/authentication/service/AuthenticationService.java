@@ -8,14 +8,14 @@ package com.musicApp.backend.features.authentication.service;
 
 import com.musicApp.backend.features.authentication.dto.AuthenticationRequestBody;
 import com.musicApp.backend.features.authentication.dto.AuthenticationResponseBody;
+import com.musicApp.backend.features.authentication.dto.OnlineUserResponse;
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
-import com.musicApp.backend.features.authentication.utils.EmailService;
 import com.musicApp.backend.features.authentication.utils.Encoder;
 import com.musicApp.backend.features.authentication.utils.JsonWebToken;
+import com.musicApp.backend.features.authentication.utils.PasswordHasher;
+import com.musicApp.backend.features.email.service.EmailOutboxService;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 
 import org.slf4j.Logger;
@@ -25,6 +25,7 @@ import org.springframework.stereotype.Service;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -34,9 +35,10 @@ import java.util.Optional;
  *
  * It integrates with:<br>
  * - AuthenticationUserRepository for database operations<br>
- * - Encoder for password/token hashing<br>
+ * - PasswordHasher for password hashing<br>
+ * - Encoder for token hashing<br>
  * - JsonWebToken for JWT generation and verification<br>
- * - EmailService for sending emails to users<br>
+ * - EmailOutboxService for queueing emails to users<br>
  */
 @Service
 public class AuthenticationService {
@@ -47,16 +49,25 @@ public class AuthenticationService {
     private final JsonWebToken jsonWebToken;
     private final Encoder encoder;
     //private final AuthenticationUserRepository authenticationUserRepository;
-    private final EmailService emailService;
-
-    @PersistenceContext
-    private EntityManager entityManager;
-
-    public AuthenticationService(JsonWebToken jsonWebToken, Encoder encoder, AuthenticationUserRepository authenticationUserRepository, EmailService emailService){
+    private final EmailOutboxService emailOutbox;
+    private final AuthenticatedUserCache userCache;
+    private final PasswordHasher passwordHasher;
+    private final PresenceRegistry presenceRegistry;
+    private final TokenRevocationService tokenRevocationService;
+    private final AvailabilityIndex availabilityIndex;
+    private final AccountDeletionService accountDeletionService;
+
+    public AuthenticationService(JsonWebToken jsonWebToken, Encoder encoder, AuthenticationUserRepository authenticationUserRepository, EmailOutboxService emailOutbox, AuthenticatedUserCache userCache, PasswordHasher passwordHasher, PresenceRegistry presenceRegistry, TokenRevocationService tokenRevocationService, AvailabilityIndex availabilityIndex, AccountDeletionService accountDeletionService){
         this.jsonWebToken = jsonWebToken;
         this.encoder = encoder;
         this.authenticationUserRepository = authenticationUserRepository;
-        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.userCache = userCache;
+        this.passwordHasher = passwordHasher;
+        this.presenceRegistry = presenceRegistry;
+        this.tokenRevocationService = tokenRevocationService;
+        this.availabilityIndex = availabilityIndex;
+        this.accountDeletionService = accountDeletionService;
     }
  
 
@@ -86,6 +97,7 @@ public class AuthenticationService {
      * @param email the email address of the user to send the verification token to
      * @throws IllegalArgumentException if the user is not found or already verified
      */
+@Transactional
 public void sendEmailVerificationToken(String email) {
     Optional<AuthenticationUser> userOpt = authenticationUserRepository.findByEmail(email);
 
@@ -105,19 +117,13 @@ public void sendEmailVerificationToken(String email) {
     user.setEmailVerificationTokenExpiryDate(LocalDateTime.now().plusMinutes(durationInMinutes));
     authenticationUserRepository.save(user);
 
-    System.out.println("Generated token for " + email + ": " + emailVerificationToken); //  debug
-
     String subject = "Email Verification";
     String body = String.format(
         "Only one step to take full advantage of Moody.\n\nEnter this code to verify your email: %s. The code will expire in %d minutes.",
         emailVerificationToken, durationInMinutes
     );
 
-    try {
-        emailService.sendEmail(email, subject, body);
-    } catch (Exception e) {
-        System.err.println("Error sending verification email: " + e.getMessage());
-    }
+    emailOutbox.enqueue(email, subject, body);
 }
 
 
@@ -155,6 +161,7 @@ public void validateEmailVerificationToken(String token, String email) {
         user.setEmailVerificationTokenExpiryDate(null);
         // Node 8: Save updated user
         authenticationUserRepository.save(user);
+        userCache.invalidate(user);
         // Node 9: Print success message
         System.out.println("Email verified for: " + email);
     } 
@@ -171,35 +178,104 @@ public void validateEmailVerificationToken(String token, String email) {
 
 
     /**
-     *     Retrieves the AuthenticationUser from the repository.
+     *     Retrieves the AuthenticationUser, served from the {@link AuthenticatedUserCache}
+     *     when possible. The returned user is shared and must not be modified.
      * @param email the email address of the user to retrieve
      * @return the {@link AuthenticationUser} matching the provided email
      * @throws IllegalArgumentException if no user is found with the given email
      */
     public AuthenticationUser getUser(String email){
-        return authenticationUserRepository.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        AuthenticationUser cached = userCache.getByEmail(email);
+        if (cached != null) {
+            return cached;
+        }
+        AuthenticationUser user = authenticationUserRepository.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        userCache.put(user);
+        return user;
     }
 
+    /**
+     *     Retrieves the AuthenticationUser by id, served from the {@link AuthenticatedUserCache}
+     *     when possible. The returned user is shared and must not be modified.
+     * @param id the id of the user to retrieve
+     * @return the {@link AuthenticationUser} with the provided id
+     * @throws IllegalArgumentException if no user is found with the given id
+     */
     public AuthenticationUser getUserWithId(long id){
+        AuthenticationUser cached = userCache.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+        AuthenticationUser user = authenticationUserRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found."));
+        userCache.put(user);
+        return user;
+    }
+
+    /**
+     *     Retrieves the AuthenticationUser by id like {@link #getUserWithId(long)}, but
+     *     reloads a cached user that is older than the stored row, for example one
+     *     changed on another instance.
+     * @param id the id of the user to retrieve
+     * @param changedAt the stored row's {@code changed_at}
+     * @return the {@link AuthenticationUser} with the provided id
+     * @throws IllegalArgumentException if no user is found with the given id
+     */
+    public AuthenticationUser getUserWithId(long id, LocalDateTime changedAt){
+        AuthenticationUser cached = userCache.getById(id);
+        if (cached != null && Objects.equals(cached.getChangedAt(), changedAt)) {
+            return cached;
+        }
+        if (cached != null) {
+            userCache.invalidate(cached);
+        }
+        AuthenticationUser user = authenticationUserRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found."));
+        userCache.put(user);
+        return user;
+    }
+
+    /**
+     *     Loads a user straight from the repository, bypassing the cache, so it can be modified
+     *     and passed to {@link #saveUser(AuthenticationUser)}.
+     * @param id the id of the user to load
+     * @return the {@link AuthenticationUser} with the provided id
+     * @throws IllegalArgumentException if no user is found with the given id
+     */
+    public AuthenticationUser getUserForUpdate(long id){
         return authenticationUserRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found."));
     }
 
+    /**
+     *     Saves a modified user and invalidates its cached copy.
+     * @param user the user to save
+     * @return the saved {@link AuthenticationUser}
+     */
+    public AuthenticationUser saveUser(AuthenticationUser user){
+        AuthenticationUser saved = authenticationUserRepository.save(user);
+        userCache.invalidate(saved);
+        return saved;
+    }
+
     /**
      *     Registers a new user, encodes their password, generates an email verification token,
      *     sends the verification email, and returns a JWT in the AuthenticationResponseBody.
+     *     The username and email are claimed in the {@link AvailabilityIndex} first, so the
+     *     user is stored with a single insert.
      * @param registerRequestBody a DTO containing user registration details
      * @return an {@link AuthenticationResponseBody} containing the JWT and a confirmation message
+     * @throws IllegalArgumentException if the username or email is already taken
      */
+@Transactional
 public AuthenticationResponseBody register(AuthenticationRequestBody registerRequestBody) {
+    availabilityIndex.reserve(registerRequestBody.getUsername(), registerRequestBody.getEmail());
+
     AuthenticationUser user = new AuthenticationUser(
         registerRequestBody.getName(),
         registerRequestBody.getLastName(),
         registerRequestBody.getUsername(),
         registerRequestBody.getEmail(),
-        encoder.encode(registerRequestBody.getPassword())
+        passwordHasher.hash(registerRequestBody.getPassword())
     );
     user.setColor(12901359);
-    user = authenticationUserRepository.save(user);
 
     // Generate email verification token
     String emailVerificationToken = generateEmailVerificationToken();
@@ -216,14 +292,10 @@ public AuthenticationResponseBody register(AuthenticationRequestBody registerReq
 
             Enter this code to verify your email: %s. The code will expire in %s minutes.""",
             emailVerificationToken, durationInMinutes);
-    try {
-        emailService.sendEmail(registerRequestBody.getEmail(), subject, body);
-    } catch (Exception e) {
-        logger.info("Error while sending email: {}", e.getMessage());
-    }
+    emailOutbox.enqueue(registerRequestBody.getEmail(), subject, body);
 
     // Generate JWT token
-    String authToken = jsonWebToken.generateToken(registerRequestBody.getEmail());
+    String authToken = jsonWebToken.generateToken(user);
 
     return new AuthenticationResponseBody(authToken, "User registered successfully.");
 }
@@ -236,6 +308,7 @@ public AuthenticationResponseBody register(AuthenticationRequestBody registerReq
      * @param email the email address of the user requesting a password reset
      * @throws IllegalArgumentException if the user does not exist
      */
+    @Transactional
     public void sendPasswordResetToken(String email) {
         Optional<AuthenticationUser> user = authenticationUserRepository.findByEmail(email);
         if (user.isPresent()) {
@@ -250,11 +323,7 @@ public AuthenticationResponseBody register(AuthenticationRequestBody registerReq
 
                     Enter this code to reset your password: %s. The code will expire in %s minutes.""",
                     passwordResetToken, durationInMinutes);
-            try {
-                emailService.sendEmail(email, subject, body);
-            } catch (Exception e) {
-                logger.info("Error while sending email: {}", e.getMessage());
-            }
+            emailOutbox.enqueue(email, subject, body);
         } else {
             throw new IllegalArgumentException("User not found.");
         }
@@ -274,8 +343,9 @@ public AuthenticationResponseBody register(AuthenticationRequestBody registerReq
                 && !user.get().getPasswordResetTokenExpiryDate().isBefore(LocalDateTime.now())) {
             user.get().setPasswordResetToken(null);
             user.get().setPasswordResetTokenExpiryDate(null);
-            user.get().setPassword(encoder.encode(newPassword));
+            user.get().setPassword(passwordHasher.hash(newPassword));
             authenticationUserRepository.save(user.get());
+            userCache.invalidate(user.get());
         } else if (user.isPresent() && encoder.matches(token, user.get().getPasswordResetToken())
                 && user.get().getPasswordResetTokenExpiryDate().isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("Password reset token expired.");
@@ -300,22 +370,30 @@ public AuthenticationResponseBody register(AuthenticationRequestBody registerReq
         AuthenticationUser user = authenticationUserRepository
         .findByEmail(loginRequestBody.getEmail())
         .orElseThrow(() -> new IllegalArgumentException("User not found."));
-       // Node 2: exit (user not found)
+       // Node 2: exit (user not found, or account being deleted)
+        if (user.isDisabled()) {
+            throw new IllegalArgumentException("User not found.");
+        }
        
 
         // Node 3: Validate password
-        if (!encoder.matches(loginRequestBody.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(loginRequestBody.getPassword(), user.getPassword())) {
             throw new IllegalArgumentException("Password is incorrect.");
         }
 
-        // Node 4: Mark user as online
-        user.setLoginStatus(true);
+        // Node 4: Upgrade legacy SHA-256 or under-strength hashes while the plain password is at hand
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHasher.hash(loginRequestBody.getPassword()));
+            authenticationUserRepository.save(user);
+            userCache.invalidate(user);
+        }
 
-        // Node 5: Save updated user
-        authenticationUserRepository.save(user);
+        // Node 5: Mark user as online (in memory; persisted by the next presence snapshot)
+        presenceRegistry.heartbeat(user.getId(), user.getUsername());
+        user.setLoginStatus(true);
 
         // Node 6: Generate JWT token
-        String token = jsonWebToken.generateToken(loginRequestBody.getEmail());
+        String token = jsonWebToken.generateToken(user);
         
         // Node 7: Return response body
         return new AuthenticationResponseBody(token, "Authentication succeeded. ", 
@@ -328,25 +406,85 @@ public AuthenticationResponseBody register(AuthenticationRequestBody registerReq
 
 /**
  *   logout(String token):
- *     Marks the user associated with the JWT as offline.
+ *     Marks the user associated with the JWT as offline and revokes the JWT.
      * @param token the JWT token of the user to log out
      * @throws IllegalArgumentException if no user corresponds to the provided token
      */
 public void logout(String token) {
     String email = jsonWebToken.getEmailFromToken(token);
-    AuthenticationUser user = authenticationUserRepository.findByEmail(email)
-            .orElseThrow(() -> new IllegalArgumentException("User not found."));
+    AuthenticationUser user = getUser(email);
 
-    user.setLoginStatus(false);
-    authenticationUserRepository.save(user);
+    presenceRegistry.markOffline(user.getId());
+    tokenRevocationService.revoke(token);
 }
 
 /**
- *  Returns a list of all currently logged-in users.
-     * @return a {@link List} of {@link AuthenticationUser} objects representing online users
+ *  Marks a user as online in the presence registry.
+     * @param user the user who is active
      */
-public List<AuthenticationUser> getOnlineUsers() {
-    return authenticationUserRepository.findByLoginStatusTrue();
+public void markOnline(AuthenticationUser user) {
+    presenceRegistry.heartbeat(user.getId(), user.getUsername());
+}
+
+/**
+ *  Returns a list of all currently logged-in users, served from the presence registry.
+     * @return a {@link List} of {@link OnlineUserResponse} objects representing online users
+     */
+public List<OnlineUserResponse> getOnlineUsers() {
+    return presenceRegistry.getOnlineUsers();
+}
+
+/**
+ *  Changes a user's username after checking it against the {@link AvailabilityIndex}.
+     * @param userId the id of the user
+     * @param username the new username
+     * @return the updated {@link AuthenticationUser}
+     * @throws IllegalArgumentException if the username is taken by another user
+     */
+public AuthenticationUser changeUsername(Long userId, String username) {
+    AuthenticationUser user = getUserForUpdate(userId);
+    String previous = user.getUsername();
+    availabilityIndex.rename(previous, username);
+    user.setUsername(username);
+    try {
+        return saveUser(user);
+    } catch (RuntimeException e) {
+        availabilityIndex.rename(username, previous);
+        throw e;
+    }
+}
+
+/**
+ *  Links a Spotify account to a user. A Spotify account belongs to one user, so any
+ *  other user it was linked to loses the link.
+     * @param userId the id of the user
+     * @param spotifyUserId the Spotify user id returned by the Spotify OAuth callback, or {@code null} to unlink
+     * @throws IllegalArgumentException if no user is found with the given id
+     */
+@Transactional
+public void linkSpotifyAccount(Long userId, String spotifyUserId) {
+    if (spotifyUserId != null) {
+        authenticationUserRepository.findBySpotifyUserId(spotifyUserId)
+                .filter(previous -> !previous.getId().equals(userId))
+                .ifPresent(previous -> {
+                    previous.setSpotifyUserId(null);
+                    authenticationUserRepository.saveAndFlush(previous);
+                    userCache.invalidateId(previous.getId());
+                });
+    }
+    AuthenticationUser user = getUserForUpdate(userId);
+    user.setSpotifyUserId(spotifyUserId);
+    saveUser(user);
+}
+
+/**
+ *  Returns the Spotify account linked to a user, served from the user cache.
+     * @param userId the id of the user
+     * @return the Spotify user id, or {@code null} if the user has not linked an account
+     * @throws IllegalArgumentException if no user is found with the given id
+     */
+public String getLinkedSpotifyUserId(Long userId) {
+    return getUserWithId(userId).getSpotifyUserId();
 }
 
 public AuthenticationUser updateUserProfile(Long userId, String firstName, String lastName, String position, String location){
@@ -357,18 +495,17 @@ public AuthenticationUser updateUserProfile(Long userId, String firstName, Strin
     if(position != null) user.setPosition(position);
     if(location != null) user.setLocation(location);
 
-    return authenticationUserRepository.save(user);
+    return saveUser(user);
 }
 
-@Transactional
+/**
+ *  Disables a user's account and queues it for deletion by the {@link AccountDeletionService},
+ *  which removes the user's data in the background.
+     * @param userId the id of the user to delete
+     * @throws IllegalArgumentException if no user is found with the given id
+     */
 public void deleteUser(Long userId) {
-    AuthenticationUser user = entityManager.find(AuthenticationUser.class, userId);
-    if (user != null) {
-        entityManager.createNativeQuery("DELETE FROM posts_likes WHERE user_id = :userId")
-                .setParameter("userId", userId)
-                .executeUpdate();
-        authenticationUserRepository.deleteById(userId);
-    }
+    accountDeletionService.requestDeletion(userId);
 }
 
 
@@ -0,0 +1,294 @@
+/**
+ * Class Name: AvailabilityIndex
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.service;
+
+import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
+import com.musicApp.backend.features.authentication.utils.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * This class keeps every taken username and email in memory, so registration and
+ * the as-you-type availability check do not query the "users" table. Each kind of
+ * name is held in a sorted concurrent set, with a {@link BloomFilter} in front of
+ * it; a name the filter has never seen is free without probing the set. <br>
+ *
+ * Names are compared case-insensitively, like the database collation. The index is
+ * loaded at startup and kept current on register, rename and delete. It is rebuilt
+ * from the table on a schedule, which also picks up names taken, changed or freed
+ * on other instances and lets the Bloom filters forget freed names: new sets and
+ * filters are built from the table and swapped in together. Changes made on this
+ * instance while the table is read, and registrations not yet committed, are
+ * applied to the new sets before the swap, so none of them is lost.
+ */
+@Component
+public class AvailabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final AuthenticationUserRepository authenticationUserRepository;
+    private final int expectedUsers;
+
+    private volatile Names names;
+    /** Changes made while a rebuild reads the table; {@code null} when no rebuild runs. Guarded by this. */
+    private List<Consumer<Names>> journal;
+    /** Registrations whose transaction has not completed yet. */
+    private final Set<Reservation> uncommitted = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder filterMisses = new LongAdder();
+
+    /**
+     * The taken names and their filters. Readers use whichever instance is current;
+     * changes go to the current instance while holding the index's lock.
+     */
+    private static final class Names {
+        private final NavigableSet<String> usernames = new ConcurrentSkipListSet<>();
+        private final NavigableSet<String> emails = new ConcurrentSkipListSet<>();
+        private BloomFilter usernameFilter;
+        private BloomFilter emailFilter;
+
+        private Names(long expectedUsers) {
+            buildFilters(expectedUsers);
+        }
+
+        private void buildFilters(long expectedUsers) {
+            usernameFilter = buildFilter(usernames, expectedUsers);
+            emailFilter = buildFilter(emails, expectedUsers);
+        }
+
+        private static BloomFilter buildFilter(NavigableSet<String> names, long expectedUsers) {
+            BloomFilter filter = new BloomFilter(Math.max(expectedUsers, 2L * names.size()), 0.01);
+            names.forEach(filter::add);
+            return filter;
+        }
+    }
+
+    private record Reservation(String username, String email) {}
+
+    /**
+     * Creates an AvailabilityIndex.
+     *
+     * @param authenticationUserRepository the repository the index is loaded from
+     * @param expectedUsers the minimum number of users the Bloom filters are sized for
+     */
+    public AvailabilityIndex(AuthenticationUserRepository authenticationUserRepository,
+                             @Value("${auth.availability.expected-users:100000}") int expectedUsers) {
+        this.authenticationUserRepository = authenticationUserRepository;
+        this.expectedUsers = expectedUsers;
+        this.names = new Names(expectedUsers);
+    }
+
+    /**
+     * Loads all usernames and emails from the database into new sets and filters,
+     * and replaces the current ones with them. The table is read without holding
+     * the lock, so registrations are not blocked meanwhile.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${auth.availability.rebuild-millis:3600000}",
+            initialDelayString = "${auth.availability.rebuild-millis:3600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (journal != null) {
+                return;
+            }
+            journal = new ArrayList<>();
+        }
+        Names rebuilt = new Names(0);
+        try {
+            authenticationUserRepository.findAllUsernames().forEach(name -> rebuilt.usernames.add(normalize(name)));
+            authenticationUserRepository.findAllEmails().forEach(email -> rebuilt.emails.add(normalize(email)));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                journal = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            for (Reservation reservation : uncommitted) {
+                rebuilt.usernames.add(reservation.username());
+                rebuilt.emails.add(reservation.email());
+            }
+            journal.forEach(change -> change.accept(rebuilt));
+            journal = null;
+            rebuilt.buildFilters(expectedUsers);
+            names = rebuilt;
+        }
+        logger.debug("Loaded availability index with {} usernames and {} emails",
+                rebuilt.usernames.size(), rebuilt.emails.size());
+    }
+
+    /**
+     * Applies a change to the current names and, while a rebuild reads the table,
+     * records it for the names being rebuilt. Must hold the lock.
+     */
+    private void change(Consumer<Names> change) {
+        change.accept(names);
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    /**
+     * Returns whether a username is free.
+     *
+     * @param username the username to check
+     * @return {@code true} if no user has this username
+     */
+    public boolean isUsernameAvailable(String username) {
+        Names current = names;
+        return isAvailable(current.usernames, current.usernameFilter, username);
+    }
+
+    /**
+     * Returns whether an email is free.
+     *
+     * @param email the email to check
+     * @return {@code true} if no user has this email
+     */
+    public boolean isEmailAvailable(String email) {
+        Names current = names;
+        return isAvailable(current.emails, current.emailFilter, email);
+    }
+
+    private boolean isAvailable(NavigableSet<String> names, BloomFilter filter, String name) {
+        checks.increment();
+        String key = normalize(name);
+        if (!filter.mightContain(key)) {
+            filterMisses.increment();
+            return true;
+        }
+        return !names.contains(key);
+    }
+
+    /**
+     * Claims a username and an email for a new user. Either both are claimed or
+     * neither is. Inside a transaction, the claim is released again if the
+     * transaction rolls back.
+     *
+     * @param username the new user's username
+     * @param email the new user's email
+     * @throws IllegalArgumentException if the username or email is already taken
+     */
+    public void reserve(String username, String email) {
+        String usernameKey = normalize(username);
+        String emailKey = normalize(email);
+        synchronized (this) {
+            Names current = names;
+            if (current.emails.contains(emailKey)) {
+                throw new IllegalArgumentException("Email already exists, please use another email or login.");
+            }
+            if (current.usernames.contains(usernameKey)) {
+                throw new IllegalArgumentException("Username already taken.");
+            }
+            change(taken -> {
+                taken.usernames.add(usernameKey);
+                taken.emails.add(emailKey);
+                taken.usernameFilter.add(usernameKey);
+                taken.emailFilter.add(emailKey);
+            });
+        }
+        trackUntilCompletion(new Reservation(usernameKey, emailKey), () -> release(username, email));
+    }
+
+    /**
+     * Moves a user from one username to another.
+     *
+     * @param oldUsername the current username
+     * @param newUsername the requested username
+     * @throws IllegalArgumentException if the new username is taken by another user
+     */
+    public void rename(String oldUsername, String newUsername) {
+        String oldKey = normalize(oldUsername);
+        String newKey = normalize(newUsername);
+        if (oldKey.equals(newKey)) {
+            return;
+        }
+        synchronized (this) {
+            if (names.usernames.contains(newKey)) {
+                throw new IllegalArgumentException("Username already taken.");
+            }
+            change(taken -> {
+                taken.usernames.add(newKey);
+                taken.usernameFilter.add(newKey);
+                taken.usernames.remove(oldKey);
+            });
+        }
+    }
+
+    /**
+     * Frees a username and an email, for example after a user is deleted.
+     *
+     * @param username the username to free; may be {@code null}
+     * @param email the email to free; may be {@code null}
+     */
+    public void release(String username, String email) {
+        String usernameKey = username == null ? null : normalize(username);
+        String emailKey = email == null ? null : normalize(email);
+        synchronized (this) {
+            change(taken -> {
+                if (usernameKey != null) {
+                    taken.usernames.remove(usernameKey);
+                }
+                if (emailKey != null) {
+                    taken.emails.remove(emailKey);
+                }
+            });
+        }
+    }
+
+    /**
+     * Keeps a registration in {@link #uncommitted} until its transaction completes,
+     * and releases its names if the transaction rolls back.
+     */
+    private void trackUntilCompletion(Reservation reservation, Runnable release) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        uncommitted.add(reservation);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                uncommitted.remove(reservation);
+                if (status != STATUS_COMMITTED) {
+                    release.run();
+                }
+            }
+        });
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public long getCheckCount() {
+        return checks.sum();
+    }
+
+    public long getFilterMissCount() {
+        return filterMisses.sum();
+    }
+
+    public int size() {
+        return names.usernames.size();
+    }
+}
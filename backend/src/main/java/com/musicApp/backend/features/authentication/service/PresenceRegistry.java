@@ -0,0 +1,206 @@
+/**
+ * Class Name: PresenceRegistry
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.service;
+
+import com.musicApp.backend.features.authentication.dto.OnlineUserResponse;
+import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class keeps track of which users are online. Every authenticated request
+ * and every login counts as a heartbeat; a user who sends no heartbeat for
+ * {@code auth.presence.idle-seconds} is considered offline. <br>
+ *
+ * Presence lives in memory, split over several concurrent maps so heartbeats from
+ * different users rarely touch the same map. The "loginStatus" column is no longer
+ * written per login or logout; instead a scheduled snapshot writes only the users
+ * whose status changed since the previous snapshot, in batched UPDATE statements.
+ */
+@Component
+public class PresenceRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    private static final int SHARDS = 16;
+    private static final int BATCH_SIZE = 500;
+
+    private static final class Presence {
+        final String username;
+        volatile long lastSeenMillis;
+
+        Presence(String username, long lastSeenMillis) {
+            this.username = username;
+            this.lastSeenMillis = lastSeenMillis;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private final Map<Long, Presence>[] shards = new Map[SHARDS];
+    private final Set<Long> persistedOnline = new HashSet<>();
+    private final AuthenticationUserRepository authenticationUserRepository;
+    private final long idleMillis;
+
+    private final LongAdder heartbeats = new LongAdder();
+    private final LongAdder snapshotWrites = new LongAdder();
+
+    /**
+     * Creates a PresenceRegistry with the configured idle timeout.
+     *
+     * @param authenticationUserRepository the repository the snapshots are written to
+     * @param idleSeconds how long a user stays online after their last heartbeat
+     */
+    public PresenceRegistry(AuthenticationUserRepository authenticationUserRepository,
+                            @Value("${auth.presence.idle-seconds:300}") long idleSeconds) {
+        this.authenticationUserRepository = authenticationUserRepository;
+        this.idleMillis = idleSeconds * 1000;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Records that a user is active right now.
+     *
+     * @param userId the user's id
+     * @param username the user's username, returned in the online-users list
+     */
+    public void heartbeat(Long userId, String username) {
+        if (userId == null) {
+            return;
+        }
+        heartbeats.increment();
+        long now = System.currentTimeMillis();
+        Presence presence = shard(userId).get(userId);
+        if (presence != null && presence.username != null && presence.username.equals(username)) {
+            presence.lastSeenMillis = now;
+        } else {
+            shard(userId).put(userId, new Presence(username, now));
+        }
+    }
+
+    /**
+     * Marks a user as offline immediately, for example on logout.
+     *
+     * @param userId the user's id
+     */
+    public void markOffline(Long userId) {
+        if (userId != null) {
+            shard(userId).remove(userId);
+        }
+    }
+
+    /**
+     * Returns whether a user has sent a heartbeat within the idle timeout.
+     *
+     * @param userId the user's id
+     * @return {@code true} if the user is online
+     */
+    public boolean isOnline(Long userId) {
+        Presence presence = userId == null ? null : shard(userId).get(userId);
+        return presence != null && presence.lastSeenMillis > System.currentTimeMillis() - idleMillis;
+    }
+
+    /**
+     * Returns all users who are currently online.
+     *
+     * @return a list of {@link OnlineUserResponse} objects, in no particular order
+     */
+    public List<OnlineUserResponse> getOnlineUsers() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        List<OnlineUserResponse> online = new ArrayList<>();
+        for (Map<Long, Presence> shard : shards) {
+            shard.forEach((id, presence) -> {
+                long lastSeen = presence.lastSeenMillis;
+                if (lastSeen > cutoff) {
+                    online.add(new OnlineUserResponse(id, presence.username, lastSeen));
+                }
+            });
+        }
+        return online;
+    }
+
+    /**
+     * Clears stale "loginStatus" values left by a previous run, since the registry
+     * starts out empty.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resetPersistedStatus() {
+        int cleared = authenticationUserRepository.clearLoginStatus();
+        persistedOnline.clear();
+        if (cleared > 0) {
+            logger.info("Cleared login status of {} users from the previous run", cleared);
+        }
+    }
+
+    /**
+     * Drops idle users and writes the users whose online status changed since the
+     * last snapshot to the database.
+     */
+    @Scheduled(fixedDelayString = "${auth.presence.snapshot-millis:60000}")
+    public synchronized void snapshot() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        Set<Long> online = new HashSet<>();
+        for (Map<Long, Presence> shard : shards) {
+            shard.entrySet().removeIf(entry -> entry.getValue().lastSeenMillis <= cutoff);
+            online.addAll(shard.keySet());
+        }
+
+        List<Long> cameOnline = new ArrayList<>();
+        for (Long id : online) {
+            if (!persistedOnline.contains(id)) {
+                cameOnline.add(id);
+            }
+        }
+        List<Long> wentOffline = new ArrayList<>();
+        for (Long id : persistedOnline) {
+            if (!online.contains(id)) {
+                wentOffline.add(id);
+            }
+        }
+
+        write(cameOnline, true);
+        write(wentOffline, false);
+        persistedOnline.addAll(cameOnline);
+        wentOffline.forEach(persistedOnline::remove);
+    }
+
+    private void write(List<Long> ids, boolean status) {
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            authenticationUserRepository.updateLoginStatus(batch, status);
+            snapshotWrites.increment();
+        }
+    }
+
+    private Map<Long, Presence> shard(Long userId) {
+        return shards[Long.hashCode(userId) & (SHARDS - 1)];
+    }
+
+    public long getHeartbeatCount() {
+        return heartbeats.sum();
+    }
+
+    public long getSnapshotWriteCount() {
+        return snapshotWrites.sum();
+    }
+
+    public int getOnlineCount() {
+        return getOnlineUsers().size();
+    }
+}
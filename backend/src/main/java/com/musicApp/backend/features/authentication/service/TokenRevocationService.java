@@ -0,0 +1,190 @@
+/**
+ * Class Name: TokenRevocationService
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.service;
+
+import com.musicApp.backend.features.authentication.model.RevokedToken;
+import com.musicApp.backend.features.authentication.repository.RevokedTokenRepository;
+import com.musicApp.backend.features.authentication.utils.BloomFilter;
+import com.musicApp.backend.features.authentication.utils.JsonWebToken;
+import com.musicApp.backend.features.authentication.utils.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This service revokes JWTs before they expire and answers whether a token has
+ * been revoked. Revoked token ids are stored in the "revoked_tokens" table; in
+ * front of it sits a {@link BloomFilter} of the same ids, so a token that was
+ * never revoked (almost every request) is cleared from memory. Only a filter hit
+ * is confirmed against the table. <br>
+ *
+ * The filter is updated on every revoke and rebuilt on a schedule, which also
+ * drops expired ids and deletes their rows. <br>
+ *
+ * All tokens of a user can also be revoked at once, for example when the account
+ * is being deleted. Those user ids are held in memory until the revocation
+ * expires; their owner stores them and keeps every instance's copy in sync.
+ */
+@Service
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JsonWebToken jsonWebToken;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final int expectedRevocations;
+    private final double targetFalsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private final Map<Long, Instant> revokedUsers = new ConcurrentHashMap<>();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Creates a TokenRevocationService with the configured filter size.
+     *
+     * @param revokedTokenRepository the store of revoked token ids
+     * @param jsonWebToken the JWT utility used to read the token being revoked
+     * @param verifiedTokenCache the cache a revoked token is removed from
+     * @param expectedRevocations the minimum number of ids the filter is sized for
+     * @param targetFalsePositiveRate the false-positive rate the filter is sized for
+     */
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            JsonWebToken jsonWebToken,
+            VerifiedTokenCache verifiedTokenCache,
+            @Value("${auth.revocation.expected-entries:10000}") int expectedRevocations,
+            @Value("${auth.revocation.false-positive-rate:0.01}") double targetFalsePositiveRate
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jsonWebToken = jsonWebToken;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.expectedRevocations = expectedRevocations;
+        this.targetFalsePositiveRate = targetFalsePositiveRate;
+    }
+
+    /**
+     * Loads the revoked ids of unexpired tokens into a fresh filter, sized with
+     * room to grow, and deletes rows of tokens that have expired. Expired user
+     * revocations are dropped as well.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${auth.revocation.rebuild-millis:600000}",
+            initialDelayString = "${auth.revocation.rebuild-millis:600000}")
+    public synchronized void rebuild() {
+        Instant now = Instant.now();
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        List<String> active = revokedTokenRepository.findActiveTokenIds(now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, 2L * active.size()), targetFalsePositiveRate);
+        active.forEach(rebuilt::add);
+        filter = rebuilt;
+        revokedUsers.values().removeIf(until -> until.isBefore(now));
+        logger.debug("Rebuilt revocation filter with {} ids ({} expired rows deleted)", active.size(), deleted);
+    }
+
+    /**
+     * Revokes a token so it is rejected by the request filter until it expires.
+     * Tokens issued without a token id cannot be revoked and are left to expire.
+     *
+     * @param token the raw JWT string
+     */
+    public void revoke(String token) {
+        Claims claims = jsonWebToken.verifyToken(token);
+        verifiedTokenCache.invalidate(token);
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(claims.getId(), claims.getExpiration().toInstant()));
+        // Synchronized with rebuild() so a revoke is never lost between a rebuild's query and its swap
+        synchronized (this) {
+            filter.add(claims.getId());
+        }
+    }
+
+    /**
+     * Returns whether the token with the given id was revoked.
+     *
+     * @param tokenId the "jti" claim of the token; {@code null} for tokens issued without one
+     * @return {@code true} if the token was revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        checks.increment();
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+        filterHits.increment();
+        boolean revoked = revokedTokenRepository.existsById(tokenId);
+        if (!revoked) {
+            falsePositives.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Revokes every token issued to a user, including ones issued without a token id.
+     *
+     * @param userId the user's id
+     * @param until when the last token issued before the revocation expires
+     */
+    public void revokeUser(Long userId, Instant until) {
+        if (userId != null) {
+            revokedUsers.merge(userId, until, (current, requested) -> current.isAfter(requested) ? current : requested);
+        }
+    }
+
+    /**
+     * Returns whether all tokens of a user were revoked.
+     *
+     * @param userId the user's id; {@code null} for tokens that do not carry one
+     * @return {@code true} if the user's tokens are revoked
+     */
+    public boolean isUserRevoked(Long userId) {
+        return userId != null && !revokedUsers.isEmpty() && revokedUsers.containsKey(userId);
+    }
+
+    public long getCheckCount() {
+        return checks.sum();
+    }
+
+    public long getStoreLookupCount() {
+        return filterHits.sum();
+    }
+
+    /**
+     * Returns the share of tokens that were never revoked but still had to be
+     * looked up in the store because the filter reported a possible match.
+     *
+     * @return the observed false-positive rate, or 0 before any checks
+     */
+    public double getObservedFalsePositiveRate() {
+        long negatives = checks.sum() - filterHits.sum() + falsePositives.sum();
+        return negatives == 0 ? 0 : (double) falsePositives.sum() / negatives;
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        return filter.expectedFalsePositiveRate();
+    }
+
+    public long getFilterSize() {
+        return filter.getInsertionCount();
+    }
+}
@@ -40,6 +40,19 @@ public class EmailService {
      * @throws UnsupportedEncodingException   if the email encoding format is not supported
      */
     public void sendEmail(String email, String subject, String content) throws MessagingException, UnsupportedEncodingException {
+        mailSender.send(createMessage(email, subject, content));
+    }
+
+    /**
+     *     Builds an email without sending it.
+     * @param email   the recipient's email address
+     * @param subject the subject line of the email
+     * @param content the body of the email message; may include HTML markup
+     * @return the prepared {@link MimeMessage}
+     * @throws MessagingException             if an error occurs while creating the message
+     * @throws UnsupportedEncodingException   if the email encoding format is not supported
+     */
+    public MimeMessage createMessage(String email, String subject, String content) throws MessagingException, UnsupportedEncodingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message);
 
@@ -48,8 +61,17 @@ public class EmailService {
 
         helper.setSubject(subject);
         helper.setText(content, true);
+        return message;
+    }
 
-        mailSender.send(message);
+    /**
+     *     Sends several emails over a single SMTP connection.
+     * @param messages the messages to send
+     * @throws org.springframework.mail.MailSendException if some messages could not be sent;
+     *         {@code getFailedMessages()} lists them
+     */
+    public void sendAll(MimeMessage... messages) {
+        mailSender.send(messages);
     }
 
 }
\ No newline at end of file
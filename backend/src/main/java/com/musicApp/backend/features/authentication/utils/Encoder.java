@@ -14,12 +14,22 @@ import java.util.Base64;
 /**
  * Utility class responsible for encoding strings (like passwords or tokens)
  * using SHA-256 hashing and Base64 encoding. Provides a secure way to store
- * sensitive data such as passwords, email verification tokens, and password reset tokens.
+ * sensitive data such as email verification tokens and password reset tokens.
+ * Passwords are hashed by {@link PasswordHasher}; hashes produced here for
+ * older accounts are still verified and upgraded on login.
  * 
  */
 @Component
 public class Encoder {
 
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error encoding string", e);
+        }
+    });
+
     /**
      *     Converts a plain string into a SHA-256 hash and encodes it in Base64.
      * @param rawString the plain text string to encode (e.g., password or token)
@@ -27,13 +37,10 @@ public class Encoder {
      * @throws RuntimeException if the SHA-256 algorithm is not available
      */
     public String encode(String rawString){
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(rawString.getBytes());
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error encoding string", e);
-        }
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        byte[] hash = digest.digest(rawString.getBytes());
+        return Base64.getEncoder().encodeToString(hash);
     }
 
     /**
@@ -44,6 +51,9 @@ public class Encoder {
      *         {@code false} otherwise
      */
     public boolean matches(String rawString, String encodedString){
-        return encode(rawString).equals(encodedString);
+        if (encodedString == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(encode(rawString).getBytes(), encodedString.getBytes());
     }
 }
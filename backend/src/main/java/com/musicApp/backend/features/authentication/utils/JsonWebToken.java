@@ -6,10 +6,13 @@
 
 package com.musicApp.backend.features.authentication.utils;
 
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
+import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import io.jsonwebtoken.Claims; 
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
@@ -26,6 +29,7 @@ import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -34,47 +38,124 @@ import java.util.function.Function;
  */
 @Component
 public class JsonWebToken {
+    /** Audience of the OAuth state tokens used to link a Spotify account. */
+    private static final String SPOTIFY_LINK_AUDIENCE = "spotify-link";
+    private static final String LINK_USER_ID_CLAIM = "link_uid";
+
     private final RestTemplate restTemplate;
+    private final VerifiedTokenCache verifiedTokenCache;
     @Value("${jwt.secret.key}")
     private String secret;
 
-    public JsonWebToken(RestTemplate restTemplate) {
+    private SecretKey key;
+    private JwtParser parser;
+    private JwtParser spotifyStateParser;
+
+    public JsonWebToken(RestTemplate restTemplate, VerifiedTokenCache verifiedTokenCache) {
         this.restTemplate = restTemplate;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    /**
+     * Builds the signing key and the JWT parser once, after the secret has been injected.
+     */
+    @PostConstruct
+    void init() {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+        this.spotifyStateParser = Jwts.parser()
+                .verifyWith(key)
+                .requireAudience(SPOTIFY_LINK_AUDIENCE)
+                .build();
     }
 
     /**
-     * Generates a SecretKey from the configured secret for HMAC-SHA signing.
+     * Returns the SecretKey built from the configured secret for HMAC-SHA signing.
      * @return {@link SecretKey} used for signing JWT tokens
      */
     public SecretKey getKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return key;
     }
 
     /**
-     * Generates a JWT token with the user's email as the subject.
-     * @param email the user's email to embed as the token subject
+     * Generates a JWT token with the user's email as the subject, the user's id and
+     * username as claims, and a random token id ("jti"), which identifies the token
+     * if it is revoked. The id and username let the authentication filter identify
+     * the caller without loading the user.
+     * @param user the user the token is issued to
      * @return {@link String} representing the signed JWT token, valid for 10 hours
      */
-    public String generateToken(String email) {
+    public String generateToken(AuthenticationUser user) {
         return Jwts.builder()
-                .subject(email)
+                .subject(user.getEmail())
+                .claim(AuthenticatedPrincipal.USER_ID_CLAIM, user.getId())
+                .claim(AuthenticatedPrincipal.USERNAME_CLAIM, user.getUsername())
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
                 .signWith(getKey())
                 .compact();
     }
 
+    /**
+     * Verifies a JWT once and returns its claims. Tokens that were verified before
+     * are served from the {@link VerifiedTokenCache} until they expire.
+     * @param token the JWT token string
+     * @return {@link Claims} object containing all claims in the token
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, badly signed, or expired
+     */
+    public Claims verifyToken(String token) {
+        Claims claims = verifiedTokenCache.get(token);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            verifiedTokenCache.put(token, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Generates the OAuth "state" sent to Spotify when a user links their Spotify
+     * account. It is signed and names the user, so the callback can tell whose
+     * account to link without an HTTP session. It carries no "uid" claim and is
+     * therefore not accepted as an authentication token.
+     * @param userId the id of the user linking their account
+     * @return {@link String} representing the signed state, valid for 10 minutes
+     */
+    public String generateSpotifyState(Long userId) {
+        return Jwts.builder()
+                .audience().add(SPOTIFY_LINK_AUDIENCE).and()
+                .claim(LINK_USER_ID_CLAIM, userId)
+                .id(UUID.randomUUID().toString())
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 10))
+                .signWith(getKey())
+                .compact();
+    }
+
+    /**
+     * Verifies a state returned by Spotify and returns the user it was issued to.
+     * @param state the state generated by {@link #generateSpotifyState(Long)}
+     * @return the id of the user linking their account
+     * @throws io.jsonwebtoken.JwtException if the state is malformed, badly signed, expired or not a state
+     */
+    public Long getUserIdFromSpotifyState(String state) {
+        Claims claims = spotifyStateParser.parseSignedClaims(state).getPayload();
+        Number userId = claims.get(LINK_USER_ID_CLAIM, Number.class);
+        if (userId == null) {
+            throw new io.jsonwebtoken.MalformedJwtException("State does not name a user.");
+        }
+        return userId.longValue();
+    }
+
     /**
      *     Extracts all claims from a JWT.
      * @param token the JWT token string
      * @return {@link Claims} object containing all claims in the token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verifyToken(token);
     }
 
 
@@ -0,0 +1,269 @@
+/**
+ * Class Name: PasswordHasher
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class hashes and verifies user passwords with PBKDF2-HMAC-SHA256. The work
+ * is deliberately slow, so it runs on a small dedicated thread pool with a bounded
+ * queue instead of on the request threads; when the queue is full, new requests
+ * are rejected rather than piling up. <br>
+ *
+ * The iteration count is calibrated at startup so one hash takes about
+ * {@code auth.password-hasher.target-millis} on this machine. Hashes are stored as
+ * {@code pbkdf2$<iterations>$<salt>$<hash>}, so each hash keeps its own work factor,
+ * and older hashes (including the unsalted SHA-256 ones produced by {@link Encoder})
+ * are still verified and reported by {@link #needsRehash(String)}.
+ */
+@Component
+public class PasswordHasher {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final String PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int MIN_ITERATIONS = 100_000;
+    private static final int MAX_ITERATIONS = 5_000_000;
+
+    private final Encoder legacyEncoder;
+    private final int threads;
+    private final int queueCapacity;
+    private final long targetMillis;
+    private final long timeoutMillis;
+    private final int configuredIterations;
+    private final SecureRandom random = new SecureRandom();
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    private ThreadPoolExecutor executor;
+    private volatile int iterations;
+
+    /**
+     * Creates a PasswordHasher with the configured pool size and work factor.
+     *
+     * @param legacyEncoder the SHA-256 encoder used to verify hashes created before PBKDF2
+     * @param threads the number of hashing threads; 0 means one per available processor
+     * @param queueCapacity the number of hashing tasks that may wait for a free thread
+     * @param targetMillis the time one hash should take, used to calibrate the iteration count
+     * @param timeoutMillis how long a request thread waits for its hash before giving up
+     * @param configuredIterations a fixed iteration count; 0 means calibrate at startup
+     */
+    public PasswordHasher(
+            Encoder legacyEncoder,
+            @Value("${auth.password-hasher.threads:0}") int threads,
+            @Value("${auth.password-hasher.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password-hasher.target-millis:100}") long targetMillis,
+            @Value("${auth.password-hasher.timeout-millis:5000}") long timeoutMillis,
+            @Value("${auth.password-hasher.iterations:0}") int configuredIterations
+    ) {
+        this.legacyEncoder = legacyEncoder;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.targetMillis = targetMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.configuredIterations = configuredIterations;
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        iterations = configuredIterations > 0 ? configuredIterations : calibrate();
+        logger.info("Password hashing uses {} PBKDF2 iterations on {} threads", iterations, threads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hashes a password with a fresh salt and the current work factor.
+     *
+     * @param rawPassword the plain text password
+     * @return the encoded hash, including its iteration count and salt
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public String hash(String rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        int work = iterations;
+        byte[] hash = submit(() -> pbkdf2(rawPassword, salt, work));
+        hashes.increment();
+        return PREFIX + work + "$" + Base64.getEncoder().encodeToString(salt)
+                + "$" + Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored hash. Both PBKDF2 hashes and legacy
+     * SHA-256 hashes are accepted.
+     *
+     * @param rawPassword the plain text password
+     * @param storedHash the hash stored for the user
+     * @return {@code true} if the password matches; {@code false} if it does not or the stored hash is malformed
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public boolean matches(String rawPassword, String storedHash) {
+        if (rawPassword == null || storedHash == null) {
+            return false;
+        }
+        verifications.increment();
+        if (!storedHash.startsWith(PREFIX)) {
+            return legacyEncoder.matches(rawPassword, storedHash);
+        }
+
+        String[] parts = storedHash.split("\\$", -1);
+        if (parts.length != 4) {
+            return false;
+        }
+        int work;
+        byte[] salt;
+        byte[] expected;
+        try {
+            work = Integer.parseInt(parts[1]);
+            salt = Base64.getDecoder().decode(parts[2]);
+            expected = Base64.getDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException too
+            return false;
+        }
+        // A corrupt work factor must not be able to tie up a hashing thread
+        if (work < 1 || work > MAX_ITERATIONS || salt.length == 0 || expected.length != HASH_BITS / 8) {
+            return false;
+        }
+        byte[] actual = submit(() -> pbkdf2(rawPassword, salt, work));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * Returns whether a stored hash is weaker than what {@link #hash(String)} produces
+     * now, either because it is a legacy SHA-256 hash or because it uses fewer iterations.
+     *
+     * @param storedHash the hash stored for the user
+     * @return {@code true} if the password should be rehashed on the next successful login
+     */
+    public boolean needsRehash(String storedHash) {
+        if (storedHash == null || !storedHash.startsWith(PREFIX)) {
+            return true;
+        }
+        int end = storedHash.indexOf('$', PREFIX.length());
+        try {
+            return end < 0 || Integer.parseInt(storedHash.substring(PREFIX.length(), end)) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private byte[] submit(Callable<byte[]> task) {
+        Future<byte[]> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new RejectedExecutionException("Too many login requests, please try again.", e);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing was interrupted.", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new RejectedExecutionException("Too many login requests, please try again.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Times a few hashes with a known iteration count and scales it so one hash
+     * takes about the target time, staying within fixed bounds.
+     */
+    private int calibrate() {
+        byte[] salt = new byte[SALT_BYTES];
+        pbkdf2("calibration", salt, MIN_ITERATIONS / 10); // warm up the JIT
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            pbkdf2("calibration", salt, MIN_ITERATIONS);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long scaled = MIN_ITERATIONS * TimeUnit.MILLISECONDS.toNanos(targetMillis) / Math.max(1, best);
+        return (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, scaled));
+    }
+
+    private static byte[] pbkdf2(String rawPassword, byte[] salt, int work) {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, work, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getHashCount() {
+        return hashes.sum();
+    }
+
+    public long getVerificationCount() {
+        return verifications.sum();
+    }
+
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Class Name: RateLimitExceededException
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.utils;
+
+/**
+ * Thrown when a client has used up its request allowance for a route. It is
+ * turned into a 429 (Too Many Requests) response with a Retry-After header.
+ */
+public class RateLimitExceededException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    /**
+     * Creates a RateLimitExceededException.
+     *
+     * @param retryAfterSeconds how long the client should wait before retrying
+     */
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("Too many requests, please try again in " + retryAfterSeconds + " seconds.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Class Name: RateLimiter
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.authentication.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class limits how often a client may call an expensive route, such as login
+ * or registration. Each client key (an IP address or an email) gets a token bucket
+ * per route: it holds up to {@code rate-limit.<route>.capacity} tokens and refills
+ * at {@code rate-limit.<route>.refill-per-minute}. <br>
+ *
+ * A bucket is a single {@link AtomicLong} holding the time at which it will be
+ * full again (the "generic cell rate algorithm" form of a token bucket), so a
+ * check is one compare-and-set with no locks. A bucket that has refilled
+ * completely carries no state, so idle buckets are evicted and the number of
+ * buckets is capped at {@code rate-limit.max-keys}. When the cap is reached, a
+ * tenth of the buckets is freed at once, so the sweep runs once per that many
+ * new keys rather than on every one.
+ */
+@Component
+public class RateLimiter {
+
+    private record Limit(long capacity, long intervalNanos) {}
+
+    private final Environment environment;
+    private final int maxKeys;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder limited = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a RateLimiter whose per-route limits are read from the environment.
+     *
+     * @param environment the Spring environment holding the {@code rate-limit.*} properties
+     * @param maxKeys the maximum number of buckets kept in memory
+     */
+    public RateLimiter(Environment environment, @Value("${rate-limit.max-keys:100000}") int maxKeys) {
+        this.environment = environment;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes one token from the bucket of every given key for a route. Keys that are
+     * {@code null} or blank are skipped. When any bucket is empty the request is
+     * rejected; buckets checked before it keep the token they gave up.
+     *
+     * @param route the route name, such as "login", used to look up its limit
+     * @param keys the client keys to charge, such as an IP address and an email
+     * @throws RateLimitExceededException if any bucket is empty
+     */
+    public void check(String route, String... keys) {
+        Limit limit = limits.computeIfAbsent(route, this::loadLimit);
+        long now = System.nanoTime();
+        for (String key : keys) {
+            if (key == null || key.isBlank()) {
+                continue;
+            }
+            long waitNanos = acquire(route + ':' + key.toLowerCase(), limit, now);
+            if (waitNanos > 0) {
+                limited.increment();
+                throw new RateLimitExceededException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+            }
+        }
+        allowed.increment();
+    }
+
+    /**
+     * Tries to take one token.
+     *
+     * @return 0 if a token was taken, otherwise how long until one is available
+     */
+    private long acquire(String key, Limit limit, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                evict();
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        long burst = limit.capacity() * limit.intervalNanos();
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + limit.intervalNanos();
+            if (next - now > burst) {
+                return next - now - burst;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private Limit loadLimit(String route) {
+        long capacity = environment.getProperty("rate-limit." + route + ".capacity", Long.class, 10L);
+        long perMinute = environment.getProperty("rate-limit." + route + ".refill-per-minute", Long.class, 10L);
+        return new Limit(Math.max(1, capacity), TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute));
+    }
+
+    /**
+     * Removes buckets that have refilled completely; they are equivalent to new ones.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-millis:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    /**
+     * Drops idle buckets first; if the map is still full, drops buckets in
+     * iteration order until a tenth of the capacity is free again.
+     */
+    private void evict() {
+        evictIdle();
+
+        int target = maxKeys - Math.max(1, maxKeys / 10);
+        Iterator<AtomicLong> overflow = buckets.values().iterator();
+        while (buckets.size() > target && overflow.hasNext()) {
+            overflow.next();
+            overflow.remove();
+            evictions.increment();
+        }
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getLimitedCount() {
+        return limited.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Class Name: EmailOutboxRepository
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.email.repository;
+
+import com.musicApp.backend.features.email.model.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the email outbox.
+ */
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * Locks the pending messages that are due to be sent, oldest first. Messages
+     * locked by another transaction are skipped, so each instance claims different
+     * messages. Must be called inside a transaction; the lock is held until it ends.
+     * @param now the current time; messages scheduled after it are skipped
+     * @param limit the maximum number of messages returned
+     * @return a {@link List} of due {@link EmailOutboxMessage} objects
+     */
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutboxMessage> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Deletes the sent and failed messages created before the given time.
+     * @param before the creation time finished messages must be older than
+     * @return the number of messages deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM email_outbox WHERE status <> 'PENDING' AND created_at < :before", nativeQuery = true)
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Counts the messages with the given status.
+     * @param status the status to count
+     * @return the number of messages with that status
+     */
+    long countByStatus(EmailOutboxMessage.Status status);
+}
@@ -0,0 +1,216 @@
+/**
+ * Class Name: EmailDispatcher
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.email.service;
+
+import com.musicApp.backend.features.authentication.utils.EmailService;
+import com.musicApp.backend.features.email.model.EmailOutboxMessage;
+import com.musicApp.backend.features.email.repository.EmailOutboxRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class drains the email outbox in the background. Each run picks up a batch
+ * of due messages and hands them to the mail sender in a single call, which sends
+ * them all over one SMTP connection instead of one connection per email. <br>
+ *
+ * A batch is claimed in a short transaction that locks its rows, skipping rows
+ * locked by other instances, and moves their next attempt
+ * {@code email.outbox.claim-seconds} ahead; no other instance picks them up while
+ * they are being sent, and they are retried then if this instance stops halfway.
+ * The locks are not held while talking to the mail server. <br>
+ *
+ * Messages that fail are retried with exponential backoff
+ * ({@code email.outbox.base-backoff-seconds}, doubled per attempt up to
+ * {@code email.outbox.max-backoff-seconds}) and marked FAILED after
+ * {@code email.outbox.max-attempts}. The body of a sent or failed message is
+ * cleared, and finished messages are purged after {@code email.outbox.retention-days}.
+ */
+@Component
+public class EmailDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long baseBackoffSeconds;
+    private final long maxBackoffSeconds;
+    private final long claimSeconds;
+    private final int retentionDays;
+    private final TransactionTemplate transactionTemplate;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    /**
+     * Creates an EmailDispatcher with the configured batch size and retry policy.
+     *
+     * @param emailOutboxRepository the outbox the messages are read from
+     * @param emailService the service that builds and sends MIME messages
+     * @param transactionManager the transaction manager batches are claimed in
+     * @param batchSize the maximum number of messages sent per run
+     * @param maxAttempts the number of attempts before a message is marked FAILED
+     * @param baseBackoffSeconds the delay before the first retry
+     * @param maxBackoffSeconds the longest delay between retries
+     * @param claimSeconds how long a claimed batch is hidden from other instances
+     * @param retentionDays how many days sent and failed messages are kept
+     */
+    public EmailDispatcher(
+            EmailOutboxRepository emailOutboxRepository,
+            EmailService emailService,
+            PlatformTransactionManager transactionManager,
+            @Value("${email.outbox.batch-size:50}") int batchSize,
+            @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${email.outbox.base-backoff-seconds:30}") long baseBackoffSeconds,
+            @Value("${email.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+            @Value("${email.outbox.claim-seconds:300}") long claimSeconds,
+            @Value("${email.outbox.retention-days:7}") int retentionDays
+    ) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffSeconds = baseBackoffSeconds;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+        this.claimSeconds = claimSeconds;
+        this.retentionDays = Math.max(1, retentionDays);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Sends the next batch of due messages and records the outcome of each one.
+     *
+     * @return the number of messages sent successfully in this run
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-millis:2000}")
+    public synchronized int dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> due = transactionTemplate.execute(status -> {
+            List<EmailOutboxMessage> claimed = emailOutboxRepository.claimDue(now, batchSize);
+            claimed.forEach(message -> message.setNextAttemptAt(now.plusSeconds(claimSeconds)));
+            return emailOutboxRepository.saveAll(claimed);
+        });
+        if (due == null || due.isEmpty()) {
+            return 0;
+        }
+
+        // Build every message first; one that cannot be built is failed on its own
+        Map<MimeMessage, EmailOutboxMessage> byMime = new IdentityHashMap<>();
+        List<MimeMessage> batch = new ArrayList<>();
+        for (EmailOutboxMessage message : due) {
+            try {
+                MimeMessage mime = emailService.createMessage(message.getRecipient(), message.getSubject(), message.getBody());
+                byMime.put(mime, message);
+                batch.add(mime);
+            } catch (Exception e) {
+                markFailure(message, e, now);
+            }
+        }
+
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        if (!batch.isEmpty()) {
+            try {
+                emailService.sendAll(batch.toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                // Partial failure: only the listed messages failed, the rest were delivered
+                failures.putAll(e.getFailedMessages());
+                if (failures.isEmpty()) {
+                    batch.forEach(mime -> failures.put(mime, e));
+                }
+            } catch (MailException e) {
+                // Connection or authentication failure: nothing in the batch was delivered
+                batch.forEach(mime -> failures.put(mime, e));
+            }
+        }
+
+        int delivered = 0;
+        for (MimeMessage mime : batch) {
+            EmailOutboxMessage message = byMime.get(mime);
+            Exception failure = failures.get(mime);
+            if (failure == null) {
+                message.setStatus(EmailOutboxMessage.Status.SENT);
+                message.setSentAt(now);
+                message.setLastError(null);
+                message.clearBody();
+                sent.increment();
+                delivered++;
+            } else {
+                markFailure(message, failure, now);
+            }
+        }
+        emailOutboxRepository.saveAll(due);
+        return delivered;
+    }
+
+    private void markFailure(EmailOutboxMessage message, Exception e, LocalDateTime now) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        String error = String.valueOf(e.getMessage());
+        message.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+
+        if (attempts >= maxAttempts) {
+            message.setStatus(EmailOutboxMessage.Status.FAILED);
+            message.clearBody();
+            failed.increment();
+            logger.warn("Giving up on email {} to {} after {} attempts: {}",
+                    message.getId(), message.getRecipient(), attempts, error);
+        } else {
+            long delay = Math.min(maxBackoffSeconds, baseBackoffSeconds << Math.min(attempts - 1, 30));
+            message.setNextAttemptAt(now.plusSeconds(delay));
+            retried.increment();
+            logger.info("Email {} failed (attempt {}), retrying in {}s: {}", message.getId(), attempts, delay, error);
+        }
+    }
+
+    /**
+     * Deletes sent and failed messages older than the retention period.
+     *
+     * @return the number of messages deleted
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.purge-millis:3600000}")
+    public int purge() {
+        int deleted = emailOutboxRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays));
+        purged.add(deleted);
+        return deleted;
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getPurgedCount() {
+        return purged.sum();
+    }
+
+    public long getPendingCount() {
+        return emailOutboxRepository.countByStatus(EmailOutboxMessage.Status.PENDING);
+    }
+}
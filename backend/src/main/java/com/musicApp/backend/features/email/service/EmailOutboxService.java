@@ -0,0 +1,44 @@
+/**
+ * Class Name: EmailOutboxService
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.email.service;
+
+import com.musicApp.backend.features.email.model.EmailOutboxMessage;
+import com.musicApp.backend.features.email.repository.EmailOutboxRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+
+/**
+ * This service queues emails in the outbox table instead of sending them during
+ * the request. It joins the caller's transaction, so a queued email is only ever
+ * sent if the user change that produced it was committed. {@link EmailDispatcher}
+ * delivers the queued messages in the background.
+ */
+@Service
+public class EmailOutboxService {
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    /**
+     * Creates an EmailOutboxService.
+     *
+     * @param emailOutboxRepository the repository the messages are written to
+     */
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository) {
+        this.emailOutboxRepository = emailOutboxRepository;
+    }
+
+    /**
+     * Queues an email for delivery.
+     *
+     * @param email the recipient's email address
+     * @param subject the subject line of the email
+     * @param content the body of the email; may include HTML markup
+     * @return the queued {@link EmailOutboxMessage}
+     */
+    @Transactional
+    public EmailOutboxMessage enqueue(String email, String subject, String content) {
+        return emailOutboxRepository.save(new EmailOutboxMessage(email, subject, content));
+    }
+}
@@ -6,8 +6,9 @@
  */
 package com.musicApp.backend.features.feed.controller;
 
-import java.util.List;
+import java.util.Arrays;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,61 +18,285 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.musicApp.backend.controller.ETags;
 
 import com.musicApp.backend.features.feed.model.Comment;
 import com.musicApp.backend.features.feed.model.Post;
 import com.musicApp.backend.features.feed.service.FeedService;
-import com.musicApp.backend.features.authentication.model.AuthenticationUser;
+import com.musicApp.backend.features.feed.service.FeedVersions;
+import com.musicApp.backend.features.feed.service.PostImageService;
+import com.musicApp.backend.features.feed.service.StoredVersions;
+import com.musicApp.backend.features.authentication.service.AuthenticatedUserCache;
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
 import com.musicApp.backend.features.feed.dto.CommentDto;
+import com.musicApp.backend.features.feed.dto.FeedChanges;
+import com.musicApp.backend.features.feed.dto.FeedComment;
+import com.musicApp.backend.features.feed.dto.FeedItem;
+import com.musicApp.backend.features.feed.dto.FeedPage;
+import com.musicApp.backend.features.feed.dto.ImageUploadRequest;
+import com.musicApp.backend.features.feed.dto.ImageUploadUrl;
+import com.musicApp.backend.features.feed.dto.LikeStatus;
 import com.musicApp.backend.features.feed.dto.PostDto;
 
 /**
  * This class handles feed-related requests in the application.
  * It provides endpoints for retrieving posts, creating posts,
  * editing posts, deleting posts, liking posts, and managing comments.
+ * Feed pages carry strong ETags built from the {@link StoredVersions} of the posts
+ * they list, which every instance reads alike. Responses about one post also carry
+ * this instance's {@link FeedVersions} and user versions, which change as soon as
+ * a change commits here. A client that sends If-None-Match gets 304 Not Modified
+ * after one small version query.
  */
 @RestController
 @RequestMapping("/api/v1/feed")
 public class FeedController {
 
     private final FeedService feedService;
+    private final FeedVersions feedVersions;
+    private final StoredVersions storedVersions;
+    private final AuthenticatedUserCache userCache;
+    private final PostImageService postImageService;
 
     /**
      * Creates a FeedController object with the required feed service.
      *
      * @param feedService the service used to handle feed operations
+     * @param feedVersions this instance's versions of posts and feeds used for ETags
+     * @param storedVersions the stored versions of posts, feeds and users used for ETags
+     * @param userCache the cache whose user versions are used for ETags
+     * @param postImageService the service that issues picture upload URLs
      */
-    public FeedController(FeedService feedService) {
+    public FeedController(FeedService feedService, FeedVersions feedVersions, StoredVersions storedVersions,
+                          AuthenticatedUserCache userCache, PostImageService postImageService) {
         this.feedService = feedService;
+        this.feedVersions = feedVersions;
+        this.storedVersions = storedVersions;
+        this.userCache = userCache;
+        this.postImageService = postImageService;
+    }
+
+    /**
+     * Returns whether a feed page is unchanged: its parameters plus the version of
+     * the posts it lists.
+     */
+    private boolean feedNotModified(WebRequest request, String version, Object... parts) {
+        Object[] tagged = Arrays.copyOf(parts, parts.length + 1);
+        tagged[parts.length] = version;
+        return request.checkNotModified(ETags.ofStored(tagged));
+    }
+
+    /**
+     * Returns whether a response about one post is unchanged: its parameters plus
+     * the versions that change whenever the post, its author or a commenter does,
+     * and this instance's versions of the post and its users.
+     */
+    private boolean postNotModified(WebRequest request, Long postId, Long viewerId, Object... parts) {
+        String stored = storedVersions.getPostVersion(postId, viewerId);
+        if (stored == null) {
+            return false;
+        }
+        Object[] tagged = Arrays.copyOf(parts, parts.length + 4);
+        tagged[parts.length] = postId;
+        tagged[parts.length + 1] = feedVersions.getPostVersion(postId);
+        tagged[parts.length + 2] = userCache.getChangeVersion();
+        tagged[parts.length + 3] = stored;
+        return request.checkNotModified(ETags.of(tagged));
     }
 
     /**
-     * Returns the feed posts for the authenticated user.
+     * Returns one page of the feed for the authenticated user, newest first.
      *
-     * @param user the authenticated user taken from the request
-     * @return a ResponseEntity containing a list of posts in the user's feed
+     * @param principal the authenticated caller taken from the request
+     * @param cursor the cursor returned with the previous page; omitted for the first page
+     * @param limit the number of posts per page
+     * @param request the request, checked for If-None-Match
+     * @return a ResponseEntity containing a page of posts and the cursor of the next page, or 304 if unchanged
      */
     @GetMapping
-    public ResponseEntity<List<Post>> getFeedPosts(@RequestAttribute("authenticatedUser") AuthenticationUser user) {
-        List<Post> posts = feedService.getAllPosts();
-        return ResponseEntity.ok(posts);
+    public ResponseEntity<FeedPage<FeedItem>> getFeedPosts(
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request
+    ) {
+        if (feedNotModified(request, feedService.getFeedVersion(principal.id(), cursor, limit),
+                "all", principal.id(), cursor, limit)) {
+            return null;
+        }
+        return ResponseEntity.ok(feedService.getFeedPage(principal.id(), cursor, limit));
+    }
+
+    /**
+     * Returns one page of posts written by the authenticated user's friends, newest first.
+     *
+     * @param principal the authenticated caller taken from the request
+     * @param cursor the cursor returned with the previous page; omitted for the first page
+     * @param limit the number of posts per page
+     * @param request the request, checked for If-None-Match
+     * @return a ResponseEntity containing a page of posts and the cursor of the next page, or 304 if unchanged
+     */
+    @GetMapping("/friends")
+    public ResponseEntity<FeedPage<FeedItem>> getFriendsFeedPosts(
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request
+    ) {
+        if (feedNotModified(request, feedService.getFriendsFeedVersion(principal.id(), cursor, limit),
+                "friends", principal.id(), cursor, limit)) {
+            return null;
+        }
+        return ResponseEntity.ok(feedService.getFriendsFeedPage(principal.id(), cursor, limit));
+    }
+
+    /**
+     * Returns one page of the authenticated user's ranked feed, highest score first.
+     * Scores change with every like and comment and as posts age, so the first
+     * page carries no ETag; later pages keep the first page's ranking time.
+     *
+     * @param principal the authenticated caller taken from the request
+     * @param cursor the cursor returned with the previous page; omitted for the first page
+     * @param limit the number of posts per page
+     * @return a ResponseEntity containing a page of posts and the cursor of the next page
+     */
+    @GetMapping("/ranked")
+    public ResponseEntity<FeedPage<FeedItem>> getRankedFeedPosts(
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(feedService.getRankedFeedPage(principal.id(), cursor, limit));
+    }
+
+    /**
+     * Returns the posts and comments created, edited or deleted since a sync token,
+     * so a returning client does not reload the whole feed. A client without a
+     * token calls this first, then loads the feed, then syncs with the returned
+     * token; "reset" asks it to do the same again.
+     *
+     * @param since the token returned by the previous sync; omitted for the first call
+     * @param principal the authenticated caller taken from the request
+     * @return a ResponseEntity containing the changes and the token for the next sync
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<FeedChanges> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
+    ) {
+        return ResponseEntity.ok(feedService.getChanges(principal.id(), since));
+    }
+
+    /**
+     * Returns one page of posts with a hashtag, newest first.
+     *
+     * @param tag the hashtag, without its "#"
+     * @param principal the authenticated caller taken from the request
+     * @param cursor the cursor returned with the previous page; omitted for the first page
+     * @param limit the number of posts per page
+     * @return a ResponseEntity containing a page of posts and the cursor of the next page
+     */
+    @GetMapping("/hashtags/{tag}")
+    public ResponseEntity<FeedPage<FeedItem>> getHashtagPosts(
+            @PathVariable String tag,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(feedService.getHashtagPage(tag, principal.id(), cursor, limit));
+    }
+
+    /**
+     * Returns one page of posts mentioning a user, newest first.
+     *
+     * @param username the mentioned username, without its "@"
+     * @param principal the authenticated caller taken from the request
+     * @param cursor the cursor returned with the previous page; omitted for the first page
+     * @param limit the number of posts per page
+     * @return a ResponseEntity containing a page of posts and the cursor of the next page
+     */
+    @GetMapping("/mentions/{username}")
+    public ResponseEntity<FeedPage<FeedItem>> getMentionPosts(
+            @PathVariable String username,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(feedService.getMentionPage(username, principal.id(), cursor, limit));
+    }
+
+    /**
+     * Returns one page of posts containing every word of a query, newest first.
+     * Words are matched whole; "#" and "@" terms match hashtags and mentions.
+     *
+     * @param q the search text
+     * @param principal the authenticated caller taken from the request
+     * @param cursor the cursor returned with the previous page; omitted for the first page
+     * @param limit the number of posts per page
+     * @return a ResponseEntity containing a page of posts and the cursor of the next page
+     */
+    @GetMapping("/search")
+    public ResponseEntity<FeedPage<FeedItem>> searchPosts(
+            @RequestParam String q,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(feedService.searchPosts(q, principal.id(), cursor, limit));
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of changes to the posts the authenticated
+     * user sees. Each event is named after its {@code FeedEvent} type and carries
+     * the event as JSON; a "ready" event is sent first. The stream closes after
+     * {@code feed.stream.timeout-millis} and the client reconnects.
+     *
+     * @param principal the authenticated caller taken from the request
+     * @return the emitter the events are sent through
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeed(
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
+    ) {
+        return feedService.openStream(principal.id());
+    }
+
+    /**
+     * Generates a presigned upload URL for a post picture. The client PUTs the
+     * picture to the URL and then creates the post with the returned object key as
+     * its picture.
+     *
+     * @param principal the authenticated caller taken from the request
+     * @param body the request body containing the picture's type and size
+     * @return an {@link ImageUploadUrl} containing the upload URL, object key, and expiration time
+     */
+    @PostMapping("/posts/picture/upload-url")
+    public ImageUploadUrl getPostPictureUploadUrl(
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            @RequestBody ImageUploadRequest body
+    ) {
+        return postImageService.createUploadUrl(principal.id(), body.contentType(), body.fileSize());
     }
 
     /**
      * Creates a new post for the authenticated user.
      *
      * @param postDto the request body containing the post information
-     * @param user the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @return a ResponseEntity containing the created post
      */
     @PostMapping("/posts")
-    public ResponseEntity<Post> createPost(
+    public ResponseEntity<FeedItem> createPost(
             @RequestBody PostDto postDto,
-            @RequestAttribute("authenticatedUser") AuthenticationUser user
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
     ) {
-        Post post = feedService.createPost(postDto, user.getId());
-        return ResponseEntity.ok(post);
+        Post post = feedService.createPost(postDto, principal.id());
+        return ResponseEntity.ok(feedService.getFeedItem(post.getId(), principal.id()));
     }
 
     /**
@@ -79,73 +304,116 @@ public class FeedController {
      *
      * @param postId the id of the post to update
      * @param postDto the request body containing the updated post information
-     * @param user the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @return a ResponseEntity containing the updated post
      */
     @PutMapping("/posts/{postId}")
-    public ResponseEntity<Post> editPost(
+    public ResponseEntity<FeedItem> editPost(
             @PathVariable Long postId,
             @RequestBody PostDto postDto,
-            @RequestAttribute("authenticatedUser") AuthenticationUser user
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
     ) {
-        Post post = feedService.editPost(postId, user.getId(), postDto);
-        return ResponseEntity.ok(post);
+        feedService.editPost(postId, principal.id(), postDto);
+        return ResponseEntity.ok(feedService.getFeedItem(postId, principal.id()));
     }
 
     /**
-     * Returns a single post by its id.
+     * Returns a single post by its id and counts the caller's view. A 304 is a
+     * repeat view by the same client, so it is not counted again.
      *
      * @param postId the id of the post to retrieve
-     * @return a ResponseEntity containing the requested post
+     * @param principal the authenticated caller taken from the request
+     * @param request the request, checked for If-None-Match
+     * @return a ResponseEntity containing the requested post, or 304 if unchanged
      */
     @GetMapping("/posts/{postId}")
-    public ResponseEntity<Post> getPost(@PathVariable Long postId) {
-        Post post = feedService.getPost(postId);
-        return ResponseEntity.ok(post);
+    public ResponseEntity<FeedItem> getPost(
+            @PathVariable Long postId,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            WebRequest request
+    ) {
+        if (postNotModified(request, postId, principal.id(), "post", principal.id())) {
+            return null;
+        }
+        return ResponseEntity.ok(feedService.viewPost(postId, principal.id()));
     }
 
     /**
      * Deletes a post owned by the authenticated user.
      *
      * @param postId the id of the post to delete
-     * @param user the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @return a ResponseEntity with no content after deletion
      */
     @DeleteMapping("/posts/{postId}")
     public ResponseEntity<Void> deletePost(
             @PathVariable Long postId,
-            @RequestAttribute("authenticatedUser") AuthenticationUser user
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
     ) {
-        feedService.deletePost(postId, user.getId());
+        feedService.deletePost(postId, principal.id());
         return ResponseEntity.noContent().build();
     }
 
     /**
-     * Returns all posts created by a specific user.
+     * Returns one page of posts created by a specific user, newest first.
      *
      * @param userId the id of the user whose posts will be retrieved
-     * @return a ResponseEntity containing a list of posts by the user
+     * @param principal the authenticated caller taken from the request
+     * @param cursor the cursor returned with the previous page; omitted for the first page
+     * @param limit the number of posts per page
+     * @param request the request, checked for If-None-Match
+     * @return a ResponseEntity containing a page of posts by the user and the cursor of the next page, or 304 if unchanged
      */
     @GetMapping("/posts/user/{userId}")
-    public ResponseEntity<List<Post>> getPostsByUserId(@PathVariable Long userId) {
-        List<Post> posts = feedService.getPostsByUserId(userId);
-        return ResponseEntity.ok(posts);
+    public ResponseEntity<FeedPage<FeedItem>> getPostsByUserId(
+            @PathVariable Long userId,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request
+    ) {
+        if (feedNotModified(request, feedService.getPostsByUserIdVersion(userId, principal.id(), cursor, limit),
+                "user", userId, principal.id(), cursor, limit)) {
+            return null;
+        }
+        return ResponseEntity.ok(feedService.getPostsByUserIdPage(userId, principal.id(), cursor, limit));
     }
 
     /**
-     * Likes a post for the authenticated user.
+     * Likes a post for the authenticated user, or removes the like if the user already likes it.
      *
      * @param postId the id of the post to like
-     * @param user the authenticated user taken from the request
-     * @return a ResponseEntity containing the updated post
+     * @param principal the authenticated caller taken from the request
+     * @return a ResponseEntity containing whether the caller likes the post and its new like count
      */
     @PutMapping("/posts/{postId}/like")
-    public ResponseEntity<Post> likePost(
+    public ResponseEntity<LikeStatus> likePost(
+            @PathVariable Long postId,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
+    ) {
+        return ResponseEntity.ok(feedService.likePost(postId, principal.id()));
+    }
+
+    /**
+     * Returns one page of a post's comments, newest first.
+     *
+     * @param postId the id of the post whose comments are returned
+     * @param cursor the cursor returned with the previous page; omitted for the first page
+     * @param limit the number of comments per page
+     * @param request the request, checked for If-None-Match
+     * @return a ResponseEntity containing a page of comments and the cursor of the next page, or 304 if unchanged
+     */
+    @GetMapping("/posts/{postId}/comments")
+    public ResponseEntity<FeedPage<FeedComment>> getComments(
             @PathVariable Long postId,
-            @RequestAttribute("authenticatedUser") AuthenticationUser user
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request
     ) {
-        Post post = feedService.likePost(postId, user.getId());
-        return ResponseEntity.ok(post);
+        if (postNotModified(request, postId, null, "comments", cursor, limit)) {
+            return null;
+        }
+        return ResponseEntity.ok(feedService.getCommentsPage(postId, cursor, limit));
     }
 
     /**
@@ -153,32 +421,33 @@ public class FeedController {
      *
      * @param postId the id of the post being commented on
      * @param commentDto the request body containing the comment content
-     * @param user the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @return a ResponseEntity containing the created comment
      */
     @PostMapping("/posts/{postId}/comments")
-    public ResponseEntity<Comment> addComment(
+    public ResponseEntity<FeedComment> addComment(
             @PathVariable Long postId,
             @RequestBody CommentDto commentDto,
-            @RequestAttribute("authenticatedUser") AuthenticationUser user
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
     ) {
-        Comment comment = feedService.addComment(postId, user.getId(), commentDto.getContent());
-        return ResponseEntity.ok(comment);
+        Comment comment = feedService.addComment(postId, principal.id(), commentDto.getContent());
+        return ResponseEntity.ok(new FeedComment(comment.getId(), postId, principal.id(), principal.username(),
+                comment.getContent(), comment.getCreationDate()));
     }
 
     /**
      * Deletes a comment owned by the authenticated user.
      *
      * @param commentId the id of the comment to delete
-     * @param user the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @return a ResponseEntity with no content after deletion
      */
     @DeleteMapping("/comments/{commentId}")
     public ResponseEntity<Void> deleteComment(
             @PathVariable Long commentId,
-            @RequestAttribute("authenticatedUser") AuthenticationUser user
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
     ) {
-        feedService.deleteComment(commentId, user.getId());
+        feedService.deleteComment(commentId, principal.id());
         return ResponseEntity.noContent().build();
     }
 
@@ -187,16 +456,15 @@ public class FeedController {
      *
      * @param commentId the id of the comment to update
      * @param commentDto the request body containing the updated comment content
-     * @param user the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @return a ResponseEntity containing the updated comment
      */
     @PutMapping("/comments/{commentId}")
-    public ResponseEntity<Comment> editComment(
+    public ResponseEntity<FeedComment> editComment(
             @PathVariable Long commentId,
             @RequestBody CommentDto commentDto,
-            @RequestAttribute("authenticatedUser") AuthenticationUser user
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
     ) {
-        Comment comment = feedService.editComment(commentId, user.getId(), commentDto.getContent());
-        return ResponseEntity.ok(comment);
+        return ResponseEntity.ok(feedService.editComment(commentId, principal.id(), commentDto.getContent()));
     }
 }
\ No newline at end of file
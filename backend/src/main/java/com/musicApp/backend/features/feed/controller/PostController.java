@@ -6,35 +6,36 @@
 
 package com.musicApp.backend.features.feed.controller;
 
-import com.musicApp.backend.features.feed.model.Post;
-import com.musicApp.backend.features.feed.repository.PostRepository;
+import com.musicApp.backend.features.feed.dto.PostDto;
+import com.musicApp.backend.features.feed.service.FeedService;
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
 
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
 /**
  * Handles feed post operations such as creating posts.
  * A post may include text content, an optional image, and is associated with an authenticated user.
+ * Images are not sent here: the client uploads them to object storage with a URL from
+ * {@code POST /api/v1/feed/posts/picture/upload-url} and sends the returned object key.
  */
 @RestController
 @RequestMapping("/api/posts")
 public class PostController {
 
-    private final PostRepository postRepository;
+    private final FeedService feedService;
     private final AuthenticationUserRepository userRepository;
 
     /**
      * Creates a PostController.
      *
-     * @param postRepository repository for posts
+     * @param feedService service that saves posts and pushes them to the friends' timelines
      * @param userRepository repository for users
      */
-    public PostController(PostRepository postRepository, AuthenticationUserRepository userRepository) {
-        this.postRepository = postRepository;
+    public PostController(FeedService feedService, AuthenticationUserRepository userRepository) {
+        this.feedService = feedService;
         this.userRepository = userRepository;
     }
 
@@ -42,13 +43,13 @@ public class PostController {
      * Creates a new post.
      *
      * @param content post text content
-     * @param picture optional image file
+     * @param pictureKey optional object key of an uploaded image
      * @param authenticatedUser authenticated user from request context
      */
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> createPost(
             @RequestParam("content") String content,
-            @RequestParam(value = "picture", required = false) MultipartFile picture,
+            @RequestParam(value = "pictureKey", required = false) String pictureKey,
             @RequestAttribute(value = "authenticatedUser", required = false) AuthenticationUser authenticatedUser
     ) {
         if (authenticatedUser == null) {
@@ -62,15 +63,14 @@ public class PostController {
             return ResponseEntity.status(404).body("User not found");
         }
 
-        Post post = new Post();
+        PostDto post = new PostDto();
         post.setContent(content);
-        post.setAuthor(user);
 
-        if (picture != null && !picture.isEmpty()) {
-            post.setPicture(picture.getOriginalFilename());
+        if (pictureKey != null && !pictureKey.isBlank()) {
+            post.setPicture(pictureKey);
         }
 
-        postRepository.save(post);
+        feedService.createPost(post, user.getId());
 
         return ResponseEntity.ok("Post created");
     }
@@ -0,0 +1,15 @@
+/**
+ * Class Name: CommentTarget
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+/**
+ * What deleting a comment needs to know about the post it belongs to, read
+ * without loading the comment or the post.
+ *
+ * @param postId the id of the commented post
+ * @param postAuthorId the id of the commented post's author
+ */
+public record CommentTarget(Long postId, Long postAuthorId) {}
@@ -0,0 +1,17 @@
+/**
+ * Class Name: FeedAuthor
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+/**
+ * The few fields of a post's or comment's author that the feed shows.
+ *
+ * @param id the author's id
+ * @param username the author's username
+ * @param firstName the author's first name
+ * @param lastName the author's last name
+ * @param profilePicture the author's profile picture, or {@code null}
+ */
+public record FeedAuthor(Long id, String username, String firstName, String lastName, String profilePicture) {}
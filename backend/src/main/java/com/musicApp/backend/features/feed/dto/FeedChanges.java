@@ -0,0 +1,25 @@
+/**
+ * Class Name: FeedChanges
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+import java.util.List;
+
+/**
+ * The posts and comments saved or deleted since a sync token. Each post and
+ * comment appears once, in its latest state; comments of deleted posts are left
+ * out.
+ *
+ * @param token the token to pass as {@code since} on the next sync
+ * @param reset {@code true} if the client must reload the feed before syncing
+ *              from {@code token}, because no token was given or it is too old
+ * @param hasMore {@code true} if more changes are ready; the client syncs again right away
+ * @param posts the posts created or edited
+ * @param deletedPostIds the ids of the posts deleted
+ * @param comments the comments added or edited
+ * @param deletedCommentIds the ids of the comments deleted
+ */
+public record FeedChanges(String token, boolean reset, boolean hasMore, List<FeedItem> posts,
+                          List<Long> deletedPostIds, List<FeedComment> comments, List<Long> deletedCommentIds) {}
@@ -0,0 +1,21 @@
+/**
+ * Class Name: FeedComment
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A comment as shown under a post in the feed.
+ *
+ * @param id the comment's id
+ * @param postId the id of the post the comment belongs to
+ * @param authorId the id of the comment's author
+ * @param authorUsername the username of the comment's author
+ * @param content the comment's text
+ * @param creationDate when the comment was written
+ */
+public record FeedComment(Long id, Long postId, Long authorId, String authorUsername, String content,
+                          LocalDateTime creationDate) {}
@@ -0,0 +1,54 @@
+/**
+ * Class Name: FeedCursor
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a feed or a comment list ordered newest first, on
+ * {@code (creationDate, id)}. The next page starts right after the post or comment
+ * the cursor points at. Clients receive the cursor as an opaque string and only
+ * pass it back.
+ *
+ * @param creationDate the creation date of the last item on the previous page
+ * @param id the id of the last item on the previous page, which breaks ties
+ */
+public record FeedCursor(LocalDateTime creationDate, Long id) {
+
+    /**
+     * Encodes the cursor as an opaque, URL-safe string.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String raw = creationDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor; {@code null} or blank for the first page
+     * @return the decoded cursor, or {@code null} for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static FeedCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new FeedCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Class Name: FeedEvent
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+/**
+ * A small change to a post, pushed to the feed stream of every connected user who
+ * can see the post. Clients apply it to the posts they show, or fetch the post
+ * again; fields that do not apply to the event's type are {@code null}.
+ *
+ * @param type what happened
+ * @param postId the id of the post
+ * @param authorId the id of the post's author
+ * @param actorId the id of the user who caused the change
+ * @param commentId the id of the new comment, for {@link Type#COMMENT_ADDED}
+ * @param likeCount the post's like count after the change, for likes and unlikes
+ */
+public record FeedEvent(Type type, Long postId, Long authorId, Long actorId, Long commentId, Long likeCount) {
+
+    /**
+     * Kind of change to a post.
+     */
+    public enum Type {
+        POST_CREATED,
+        POST_EDITED,
+        POST_DELETED,
+        POST_LIKED,
+        POST_UNLIKED,
+        COMMENT_ADDED
+    }
+
+    public static FeedEvent postCreated(Long postId, Long authorId) {
+        return new FeedEvent(Type.POST_CREATED, postId, authorId, authorId, null, null);
+    }
+
+    public static FeedEvent postEdited(Long postId, Long authorId) {
+        return new FeedEvent(Type.POST_EDITED, postId, authorId, authorId, null, null);
+    }
+
+    public static FeedEvent postDeleted(Long postId, Long authorId) {
+        return new FeedEvent(Type.POST_DELETED, postId, authorId, authorId, null, null);
+    }
+
+    public static FeedEvent likeChanged(Long postId, Long authorId, Long userId, boolean liked, long likeCount) {
+        return new FeedEvent(liked ? Type.POST_LIKED : Type.POST_UNLIKED, postId, authorId, userId, null, likeCount);
+    }
+
+    public static FeedEvent commentAdded(Long postId, Long authorId, Long userId, Long commentId) {
+        return new FeedEvent(Type.COMMENT_ADDED, postId, authorId, userId, commentId, null);
+    }
+}
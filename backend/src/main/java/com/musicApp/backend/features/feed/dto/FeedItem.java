@@ -0,0 +1,30 @@
+/**
+ * Class Name: FeedItem
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A post as returned by the feed endpoints: the post, a summary of its author,
+ * aggregate like and comment counts, whether the caller liked it, and its newest
+ * comments. Its size does not grow with the number of likes or comments.
+ *
+ * @param id the post's id
+ * @param content the post's text
+ * @param picture the URL of the post's picture sized for display, or {@code null}
+ * @param thumbnail the URL of a small copy of the picture for feed cards, or {@code null}
+ * @param creationDate when the post was created
+ * @param updatedDate when the post was last edited, or {@code null}
+ * @param author the post's author
+ * @param likeCount how many users like the post
+ * @param commentCount how many comments the post has
+ * @param likedByMe whether the caller likes the post
+ * @param recentComments the post's newest comments, newest first
+ */
+public record FeedItem(Long id, String content, String picture, String thumbnail, LocalDateTime creationDate, LocalDateTime updatedDate,
+                       FeedAuthor author, long likeCount, long commentCount, boolean likedByMe,
+                       List<FeedComment> recentComments) {}
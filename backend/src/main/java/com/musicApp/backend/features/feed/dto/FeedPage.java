@@ -0,0 +1,17 @@
+/**
+ * Class Name: FeedPage
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated feed.
+ *
+ * @param items the items on this page, newest first
+ * @param nextCursor the cursor of the next page, or {@code null} if this is the last page
+ * @param <T> the type of the items
+ */
+public record FeedPage<T>(List<T> items, String nextCursor) {}
@@ -0,0 +1,32 @@
+/**
+ * Class Name: FeedPostRow
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+import com.musicApp.backend.features.feed.model.Post;
+
+import java.time.LocalDateTime;
+
+/**
+ * A post and its author's summary, read in one query by the feed page queries
+ * without loading either entity.
+ *
+ * @param id the post's id
+ * @param content the post's text
+ * @param picture the post's picture, or {@code null}
+ * @param pictureStatus the progress of an uploaded picture's resized variants, or {@code null}
+ * @param creationDate when the post was created
+ * @param updatedDate when the post was last edited, or {@code null}
+ * @param likeCount the post's stored like count
+ * @param commentCount the post's comment count
+ * @param authorId the author's id
+ * @param authorUsername the author's username
+ * @param authorFirstName the author's first name
+ * @param authorLastName the author's last name
+ * @param authorProfilePicture the author's profile picture, or {@code null}
+ */
+public record FeedPostRow(Long id, String content, String picture, Post.PictureStatus pictureStatus, LocalDateTime creationDate, LocalDateTime updatedDate,
+                          long likeCount, long commentCount, Long authorId, String authorUsername, String authorFirstName, String authorLastName,
+                          String authorProfilePicture) {}
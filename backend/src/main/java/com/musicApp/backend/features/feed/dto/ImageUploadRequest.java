@@ -0,0 +1,14 @@
+/**
+ * Class Name: ImageUploadRequest
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+/**
+ * A request for a presigned URL to upload a post picture.
+ *
+ * @param contentType the picture's MIME type
+ * @param fileSize the picture's size in bytes; the upload must be exactly this long
+ */
+public record ImageUploadRequest(String contentType, Long fileSize) {}
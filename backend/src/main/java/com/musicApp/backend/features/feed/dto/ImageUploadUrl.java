@@ -0,0 +1,15 @@
+/**
+ * Class Name: ImageUploadUrl
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+/**
+ * A presigned URL the client PUTs a post picture to, directly to object storage.
+ *
+ * @param uploadUrl the presigned PUT URL
+ * @param objectKey the key to send as the post's picture once the upload finished
+ * @param expiresInSeconds how long the URL can be used
+ */
+public record ImageUploadUrl(String uploadUrl, String objectKey, long expiresInSeconds) {}
@@ -0,0 +1,16 @@
+/**
+ * Class Name: LikeStatus
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+/**
+ * The result of toggling a like: whether the caller now likes the post and the
+ * post's new like count.
+ *
+ * @param postId the post's id
+ * @param liked whether the caller likes the post after the toggle
+ * @param likeCount how many users like the post
+ */
+public record LikeStatus(Long postId, boolean liked, long likeCount) {}
@@ -0,0 +1,14 @@
+/**
+ * Class Name: PostLikeState
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+/**
+ * What a like toggle needs to know about a post, read without loading it.
+ *
+ * @param authorId the id of the post's author
+ * @param likeCount the post's stored like count
+ */
+public record PostLikeState(Long authorId, long likeCount) {}
@@ -0,0 +1,74 @@
+/**
+ * Class Name: RankedCursor
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position in a ranked feed. Every page of one traversal is scored as of the time
+ * the first page was ranked, so recency does not shift between pages, and skips
+ * the posts earlier pages served. Likes and affinities may still change between
+ * pages and reorder the posts not served yet, but no post is shown twice or passed
+ * over. Clients receive the cursor as an opaque string and only pass it back.
+ *
+ * @param rankedAt the time the first page was ranked
+ * @param servedIds the ids of the posts the previous pages held, in the order served
+ */
+public record RankedCursor(LocalDateTime rankedAt, List<Long> servedIds) {
+
+    /**
+     * Returns how many posts the previous pages held.
+     *
+     * @return the number of posts served
+     */
+    public int served() {
+        return servedIds.size();
+    }
+
+    /**
+     * Encodes the cursor as an opaque, URL-safe string.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        StringBuilder raw = new StringBuilder().append(rankedAt).append('|');
+        for (int i = 0; i < servedIds.size(); i++) {
+            raw.append(i == 0 ? "" : ",").append(Long.toString(servedIds.get(i), Character.MAX_RADIX));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor; {@code null} or blank for the first page
+     * @return the decoded cursor, or {@code null} for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static RankedCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            List<Long> servedIds = new ArrayList<>();
+            for (String id : parts[1].isEmpty() ? new String[0] : parts[1].split(",")) {
+                servedIds.add(Long.parseLong(id, Character.MAX_RADIX));
+            }
+            return new RankedCursor(LocalDateTime.parse(parts[0]), List.copyOf(servedIds));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
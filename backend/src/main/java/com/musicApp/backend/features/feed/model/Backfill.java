@@ -0,0 +1,42 @@
+/**
+ * Class Name: Backfill
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * The marker of a one-time data backfill that has run. The row is inserted in the
+ * backfill's own transaction, so it exists exactly when the backfill committed, and
+ * a concurrent instance trying to insert it waits for that transaction to end.
+ */
+@Entity
+@Table(name = "backfills")
+public class Backfill {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "completed_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime completedAt;
+
+    public Backfill() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
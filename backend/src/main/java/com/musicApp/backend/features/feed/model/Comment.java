@@ -17,8 +17,12 @@ import java.time.LocalDateTime;
  * This class represents a comment made on a post in the feed.
  * It stores the comment id, the related post, the author of the
  * comment, the comment content, and the creation and update dates.
+ * The index serves the newest comments of a post.
  */
 @Entity(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_post_creation_date_id", columnList = "post_id, creation_date, id")
+})
 public class Comment {
 
     @Id
@@ -38,6 +42,7 @@ public class Comment {
     private String content;
 
     @CreationTimestamp
+    @Column(name = "creation_date")
     private LocalDateTime creationDate;
 
     private LocalDateTime updatedDate;
@@ -0,0 +1,99 @@
+/**
+ * Class Name: FeedChange
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the feed change log: a post or comment that was saved or deleted.
+ * The id is the change's place in the log, so clients sync by reading the ids
+ * above the last one they saw, a range read on the primary key. Deletes are kept
+ * as tombstones, since the deleted rows are gone. The time of a change is set by
+ * the database when the row is inserted, so every instance, and the tombstones
+ * written in SQL, stamp changes with the same clock.
+ */
+@Entity
+@Table(name = "feed_changes", indexes = {
+        @Index(name = "idx_feed_changes_changed_at", columnList = "changed_at")
+})
+public class FeedChange {
+
+    /**
+     * What happened to the post or comment.
+     */
+    public enum Type {
+        POST_SAVED,
+        POST_DELETED,
+        COMMENT_SAVED,
+        COMMENT_DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    /**
+     * Set for comment changes only.
+     */
+    @Column(name = "comment_id")
+    private Long commentId;
+
+    @Column(name = "changed_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime changedAt;
+
+    public FeedChange() {
+    }
+
+    public FeedChange(Type type, Long postId, Long commentId) {
+        this.type = type;
+        this.postId = postId;
+        this.commentId = commentId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public Long getCommentId() {
+        return commentId;
+    }
+
+    /**
+     * Returns when the change was recorded; {@code null} on a change that was
+     * saved but not read back.
+     *
+     * @return the database time of the insert
+     */
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
@@ -5,21 +5,28 @@
  */
 package com.musicApp.backend.features.feed.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.persistence.OneToMany;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 
@@ -30,11 +37,27 @@ import com.musicApp.backend.features.authentication.model.AuthenticationUser;
  */
 
 /**
- * Post entity.
+ * Post entity. The indexes back the keyset-paginated feed queries, newest first,
+ * over all posts and per author.
  */
 @Entity(name = "posts")
+@Table(name = "posts", indexes = {
+    @Index(name = "idx_posts_creation_date_id", columnList = "creation_date, id"),
+    @Index(name = "idx_posts_author_creation_date_id", columnList = "author_id, creation_date, id"),
+    @Index(name = "idx_posts_picture_status", columnList = "picture_status, id"),
+    @Index(name = "idx_posts_changed_at", columnList = "changed_at")
+})
 public class Post {
 
+    /**
+     * Progress of the resized variants of an uploaded picture.
+     */
+    public enum PictureStatus {
+        PENDING,
+        READY,
+        FAILED
+    }
+
     /**
      * JPA constructor.
      */
@@ -49,15 +72,60 @@ public class Post {
 
     private String picture;
 
+    /**
+     * Set when {@link #picture} is an uploaded object key; {@code null} for posts
+     * without a picture and for pictures stored as plain names or URLs.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "picture_status", length = 16)
+    private PictureStatus pictureStatus;
+
     @ManyToOne
     @JoinColumn(name = "author_id", nullable = false)
     private AuthenticationUser author;
 
     @CreationTimestamp
+    @Column(name = "creation_date")
     private LocalDateTime creationDate;
 
     private LocalDateTime updatedDate;
 
+    /**
+     * Denormalized number of likes. Only {@code LikeCounter} writes it, with native
+     * updates, so saving a post never overwrites a newer count.
+     */
+    @ColumnDefault("0")
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false)
+    private long likeCount;
+
+    /**
+     * Denormalized number of comments, kept by {@code FeedService} with native
+     * updates in the same transaction that adds or deletes a comment.
+     */
+    @ColumnDefault("0")
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    private long commentCount;
+
+    /**
+     * Approximate count of the distinct users who viewed the post, and the
+     * {@code HyperLogLog} sketch it is estimated from. Only {@code ViewCounter}
+     * writes them, with native updates.
+     */
+    @ColumnDefault("0")
+    @Column(name = "view_count", nullable = false, insertable = false, updatable = false)
+    private long viewCount;
+
+    @Column(name = "view_sketch", length = 2050, insertable = false, updatable = false)
+    private byte[] viewSketch;
+
+    /**
+     * When the row was inserted or last changed, set by the database on every
+     * change except view counts. {@code StoredVersions} tags responses with it.
+     */
+    @Column(name = "changed_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime changedAt;
+
     @OneToMany(
         mappedBy = "post",
         cascade = CascadeType.ALL,
@@ -65,6 +133,11 @@ public class Post {
     )
     private List<Comment> comments;
 
+    /**
+     * The users who like the post. Responses carry {@code likeCount} instead, so
+     * the users are never serialized.
+     */
+    @JsonIgnore
     @ManyToMany
     @JoinTable(
         name = "posts_likes",
@@ -101,12 +174,21 @@ public class Post {
     public String getPicture() { return picture; }
     public void setPicture(String picture) { this.picture = picture; }
 
+    public PictureStatus getPictureStatus() { return pictureStatus; }
+    public void setPictureStatus(PictureStatus pictureStatus) { this.pictureStatus = pictureStatus; }
+
     public LocalDateTime getCreationDate() { return creationDate; }
     public void setCreationDate(LocalDateTime creationDate) { this.creationDate = creationDate; }
 
     public LocalDateTime getUpdatedDate() { return updatedDate; }
     public void setUpdatedDate(LocalDateTime updatedDate) { this.updatedDate = updatedDate; }
 
+    public long getLikeCount() { return likeCount; }
+
+    public long getCommentCount() { return commentCount; }
+
+    public long getViewCount() { return viewCount; }
+
     public Set<AuthenticationUser> getLikes() { return likes; }
     public void setLikes(Set<AuthenticationUser> likes) { this.likes = likes; }
 }
\ No newline at end of file
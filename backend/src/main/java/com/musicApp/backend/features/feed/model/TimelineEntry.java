@@ -0,0 +1,96 @@
+/**
+ * Class Name: TimelineEntry
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * One post on a user's home timeline. The table holds only ids and the post's
+ * creation date, so a timeline page is a single range read on
+ * {@code (user_id, post_creation_date, post_id)}; the posts themselves are loaded
+ * by id afterwards.
+ */
+@Entity
+@IdClass(TimelineEntry.Key.class)
+@Table(name = "timeline_entries", indexes = {
+        @Index(name = "idx_timeline_entries_user_creation_post", columnList = "user_id, post_creation_date, post_id"),
+        @Index(name = "idx_timeline_entries_post", columnList = "post_id")
+})
+public class TimelineEntry {
+
+    /**
+     * Primary key of a timeline entry: a post appears at most once per timeline.
+     */
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long postId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, Long postId) {
+            this.userId = userId;
+            this.postId = postId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(userId, key.userId) && Objects.equals(postId, key.postId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, postId);
+        }
+    }
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    @Column(name = "post_creation_date", nullable = false)
+    private LocalDateTime postCreationDate;
+
+    public TimelineEntry() {
+    }
+
+    public TimelineEntry(Long userId, Long postId, LocalDateTime postCreationDate) {
+        this.userId = userId;
+        this.postId = postId;
+        this.postCreationDate = postCreationDate;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public LocalDateTime getPostCreationDate() {
+        return postCreationDate;
+    }
+}
@@ -6,8 +6,20 @@
  */
 package com.musicApp.backend.features.feed.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.musicApp.backend.features.feed.dto.CommentTarget;
+import com.musicApp.backend.features.feed.dto.FeedComment;
 import com.musicApp.backend.features.feed.model.Comment;
 
 
@@ -15,7 +27,120 @@ import com.musicApp.backend.features.feed.model.Comment;
  * This interface provides database access operations for Comment objects.
  * It extends JpaRepository so the application can perform standard
  * create, read, update, and delete operations on comments.
+ * A post's comments are read a page at a time, keyset-paginated on
+ * {@code (creationDate, id)}, newest first, as {@link FeedComment} projections.
+ * Edits and deletes check the author in the statement itself, so a comment is
+ * never loaded to compare authors.
  */
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-}
\ No newline at end of file
+    String COMMENT_COLUMNS = "SELECT new com.musicApp.backend.features.feed.dto.FeedComment(" +
+            "c.id, c.post.id, a.id, a.username, c.content, c.creationDate) FROM comments c JOIN c.author a ";
+    String COMMENT_ROW = COMMENT_COLUMNS + "WHERE c.post.id = :postId ";
+    String NEWEST_FIRST = "ORDER BY c.creationDate DESC, c.id DESC";
+
+    @Query(COMMENT_ROW + NEWEST_FIRST)
+    List<FeedComment> findPageByPostId(@Param("postId") Long postId, Pageable page);
+
+    @Query(COMMENT_ROW + "AND c.creationDate <= :creationDate AND (c.creationDate < :creationDate OR c.id < :id) " + NEWEST_FIRST)
+    List<FeedComment> findPageByPostIdBefore(@Param("postId") Long postId, @Param("creationDate") LocalDateTime creationDate,
+                                             @Param("id") Long id, Pageable page);
+
+    /**
+     * Returns a single comment.
+     * @param commentId the id of the comment
+     * @return the comment, or empty if it does not exist
+     */
+    @Query(COMMENT_COLUMNS + "WHERE c.id = :commentId")
+    Optional<FeedComment> findRow(@Param("commentId") Long commentId);
+
+    /**
+     * Returns comments by id, for syncing clients.
+     * @param commentIds the ids of the comments
+     * @return the comments that still exist, in no particular order
+     */
+    @Query(COMMENT_COLUMNS + "WHERE c.id IN :commentIds")
+    List<FeedComment> findRowsByIds(@Param("commentIds") Collection<Long> commentIds);
+
+    /**
+     * Returns the post a comment belongs to, if the user wrote the comment.
+     * @param commentId the id of the comment
+     * @param authorId the id of the user
+     * @return the comment's post, or empty if the comment does not exist or the user did not write it
+     */
+    @Query("SELECT new com.musicApp.backend.features.feed.dto.CommentTarget(c.post.id, c.post.author.id) " +
+            "FROM comments c WHERE c.id = :commentId AND c.author.id = :authorId")
+    Optional<CommentTarget> findOwnTarget(@Param("commentId") Long commentId, @Param("authorId") Long authorId);
+
+    /**
+     * Updates a comment if the user wrote it, and moves its post's {@code changed_at}
+     * so responses showing the post's comments are retagged.
+     * @param commentId the id of the comment
+     * @param authorId the id of the user editing the comment
+     * @param content the new content
+     * @param updatedDate the time of the edit
+     * @return the number of rows updated, 0 if the comment does not exist or the user did not write it
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE comments c JOIN posts p ON p.id = c.post_id " +
+            "SET c.content = :content, c.updated_date = :updatedDate, p.changed_at = CURRENT_TIMESTAMP(6) " +
+            "WHERE c.id = :commentId AND c.author_id = :authorId", nativeQuery = true)
+    int updateOwnComment(@Param("commentId") Long commentId, @Param("authorId") Long authorId,
+                         @Param("content") String content, @Param("updatedDate") LocalDateTime updatedDate);
+
+    /**
+     * Deletes a comment if the user wrote it.
+     * @param commentId the id of the comment
+     * @param authorId the id of the user deleting the comment
+     * @return 1 if the comment was deleted, 0 if it does not exist or the user did not write it
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM comments WHERE id = :commentId AND author_id = :authorId", nativeQuery = true)
+    int deleteOwnComment(@Param("commentId") Long commentId, @Param("authorId") Long authorId);
+
+    /**
+     * Deletes the comments of a post if the user wrote the post.
+     * @param postId the id of the post
+     * @param postAuthorId the id of the user deleting the post
+     * @return the number of comments deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE c FROM comments c JOIN posts p ON p.id = c.post_id " +
+            "WHERE p.id = :postId AND p.author_id = :postAuthorId", nativeQuery = true)
+    int deleteOfOwnPost(@Param("postId") Long postId, @Param("postAuthorId") Long postAuthorId);
+
+    /**
+     * Returns the newest comments of several posts in one query, at most
+     * {@code perPost} for each post, with their authors' usernames.
+     * @param postIds the ids of the posts
+     * @param perPost how many comments to return for each post
+     * @return rows of {@code [id, postId, authorId, authorUsername, content, creationDate]}, newest first within each post
+     */
+    @Query(value = "SELECT t.id, t.post_id, t.author_id, u.username, t.content, t.creation_date FROM (" +
+            "SELECT c.id, c.post_id, c.author_id, c.content, c.creation_date, " +
+            "ROW_NUMBER() OVER (PARTITION BY c.post_id ORDER BY c.creation_date DESC, c.id DESC) AS rn " +
+            "FROM comments c WHERE c.post_id IN (:postIds)) t " +
+            "JOIN users u ON u.id = t.author_id WHERE t.rn <= :perPost " +
+            "ORDER BY t.post_id, t.creation_date DESC, t.id DESC", nativeQuery = true)
+    List<Object[]> findRecentByPostIds(@Param("postIds") Collection<Long> postIds, @Param("perPost") int perPost);
+
+    /**
+     * Sums a user's comments per author of the commented post, each halved for every
+     * half-life since its creation date, leaving out the user's own posts and comments
+     * made before {@code since}.
+     * @param userId the id of the user
+     * @param since the oldest comment creation date counted
+     * @param now the time the comments are decayed to
+     * @param halfLifeSeconds the number of seconds after which a comment counts half
+     * @return rows of {@code [authorId, decayedComments]}
+     */
+    @Query(value = "SELECT p.author_id, SUM(POW(0.5, GREATEST(0, TIMESTAMPDIFF(SECOND, c.creation_date, :now)) / :halfLifeSeconds)) " +
+            "FROM comments c JOIN posts p ON p.id = c.post_id " +
+            "WHERE c.author_id = :userId AND p.author_id <> :userId AND c.creation_date >= :since " +
+            "GROUP BY p.author_id", nativeQuery = true)
+    List<Object[]> sumDecayedCommentsByPostAuthor(@Param("userId") Long userId, @Param("since") LocalDateTime since,
+                                                  @Param("now") LocalDateTime now, @Param("halfLifeSeconds") double halfLifeSeconds);
+}
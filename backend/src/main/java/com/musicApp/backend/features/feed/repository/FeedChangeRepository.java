@@ -0,0 +1,74 @@
+/**
+ * Class Name: FeedChangeRepository
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.repository;
+
+import com.musicApp.backend.features.feed.model.FeedChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository for the feed change log. Syncing reads a range of ids; the timestamp
+ * index is only used to find where recent changes start and which to prune.
+ */
+public interface FeedChangeRepository extends JpaRepository<FeedChange, Long> {
+
+    /**
+     * Returns the changes from an id on, in log order.
+     * @param fromId the lowest id returned
+     * @param page the number of changes to return; the page number is always 0
+     * @return the changes, oldest first
+     */
+    @Query("SELECT f FROM FeedChange f WHERE f.id >= :fromId ORDER BY f.id")
+    List<FeedChange> findFrom(@Param("fromId") Long fromId, Pageable page);
+
+    /**
+     * Returns the lowest id of the changes recorded less than a time ago, by the
+     * database clock.
+     * @param micros the age in microseconds
+     * @return the id, or {@code null} if there are none
+     */
+    @Query(value = "SELECT MIN(id) FROM feed_changes WHERE changed_at > NOW(6) - INTERVAL :micros MICROSECOND",
+            nativeQuery = true)
+    Long findFirstIdYoungerThan(@Param("micros") long micros);
+
+    /**
+     * Returns the highest id of the changes recorded more than a number of days
+     * ago, by the database clock.
+     * @param days the age in days
+     * @return the id, or {@code null} if there are none
+     */
+    @Query(value = "SELECT MAX(id) FROM feed_changes WHERE changed_at < NOW(6) - INTERVAL :days DAY",
+            nativeQuery = true)
+    Long findLastIdOlderThan(@Param("days") int days);
+
+    /**
+     * Returns the highest id below an id.
+     * @param id the exclusive upper bound
+     * @return the id, or {@code null} if there are none
+     */
+    @Query("SELECT MAX(f.id) FROM FeedChange f WHERE f.id < :id")
+    Long findLastIdBelow(@Param("id") Long id);
+
+    @Query("SELECT MAX(f.id) FROM FeedChange f")
+    Long findLastId();
+
+    /**
+     * Deletes the oldest changes up to an id.
+     * @param throughId the highest id deleted
+     * @param limit the maximum number of changes deleted
+     * @return the number of changes deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM feed_changes WHERE id <= :throughId ORDER BY id LIMIT :limit", nativeQuery = true)
+    int deleteThrough(@Param("throughId") Long throughId, @Param("limit") int limit);
+}
@@ -2,19 +2,260 @@
 //version: 1.0
 
 package com.musicApp.backend.features.feed.repository;
+import com.musicApp.backend.features.feed.dto.FeedPostRow;
+import com.musicApp.backend.features.feed.dto.PostLikeState;
 import com.musicApp.backend.features.feed.model.Post;
-import com.musicApp.backend.features.authentication.dto.CreatePostRequest;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Repository for posts. Feed queries are keyset-paginated on
+ * {@code (creationDate, id)}, newest first: the first page has no cursor, later
+ * pages start strictly after the cursor. The page size is the {@link Pageable}'s
+ * size; its page number is always 0. Feed pages are read as {@link FeedPostRow}
+ * projections joined with the author, so no post or user entity is loaded.
+ */
 public interface PostRepository extends JpaRepository<Post, Long> {
-  List<Post> findByAuthorIdNotOrderByCreationDateDesc(Long authenticatedUserId);
-  
-  List<Post> findAllByOrderByCreationDateDesc();
 
-  List<Post> findByAuthorId(Long userId);
+  String FEED_ROW = "SELECT new com.musicApp.backend.features.feed.dto.FeedPostRow(" +
+          "p.id, p.content, p.picture, p.pictureStatus, p.creationDate, p.updatedDate, p.likeCount, p.commentCount, " +
+          "a.id, a.username, a.fname, a.lname, a.profilePicture) FROM posts p JOIN p.author a ";
+  String AFTER_CURSOR = "p.creationDate <= :creationDate AND (p.creationDate < :creationDate OR p.id < :id) ";
+  String NEWEST_FIRST = "ORDER BY p.creationDate DESC, p.id DESC";
 
-  List<Post> findByAuthorIdInOrderByCreationDateDesc(List<Long> authorIds);
+  @Query(FEED_ROW + NEWEST_FIRST)
+  List<FeedPostRow> findFeedRows(Pageable page);
+
+  @Query(FEED_ROW + "WHERE " + AFTER_CURSOR + NEWEST_FIRST)
+  List<FeedPostRow> findFeedRowsBefore(@Param("creationDate") LocalDateTime creationDate, @Param("id") Long id, Pageable page);
+
+  @Query(FEED_ROW + "WHERE a.id = :authorId " + NEWEST_FIRST)
+  List<FeedPostRow> findFeedRowsByAuthor(@Param("authorId") Long authorId, Pageable page);
+
+  @Query(FEED_ROW + "WHERE a.id = :authorId AND " + AFTER_CURSOR + NEWEST_FIRST)
+  List<FeedPostRow> findFeedRowsByAuthorBefore(@Param("authorId") Long authorId, @Param("creationDate") LocalDateTime creationDate,
+                                               @Param("id") Long id, Pageable page);
+
+  /**
+   * Loads the posts of a home timeline page by id.
+   * @param ids the ids of the posts
+   * @return the rows of the posts that still exist, in no particular order
+   */
+  @Query(FEED_ROW + "WHERE p.id IN :ids")
+  List<FeedPostRow> findFeedRowsByIds(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Returns the content of posts in id order, for loading the search index.
+   * @param afterId only posts with a higher id
+   * @param page the number of posts to return; the page number is always 0
+   * @return rows of {@code [id, content]}
+   */
+  @Query("SELECT p.id, p.content FROM posts p WHERE p.id > :afterId ORDER BY p.id")
+  List<Object[]> findContentAfter(@Param("afterId") Long afterId, Pageable page);
+
+  /**
+   * Returns the content of the given posts, for bringing the search index up to date.
+   * @param ids the ids of the posts; posts that no longer exist are left out
+   * @return rows of {@code [id, content]}
+   */
+  @Query("SELECT p.id, p.content FROM posts p WHERE p.id IN :ids")
+  List<Object[]> findContentByIds(@Param("ids") Collection<Long> ids);
+
+  List<Post> findByAuthorIdInOrderByCreationDateDescIdDesc(List<Long> authorIds, Pageable page);
+
+  /**
+   * Returns the best posts of several authors in one query, at most
+   * {@code perAuthor} for each author, as candidates for a ranked feed. Posts are
+   * ordered within each author by the recency and engagement factors of the
+   * {@link com.musicApp.backend.features.feed.service.FeedRanker} score; the
+   * author's affinity is the same for all of them, so this is the order the ranker
+   * puts them in.
+   * @param authorIds the ids of the authors
+   * @param since the oldest creation date returned
+   * @param rankedAt the time the feed is ranked as of; newer posts are not returned
+   * @param halfLifeMillis the number of milliseconds after which a post's recency has halved
+   * @param commentWeight how many likes one comment counts as for engagement
+   * @param perAuthor how many posts to return for each author
+   * @return rows of {@code [id, authorId, creationDate, likeCount, commentCount]}, best first within each author
+   */
+  @Query(value = "SELECT t.id, t.author_id, t.creation_date, t.like_count, t.comment_count FROM (" +
+          "SELECT p.id, p.author_id, p.creation_date, p.like_count, p.comment_count, " +
+          "ROW_NUMBER() OVER (PARTITION BY p.author_id ORDER BY " +
+          "POW(0.5, TIMESTAMPDIFF(MICROSECOND, p.creation_date, :rankedAt) / 1000 / :halfLifeMillis) " +
+          "* (1 + LN(1 + GREATEST(p.like_count, 0) + :commentWeight * GREATEST(p.comment_count, 0))) DESC, " +
+          "p.id DESC) AS rn " +
+          "FROM posts p WHERE p.author_id IN (:authorIds) AND p.creation_date >= :since " +
+          "AND p.creation_date <= :rankedAt) t " +
+          "WHERE t.rn <= :perAuthor ORDER BY t.author_id, t.rn", nativeQuery = true)
+  List<Object[]> findRankingCandidates(@Param("authorIds") Collection<Long> authorIds,
+                                       @Param("since") LocalDateTime since,
+                                       @Param("rankedAt") LocalDateTime rankedAt,
+                                       @Param("halfLifeMillis") double halfLifeMillis,
+                                       @Param("commentWeight") double commentWeight,
+                                       @Param("perAuthor") int perAuthor);
+
+  /**
+   * Returns a post's author and stored like count, without changes not yet flushed by the like counter.
+   * @param postId the id of the post
+   * @return the post's state, or empty if the post does not exist
+   */
+  @Query("SELECT new com.musicApp.backend.features.feed.dto.PostLikeState(p.author.id, p.likeCount) FROM posts p WHERE p.id = :postId")
+  Optional<PostLikeState> findLikeState(@Param("postId") Long postId);
+
+  /**
+   * Sums a user's likes per author, each halved for every half-life since it was made,
+   * leaving out the user's own posts. "posts_likes" keeps no time, so a like is aged
+   * from the creation date of the liked post, which it cannot predate; likes of posts
+   * created before {@code since} are left out.
+   * @param userId the id of the user
+   * @param since the oldest post creation date counted
+   * @param now the time the likes are decayed to
+   * @param halfLifeSeconds the number of seconds after which a like counts half
+   * @return rows of {@code [authorId, decayedLikes]}
+   */
+  @Query(value = "SELECT p.author_id, SUM(POW(0.5, GREATEST(0, TIMESTAMPDIFF(SECOND, p.creation_date, :now)) / :halfLifeSeconds)) " +
+      "FROM posts_likes l JOIN posts p ON p.id = l.post_id " +
+      "WHERE l.user_id = :userId AND p.author_id <> :userId AND p.creation_date >= :since GROUP BY p.author_id", nativeQuery = true)
+  List<Object[]> sumDecayedLikesByAuthor(@Param("userId") Long userId, @Param("since") LocalDateTime since,
+                                         @Param("now") LocalDateTime now, @Param("halfLifeSeconds") double halfLifeSeconds);
+
+  /**
+   * Adds a like by primary key, without loading the post's likes.
+   * @param postId the id of the post
+   * @param userId the id of the user
+   * @return 1 if the like was added, 0 if the user already likes the post
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "INSERT IGNORE INTO posts_likes (post_id, user_id) VALUES (:postId, :userId)", nativeQuery = true)
+  int addLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+  /**
+   * Removes a like by primary key.
+   * @param postId the id of the post
+   * @param userId the id of the user
+   * @return 1 if the like was removed, 0 if the user did not like the post
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM posts_likes WHERE post_id = :postId AND user_id = :userId", nativeQuery = true)
+  int removeLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+  /**
+   * Updates a post if the user wrote it. The picture status is kept when the
+   * picture is unchanged; it is assigned before the picture, so the comparison
+   * sees the old one.
+   * @param postId the id of the post
+   * @param authorId the id of the user editing the post
+   * @param content the new content
+   * @param picture the new picture
+   * @param pictureStatus the status of the new picture, used if it differs from the old one
+   * @param updatedDate the time of the edit
+   * @return 1 if the post was updated, 0 if it does not exist or the user did not write it
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE posts p SET p.content = :content, p.updatedDate = :updatedDate, " +
+          "p.pictureStatus = CASE WHEN p.picture = :picture THEN p.pictureStatus ELSE :pictureStatus END, " +
+          "p.picture = :picture WHERE p.id = :postId AND p.author.id = :authorId")
+  int updateOwnPost(@Param("postId") Long postId, @Param("authorId") Long authorId, @Param("content") String content,
+                    @Param("picture") String picture, @Param("pictureStatus") Post.PictureStatus pictureStatus,
+                    @Param("updatedDate") LocalDateTime updatedDate);
+
+  /**
+   * Deletes a post if the user wrote it. Its likes and comments must be deleted first.
+   * @param postId the id of the post
+   * @param authorId the id of the user deleting the post
+   * @return 1 if the post was deleted, 0 if it does not exist or the user did not write it
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM posts WHERE id = :postId AND author_id = :authorId", nativeQuery = true)
+  int deleteOwnPost(@Param("postId") Long postId, @Param("authorId") Long authorId);
+
+  /**
+   * Deletes the likes of a post if the user wrote it.
+   * @param postId the id of the post
+   * @param authorId the id of the user deleting the post
+   * @return the number of likes deleted
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE l FROM posts_likes l JOIN posts p ON p.id = l.post_id " +
+          "WHERE p.id = :postId AND p.author_id = :authorId", nativeQuery = true)
+  int deleteLikesOfOwnPost(@Param("postId") Long postId, @Param("authorId") Long authorId);
+
+  /**
+   * Returns posts whose uploaded picture still waits for its resized variants.
+   * @param after only posts created after this time, so pictures that never become usable are given up on
+   * @param before only posts created before this time, so pictures still being processed are skipped
+   * @param page the number of posts to return; the page number is always 0
+   * @return rows of {@code [id, picture]}, oldest first
+   */
+  @Query("SELECT p.id, p.picture FROM posts p WHERE p.pictureStatus = com.musicApp.backend.features.feed.model.Post.PictureStatus.PENDING " +
+          "AND p.creationDate > :after AND p.creationDate < :before ORDER BY p.id")
+  List<Object[]> findPendingPictures(@Param("after") LocalDateTime after, @Param("before") LocalDateTime before, Pageable page);
+
+  /**
+   * Records the progress of a post's picture variants, unless the picture was replaced meanwhile.
+   * @param postId the id of the post
+   * @param picture the picture the variants were made from
+   * @param status the new status
+   * @return 1 if the post was updated, otherwise 0
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE posts p SET p.pictureStatus = :status WHERE p.id = :postId AND p.picture = :picture")
+  int updatePictureStatus(@Param("postId") Long postId, @Param("picture") String picture,
+                          @Param("status") Post.PictureStatus status);
+
+  /**
+   * Adds to a post's comment count.
+   * @param postId the id of the post
+   * @param delta +1 for an added comment, -1 for a deleted one
+   * @return 1 if the post exists, otherwise 0
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "UPDATE posts SET comment_count = GREATEST(comment_count + :delta, 0) WHERE id = :postId", nativeQuery = true)
+  int addToCommentCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+  /**
+   * Sets the comment count of every post whose stored count differs from its rows in "comments".
+   * @return the number of posts corrected
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "UPDATE posts p LEFT JOIN (SELECT post_id, COUNT(*) AS comments FROM comments GROUP BY post_id) c " +
+          "ON c.post_id = p.id SET p.comment_count = COALESCE(c.comments, 0) " +
+          "WHERE p.comment_count <> COALESCE(c.comments, 0)", nativeQuery = true)
+  int recountComments();
+
+  /**
+   * Sets the like count of every post whose stored count differs from its rows in "posts_likes".
+   * @return the number of posts corrected
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "UPDATE posts p LEFT JOIN (SELECT post_id, COUNT(*) AS likes FROM posts_likes GROUP BY post_id) l " +
+          "ON l.post_id = p.id SET p.like_count = COALESCE(l.likes, 0) " +
+          "WHERE p.like_count <> COALESCE(l.likes, 0)", nativeQuery = true)
+  int recountLikes();
+
+  /**
+   * Returns which of several posts a user likes.
+   * @param postIds the ids of the posts
+   * @param userId the id of the user
+   * @return the ids of the posts the user likes
+   */
+  @Query("SELECT p.id FROM posts p JOIN p.likes u WHERE p.id IN :postIds AND u.id = :userId")
+  List<Long> findLikedPostIds(@Param("postIds") Collection<Long> postIds, @Param("userId") Long userId);
 }
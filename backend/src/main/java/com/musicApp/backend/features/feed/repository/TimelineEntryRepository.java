@@ -0,0 +1,96 @@
+/**
+ * Class Name: TimelineEntryRepository
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.repository;
+
+import com.musicApp.backend.features.feed.model.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository for home timeline entries. The repair statements are native because
+ * they copy rows straight from "posts" and "friendship" without loading them.
+ */
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, TimelineEntry.Key> {
+
+    /**
+     * Returns the newest entries of a user's timeline.
+     * @param userId the id of the timeline's owner
+     * @param page the number of entries to read; the page number is always 0
+     * @return a {@link List} of entries, newest first
+     */
+    @Query("SELECT t FROM TimelineEntry t WHERE t.userId = :userId ORDER BY t.postCreationDate DESC, t.postId DESC")
+    List<TimelineEntry> findNewest(@Param("userId") Long userId, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TimelineEntry t WHERE t.postId = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+
+    /**
+     * Copies an author's newest posts onto a user's timeline, for example when the
+     * two become friends. Posts already on the timeline are skipped.
+     * @param userId the id of the timeline's owner
+     * @param authorId the id of the author whose posts are copied
+     * @param limit the maximum number of posts copied
+     * @return the number of entries added
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO timeline_entries (user_id, post_id, post_creation_date) " +
+            "SELECT :userId, p.id, p.creation_date FROM posts p WHERE p.author_id = :authorId " +
+            "ORDER BY p.creation_date DESC, p.id DESC LIMIT :limit", nativeQuery = true)
+    int copyPostsOf(@Param("userId") Long userId, @Param("authorId") Long authorId, @Param("limit") int limit);
+
+    /**
+     * Removes an author's posts from a user's timeline, for example when the two
+     * stop being friends.
+     * @param userId the id of the timeline's owner
+     * @param authorId the id of the author whose posts are removed
+     * @return the number of entries removed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM timeline_entries WHERE user_id = :userId " +
+            "AND post_id IN (SELECT id FROM posts WHERE author_id = :authorId)", nativeQuery = true)
+    int deletePostsOf(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    /**
+     * Fills a user's timeline with the newest posts of all of the user's accepted
+     * friends. Used when a timeline has no entries yet.
+     * @param userId the id of the timeline's owner
+     * @param limit the maximum number of posts copied
+     * @return the number of entries added
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO timeline_entries (user_id, post_id, post_creation_date) " +
+            "SELECT :userId, p.id, p.creation_date FROM posts p WHERE p.author_id IN (" +
+            "SELECT CASE WHEN f.user1_id = :userId THEN f.user2_id ELSE f.user1_id END FROM friendship f " +
+            "WHERE (f.user1_id = :userId OR f.user2_id = :userId) AND f.status = 'ACCEPTED') " +
+            "ORDER BY p.creation_date DESC, p.id DESC LIMIT :limit", nativeQuery = true)
+    int rebuild(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Deletes all but the newest entries of a user's timeline.
+     * @param userId the id of the timeline's owner
+     * @param keep the number of entries kept
+     * @return the number of entries removed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE t FROM timeline_entries t JOIN (" +
+            "SELECT post_creation_date, post_id FROM timeline_entries WHERE user_id = :userId " +
+            "ORDER BY post_creation_date DESC, post_id DESC LIMIT 1 OFFSET :keep) edge " +
+            "ON t.user_id = :userId AND (t.post_creation_date < edge.post_creation_date " +
+            "OR (t.post_creation_date = edge.post_creation_date AND t.post_id <= edge.post_id))", nativeQuery = true)
+    int trim(@Param("userId") Long userId, @Param("keep") int keep);
+}
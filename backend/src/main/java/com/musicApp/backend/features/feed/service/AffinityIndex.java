@@ -0,0 +1,260 @@
+/**
+ * Class Name: AffinityIndex
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.repository.CommentRepository;
+import com.musicApp.backend.features.feed.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class keeps each user's affinity to the authors the user interacts with,
+ * used to rank the user's feed. Every like adds {@code feed.affinity.like-weight}
+ * and every comment {@code feed.affinity.comment-weight} to the viewer's score for
+ * the post's author; unlikes and deleted comments take it away again. Scores decay
+ * by half every {@code feed.affinity.half-life-days}, so recent interactions count
+ * more than old ones. <br>
+ *
+ * Scores are kept in memory for recently active users and updated as interactions
+ * happen. A user's scores are seeded with two grouped queries over the user's likes
+ * and comments the first time they are read; until then interactions are not
+ * recorded, because the seed already counts them. The seed decays each comment from
+ * its creation date and each like from the creation date of the liked post, since
+ * likes keep no time of their own, and leaves out anything older than
+ * {@value #SEED_HALF_LIVES} half-lives, by when it would count less than 1%. Each user keeps at most
+ * {@code feed.affinity.max-authors} authors; the weakest is dropped to make room.
+ */
+@Component
+public class AffinityIndex {
+    private static final double MILLIS_PER_DAY = 24 * 60 * 60 * 1000.0;
+    private static final int SEED_HALF_LIVES = 7;
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final double likeWeight;
+    private final double commentWeight;
+    private final double halfLifeMillis;
+    private final int maxAuthors;
+    private final int maxCachedUsers;
+
+    private final Map<Long, Scores> users = new ConcurrentHashMap<>();
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder seeds = new LongAdder();
+    private final LongAdder authorsDropped = new LongAdder();
+
+    /**
+     * One user's decayed scores. A score is stored with the time it was last
+     * updated and decayed from there when it is read or changed.
+     */
+    private static final class Scores {
+        private final Map<Long, double[]> byAuthor = new HashMap<>();
+        private boolean seeded;
+    }
+
+    /**
+     * Creates an AffinityIndex.
+     *
+     * @param postRepository the repository used to seed scores from likes
+     * @param commentRepository the repository used to seed scores from comments
+     * @param likeWeight the score a like adds
+     * @param commentWeight the score a comment adds
+     * @param halfLifeDays the number of days after which a score has halved
+     * @param maxAuthors the maximum number of authors scored for one user
+     * @param maxCachedUsers the maximum number of users whose scores are kept in memory
+     */
+    public AffinityIndex(PostRepository postRepository,
+                         CommentRepository commentRepository,
+                         @Value("${feed.affinity.like-weight:1}") double likeWeight,
+                         @Value("${feed.affinity.comment-weight:3}") double commentWeight,
+                         @Value("${feed.affinity.half-life-days:14}") double halfLifeDays,
+                         @Value("${feed.affinity.max-authors:200}") int maxAuthors,
+                         @Value("${feed.affinity.max-cached-users:5000}") int maxCachedUsers) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+        this.halfLifeMillis = Math.max(1, halfLifeDays) * MILLIS_PER_DAY;
+        this.maxAuthors = Math.max(1, maxAuthors);
+        this.maxCachedUsers = Math.max(1, maxCachedUsers);
+    }
+
+    /**
+     * Records that a user liked or unliked an author's post.
+     *
+     * @param userId the id of the user
+     * @param authorId the id of the post's author
+     * @param liked {@code true} for a like, {@code false} for an unlike
+     */
+    public void recordLike(Long userId, Long authorId, boolean liked) {
+        record(userId, authorId, liked ? likeWeight : -likeWeight);
+    }
+
+    /**
+     * Records that a user commented on an author's post, or deleted such a comment.
+     *
+     * @param userId the id of the user
+     * @param authorId the id of the post's author
+     * @param added {@code true} for a new comment, {@code false} for a deleted one
+     */
+    public void recordComment(Long userId, Long authorId, boolean added) {
+        record(userId, authorId, added ? commentWeight : -commentWeight);
+    }
+
+    private void record(Long userId, Long authorId, double delta) {
+        if (userId == null || authorId == null || userId.equals(authorId)) {
+            return;
+        }
+        Scores scores = users.get(userId);
+        if (scores == null) {
+            return;
+        }
+        synchronized (scores) {
+            if (scores.seeded) {
+                add(scores, authorId, delta, System.currentTimeMillis());
+                updates.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the authors a user has the highest affinity to.
+     *
+     * @param userId the id of the user
+     * @param count the maximum number of authors returned
+     * @return a {@link Map} from author id to the author's current, decayed score
+     */
+    public Map<Long, Double> topAuthors(Long userId, int count) {
+        Scores scores = load(userId);
+        long now = System.currentTimeMillis();
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        synchronized (scores) {
+            for (Map.Entry<Long, double[]> entry : scores.byAuthor.entrySet()) {
+                double score = decayed(entry.getValue(), now);
+                if (score <= 0) {
+                    continue;
+                }
+                if (top.size() < count) {
+                    top.add(Map.entry(entry.getKey(), score));
+                } else if (!top.isEmpty() && score > top.peek().getValue()) {
+                    top.poll();
+                    top.add(Map.entry(entry.getKey(), score));
+                }
+            }
+        }
+        Map<Long, Double> authors = new HashMap<>();
+        top.forEach(entry -> authors.put(entry.getKey(), entry.getValue()));
+        return authors;
+    }
+
+    private Scores load(Long userId) {
+        Scores scores = users.get(userId);
+        if (scores == null) {
+            if (users.size() >= maxCachedUsers) {
+                shrink();
+            }
+            scores = users.computeIfAbsent(userId, id -> new Scores());
+        }
+        synchronized (scores) {
+            if (!scores.seeded) {
+                long now = System.currentTimeMillis();
+                LocalDateTime seededAt = LocalDateTime.now();
+                LocalDateTime since = seededAt.minusSeconds((long) (SEED_HALF_LIVES * halfLifeMillis / 1000));
+                double halfLifeSeconds = halfLifeMillis / 1000;
+                for (Object[] row : postRepository.sumDecayedLikesByAuthor(userId, since, seededAt, halfLifeSeconds)) {
+                    add(scores, ((Number) row[0]).longValue(), likeWeight * ((Number) row[1]).doubleValue(), now);
+                }
+                for (Object[] row : commentRepository.sumDecayedCommentsByPostAuthor(userId, since, seededAt, halfLifeSeconds)) {
+                    add(scores, ((Number) row[0]).longValue(), commentWeight * ((Number) row[1]).doubleValue(), now);
+                }
+                scores.seeded = true;
+                seeds.increment();
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Adds to one score; the caller holds the scores' monitor.
+     */
+    private void add(Scores scores, Long authorId, double delta, long now) {
+        double[] score = scores.byAuthor.get(authorId);
+        if (score == null) {
+            if (delta <= 0) {
+                return;
+            }
+            if (scores.byAuthor.size() >= maxAuthors) {
+                dropWeakest(scores, now);
+            }
+            scores.byAuthor.put(authorId, new double[]{delta, now});
+            return;
+        }
+        double value = decayed(score, now) + delta;
+        if (value <= 0) {
+            scores.byAuthor.remove(authorId);
+        } else {
+            score[0] = value;
+            score[1] = now;
+        }
+    }
+
+    private void dropWeakest(Scores scores, long now) {
+        Long weakest = null;
+        double lowest = Double.MAX_VALUE;
+        for (Map.Entry<Long, double[]> entry : scores.byAuthor.entrySet()) {
+            double score = decayed(entry.getValue(), now);
+            if (score < lowest) {
+                lowest = score;
+                weakest = entry.getKey();
+            }
+        }
+        if (weakest != null) {
+            scores.byAuthor.remove(weakest);
+            authorsDropped.increment();
+        }
+    }
+
+    private double decayed(double[] score, long now) {
+        return score[0] * Math.pow(0.5, Math.max(0, now - score[1]) / halfLifeMillis);
+    }
+
+    /**
+     * Drops users in iteration order until a tenth of the capacity is free again;
+     * their scores are seeded again when next read.
+     */
+    private void shrink() {
+        int target = maxCachedUsers - Math.max(1, maxCachedUsers / 10);
+        Iterator<Scores> iterator = users.values().iterator();
+        while (users.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public long getUpdateCount() {
+        return updates.sum();
+    }
+
+    public long getSeedCount() {
+        return seeds.sum();
+    }
+
+    public long getAuthorsDroppedCount() {
+        return authorsDropped.sum();
+    }
+
+    public int getCachedUserCount() {
+        return users.size();
+    }
+}
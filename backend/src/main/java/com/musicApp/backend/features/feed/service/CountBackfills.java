@@ -0,0 +1,88 @@
+/**
+ * Class Name: CountBackfills
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.repository.PostRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.IntSupplier;
+
+/**
+ * This class fills in the counts kept on "posts" for rows written before the counts
+ * were kept. Each backfill runs once for the whole database: the first instance to
+ * start inserts its marker in "backfills" and runs it in the same transaction, and
+ * every later start, on any instance, finds the marker and skips it. An instance
+ * starting while another runs a backfill waits for the marker, so the work is not
+ * done twice. <br>
+ *
+ * The backfills run before the instance serves requests, so it holds no counts
+ * that are not written yet. Likes counted by other upgraded instances but not
+ * flushed yet would be counted twice, so a rollout starts one upgraded instance
+ * first. The like backfill is separate from {@link LikeCounter#recount()}, which
+ * repairs counts after a crash and is only run when asked for.
+ */
+@Component
+public class CountBackfills {
+    private static final Logger logger = LoggerFactory.getLogger(CountBackfills.class);
+
+    /** Fills in "comment_count" from the rows in "comments". */
+    static final String COMMENT_COUNTS = "posts.comment_count";
+
+    /** Fills in "like_count" from the rows in "posts_likes". */
+    static final String LIKE_COUNTS = "posts.like_count";
+
+    private static final String CLAIM = "INSERT IGNORE INTO backfills (name) VALUES (?)";
+
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Creates a CountBackfills.
+     *
+     * @param postRepository the repository whose recounts fill in the counts
+     * @param jdbcTemplate the template used to insert the markers
+     * @param transactionManager the transaction manager each backfill runs in
+     */
+    public CountBackfills(PostRepository postRepository, JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager) {
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Runs the backfills that have not run yet.
+     */
+    @PostConstruct
+    public void run() {
+        runOnce(COMMENT_COUNTS, postRepository::recountComments);
+        runOnce(LIKE_COUNTS, postRepository::recountLikes);
+    }
+
+    /**
+     * Runs a backfill unless its marker exists.
+     *
+     * @return whether the backfill ran
+     */
+    boolean runOnce(String name, IntSupplier backfill) {
+        Boolean ran = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(CLAIM, name) == 0) {
+                return false;
+            }
+            int corrected = backfill.getAsInt();
+            logger.info("Backfill {} corrected {} posts", name, corrected);
+            return true;
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Class Name: FeedChangeLog
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.model.FeedChange;
+import com.musicApp.backend.features.feed.repository.FeedChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class keeps the feed change log that clients sync from. {@link FeedService}
+ * records a change whenever a post or comment is saved or deleted; a sync token
+ * is the id of the last change a client has seen, and a sync reads the ids above
+ * it. <br>
+ *
+ * Ids are handed out when a change is inserted, not when it commits, so a change
+ * may become visible after one with a higher id. A sync therefore stops at the
+ * first change younger than {@code feed.changes.settle-millis}; those are returned
+ * by the next sync. Changes older than {@code feed.changes.retention-days} are
+ * pruned, and a client whose token was pruned is told to reload. Changes are
+ * stamped, and their age measured, by the database clock alone, so instances
+ * whose clocks differ agree on which changes have settled.
+ */
+@Component
+public class FeedChangeLog {
+    private static final Logger logger = LoggerFactory.getLogger(FeedChangeLog.class);
+
+    private static final int PRUNE_BATCH = 1000;
+
+    private final FeedChangeRepository feedChangeRepository;
+    private final int maxPerSync;
+    private final long settleMillis;
+    private final int retentionDays;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+
+    /**
+     * The changes of one sync.
+     *
+     * @param token the id of the last change returned, or the client's token if there are none
+     * @param reset whether the client must reload before syncing from {@code token}
+     * @param hasMore whether more changes are ready
+     * @param changes the changes, oldest first
+     */
+    public record Batch(long token, boolean reset, boolean hasMore, List<FeedChange> changes) {}
+
+    /**
+     * Creates a FeedChangeLog.
+     *
+     * @param feedChangeRepository the repository the log is kept in
+     * @param maxPerSync the maximum number of changes returned by one sync
+     * @param settleMillis how old a change must be before a sync returns it
+     * @param retentionDays how long changes are kept
+     */
+    public FeedChangeLog(FeedChangeRepository feedChangeRepository,
+                         @Value("${feed.changes.max-per-sync:500}") int maxPerSync,
+                         @Value("${feed.changes.settle-millis:2000}") long settleMillis,
+                         @Value("${feed.changes.retention-days:7}") int retentionDays) {
+        this.feedChangeRepository = feedChangeRepository;
+        this.maxPerSync = Math.max(1, maxPerSync);
+        this.settleMillis = settleMillis;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Records a change. Inside a transaction, the change commits or rolls back with it.
+     *
+     * @param type what happened
+     * @param postId the id of the post, or of the comment's post
+     * @param commentId the id of the comment, or {@code null} for a post change
+     */
+    public void record(FeedChange.Type type, Long postId, Long commentId) {
+        feedChangeRepository.save(new FeedChange(type, postId, commentId));
+        recorded.increment();
+    }
+
+    /**
+     * Decodes a sync token.
+     *
+     * @param token the token; {@code null} or blank for a client without one
+     * @return the id in the token, or {@code null}
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static Long decodeToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            long id = Long.parseLong(token.trim());
+            if (id < 0) {
+                throw new NumberFormatException();
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sync token");
+        }
+    }
+
+    /**
+     * Returns the changes after a token. The token's own change is read along with
+     * them; if it is gone, it was pruned. The changes are read before looking up the
+     * first unsettled one, so every unsettled change among them is seen by that
+     * lookup.
+     *
+     * @param since the id in the client's token, or {@code null} for a client without one
+     * @return the changes, or a reset with a fresh token
+     */
+    public Batch read(Long since) {
+        syncs.increment();
+        if (since == null) {
+            return reset();
+        }
+
+        List<FeedChange> rows = feedChangeRepository.findFrom(since, PageRequest.of(0, maxPerSync + 2));
+        int start = 0;
+        if (since > 0) {
+            if (rows.isEmpty() || !rows.get(0).getId().equals(since)) {
+                return reset();
+            }
+            start = 1;
+        }
+        Long firstUnsettled = rows.size() > start ? firstUnsettledId() : null;
+        List<FeedChange> changes = new ArrayList<>();
+        boolean hasMore = false;
+        for (int i = start; i < rows.size(); i++) {
+            FeedChange change = rows.get(i);
+            if (firstUnsettled != null && change.getId() >= firstUnsettled) {
+                break;
+            }
+            if (changes.size() == maxPerSync) {
+                hasMore = true;
+                break;
+            }
+            changes.add(change);
+        }
+        served.add(changes.size());
+        long token = changes.isEmpty() ? since : changes.get(changes.size() - 1).getId();
+        return new Batch(token, false, hasMore, changes);
+    }
+
+    /**
+     * Returns a reset with the id of the newest change before the first unsettled
+     * one, so no change the client's reload might miss is skipped.
+     */
+    private Batch reset() {
+        resets.increment();
+        Long firstUnsettled = firstUnsettledId();
+        Long token = firstUnsettled == null
+                ? feedChangeRepository.findLastId()
+                : feedChangeRepository.findLastIdBelow(firstUnsettled);
+        return new Batch(token == null ? 0 : token, true, false, List.of());
+    }
+
+    private Long firstUnsettledId() {
+        return feedChangeRepository.findFirstIdYoungerThan(settleMillis * 1000);
+    }
+
+    /**
+     * Deletes the changes older than the retention period, in batches.
+     */
+    @Scheduled(fixedDelayString = "${feed.changes.prune-millis:3600000}")
+    public void prune() {
+        Long through = feedChangeRepository.findLastIdOlderThan(retentionDays);
+        if (through == null) {
+            return;
+        }
+        int total = 0;
+        int deleted;
+        do {
+            deleted = feedChangeRepository.deleteThrough(through, PRUNE_BATCH);
+            total += deleted;
+        } while (deleted == PRUNE_BATCH);
+        pruned.add(total);
+        logger.debug("Pruned {} feed changes", total);
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getSyncCount() {
+        return syncs.sum();
+    }
+
+    public long getResetCount() {
+        return resets.sum();
+    }
+
+    public long getServedCount() {
+        return served.sum();
+    }
+
+    public long getPrunedCount() {
+        return pruned.sum();
+    }
+}
@@ -0,0 +1,397 @@
+/**
+ * Class Name: FeedEventHub
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musicApp.backend.features.feed.dto.FeedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class delivers {@link FeedEvent}s to the users connected to the feed
+ * stream. A user subscribes with the authors whose posts the user sees (the
+ * user's accepted friends and the user), and an event reaches the subscribers
+ * of the post's author, found with one map lookup. <br>
+ *
+ * Publishing never blocks on a client. Each event is serialized once and added to
+ * every recipient's buffer; a small pool of sender threads writes the buffers to
+ * the connections. A buffer holds at most {@code feed.stream.buffer-size} events;
+ * when a slow client falls further behind, its oldest events are dropped. Events
+ * published inside a transaction are delivered after it commits. <br>
+ *
+ * A write blocks while the client does not read. A write that takes longer than
+ * {@code feed.stream.send-timeout-millis} closes its stream: the sender thread is
+ * interrupted and, until it returns, the pool runs one more thread, so a stalled
+ * client holds up no one else for longer than the timeout. <br>
+ *
+ * A user holds at most {@code feed.stream.max-per-user} connections; opening
+ * another closes the oldest. Friendships accepted or removed while a user is
+ * connected apply from the user's next connection.
+ */
+@Component
+public class FeedEventHub {
+    private static final Logger logger = LoggerFactory.getLogger(FeedEventHub.class);
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final long timeoutMillis;
+    private final int threads;
+    private final long sendTimeoutNanos;
+
+    private final Map<Long, Set<Subscription>> byAuthor = new ConcurrentHashMap<>();
+    private final Map<Long, Deque<Subscription>> byUser = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    private ThreadPoolExecutor sender;
+    private final Object resize = new Object();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * One open stream. The buffer, the draining flag and the running write are
+     * guarded by the subscription's monitor; at most one sender drains a
+     * subscription at a time, so its events are written in order.
+     */
+    private static final class Subscription {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Set<Long> authorIds;
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private Thread writer;
+        private long writingSince;
+        private boolean expired;
+        private volatile boolean closed;
+
+        private Subscription(Long userId, SseEmitter emitter, Set<Long> authorIds) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.authorIds = authorIds;
+        }
+    }
+
+    /**
+     * Creates a FeedEventHub.
+     *
+     * @param objectMapper the mapper events are serialized with
+     * @param bufferSize the maximum number of events waiting for one client
+     * @param maxPerUser the maximum number of open streams per user
+     * @param timeoutMillis how long a stream stays open before the client must reconnect
+     * @param threads the number of sender threads
+     * @param sendTimeoutMillis how long one write may block before its stream is closed
+     */
+    public FeedEventHub(ObjectMapper objectMapper,
+                        @Value("${feed.stream.buffer-size:64}") int bufferSize,
+                        @Value("${feed.stream.max-per-user:3}") int maxPerUser,
+                        @Value("${feed.stream.timeout-millis:1800000}") long timeoutMillis,
+                        @Value("${feed.stream.threads:2}") int threads,
+                        @Value("${feed.stream.send-timeout-millis:5000}") long sendTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxPerUser = Math.max(1, maxPerUser);
+        this.timeoutMillis = timeoutMillis;
+        this.threads = Math.max(1, threads);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "feed-stream-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        byUser.values().forEach(streams -> streams.forEach(subscription -> subscription.emitter.complete()));
+        sender.shutdown();
+    }
+
+    /**
+     * Opens a stream for a user.
+     *
+     * @param userId the id of the user
+     * @param authorIds the ids of the authors whose posts the user sees; the user's own posts are added
+     * @return the emitter to return from the request handler
+     */
+    public SseEmitter subscribe(Long userId, Collection<Long> authorIds) {
+        SseEmitter emitter = createEmitter();
+        Set<Long> authors = new HashSet<>(authorIds);
+        authors.add(userId);
+        Subscription subscription = new Subscription(userId, emitter, authors);
+
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+
+        // Added inside compute so a concurrent remove cannot drop the collection meanwhile
+        Deque<Subscription> streams = byUser.compute(userId, (id, existing) -> {
+            Deque<Subscription> deque = existing == null ? new ConcurrentLinkedDeque<>() : existing;
+            deque.addLast(subscription);
+            return deque;
+        });
+        subscriptions.incrementAndGet();
+        while (streams.size() > maxPerUser) {
+            Subscription oldest = streams.peekFirst();
+            if (oldest == null || oldest == subscription) {
+                break;
+            }
+            streams.remove(oldest);
+            oldest.emitter.complete();
+            remove(oldest);
+        }
+        for (Long authorId : authors) {
+            byAuthor.compute(authorId, (id, existing) -> {
+                Set<Subscription> subscribers = existing == null ? ConcurrentHashMap.newKeySet() : existing;
+                subscribers.add(subscription);
+                return subscribers;
+            });
+        }
+        enqueue(subscription, SseEmitter.event().name("ready").data("{}", MediaType.APPLICATION_JSON).build());
+        return emitter;
+    }
+
+    /**
+     * Creates the emitter of a new stream.
+     *
+     * @return the emitter
+     */
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    /**
+     * Delivers an event to the subscribers of the post's author, after the current
+     * transaction commits if there is one.
+     *
+     * @param event the event
+     */
+    public void publish(FeedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(event);
+                }
+            });
+        } else {
+            deliver(event);
+        }
+    }
+
+    private void deliver(FeedEvent event) {
+        published.increment();
+        Set<Subscription> recipients = byAuthor.get(event.authorId());
+        if (recipients == null || recipients.isEmpty()) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            logger.warn("Serializing a {} event failed", event.type(), e);
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> message = SseEmitter.event()
+                .id(Long.toString(sequence.incrementAndGet()))
+                .name(event.type().name())
+                .data(json, MediaType.APPLICATION_JSON)
+                .build();
+        for (Subscription subscription : recipients) {
+            enqueue(subscription, message);
+        }
+    }
+
+    /**
+     * Sends a comment line to every stream, so idle connections are not closed by
+     * proxies and closed ones are noticed.
+     */
+    @Scheduled(fixedDelayString = "${feed.stream.heartbeat-millis:25000}")
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> message = SseEmitter.event().comment("keepalive").build();
+        byUser.values().forEach(streams -> streams.forEach(subscription -> enqueue(subscription, message)));
+    }
+
+    /**
+     * Closes the streams whose running write has blocked for longer than
+     * {@code feed.stream.send-timeout-millis}. The blocked sender thread is
+     * interrupted and a thread is added to the pool until it returns.
+     */
+    @Scheduled(fixedDelayString = "${feed.stream.send-timeout-millis:5000}")
+    public void expireSlowSends() {
+        long now = System.nanoTime();
+        byUser.values().forEach(streams -> streams.forEach(subscription -> {
+            synchronized (subscription) {
+                if (subscription.writer == null || subscription.expired
+                        || now - subscription.writingSince < sendTimeoutNanos) {
+                    return;
+                }
+                subscription.expired = true;
+                // Interrupted under the monitor, so the thread is still inside this write
+                subscription.writer.interrupt();
+            }
+            expired.increment();
+            resizeSender(1);
+            remove(subscription);
+        }));
+    }
+
+    private void resizeSender(int delta) {
+        synchronized (resize) {
+            int size = sender.getCorePoolSize() + delta;
+            if (delta > 0) {
+                sender.setMaximumPoolSize(size);
+                sender.setCorePoolSize(size);
+            } else {
+                sender.setCorePoolSize(size);
+                sender.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private void enqueue(Subscription subscription, Set<ResponseBodyEmitter.DataWithMediaType> message) {
+        if (subscription.closed) {
+            return;
+        }
+        synchronized (subscription) {
+            if (subscription.buffer.size() >= bufferSize) {
+                subscription.buffer.pollFirst();
+                dropped.increment();
+            }
+            subscription.buffer.addLast(message);
+            if (subscription.draining) {
+                return;
+            }
+            subscription.draining = true;
+        }
+        sender.execute(() -> drain(subscription));
+    }
+
+    private void drain(Subscription subscription) {
+        while (true) {
+            Set<ResponseBodyEmitter.DataWithMediaType> message;
+            synchronized (subscription) {
+                message = subscription.buffer.pollFirst();
+                if (message == null || subscription.closed) {
+                    subscription.draining = false;
+                    return;
+                }
+            }
+            synchronized (subscription) {
+                subscription.writer = Thread.currentThread();
+                subscription.writingSince = System.nanoTime();
+            }
+            boolean sent;
+            try {
+                subscription.emitter.send(message);
+                delivered.increment();
+                sent = true;
+            } catch (IOException | IllegalStateException e) {
+                sent = false;
+            }
+            boolean expiredWrite;
+            synchronized (subscription) {
+                subscription.writer = null;
+                expiredWrite = subscription.expired;
+            }
+            if (expiredWrite) {
+                // Clears an interrupt that arrived after the write had already returned
+                Thread.interrupted();
+                resizeSender(-1);
+                subscription.emitter.complete();
+                return;
+            }
+            if (!sent) {
+                // The client went away; the emitter's callbacks may not run until the next write fails
+                remove(subscription);
+                return;
+            }
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        synchronized (subscription) {
+            if (subscription.closed) {
+                return;
+            }
+            subscription.closed = true;
+            subscription.buffer.clear();
+        }
+        subscriptions.decrementAndGet();
+        disconnects.increment();
+        byUser.computeIfPresent(subscription.userId, (id, streams) -> {
+            streams.remove(subscription);
+            return streams.isEmpty() ? null : streams;
+        });
+        for (Long authorId : subscription.authorIds) {
+            byAuthor.computeIfPresent(authorId, (id, subscribers) -> {
+                subscribers.remove(subscription);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.get();
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getDisconnectCount() {
+        return disconnects.sum();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Class Name: FeedRanker
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class orders candidate posts for a ranked feed. A post's score is the
+ * product of three factors:
+ * <ul>
+ *     <li>recency, which halves every {@code feed.ranked.recency-half-life-hours};</li>
+ *     <li>{@code 1 + affinity}, the viewer's {@link AffinityIndex} score for the author;</li>
+ *     <li>{@code 1 + ln(1 + likes + comment-weight * comments)}, the post's engagement.</li>
+ * </ul>
+ * The top K are selected with a min-heap that never holds more than K posts, merged
+ * over the per-author candidate lists, so the cost is
+ * {@code O(candidates * log K)} and the memory {@code O(K)}. Posts with equal scores
+ * are ordered by id, the higher id first.
+ */
+@Component
+public class FeedRanker {
+
+    /**
+     * A post that may appear in a ranked feed.
+     *
+     * @param postId the id of the post
+     * @param authorId the id of the post's author
+     * @param creationDate the post's creation date
+     * @param likeCount the post's like count
+     * @param commentCount the post's comment count
+     */
+    public record Candidate(Long postId, Long authorId, LocalDateTime creationDate, long likeCount, long commentCount) {}
+
+    /**
+     * A selected post and its score.
+     *
+     * @param postId the id of the post
+     * @param score the post's score
+     */
+    public record Ranked(Long postId, double score) {}
+
+    /** Lowest score first, ties broken by the lower id. */
+    private static final Comparator<Ranked> ASCENDING =
+            Comparator.comparingDouble(Ranked::score).thenComparing(Ranked::postId);
+
+    private final double recencyHalfLifeMillis;
+    private final double commentWeight;
+
+    private final LongAdder rankings = new LongAdder();
+    private final LongAdder candidatesScored = new LongAdder();
+
+    /**
+     * Creates a FeedRanker.
+     *
+     * @param recencyHalfLifeHours the number of hours after which a post's recency has halved
+     * @param commentWeight how many likes one comment counts as for engagement
+     */
+    public FeedRanker(@Value("${feed.ranked.recency-half-life-hours:24}") double recencyHalfLifeHours,
+                      @Value("${feed.ranked.comment-weight:2}") double commentWeight) {
+        this.recencyHalfLifeMillis = Math.max(1, recencyHalfLifeHours) * 60 * 60 * 1000;
+        this.commentWeight = commentWeight;
+    }
+
+    /**
+     * Scores one post.
+     *
+     * @param candidate the post
+     * @param affinity the viewer's affinity to the post's author
+     * @param rankedAt the time the feed is ranked as of
+     * @return the post's score
+     */
+    public double score(Candidate candidate, double affinity, LocalDateTime rankedAt) {
+        long ageMillis = Math.max(0, Duration.between(candidate.creationDate(), rankedAt).toMillis());
+        double recency = Math.pow(0.5, ageMillis / recencyHalfLifeMillis);
+        double engagement = 1 + Math.log1p(Math.max(0, candidate.likeCount())
+                + commentWeight * Math.max(0, candidate.commentCount()));
+        return recency * (1 + affinity) * engagement;
+    }
+
+    /**
+     * Selects the highest scoring posts that were not served yet.
+     *
+     * @param candidatesByAuthor the candidate posts, grouped by author
+     * @param affinities the viewer's affinity to each author; missing authors score 0
+     * @param rankedAt the time the feed is ranked as of
+     * @param served the ids of the posts earlier pages held, which are skipped
+     * @param k the maximum number of posts selected
+     * @return a {@link List} of at most {@code k} posts, highest score first
+     */
+    public List<Ranked> topK(Map<Long, List<Candidate>> candidatesByAuthor, Map<Long, Double> affinities,
+                             LocalDateTime rankedAt, Set<Long> served, int k) {
+        rankings.increment();
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(k + 1, ASCENDING);
+        for (Map.Entry<Long, List<Candidate>> author : candidatesByAuthor.entrySet()) {
+            double affinity = affinities.getOrDefault(author.getKey(), 0.0);
+            Collection<Candidate> candidates = author.getValue();
+            candidatesScored.add(candidates.size());
+            for (Candidate candidate : candidates) {
+                if (served.contains(candidate.postId())) {
+                    continue;
+                }
+                Ranked ranked = new Ranked(candidate.postId(), score(candidate, affinity, rankedAt));
+                if (heap.size() < k) {
+                    heap.add(ranked);
+                } else if (ASCENDING.compare(ranked, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(ranked);
+                }
+            }
+        }
+        List<Ranked> top = new ArrayList<>(heap);
+        top.sort(ASCENDING.reversed());
+        return top;
+    }
+
+    public double getRecencyHalfLifeMillis() {
+        return recencyHalfLifeMillis;
+    }
+
+    public double getCommentWeight() {
+        return commentWeight;
+    }
+
+    public long getRankingCount() {
+        return rankings.sum();
+    }
+
+    public long getCandidatesScoredCount() {
+        return candidatesScored.sum();
+    }
+}
@@ -6,29 +6,97 @@
  */
 package com.musicApp.backend.features.feed.service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
+import com.musicApp.backend.features.feed.dto.CommentTarget;
+import com.musicApp.backend.features.feed.dto.FeedAuthor;
+import com.musicApp.backend.features.feed.dto.FeedChanges;
+import com.musicApp.backend.features.feed.dto.FeedComment;
+import com.musicApp.backend.features.feed.dto.FeedCursor;
+import com.musicApp.backend.features.feed.dto.FeedEvent;
+import com.musicApp.backend.features.feed.dto.FeedItem;
+import com.musicApp.backend.features.feed.dto.FeedPage;
+import com.musicApp.backend.features.feed.dto.FeedPostRow;
+import com.musicApp.backend.features.feed.dto.LikeStatus;
 import com.musicApp.backend.features.feed.dto.PostDto;
+import com.musicApp.backend.features.feed.dto.PostLikeState;
+import com.musicApp.backend.features.feed.dto.RankedCursor;
 import com.musicApp.backend.features.feed.model.Comment;
+import com.musicApp.backend.features.feed.model.FeedChange;
 import com.musicApp.backend.features.feed.model.Post;
 import com.musicApp.backend.features.feed.repository.CommentRepository;
 import com.musicApp.backend.features.feed.repository.PostRepository;
+import com.musicApp.backend.features.friendship.service.FriendshipService;
 
 /**
  * This class handles feed-related business logic in the application.
  * It manages creating, editing, deleting, and retrieving posts,
  * as well as adding, editing, deleting, and liking comments and posts.
+ * Feeds are returned one page at a time, newest first, using opaque cursors.
+ * The friends feed is read from the user's materialized home timeline, which
+ * {@link TimelineService} fills when posts are created. The ranked feed orders
+ * the same friends' posts, and posts of other authors the user interacts with,
+ * by {@link FeedRanker}'s score. Changes to posts are pushed to connected
+ * clients through the {@link FeedEventHub}. Posts are found by word, hashtag and
+ * mention through the {@link PostSearchIndex}. Every saved and deleted post and
+ * comment is recorded in the {@link FeedChangeLog} for clients that sync.
+ * Views of posts and profiles are counted by the {@link ViewCounter}.
  */
 @Service
 public class FeedService {
 
+    /** Page size used when the client does not ask for one. */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /** Largest page size a client can ask for. */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /** Number of newest comments included with each post. */
+    public static final int RECENT_COMMENTS = 3;
+
+    /** Number of posts a ranked feed can be paged through. */
+    public static final int RANKED_MAX_DEPTH = 200;
+
+    /** Age in days of the oldest post a ranked feed considers. */
+    public static final int RANKED_MAX_AGE_DAYS = 14;
+
+    /** Number of highest-affinity authors a ranked feed considers besides the user's friends. */
+    public static final int RANKED_AFFINITY_AUTHORS = 50;
+
     private final PostRepository postRepository;
     private final AuthenticationUserRepository userRepository;
     private final CommentRepository commentRepository;
+    private final FriendshipService friendshipService;
+    private final TimelineService timelineService;
+    private final LikeCounter likeCounter;
+    private final FeedVersions feedVersions;
+    private final StoredVersions storedVersions;
+    private final AffinityIndex affinityIndex;
+    private final FeedRanker feedRanker;
+    private final PostImageService postImageService;
+    private final FeedEventHub feedEventHub;
+    private final PostSearchIndex postSearchIndex;
+    private final FeedChangeLog feedChangeLog;
+    private final ViewCounter viewCounter;
 
     /**
      * Creates a FeedService object with the required repositories.
@@ -36,23 +104,62 @@ public class FeedService {
      * @param postRepository the repository used to manage posts
      * @param userRepository the repository used to manage users
      * @param commentRepository the repository used to manage comments
+     * @param friendshipService the service used to find a user's friends
+     * @param timelineService the service that keeps the users' home timelines
+     * @param likeCounter the counter that keeps the posts' like counts
+     * @param feedVersions the versions that every change to a post advances
+     * @param storedVersions the stored versions feed pages are tagged with
+     * @param affinityIndex the index of each user's affinity to authors
+     * @param feedRanker the ranker that orders the ranked feed
+     * @param postImageService the service that resizes uploaded pictures and resolves their URLs
+     * @param feedEventHub the hub that pushes changes to connected clients
+     * @param postSearchIndex the index of words, hashtags and mentions in posts
+     * @param feedChangeLog the log of changes clients sync from
+     * @param viewCounter the counter of distinct viewers of posts and profiles
      */
     public FeedService(
             PostRepository postRepository,
             AuthenticationUserRepository userRepository,
-            CommentRepository commentRepository
+            CommentRepository commentRepository,
+            FriendshipService friendshipService,
+            TimelineService timelineService,
+            LikeCounter likeCounter,
+            FeedVersions feedVersions,
+            StoredVersions storedVersions,
+            AffinityIndex affinityIndex,
+            FeedRanker feedRanker,
+            PostImageService postImageService,
+            FeedEventHub feedEventHub,
+            PostSearchIndex postSearchIndex,
+            FeedChangeLog feedChangeLog,
+            ViewCounter viewCounter
     ) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.commentRepository = commentRepository;
+        this.friendshipService = friendshipService;
+        this.timelineService = timelineService;
+        this.likeCounter = likeCounter;
+        this.feedVersions = feedVersions;
+        this.storedVersions = storedVersions;
+        this.affinityIndex = affinityIndex;
+        this.feedRanker = feedRanker;
+        this.postImageService = postImageService;
+        this.feedEventHub = feedEventHub;
+        this.postSearchIndex = postSearchIndex;
+        this.feedChangeLog = feedChangeLog;
+        this.viewCounter = viewCounter;
     }
 
     /**
-     * Creates a new post for a user.
+     * Creates a new post for a user and pushes it to the home timelines of the
+     * user's friends. A picture uploaded with {@link PostImageService#createUploadUrl}
+     * is queued for resizing once the post is saved.
      *
      * @param postDto the object containing the post content and picture
      * @param authorId the id of the user creating the post
      * @return the saved {@link Post} object
+     * @throws IllegalArgumentException if the picture was uploaded by another user
      */
     public Post createPost(PostDto postDto, Long authorId) {
         AuthenticationUser author = userRepository.findById(authorId)
@@ -60,11 +167,21 @@ public class FeedService {
 
         Post post = new Post(postDto.getContent(), author);
         post.setPicture(postDto.getPicture());
-        return postRepository.save(post);
+        post.setPictureStatus(initialPictureStatus(postDto.getPicture(), authorId));
+        Post saved = postRepository.save(post);
+        submitPicture(saved);
+        feedVersions.feedChanged();
+        timelineService.fanOut(saved.getId(), saved.getCreationDate(), friendshipService.getAcceptedFriendIds(authorId));
+        feedEventHub.publish(FeedEvent.postCreated(saved.getId(), authorId));
+        postSearchIndex.add(saved.getId(), saved.getContent());
+        feedChangeLog.record(FeedChange.Type.POST_SAVED, saved.getId(), null);
+        return saved;
     }
 
     /**
-     * Updates an existing post.
+     * Updates an existing post. The update only matches the post if the user is its
+     * author, so neither the post nor the user is loaded to check; the updated post
+     * is read back for the response.
      *
      * @param postId the id of the post to update
      * @param userId the id of the user attempting to update the post
@@ -74,51 +191,313 @@ public class FeedService {
     public Post editPost(Long postId, Long userId, PostDto postDto) {
         // (1) Start
 
-        // (2) Find post by postId
-        // (3) Post found?
-        // (5) If no, throw "Post not found"
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new IllegalArgumentException("Post not found"));
+        // (2) Check an uploaded picture belongs to the user
+        Post.PictureStatus pictureStatus = initialPictureStatus(postDto.getPicture(), userId);
 
-        // (4) Find user by userId
-        // (6) User found?
-        // (7) If no, throw "User not found"
-        AuthenticationUser user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        // (3) Update the post where it exists and the user is its author
+        int updated = postRepository.updateOwnPost(postId, userId, postDto.getContent(), postDto.getPicture(),
+                pictureStatus, LocalDateTime.now());
 
-        // (8) Is user the author of the post?
-        if (!post.getAuthor().equals(user)) {
-            // (9) If no, throw "User is not the author of the post"
-            throw new IllegalArgumentException("User is not the author of the post");
+        // (4) Nothing updated?
+        // (5) If so, throw "Post not found" or "User is not the author of the post"
+        if (updated == 0) {
+            throw new IllegalArgumentException(postRepository.existsById(postId)
+                    ? "User is not the author of the post" : "Post not found");
         }
 
-        // (10) Update post content and picture
-        post.setContent(postDto.getContent());
-        post.setPicture(postDto.getPicture());
+        // (6) Read the updated post back
+        Post saved = getPost(postId);
+        submitPicture(saved);
+        feedVersions.postChanged(postId);
+        feedEventHub.publish(FeedEvent.postEdited(postId, userId));
+        postSearchIndex.update(postId, saved.getContent());
+        feedChangeLog.record(FeedChange.Type.POST_SAVED, postId, null);
+        return saved;
 
-        // (11) Save updated post
-        return postRepository.save(post);
+        // (7) End
+    }
+
+    /**
+     * Returns the status a post's picture starts out with; an uploaded picture must
+     * belong to the author and waits for its variants.
+     */
+    private Post.PictureStatus initialPictureStatus(String picture, Long authorId) {
+        if (!postImageService.isUpload(picture)) {
+            return null;
+        }
+        postImageService.checkOwnUpload(authorId, picture);
+        return Post.PictureStatus.PENDING;
+    }
+
+    private void submitPicture(Post post) {
+        if (post.getPictureStatus() == Post.PictureStatus.PENDING) {
+            postImageService.submit(post.getId(), post.getPicture());
+        }
+    }
 
-        // (12) End
+    /**
+     * Returns one page of all posts, newest first.
+     *
+     * @param viewerId the id of the user viewing the feed, used for {@link FeedItem#likedByMe()}
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size; clamped to {@link #MAX_PAGE_SIZE}
+     * @return a {@link FeedPage} of {@link FeedItem} objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public FeedPage<FeedItem> getFeedPage(Long viewerId, String cursor, Integer limit) {
+        FeedCursor after = FeedCursor.decode(cursor);
+        int size = pageSize(limit);
+        Pageable page = PageRequest.of(0, size + 1);
+        List<FeedPostRow> rows = after == null
+                ? postRepository.findFeedRows(page)
+                : postRepository.findFeedRowsBefore(after.creationDate(), after.id(), page);
+        return toPage(rows, size, viewerId);
     }
 
     /**
-     * Returns feed posts that do not belong to the authenticated user.
+     * Returns one page of a user's home timeline: the posts written by the user's
+     * accepted friends, newest first. The timeline holds the newest
+     * {@code feed.timeline.capacity} posts; older posts are not paged through.
      *
-     * @param authenticatedUserId the id of the authenticated user
-     * @return a list of {@link Post} objects for the user's feed
+     * @param userId the id of the user whose friends' posts will be retrieved
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size; clamped to {@link #MAX_PAGE_SIZE}
+     * @return a {@link FeedPage} of {@link FeedItem} objects
+     * @throws IllegalArgumentException if the cursor is malformed
      */
-    public List<Post> getFeedPosts(Long authenticatedUserId) {
-        return postRepository.findByAuthorIdNotOrderByCreationDateDesc(authenticatedUserId);
+    public FeedPage<FeedItem> getFriendsFeedPage(Long userId, String cursor, Integer limit) {
+        FeedCursor after = FeedCursor.decode(cursor);
+        int size = pageSize(limit);
+        List<FeedCursor> entries = timelineService.read(userId, after, size + 1);
+        if (entries.isEmpty()) {
+            return new FeedPage<>(List.of(), null);
+        }
+        List<FeedCursor> pageEntries = entries.size() <= size ? entries : entries.subList(0, size);
+        String nextCursor = entries.size() > size ? pageEntries.get(size - 1).encode() : null;
+
+        Map<Long, FeedPostRow> rowsById = new HashMap<>();
+        for (FeedPostRow row : postRepository.findFeedRowsByIds(pageEntries.stream().map(FeedCursor::id).toList())) {
+            rowsById.put(row.id(), row);
+        }
+        // Posts deleted since they were pushed are skipped
+        List<FeedPostRow> rows = new ArrayList<>(pageEntries.size());
+        for (FeedCursor entry : pageEntries) {
+            FeedPostRow row = rowsById.get(entry.id());
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return new FeedPage<>(toItems(rows, userId), nextCursor);
     }
 
     /**
-     * Returns all posts in descending order by creation date.
+     * Returns one page of a user's ranked feed: the posts of the user's accepted
+     * friends and of the authors the user has the highest affinity to, highest
+     * score first. The candidates are each author's best posts of the last
+     * {@link #RANKED_MAX_AGE_DAYS} days, at most as many per author as the pages
+     * so far could hold, so the work grows with the depth paged to and the number
+     * of authors, not with the number of posts. Later pages are scored as of the
+     * time the first page was ranked and skip the posts the cursor says were
+     * served; the feed ends after {@link #RANKED_MAX_DEPTH} posts.
      *
-     * @return a list of all {@link Post} objects
+     * @param userId the id of the user viewing the feed
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size; clamped to {@link #MAX_PAGE_SIZE}
+     * @return a {@link FeedPage} of {@link FeedItem} objects
+     * @throws IllegalArgumentException if the cursor is malformed
      */
-    public List<Post> getAllPosts() {
-        return postRepository.findAllByOrderByCreationDateDesc();
+    public FeedPage<FeedItem> getRankedFeedPage(Long userId, String cursor, Integer limit) {
+        RankedCursor after = RankedCursor.decode(cursor);
+        List<Long> servedIds = after == null ? List.of() : after.servedIds();
+        int served = servedIds.size();
+        int size = Math.min(pageSize(limit), RANKED_MAX_DEPTH - served);
+        if (size <= 0) {
+            return new FeedPage<>(List.of(), null);
+        }
+        LocalDateTime rankedAt = after == null ? LocalDateTime.now() : after.rankedAt();
+
+        Map<Long, Double> affinities = affinityIndex.topAuthors(userId, RANKED_AFFINITY_AUTHORS);
+        Set<Long> authorIds = new HashSet<>(friendshipService.getAcceptedFriendIds(userId));
+        authorIds.addAll(affinities.keySet());
+        authorIds.remove(userId);
+        if (authorIds.isEmpty()) {
+            return new FeedPage<>(List.of(), null);
+        }
+
+        // Within one author the query orders posts as the ranker does, so an author's
+        // posts on this page are among the first served + size + 1 of them. The stored
+        // counts are used as they are, to keep both orders the same.
+        Map<Long, List<FeedRanker.Candidate>> candidates = new HashMap<>();
+        for (Object[] row : postRepository.findRankingCandidates(authorIds, rankedAt.minusDays(RANKED_MAX_AGE_DAYS),
+                rankedAt, feedRanker.getRecencyHalfLifeMillis(), feedRanker.getCommentWeight(), served + size + 1)) {
+            FeedRanker.Candidate candidate = new FeedRanker.Candidate(toLong(row[0]), toLong(row[1]),
+                    toLocalDateTime(row[2]), toLong(row[3]), toLong(row[4]));
+            candidates.computeIfAbsent(candidate.authorId(), id -> new ArrayList<>()).add(candidate);
+        }
+        List<FeedRanker.Ranked> ranked = feedRanker.topK(candidates, affinities, rankedAt,
+                new HashSet<>(servedIds), size + 1);
+        if (ranked.isEmpty()) {
+            return new FeedPage<>(List.of(), null);
+        }
+        List<FeedRanker.Ranked> pageRanked = ranked.size() <= size ? ranked : ranked.subList(0, size);
+        String nextCursor = null;
+        if (ranked.size() > size && served + size < RANKED_MAX_DEPTH) {
+            List<Long> nextServedIds = new ArrayList<>(servedIds);
+            pageRanked.forEach(entry -> nextServedIds.add(entry.postId()));
+            nextCursor = new RankedCursor(rankedAt, nextServedIds).encode();
+        }
+
+        Map<Long, FeedPostRow> rowsById = new HashMap<>();
+        for (FeedPostRow row : postRepository.findFeedRowsByIds(pageRanked.stream().map(FeedRanker.Ranked::postId).toList())) {
+            rowsById.put(row.id(), row);
+        }
+        List<FeedPostRow> rows = new ArrayList<>(pageRanked.size());
+        for (FeedRanker.Ranked entry : pageRanked) {
+            FeedPostRow row = rowsById.get(entry.postId());
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return new FeedPage<>(toItems(rows, userId), nextCursor);
+    }
+
+    /**
+     * Returns one page of the posts with a hashtag, newest first.
+     *
+     * @param tag the hashtag, with or without its "#"
+     * @param viewerId the id of the user viewing the posts, used for {@link FeedItem#likedByMe()}
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size; clamped to {@link #MAX_PAGE_SIZE}
+     * @return a {@link FeedPage} of {@link FeedItem} objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public FeedPage<FeedItem> getHashtagPage(String tag, Long viewerId, String cursor, Integer limit) {
+        return toIndexPage((beforeId, count) -> postSearchIndex.findByHashtag(tag, beforeId, count),
+                viewerId, cursor, limit);
+    }
+
+    /**
+     * Returns one page of the posts mentioning a username, newest first.
+     *
+     * @param username the username, with or without its "@"
+     * @param viewerId the id of the user viewing the posts, used for {@link FeedItem#likedByMe()}
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size; clamped to {@link #MAX_PAGE_SIZE}
+     * @return a {@link FeedPage} of {@link FeedItem} objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public FeedPage<FeedItem> getMentionPage(String username, Long viewerId, String cursor, Integer limit) {
+        return toIndexPage((beforeId, count) -> postSearchIndex.findByMention(username, beforeId, count),
+                viewerId, cursor, limit);
+    }
+
+    /**
+     * Returns one page of the posts containing every word, hashtag and mention of a
+     * query, newest first.
+     *
+     * @param query the search text
+     * @param viewerId the id of the user viewing the posts, used for {@link FeedItem#likedByMe()}
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size; clamped to {@link #MAX_PAGE_SIZE}
+     * @return a {@link FeedPage} of {@link FeedItem} objects; empty if the query has no words
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public FeedPage<FeedItem> searchPosts(String query, Long viewerId, String cursor, Integer limit) {
+        return toIndexPage((beforeId, count) -> postSearchIndex.search(query, beforeId, count),
+                viewerId, cursor, limit);
+    }
+
+    /**
+     * Builds a page from post ids found in the {@link PostSearchIndex}, newest
+     * first. One id more than the page size is asked for; the extra id only tells
+     * whether there is a next page. Ids of posts deleted since they were indexed are
+     * skipped, and the next page starts after the last id looked up, even if its
+     * post is gone; index pages only read the cursor's id.
+     */
+    private FeedPage<FeedItem> toIndexPage(BiFunction<Long, Integer, List<Long>> find, Long viewerId,
+                                           String cursor, Integer limit) {
+        FeedCursor after = FeedCursor.decode(cursor);
+        int size = pageSize(limit);
+        List<Long> ids = find.apply(after == null ? null : after.id(), size + 1);
+        if (ids.isEmpty()) {
+            return new FeedPage<>(List.of(), null);
+        }
+        List<Long> pageIds = ids.size() <= size ? ids : ids.subList(0, size);
+
+        Map<Long, FeedPostRow> rowsById = new HashMap<>();
+        for (FeedPostRow row : postRepository.findFeedRowsByIds(pageIds)) {
+            rowsById.put(row.id(), row);
+        }
+        List<FeedPostRow> rows = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            FeedPostRow row = rowsById.get(id);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        String nextCursor = null;
+        if (ids.size() > size) {
+            LocalDateTime lastDate = rows.isEmpty()
+                    ? (after == null ? LocalDateTime.now() : after.creationDate())
+                    : rows.get(rows.size() - 1).creationDate();
+            nextCursor = new FeedCursor(lastDate, pageIds.get(pageIds.size() - 1)).encode();
+        }
+        return new FeedPage<>(toItems(rows, viewerId), nextCursor);
+    }
+
+    /**
+     * Returns the posts and comments saved or deleted since a sync token. Without a
+     * token, or with one too old to sync from, the result only carries a fresh token
+     * and asks the client to reload; the client reloads the feed after receiving it.
+     * Changes are read as one range of the change log, and only the posts and
+     * comments still saved at the end of it are loaded.
+     *
+     * @param viewerId the id of the user syncing, used for {@link FeedItem#likedByMe()}
+     * @param since the token returned by the previous sync, or {@code null}
+     * @return the changes and the token for the next sync
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public FeedChanges getChanges(Long viewerId, String since) {
+        FeedChangeLog.Batch batch = feedChangeLog.read(FeedChangeLog.decodeToken(since));
+
+        // Only the last change of each post and comment matters
+        Map<Long, FeedChange> posts = new LinkedHashMap<>();
+        Map<Long, FeedChange> comments = new LinkedHashMap<>();
+        for (FeedChange change : batch.changes()) {
+            switch (change.getType()) {
+                case POST_SAVED, POST_DELETED -> posts.put(change.getPostId(), change);
+                case COMMENT_SAVED, COMMENT_DELETED -> comments.put(change.getCommentId(), change);
+            }
+        }
+        List<Long> savedPostIds = new ArrayList<>();
+        List<Long> deletedPostIds = new ArrayList<>();
+        posts.forEach((id, change) ->
+                (change.getType() == FeedChange.Type.POST_SAVED ? savedPostIds : deletedPostIds).add(id));
+        Set<Long> deletedPosts = new HashSet<>(deletedPostIds);
+        List<Long> savedCommentIds = new ArrayList<>();
+        List<Long> deletedCommentIds = new ArrayList<>();
+        comments.forEach((id, change) -> {
+            if (!deletedPosts.contains(change.getPostId())) {
+                (change.getType() == FeedChange.Type.COMMENT_SAVED ? savedCommentIds : deletedCommentIds).add(id);
+            }
+        });
+
+        // Rows deleted after the last change read are left for the tombstone of the next sync
+        List<FeedPostRow> rows = savedPostIds.isEmpty() ? List.of() : postRepository.findFeedRowsByIds(savedPostIds);
+        List<FeedComment> savedComments = savedCommentIds.isEmpty() ? List.of() : commentRepository.findRowsByIds(savedCommentIds);
+        return new FeedChanges(Long.toString(batch.token()), batch.reset(), batch.hasMore(), toItems(rows, viewerId),
+                deletedPostIds, savedComments, deletedCommentIds);
+    }
+
+    /**
+     * Opens a live stream of changes to the posts a user sees: those of the user's
+     * accepted friends and the user's own.
+     *
+     * @param userId the id of the user
+     * @return the emitter the events are sent through
+     */
+    public SseEmitter openStream(Long userId) {
+        return feedEventHub.subscribe(userId, friendshipService.getAcceptedFriendIds(userId));
     }
 
     /**
@@ -133,127 +512,348 @@ public class FeedService {
     }
 
     /**
-     * Deletes a post if the user is the author.
+     * Returns a single post as a feed item, with the viewer's like, its newest
+     * comments and the like changes not written yet.
+     *
+     * @param postId the id of the post to retrieve
+     * @param viewerId the id of the user viewing the post, used for {@link FeedItem#likedByMe()}
+     * @return the matching {@link FeedItem}
+     * @throws IllegalArgumentException if the post does not exist
+     */
+    public FeedItem getFeedItem(Long postId, Long viewerId) {
+        List<FeedPostRow> rows = postRepository.findFeedRowsByIds(List.of(postId));
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Post not found");
+        }
+        return toItems(rows, viewerId).get(0);
+    }
+
+    /**
+     * Returns a single post as a feed item and counts the view, unless the viewer wrote it.
+     *
+     * @param postId the id of the post to retrieve
+     * @param viewerId the id of the user viewing the post
+     * @return the matching {@link FeedItem}
+     * @throws IllegalArgumentException if the post does not exist
+     */
+    public FeedItem viewPost(Long postId, Long viewerId) {
+        FeedItem item = getFeedItem(postId, viewerId);
+        if (!item.author().id().equals(viewerId)) {
+            viewCounter.postViewed(postId, viewerId);
+        }
+        return item;
+    }
+
+    /**
+     * Deletes a post, with its likes and comments, if the user is the author. Each
+     * delete only matches if the user wrote the post, so nothing is loaded to check.
      *
      * @param postId the id of the post to delete
      * @param userId the id of the user attempting to delete the post
      */
+    @Transactional
     public void deletePost(Long postId, Long userId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new IllegalArgumentException("Post not found"));
-        AuthenticationUser user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        if (!post.getAuthor().equals(user)) {
-            throw new IllegalArgumentException("User is not the author of the post");
+        postRepository.deleteLikesOfOwnPost(postId, userId);
+        commentRepository.deleteOfOwnPost(postId, userId);
+        if (postRepository.deleteOwnPost(postId, userId) == 0) {
+            throw new IllegalArgumentException(postRepository.existsById(postId)
+                    ? "User is not the author of the post" : "Post not found");
         }
 
-        postRepository.delete(post);
+        feedVersions.postChanged(postId);
+        timelineService.removePost(postId, friendshipService.getAcceptedFriendIds(userId));
+        feedEventHub.publish(FeedEvent.postDeleted(postId, userId));
+        postSearchIndex.remove(postId);
+        feedChangeLog.record(FeedChange.Type.POST_DELETED, postId, null);
     }
 
     /**
-     * Returns all posts created by a specific user.
+     * Returns one page of the posts created by a specific user, newest first. This
+     * is the user's profile page, so a first page shown to another user counts as a
+     * view of the profile.
      *
      * @param userId the id of the user whose posts will be retrieved
-     * @return a list of {@link Post} objects created by the user
+     * @param viewerId the id of the user viewing the posts, used for {@link FeedItem#likedByMe()}
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size; clamped to {@link #MAX_PAGE_SIZE}
+     * @return a {@link FeedPage} of {@link FeedItem} objects created by the user
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public FeedPage<FeedItem> getPostsByUserIdPage(Long userId, Long viewerId, String cursor, Integer limit) {
+        FeedCursor after = FeedCursor.decode(cursor);
+        int size = pageSize(limit);
+        Pageable page = PageRequest.of(0, size + 1);
+        if (after == null && viewerId != null && !viewerId.equals(userId)) {
+            viewCounter.profileViewed(userId, viewerId);
+        }
+        List<FeedPostRow> rows = after == null
+                ? postRepository.findFeedRowsByAuthor(userId, page)
+                : postRepository.findFeedRowsByAuthorBefore(userId, after.creationDate(), after.id(), page);
+        return toPage(rows, size, viewerId);
+    }
+
+    /**
+     * Returns the version of a page of all posts, which changes whenever the page
+     * returned by {@link #getFeedPage(Long, String, Integer)} with the same arguments
+     * would. It is read from the posts the page would list, plus the like changes
+     * the {@link LikeCounter} has not written yet.
+     *
+     * @param viewerId the id of the user viewing the feed
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size
+     * @return the version
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public String getFeedVersion(Long viewerId, String cursor, Integer limit) {
+        return pageVersion(List.of(), storedVersions.getPageVersions(null, FeedCursor.decode(cursor),
+                pageSize(limit) + 1, viewerId));
+    }
+
+    /**
+     * Returns the version of a page of a user's home timeline, which changes
+     * whenever the page returned by {@link #getFriendsFeedPage(Long, String, Integer)}
+     * with the same arguments would. The timeline is kept in memory, so reading the
+     * page's entries again costs no query.
+     *
+     * @param userId the id of the user whose timeline is read
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size
+     * @return the version
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public String getFriendsFeedVersion(Long userId, String cursor, Integer limit) {
+        List<Long> postIds = timelineService.read(userId, FeedCursor.decode(cursor), pageSize(limit) + 1).stream()
+                .map(FeedCursor::id).toList();
+        List<StoredVersions.PostVersion> versions = new ArrayList<>(storedVersions.getPostVersions(postIds, userId));
+        versions.sort(Comparator.comparing(StoredVersions.PostVersion::postId));
+        return pageVersion(postIds, versions);
+    }
+
+    /**
+     * Returns the version of a page of a user's posts, which changes whenever the
+     * page returned by {@link #getPostsByUserIdPage(Long, Long, String, Integer)}
+     * with the same arguments would.
+     *
+     * @param userId the id of the user whose posts are listed
+     * @param viewerId the id of the user viewing the posts
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size
+     * @return the version
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public String getPostsByUserIdVersion(Long userId, Long viewerId, String cursor, Integer limit) {
+        return pageVersion(List.of(), storedVersions.getPageVersions(userId, FeedCursor.decode(cursor),
+                pageSize(limit) + 1, viewerId));
+    }
+
+    private String pageVersion(List<Long> listed, List<StoredVersions.PostVersion> versions) {
+        StringBuilder page = new StringBuilder();
+        listed.forEach(postId -> page.append(postId).append(','));
+        for (StoredVersions.PostVersion version : versions) {
+            page.append(version.tag()).append('.').append(likeCounter.pending(version.postId())).append(';');
+        }
+        return StoredVersions.digest(page);
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+    }
+
+    /**
+     * Builds a page from a query that fetched one post more than the page size;
+     * the extra post only tells whether there is a next page.
      */
-    public List<Post> getPostsByUserId(Long userId) {
-        return postRepository.findByAuthorId(userId);
+    private FeedPage<FeedItem> toPage(List<FeedPostRow> rows, int size, Long viewerId) {
+        List<FeedPostRow> pageRows = rows.size() <= size ? rows : rows.subList(0, size);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            FeedPostRow last = pageRows.get(size - 1);
+            nextCursor = new FeedCursor(last.creationDate(), last.id()).encode();
+        }
+        return new FeedPage<>(toItems(pageRows, viewerId), nextCursor);
     }
 
     /**
-     * Adds or removes a like from a post for a user.
+     * Adds the viewer's likes and the newest comments to a page of posts. Each is
+     * one query for the whole page, so the number of queries does not depend on the
+     * page size or on how popular the posts are. Comment and like counts come with
+     * the rows; like counts only need the changes the {@link LikeCounter} has not
+     * written yet.
+     */
+    private List<FeedItem> toItems(List<FeedPostRow> rows, Long viewerId) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> postIds = rows.stream().map(FeedPostRow::id).toList();
+
+        Set<Long> liked = viewerId == null ? Set.of() : new HashSet<>(postRepository.findLikedPostIds(postIds, viewerId));
+        Map<Long, List<FeedComment>> recentComments = new HashMap<>();
+        for (Object[] row : commentRepository.findRecentByPostIds(postIds, RECENT_COMMENTS)) {
+            FeedComment comment = new FeedComment(toLong(row[0]), toLong(row[1]), toLong(row[2]),
+                    (String) row[3], (String) row[4], toLocalDateTime(row[5]));
+            recentComments.computeIfAbsent(comment.postId(), id -> new ArrayList<>()).add(comment);
+        }
+
+        List<FeedItem> items = new ArrayList<>(rows.size());
+        for (FeedPostRow row : rows) {
+            items.add(new FeedItem(row.id(), row.content(),
+                    postImageService.displayUrl(row.picture(), row.pictureStatus()),
+                    postImageService.thumbnailUrl(row.picture(), row.pictureStatus()),
+                    row.creationDate(), row.updatedDate(),
+                    new FeedAuthor(row.authorId(), row.authorUsername(), row.authorFirstName(),
+                            row.authorLastName(), row.authorProfilePicture()),
+                    Math.max(0, row.likeCount() + likeCounter.pending(row.id())),
+                    row.commentCount(),
+                    liked.contains(row.id()),
+                    recentComments.getOrDefault(row.id(), List.of())));
+        }
+        return items;
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    /**
+     * Adds or removes a like from a post for a user. The like is inserted into or
+     * deleted from "posts_likes" by its key, so the cost does not depend on how many
+     * likes the post has. The returned count includes changes the
+     * {@link LikeCounter} has not written yet, and the user's affinity to the
+     * post's author follows the toggle.
      *
      * @param postId the id of the post to like or unlike
      * @param userId the id of the user liking or unliking the post
-     * @return the updated {@link Post} object
+     * @return the {@link LikeStatus} after the toggle
      */
-    public Post likePost(Long postId, Long userId) {
-        // (1) Start
-
-        // (2) Find post by postId
-        // (3) Post found?
-        // (5) If no, throw "Post not found"
-        Post post = postRepository.findById(postId)
+    public LikeStatus likePost(Long postId, Long userId) {
+        PostLikeState state = postRepository.findLikeState(postId)
                 .orElseThrow(() -> new IllegalArgumentException("Post not found"));
 
-        // (4) Find user by userId
-        // (6) User found?
-        // (7) If no, throw "User not found"
-        AuthenticationUser user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        // (8) Has user already liked the post?
-        if (post.getLikes().contains(user)) {
-            // (9) Yes -> remove like
-            post.getLikes().remove(user);
-        } else {
-            // (10) No -> add like
-            post.getLikes().add(user);
+        boolean liked = postRepository.addLike(postId, userId) == 1;
+        if (liked) {
+            likeCounter.add(postId, 1);
+            affinityIndex.recordLike(userId, state.authorId(), true);
+        } else if (postRepository.removeLike(postId, userId) == 1) {
+            likeCounter.add(postId, -1);
+            affinityIndex.recordLike(userId, state.authorId(), false);
         }
+        feedVersions.postChanged(postId);
+        long likeCount = Math.max(0, state.likeCount() + likeCounter.pending(postId));
+        feedEventHub.publish(FeedEvent.likeChanged(postId, state.authorId(), userId, liked, likeCount));
+        return new LikeStatus(postId, liked, likeCount);
+    }
 
-        // (11) Save updated post
-        return postRepository.save(post);
+    /**
+     * Returns one page of a post's comments, newest first.
+     *
+     * @param postId the id of the post whose comments will be retrieved
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size; clamped to {@link #MAX_PAGE_SIZE}
+     * @return a {@link FeedPage} of {@link FeedComment} objects
+     * @throws IllegalArgumentException if the cursor is malformed or the post does not exist
+     */
+    public FeedPage<FeedComment> getCommentsPage(Long postId, String cursor, Integer limit) {
+        FeedCursor after = FeedCursor.decode(cursor);
+        int size = pageSize(limit);
+        Pageable page = PageRequest.of(0, size + 1);
+        List<FeedComment> comments = after == null
+                ? commentRepository.findPageByPostId(postId, page)
+                : commentRepository.findPageByPostIdBefore(postId, after.creationDate(), after.id(), page);
+        if (comments.isEmpty() && !postRepository.existsById(postId)) {
+            throw new IllegalArgumentException("Post not found");
+        }
 
-        // (12) End
+        List<FeedComment> pageComments = comments.size() <= size ? comments : comments.subList(0, size);
+        String nextCursor = null;
+        if (comments.size() > size) {
+            FeedComment last = pageComments.get(size - 1);
+            nextCursor = new FeedCursor(last.creationDate(), last.id()).encode();
+        }
+        return new FeedPage<>(pageComments, nextCursor);
     }
 
     /**
-     * Adds a comment to a post.
+     * Adds a comment to a post and raises the post's comment count in the same
+     * transaction. The comment is inserted with references to the post and the
+     * user, so neither is loaded; the post's author is read for the live stream
+     * and the author affinity.
      *
      * @param postId the id of the post receiving the comment
      * @param userId the id of the user creating the comment
      * @param content the text content of the comment
-     * @return the saved {@link Comment} object
+     * @return the saved {@link Comment} object; its post and author are unloaded references
      */
+    @Transactional
     public Comment addComment(Long postId, Long userId, String content) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new IllegalArgumentException("Post not found"));
-        AuthenticationUser user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        Comment comment = new Comment(post, user, content);
-        return commentRepository.save(comment);
+        Long postAuthorId = postRepository.findLikeState(postId)
+                .orElseThrow(() -> new IllegalArgumentException("Post not found"))
+                .authorId();
+
+        Comment comment = commentRepository.save(new Comment(postRepository.getReferenceById(postId),
+                userRepository.getReferenceById(userId), content));
+        postRepository.addToCommentCount(postId, 1);
+        affinityIndex.recordComment(userId, postAuthorId, true);
+        feedVersions.postChanged(postId);
+        feedEventHub.publish(FeedEvent.commentAdded(postId, postAuthorId, userId, comment.getId()));
+        feedChangeLog.record(FeedChange.Type.COMMENT_SAVED, postId, comment.getId());
+        return comment;
     }
 
     /**
-     * Updates an existing comment.
+     * Updates an existing comment. The update only matches the comment if the user
+     * is its author, so neither the comment nor the user is loaded to check; the
+     * updated comment is read back for the response.
      *
      * @param commentId the id of the comment to update
      * @param userId the id of the user attempting to update the comment
      * @param newContent the updated text content of the comment
-     * @return the updated {@link Comment} object
+     * @return the updated comment
      */
-    public Comment editComment(Long commentId, Long userId, String newContent) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new IllegalArgumentException("Comment not found"));
-        AuthenticationUser user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        if (!comment.getAuthor().equals(user)) {
-            throw new IllegalArgumentException("User is not the author of the comment");
+    public FeedComment editComment(Long commentId, Long userId, String newContent) {
+        if (commentRepository.updateOwnComment(commentId, userId, newContent, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException(commentRepository.existsById(commentId)
+                    ? "User is not the author of the comment" : "Comment not found");
         }
 
-        comment.setContent(newContent);
-        return commentRepository.save(comment);
+        FeedComment saved = commentRepository.findRow(commentId)
+                .orElseThrow(() -> new IllegalArgumentException("Comment not found"));
+        feedVersions.postChanged(saved.postId());
+        feedChangeLog.record(FeedChange.Type.COMMENT_SAVED, saved.postId(), commentId);
+        return saved;
     }
 
     /**
-     * Deletes a comment if the user is the author.
+     * Deletes a comment if the user is the author, and lowers the post's comment
+     * count in the same transaction. The comment's post is read only if the user
+     * wrote the comment, and the count is lowered only if this call deleted it.
      *
      * @param commentId the id of the comment to delete
      * @param userId the id of the user attempting to delete the comment
      */
+    @Transactional
     public void deleteComment(Long commentId, Long userId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new IllegalArgumentException("Comment not found"));
-        AuthenticationUser user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        if (!comment.getAuthor().equals(user)) {
-            throw new IllegalArgumentException("User is not the author of the comment");
+        CommentTarget target = commentRepository.findOwnTarget(commentId, userId).orElse(null);
+        if (target == null) {
+            throw new IllegalArgumentException(commentRepository.existsById(commentId)
+                    ? "User is not the author of the comment" : "Comment not found");
+        }
+        if (commentRepository.deleteOwnComment(commentId, userId) == 0) {
+            throw new IllegalArgumentException("Comment not found");
         }
 
-        commentRepository.delete(comment);
+        postRepository.addToCommentCount(target.postId(), -1);
+        affinityIndex.recordComment(userId, target.postAuthorId(), false);
+        feedVersions.postChanged(target.postId());
+        feedChangeLog.record(FeedChange.Type.COMMENT_DELETED, target.postId(), commentId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+/**
+ * Class Name: FeedVersions
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts changes to posts, so feed and post reads can answer a
+ * conditional GET without querying the database. Every change to a post, its likes
+ * or its comments advances the post's version and the feed version; the feed
+ * version alone also advances when posts are created or timelines are repaired. <br>
+ *
+ * Post versions are kept in a fixed number of slots shared by post id. Two posts in
+ * the same slot share a version, which only costs an occasional needless reload,
+ * and memory does not grow with the number of posts.
+ */
+@Component
+public class FeedVersions {
+
+    private static final int SLOTS = 4096;
+
+    private final AtomicLong feed = new AtomicLong();
+    private final AtomicLongArray posts = new AtomicLongArray(SLOTS);
+
+    /**
+     * Records a change to a post, its likes or its comments.
+     *
+     * @param postId the id of the post
+     */
+    public void postChanged(Long postId) {
+        if (postId != null) {
+            posts.incrementAndGet(slot(postId));
+        }
+        feed.incrementAndGet();
+    }
+
+    /**
+     * Records a change that affects feeds but no existing post, such as a new post.
+     */
+    public void feedChanged() {
+        feed.incrementAndGet();
+    }
+
+    public long getPostVersion(Long postId) {
+        return posts.get(slot(postId));
+    }
+
+    public long getFeedVersion() {
+        return feed.get();
+    }
+
+    private static int slot(Long postId) {
+        return Math.floorMod(Long.hashCode(postId), SLOTS);
+    }
+}
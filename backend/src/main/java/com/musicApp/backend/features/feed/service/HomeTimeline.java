@@ -0,0 +1,154 @@
+/**
+ * Class Name: HomeTimeline
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.dto.FeedCursor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The in-memory copy of one user's home timeline: a ring buffer of at most
+ * {@code capacity} post positions, kept sorted by {@code (creationDate, id)}. New
+ * posts are almost always the newest and are appended in constant time; when the
+ * buffer is full the oldest post falls off. A post arriving out of order is moved
+ * into place, and a post that is already present is ignored. The buffer remembers
+ * when it was loaded, so its owner can reload it from the table once it is old.
+ */
+final class HomeTimeline {
+
+    private final LocalDateTime[] creationDates;
+    private final long[] postIds;
+    private int oldest;
+    private int size;
+    private volatile boolean loaded;
+    private volatile long loadedAt;
+
+    HomeTimeline(int capacity) {
+        this.creationDates = new LocalDateTime[capacity];
+        this.postIds = new long[capacity];
+    }
+
+    /**
+     * Adds a post to the timeline.
+     *
+     * @param postId the post's id
+     * @param creationDate the post's creation date
+     * @return {@code true} if the post was added
+     */
+    synchronized boolean add(long postId, LocalDateTime creationDate) {
+        int position = size;
+        while (position > 0 && compare(position - 1, creationDate, postId) > 0) {
+            position--;
+        }
+        if (position > 0 && compare(position - 1, creationDate, postId) == 0) {
+            return false;
+        }
+        if (size == postIds.length) {
+            if (position == 0) {
+                return false;
+            }
+            oldest = (oldest + 1) % postIds.length;
+            size--;
+            position--;
+        }
+        for (int i = size; i > position; i--) {
+            copy(i - 1, i);
+        }
+        creationDates[slot(position)] = creationDate;
+        postIds[slot(position)] = postId;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes a post from the timeline.
+     *
+     * @param postId the post's id
+     * @return {@code true} if the post was on the timeline
+     */
+    synchronized boolean remove(long postId) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (postIds[slot(i)] == postId) {
+                for (int j = i; j < size - 1; j++) {
+                    copy(j + 1, j);
+                }
+                size--;
+                creationDates[slot(size)] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns posts of the timeline, newest first.
+     *
+     * @param after the position to start after, or {@code null} to start at the newest post
+     * @param count the maximum number of posts returned
+     * @return a {@link List} of post positions
+     */
+    synchronized List<FeedCursor> read(FeedCursor after, int count) {
+        List<FeedCursor> entries = new ArrayList<>(Math.min(count, size));
+        for (int i = size - 1; i >= 0 && entries.size() < count; i--) {
+            if (after != null && compare(i, after.creationDate(), after.id()) >= 0) {
+                continue;
+            }
+            entries.add(new FeedCursor(creationDates[slot(i)], postIds[slot(i)]));
+        }
+        return entries;
+    }
+
+    /**
+     * Removes every post from the timeline, before it is loaded again.
+     */
+    synchronized void clear() {
+        Arrays.fill(creationDates, null);
+        oldest = 0;
+        size = 0;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns whether the timeline was loaded less than {@code maxAgeNanos} before
+     * {@code now}.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @param maxAgeNanos how long a load stays fresh
+     * @return {@code true} if the timeline is loaded and fresh
+     */
+    boolean isFresh(long now, long maxAgeNanos) {
+        return loaded && now - loadedAt < maxAgeNanos;
+    }
+
+    void markLoaded(long now) {
+        loadedAt = now;
+        loaded = true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private int compare(int index, LocalDateTime creationDate, long postId) {
+        int byDate = creationDates[slot(index)].compareTo(creationDate);
+        return byDate != 0 ? byDate : Long.compare(postIds[slot(index)], postId);
+    }
+
+    private void copy(int from, int to) {
+        creationDates[slot(to)] = creationDates[slot(from)];
+        postIds[slot(to)] = postIds[slot(from)];
+    }
+
+    private int slot(int index) {
+        return (oldest + index) % postIds.length;
+    }
+}
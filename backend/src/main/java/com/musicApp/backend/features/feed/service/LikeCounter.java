@@ -0,0 +1,248 @@
+/**
+ * Class Name: LikeCounter
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.repository.PostRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class keeps the like count of every post in the "like_count" column of the
+ * "posts" table. Likes and unlikes only add to an in-memory {@link LongAdder} per
+ * post; the accumulated changes are written to the column in one batch every
+ * {@code feed.likes.flush-millis}, so a popular post costs one UPDATE per flush
+ * instead of one per like. <br>
+ *
+ * The pending changes are split into stripes by post id. Updates to a stripe share
+ * its read lock and never block each other; a flush takes each stripe's write lock
+ * only long enough to swap in an empty map, so no update is lost or counted twice.
+ * Every flushed post also gets a new {@code changed_at}, even if its likes and
+ * unlikes cancel out, so feeds showing who likes it are retagged.
+ * Pending changes are flushed on shutdown. The column of posts liked before it was
+ * kept is filled in once by {@link CountBackfills}. If a crash lost some changes,
+ * the column can be recounted from the "posts_likes" table with
+ * {@code feed.likes.recount-on-startup};
+ * since other instances' pending changes would be counted twice, that is a
+ * maintenance step for when no other instance is running.
+ */
+@Component
+public class LikeCounter {
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounter.class);
+
+    private static final int STRIPES = 16;
+    private static final String ADD_TO_COUNT =
+            "UPDATE posts SET like_count = like_count + ?, changed_at = CURRENT_TIMESTAMP(6) WHERE id = ?";
+
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean recountOnStartup;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rowsFlushed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private static final class Stripe {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+        /** The changes of a flush that has not committed yet. */
+        private volatile Map<Long, LongAdder> flushing = Map.of();
+    }
+
+    /**
+     * Creates a LikeCounter.
+     *
+     * @param postRepository the repository used to recount likes
+     * @param jdbcTemplate the template used to write a flush as one batch
+     * @param transactionManager the transaction manager a flush runs in
+     * @param recountOnStartup whether to recount every post's likes at startup
+     */
+    public LikeCounter(PostRepository postRepository, JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${feed.likes.recount-on-startup:false}") boolean recountOnStartup) {
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recountOnStartup = recountOnStartup;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Recounts the likes at startup if {@code feed.likes.recount-on-startup} is set.
+     */
+    @PostConstruct
+    public void recountIfRequested() {
+        if (recountOnStartup) {
+            recount();
+        }
+    }
+
+    /**
+     * Writes this instance's pending changes and then sets the like count of every
+     * post whose stored count is wrong. Changes still pending on other instances
+     * would be added on top of the recounted value, so only run it while no other
+     * instance is running.
+     *
+     * @return the number of posts corrected
+     */
+    public int recount() {
+        flush();
+        int corrected = postRepository.recountLikes();
+        logger.info("Corrected the like count of {} posts", corrected);
+        return corrected;
+    }
+
+    /**
+     * Records a change to a post's like count.
+     *
+     * @param postId the id of the post
+     * @param delta +1 for a like, -1 for an unlike
+     */
+    public void add(Long postId, long delta) {
+        addPending(postId, delta);
+        updates.increment();
+    }
+
+    private void addPending(Long postId, long delta) {
+        Stripe stripe = stripeOf(postId);
+        stripe.lock.readLock().lock();
+        try {
+            stripe.pending.computeIfAbsent(postId, id -> new LongAdder()).add(delta);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the change to a post's like count that has not been written yet,
+     * including changes of a flush that is still running.
+     *
+     * @param postId the id of the post
+     * @return the pending change; add it to the stored count for the current count
+     */
+    public long pending(Long postId) {
+        Stripe stripe = stripeOf(postId);
+        stripe.lock.readLock().lock();
+        try {
+            return sum(stripe.pending.get(postId)) + sum(stripe.flushing.get(postId));
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Writes all pending changes to the "like_count" column in one transaction. If
+     * the write fails the changes are kept and written by the next flush.
+     */
+    @Scheduled(fixedDelayString = "${feed.likes.flush-millis:2000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Stripe> drained = new ArrayList<>(STRIPES);
+        for (Stripe stripe : stripes) {
+            stripe.lock.writeLock().lock();
+            try {
+                if (!stripe.pending.isEmpty()) {
+                    drained.add(stripe);
+                    stripe.flushing = stripe.pending;
+                    stripe.pending = new ConcurrentHashMap<>();
+                }
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Stripe stripe : drained) {
+            // A like and an unlike cancel out in the count but still change who likes the post
+            stripe.flushing.forEach((postId, adder) -> rows.add(new Object[]{adder.sum(), postId}));
+        }
+        boolean written = rows.isEmpty();
+        try {
+            if (!written) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD_TO_COUNT, rows));
+                written = true;
+                flushes.increment();
+                rowsFlushed.add(rows.size());
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.warn("Writing {} like counts failed; will retry", rows.size(), e);
+        } finally {
+            for (Stripe stripe : drained) {
+                settle(stripe, written);
+            }
+        }
+    }
+
+    /**
+     * Ends a stripe's flush. Changes that were not written go back into the pending
+     * map in the same step, so {@link #pending(Long)} never misses or repeats them.
+     */
+    private void settle(Stripe stripe, boolean written) {
+        stripe.lock.writeLock().lock();
+        try {
+            if (!written) {
+                stripe.flushing.forEach((postId, adder) ->
+                        stripe.pending.computeIfAbsent(postId, id -> new LongAdder()).add(adder.sum()));
+            }
+            stripe.flushing = Map.of();
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    private Stripe stripeOf(Long postId) {
+        return stripes[Math.floorMod(Long.hashCode(postId), STRIPES)];
+    }
+
+    public long getUpdateCount() {
+        return updates.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    public long getRowsFlushedCount() {
+        return rowsFlushed.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public int getPendingCount() {
+        int pending = 0;
+        for (Stripe stripe : stripes) {
+            pending += stripe.pending.size();
+        }
+        return pending;
+    }
+}
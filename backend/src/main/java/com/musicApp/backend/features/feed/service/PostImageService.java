@@ -0,0 +1,467 @@
+/**
+ * Class Name: PostImageService
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.dto.ImageUploadUrl;
+import com.musicApp.backend.features.feed.model.Post;
+import com.musicApp.backend.features.feed.repository.PostRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This service handles post pictures. Clients upload a picture straight to object
+ * storage with a presigned PUT URL, the same way profile pictures are uploaded,
+ * and then create the post with the returned object key, so the picture's bytes
+ * never pass through the application. <br>
+ *
+ * Once the post is saved, a small pool of worker threads downloads the picture
+ * and writes two recompressed JPEG variants next to it: a small one for feed
+ * cards ({@code feed.images.small-width}) and a medium one for the post itself
+ * ({@code feed.images.medium-width}). Until the variants exist the original is
+ * served. Pictures the pool had no room for, or that failed with a storage error,
+ * are picked up again by a periodic sweep.
+ */
+@Service
+public class PostImageService {
+    private static final Logger logger = LoggerFactory.getLogger(PostImageService.class);
+
+    private static final Map<String, String> EXTENSIONS =
+            Map.of("image/jpeg", "jpg", "image/png", "png", "image/webp", "webp");
+    private static final Pattern UPLOAD_KEY = Pattern.compile("posts/(\\d+)/[0-9a-f-]{36}\\.(jpg|png|webp)");
+    private static final long MAX_BYTES = 10 * 1024 * 1024;
+    private static final long MAX_PIXELS = 40_000_000L;
+    private static final Duration UPLOAD_TTL = Duration.ofMinutes(5);
+    private static final int SWEEP_BATCH = 50;
+
+    private final S3Presigner presigner;
+    private final S3Client s3Client;
+    private final PostRepository postRepository;
+    private final FeedVersions feedVersions;
+    private final String bucket;
+    private final String publicBaseUrl;
+    private final int threads;
+    private final int queueCapacity;
+    private final int smallWidth;
+    private final int mediumWidth;
+    private final float quality;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder uploadUrls = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder variantsWritten = new LongAdder();
+    private final LongAdder unusable = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Creates a PostImageService.
+     *
+     * @param presigner the presigner used to generate upload URLs
+     * @param s3Client the client the workers read pictures and write variants with
+     * @param postRepository the repository that records the variants' progress
+     * @param feedVersions the versions advanced when a post's variants are ready
+     * @param bucket the storage bucket pictures are uploaded to
+     * @param publicBaseUrl the public base URL of the bucket
+     * @param threads the number of worker threads
+     * @param queueCapacity the number of pictures that may wait for a free worker
+     * @param smallWidth the maximum width of the small variant
+     * @param mediumWidth the maximum width of the medium variant
+     * @param quality the JPEG quality of the variants, between 0 and 1
+     */
+    public PostImageService(S3Presigner presigner,
+                            S3Client s3Client,
+                            PostRepository postRepository,
+                            FeedVersions feedVersions,
+                            @Value("${r2.bucket}") String bucket,
+                            @Value("${r2.url}") String publicBaseUrl,
+                            @Value("${feed.images.threads:2}") int threads,
+                            @Value("${feed.images.queue-capacity:100}") int queueCapacity,
+                            @Value("${feed.images.small-width:320}") int smallWidth,
+                            @Value("${feed.images.medium-width:1080}") int mediumWidth,
+                            @Value("${feed.images.quality:0.8}") float quality) {
+        this.presigner = presigner;
+        this.s3Client = s3Client;
+        this.postRepository = postRepository;
+        this.feedVersions = feedVersions;
+        this.bucket = bucket;
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        this.threads = Math.max(1, threads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.smallWidth = Math.max(1, smallWidth);
+        this.mediumWidth = Math.max(1, mediumWidth);
+        this.quality = Math.max(0.1f, Math.min(1f, quality));
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "post-image-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Generates a presigned URL for uploading a post picture. The URL only accepts
+     * an upload of the given type and size.
+     *
+     * @param userId the id of the uploading user
+     * @param contentType the picture's MIME type
+     * @param fileSize the picture's size in bytes
+     * @return an {@link ImageUploadUrl} with the upload URL and the picture's object key
+     * @throws IllegalArgumentException if the type is not supported or the size is missing or too large
+     */
+    public ImageUploadUrl createUploadUrl(Long userId, String contentType, Long fileSize) {
+        if (contentType == null) {
+            throw new IllegalArgumentException("contentType is required");
+        }
+        String extension = EXTENSIONS.get(contentType);
+        if (extension == null) {
+            throw new IllegalArgumentException("Unsupported contentType: " + contentType);
+        }
+        if (fileSize == null || fileSize <= 0) {
+            throw new IllegalArgumentException("fileSize is required");
+        }
+        if (fileSize > MAX_BYTES) {
+            throw new IllegalArgumentException("File too large");
+        }
+
+        String objectKey = "posts/" + userId + "/" + UUID.randomUUID() + "." + extension;
+        PutObjectRequest putReq = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(objectKey)
+                .contentType(contentType)
+                .contentLength(fileSize)
+                .build();
+        PutObjectPresignRequest presignReq = PutObjectPresignRequest.builder()
+                .signatureDuration(UPLOAD_TTL)
+                .putObjectRequest(putReq)
+                .build();
+
+        String uploadUrl = presigner.presignPutObject(presignReq).url().toString();
+        uploadUrls.increment();
+        return new ImageUploadUrl(uploadUrl, objectKey, UPLOAD_TTL.toSeconds());
+    }
+
+    /**
+     * Tells whether a post picture is an object key issued by {@link #createUploadUrl},
+     * as opposed to a plain name or URL stored by older clients.
+     *
+     * @param picture the post's picture
+     * @return {@code true} if the picture was uploaded to object storage
+     */
+    public boolean isUpload(String picture) {
+        return picture != null && picture.startsWith("posts/");
+    }
+
+    /**
+     * Checks that an uploaded picture's key was issued to the given user.
+     *
+     * @param userId the id of the post's author
+     * @param picture the post's picture
+     * @throws IllegalArgumentException if the key is malformed or belongs to another user
+     */
+    public void checkOwnUpload(Long userId, String picture) {
+        Matcher matcher = UPLOAD_KEY.matcher(picture);
+        if (!matcher.matches() || !matcher.group(1).equals(String.valueOf(userId))) {
+            throw new IllegalArgumentException("Invalid picture key for this user");
+        }
+    }
+
+    /**
+     * Queues an uploaded picture for resizing. If the queue is full the picture is
+     * left for the next sweep.
+     *
+     * @param postId the id of the post
+     * @param picture the picture's object key
+     */
+    public void submit(Long postId, String picture) {
+        if (!inFlight.add(postId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(postId, picture);
+                } finally {
+                    inFlight.remove(postId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(postId);
+            rejections.increment();
+        }
+    }
+
+    /**
+     * Writes the variants of a post's picture and records the result. A picture
+     * that is missing, too large, or not a readable image is marked failed and
+     * served as uploaded; a storage error leaves it pending for the next sweep.
+     * Decoding and resizing run before anything is written, so any error they
+     * throw means the upload itself is unusable.
+     *
+     * @param postId the id of the post
+     * @param picture the picture's object key
+     */
+    public void process(Long postId, String picture) {
+        Post.PictureStatus status;
+        try {
+            byte[] original = s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(picture)
+                    .build()).asByteArray();
+            byte[][] variants = original.length > MAX_BYTES ? null : render(postId, original);
+            if (variants == null) {
+                status = Post.PictureStatus.FAILED;
+            } else {
+                writeVariant(picture, "small", variants[0]);
+                writeVariant(picture, "medium", variants[1]);
+                status = Post.PictureStatus.READY;
+            }
+        } catch (NoSuchKeyException e) {
+            status = Post.PictureStatus.FAILED;
+        } catch (SdkException e) {
+            failures.increment();
+            logger.warn("Resizing the picture of post {} failed; will retry", postId, e);
+            return;
+        }
+
+        if (status == Post.PictureStatus.FAILED) {
+            unusable.increment();
+        }
+        if (postRepository.updatePictureStatus(postId, picture, status) == 1) {
+            feedVersions.postChanged(postId);
+        }
+        processed.increment();
+    }
+
+    /**
+     * Queues the pictures of the last day whose variants are still missing, for
+     * example because the queue was full or the application restarted.
+     */
+    @Scheduled(fixedDelayString = "${feed.images.sweep-millis:60000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Object[] row : postRepository.findPendingPictures(now.minusDays(1), now.minusMinutes(1),
+                PageRequest.of(0, SWEEP_BATCH))) {
+            submit(((Number) row[0]).longValue(), (String) row[1]);
+        }
+    }
+
+    /**
+     * Returns the URL of a post's picture sized for display.
+     *
+     * @param picture the post's picture, or {@code null}
+     * @param status the progress of the picture's variants, or {@code null}
+     * @return the URL, the picture as stored if it is not an upload, or {@code null}
+     */
+    public String displayUrl(String picture, Post.PictureStatus status) {
+        return urlOf(picture, status, "medium");
+    }
+
+    /**
+     * Returns the URL of a small copy of a post's picture for feed cards.
+     *
+     * @param picture the post's picture, or {@code null}
+     * @param status the progress of the picture's variants, or {@code null}
+     * @return the URL, the picture as stored if it is not an upload, or {@code null}
+     */
+    public String thumbnailUrl(String picture, Post.PictureStatus status) {
+        return urlOf(picture, status, "small");
+    }
+
+    private String urlOf(String picture, Post.PictureStatus status, String variant) {
+        if (picture == null || status == null) {
+            return picture;
+        }
+        String key = status == Post.PictureStatus.READY ? variantKey(picture, variant) : picture;
+        return publicBaseUrl + "/" + key;
+    }
+
+    /**
+     * Returns the object key of a picture's variant, next to the picture.
+     *
+     * @param picture the picture's object key
+     * @param variant the variant's name
+     * @return the variant's object key
+     */
+    public static String variantKey(String picture, String variant) {
+        int dot = picture.lastIndexOf('.');
+        return (dot < 0 ? picture : picture.substring(0, dot)) + "_" + variant + ".jpg";
+    }
+
+    /**
+     * Decodes a picture and encodes its small and medium variants. Image readers
+     * throw unchecked exceptions on some malformed files, so those count as an
+     * unreadable picture too.
+     *
+     * @return the encoded small and medium variants, or {@code null} if the picture is unusable
+     */
+    private byte[][] render(Long postId, byte[] original) {
+        try {
+            BufferedImage image = decode(original);
+            if (image == null) {
+                return null;
+            }
+            return new byte[][]{encode(resize(image, smallWidth)), encode(resize(image, mediumWidth))};
+        } catch (IOException | RuntimeException e) {
+            logger.debug("The picture of post {} could not be decoded", postId, e);
+            return null;
+        }
+    }
+
+    private void writeVariant(String picture, String variant, byte[] jpeg) {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(variantKey(picture, variant))
+                        .contentType("image/jpeg")
+                        .cacheControl("public, max-age=31536000, immutable")
+                        .build(),
+                RequestBody.fromBytes(jpeg));
+        variantsWritten.increment();
+    }
+
+    /**
+     * Decodes an image, refusing images whose dimensions would not fit in memory.
+     *
+     * @return the image, or {@code null} if no reader understands it or it is too large
+     */
+    private static BufferedImage decode(byte[] bytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image down to at most the given width, keeping its aspect ratio, onto
+     * an opaque white background since JPEG has no transparency.
+     */
+    private static BufferedImage resize(BufferedImage image, int maxWidth) {
+        int width = Math.min(maxWidth, image.getWidth());
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    public long getUploadUrlCount() {
+        return uploadUrls.sum();
+    }
+
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+
+    public long getVariantsWrittenCount() {
+        return variantsWritten.sum();
+    }
+
+    public long getUnusableCount() {
+        return unusable.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    public int getQueuedCount() {
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+}
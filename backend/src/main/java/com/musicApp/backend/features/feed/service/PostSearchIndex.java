@@ -0,0 +1,432 @@
+/**
+ * Class Name: PostSearchIndex
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.model.FeedChange;
+import com.musicApp.backend.features.feed.repository.PostRepository;
+import com.musicApp.backend.features.feed.utils.PostingList;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class keeps an inverted index over the content of every post, so posts can
+ * be found by word, {@code #hashtag} and {@code @mention} without scanning the
+ * "posts" table. Each term maps to a compressed {@link PostingList} of the ids of
+ * the posts containing it; results are the highest ids first, which is newest
+ * first. <br>
+ *
+ * Terms are lowercased. A hashtag or mention is indexed with its prefix, and its
+ * words are also indexed as plain words, so a search for "jazz" finds "#jazz".
+ * Words are matched whole. A post contributes at most
+ * {@code feed.search.max-terms-per-post} distinct terms. <br>
+ *
+ * The index is loaded from the table at startup and kept current by
+ * {@link FeedService} when posts are created, edited and deleted; changes made
+ * inside a transaction are applied after it commits. Posts changed on other
+ * instances or deleted by SQL, such as by account deletion, are picked up from the
+ * {@link FeedChangeLog} every {@code feed.search.sync-millis}: each post changed
+ * since the last sync is indexed again from the table, or removed if it is gone.
+ * Should the index fall further behind than the log is kept, it is reloaded. <br>
+ *
+ * Each distinct term is one {@link Term} shared by every post that has it, so a
+ * post's entry only holds references to its terms, not copies of them.
+ */
+@Component
+public class PostSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private static final Pattern TERM = Pattern.compile(
+            "(?<![\\p{L}\\p{N}_@#])(?:([#@])([\\p{L}\\p{N}_](?:[\\p{L}\\p{N}_.\\-]*[\\p{L}\\p{N}_])?)|([\\p{L}\\p{N}_]+))");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}_]+");
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int LOAD_BATCH = 1000;
+
+    private final PostRepository postRepository;
+    private final FeedChangeLog feedChangeLog;
+    private final int maxTermsPerPost;
+
+    private final Map<String, Term> postings = new HashMap<>();
+    private final Map<Long, Term[]> termsByPost = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long syncToken;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder synced = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    /**
+     * A distinct term and the ids of the posts containing it.
+     */
+    private static final class Term {
+        private final String text;
+        private final PostingList postIds = new PostingList();
+
+        private Term(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Creates a PostSearchIndex.
+     *
+     * @param postRepository the repository the index is loaded from
+     * @param feedChangeLog the log of changes the index is kept in sync with
+     * @param maxTermsPerPost the maximum number of distinct terms indexed per post
+     */
+    public PostSearchIndex(PostRepository postRepository, FeedChangeLog feedChangeLog,
+                           @Value("${feed.search.max-terms-per-post:256}") int maxTermsPerPost) {
+        this.postRepository = postRepository;
+        this.feedChangeLog = feedChangeLog;
+        this.maxTermsPerPost = Math.max(1, maxTermsPerPost);
+    }
+
+    /**
+     * Loads every post from the database, in id order, so each posting list is
+     * only appended to. The change log's position is taken first, so a change made
+     * while loading is applied again by the next sync.
+     */
+    @PostConstruct
+    public void load() {
+        syncToken = feedChangeLog.read(null).token();
+        long afterId = 0;
+        int loaded = 0;
+        List<Object[]> batch;
+        do {
+            batch = postRepository.findContentAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+            for (Object[] row : batch) {
+                afterId = ((Number) row[0]).longValue();
+                index(afterId, (String) row[1]);
+                loaded++;
+            }
+        } while (batch.size() == LOAD_BATCH);
+        logger.debug("Loaded search index with {} posts and {} terms", loaded, getTermCount());
+    }
+
+    /**
+     * Indexes a new post.
+     *
+     * @param postId the id of the post
+     * @param content the post's content
+     */
+    public void add(Long postId, String content) {
+        whenCommitted(() -> index(postId, content));
+    }
+
+    /**
+     * Re-indexes an edited post.
+     *
+     * @param postId the id of the post
+     * @param content the post's new content
+     */
+    public void update(Long postId, String content) {
+        whenCommitted(() -> index(postId, content));
+    }
+
+    /**
+     * Removes a deleted post.
+     *
+     * @param postId the id of the post
+     */
+    public void remove(Long postId) {
+        whenCommitted(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(postId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Applies the post changes recorded in the {@link FeedChangeLog} since the last
+     * sync, including those made on other instances and by SQL. Changes this
+     * instance already applied are indexed again, which changes nothing.
+     */
+    @Scheduled(fixedDelayString = "${feed.search.sync-millis:5000}")
+    public void sync() {
+        FeedChangeLog.Batch batch;
+        do {
+            batch = feedChangeLog.read(syncToken);
+            if (batch.reset()) {
+                logger.warn("Search index fell behind the feed change log; reloading it");
+                reloads.increment();
+                clear();
+                load();
+                return;
+            }
+            Set<Long> postIds = new LinkedHashSet<>();
+            for (FeedChange change : batch.changes()) {
+                if (change.getType() == FeedChange.Type.POST_SAVED || change.getType() == FeedChange.Type.POST_DELETED) {
+                    postIds.add(change.getPostId());
+                }
+            }
+            if (!postIds.isEmpty()) {
+                Set<Long> gone = new HashSet<>(postIds);
+                for (Object[] row : postRepository.findContentByIds(postIds)) {
+                    Long postId = ((Number) row[0]).longValue();
+                    gone.remove(postId);
+                    index(postId, (String) row[1]);
+                }
+                lock.writeLock().lock();
+                try {
+                    gone.forEach(this::unindex);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                synced.add(postIds.size());
+            }
+            syncToken = batch.token();
+        } while (batch.hasMore());
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByPost.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the newest posts with a hashtag.
+     *
+     * @param tag the hashtag, with or without its "#"
+     * @param beforeId only posts with a lower id, or {@code null} for the newest posts
+     * @param limit the maximum number of post ids
+     * @return the post ids, newest first
+     */
+    public List<Long> findByHashtag(String tag, Long beforeId, int limit) {
+        return find(List.of("#" + normalize(strip(tag, '#'))), beforeId, limit);
+    }
+
+    /**
+     * Returns the newest posts mentioning a username.
+     *
+     * @param username the username, with or without its "@"
+     * @param beforeId only posts with a lower id, or {@code null} for the newest posts
+     * @param limit the maximum number of post ids
+     * @return the post ids, newest first
+     */
+    public List<Long> findByMention(String username, Long beforeId, int limit) {
+        return find(List.of("@" + normalize(strip(username, '@'))), beforeId, limit);
+    }
+
+    /**
+     * Returns the newest posts containing every term of a query. The query is split
+     * into terms the same way post content is.
+     *
+     * @param query the search text
+     * @param beforeId only posts with a lower id, or {@code null} for the newest posts
+     * @param limit the maximum number of post ids
+     * @return the post ids, newest first; empty if the query has no terms
+     */
+    public List<Long> search(String query, Long beforeId, int limit) {
+        return find(new ArrayList<>(terms(query)), beforeId, limit);
+    }
+
+    private List<Long> find(List<String> terms, Long beforeId, int limit) {
+        queries.increment();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        long[] ids;
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>(terms.size());
+            for (String text : terms) {
+                Term term = postings.get(text);
+                if (term == null) {
+                    return List.of();
+                }
+                lists.add(term.postIds);
+            }
+            ids = PostingList.intersectNewestBefore(lists, beforeId == null ? Long.MAX_VALUE : beforeId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Indexes a post under its terms. For a post already indexed only the terms
+     * that were dropped or added are changed, so indexing an unchanged post again
+     * changes nothing.
+     */
+    private void index(Long postId, String content) {
+        Set<String> texts = terms(content);
+        lock.writeLock().lock();
+        try {
+            Term[] previous = termsByPost.get(postId);
+            Set<String> kept = new HashSet<>();
+            if (previous != null) {
+                for (Term term : previous) {
+                    if (texts.contains(term.text)) {
+                        kept.add(term.text);
+                    } else {
+                        removeFrom(term, postId);
+                    }
+                }
+            }
+            Term[] current = new Term[texts.size()];
+            int count = 0;
+            for (String text : texts) {
+                Term term = postings.computeIfAbsent(text, Term::new);
+                if (!kept.contains(text)) {
+                    term.postIds.add(postId);
+                }
+                current[count++] = term;
+            }
+            termsByPost.put(postId, current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Long postId) {
+        Term[] terms = termsByPost.remove(postId);
+        if (terms == null) {
+            return;
+        }
+        for (Term term : terms) {
+            removeFrom(term, postId);
+        }
+    }
+
+    private void removeFrom(Term term, Long postId) {
+        if (term.postIds.remove(postId) && term.postIds.isEmpty()) {
+            postings.remove(term.text);
+        }
+    }
+
+    /**
+     * Splits text into its distinct terms, in order of first appearance.
+     */
+    private Set<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        Matcher matcher = TERM.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find() && terms.size() < maxTermsPerPost) {
+            if (matcher.group(1) != null) {
+                addTerm(terms, matcher.group(1) + matcher.group(2));
+                for (String word : WORD_SEPARATOR.split(matcher.group(2))) {
+                    addTerm(terms, word);
+                }
+            } else {
+                addTerm(terms, matcher.group(3));
+            }
+        }
+        return terms;
+    }
+
+    private void addTerm(Set<String> terms, String term) {
+        if (!term.isEmpty() && term.length() <= MAX_TERM_LENGTH && terms.size() < maxTermsPerPost) {
+            terms.add(term);
+        }
+    }
+
+    private static String strip(String value, char prefix) {
+        if (value == null) {
+            return "";
+        }
+        String trimmed = value.trim();
+        return !trimmed.isEmpty() && trimmed.charAt(0) == prefix ? trimmed.substring(1) : trimmed;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static void whenCommitted(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    public int getPostCount() {
+        lock.readLock().lock();
+        try {
+            return termsByPost.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes all posting lists take up.
+     *
+     * @return the encoded size of the postings
+     */
+    public long getPostingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Term term : postings.values()) {
+                bytes += term.postIds.byteSize();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    public long getSyncedCount() {
+        return synced.sum();
+    }
+
+    public long getReloadCount() {
+        return reloads.sum();
+    }
+}
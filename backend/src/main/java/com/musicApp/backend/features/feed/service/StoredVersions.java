@@ -0,0 +1,249 @@
+/**
+ * Class Name: StoredVersions
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.dto.FeedCursor;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class reads the versions that conditional GETs of feeds, posts and profiles
+ * are tagged with from the database, so a change made on any instance changes the
+ * tag on every instance. The "posts" and "users" rows carry a {@code changed_at}
+ * column that the database sets whenever a row is inserted or changed. <br>
+ *
+ * A version only covers the rows a response is built from: a post's row, its
+ * author's row and the rows of the users who commented on it. They are read before
+ * the response is built, so any change committed after that, on any instance, gives
+ * a different version. A feed page's version is read from the same range of posts
+ * the page is read from, so a post created, deleted or moved into the range changes
+ * the posts listed. Changes elsewhere on the site leave the version alone. <br>
+ *
+ * Writes that change what a response shows without changing a tracked row go
+ * through {@link #postsChanged(Collection)} and {@link #usersChanged(Collection)}.
+ * View counts are written without moving {@code changed_at}, so views do not
+ * retag feeds; the post and profile versions include them instead.
+ */
+@Component
+public class StoredVersions {
+
+    private static final String POST_ROWS = "SELECT p.id, p.changed_at, GREATEST(a.changed_at, " +
+            "COALESCE((SELECT MAX(u.changed_at) FROM comments c JOIN users u ON u.id = c.author_id " +
+            "WHERE c.post_id = p.id), a.changed_at)), " +
+            "EXISTS (SELECT 1 FROM posts_likes l WHERE l.post_id = p.id AND l.user_id = ?), p.view_count " +
+            "FROM posts p JOIN users a ON a.id = p.author_id ";
+    private static final String BY_AUTHOR = "p.author_id = ? ";
+    private static final String AFTER_CURSOR = "p.creation_date <= ? AND (p.creation_date < ? OR p.id < ?) ";
+    private static final String NEWEST_FIRST = "ORDER BY p.creation_date DESC, p.id DESC LIMIT ?";
+    private static final String BY_IDS = POST_ROWS + "WHERE p.id IN (%s)";
+    private static final String USER = "SELECT changed_at, profile_view_count FROM users WHERE id = ?";
+    private static final String TOUCH_POSTS = "UPDATE posts SET changed_at = CURRENT_TIMESTAMP(6) WHERE id IN (%s)";
+    private static final String TOUCH_USERS = "UPDATE users SET changed_at = CURRENT_TIMESTAMP(6) WHERE id IN (%s)";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final LongAdder reads = new LongAdder();
+
+    /**
+     * A post's stored version.
+     *
+     * @param postId the id of the post
+     * @param changedAt when the post row last changed
+     * @param usersChangedAt when the post's author or one of its commenters last changed
+     * @param liked whether the viewer likes the post
+     * @param views the stored count of distinct viewers
+     */
+    public record PostVersion(Long postId, LocalDateTime changedAt, LocalDateTime usersChangedAt,
+                              boolean liked, long views) {
+
+        /**
+         * Returns the version as an ETag part. Feeds do not show view counts, so
+         * they are left out.
+         *
+         * @return the version
+         */
+        public String tag() {
+            return postId + "." + changedAt + "." + usersChangedAt + "." + (liked ? 1 : 0);
+        }
+    }
+
+    /**
+     * A user's stored version.
+     *
+     * @param changedAt when the user row last changed
+     * @param profileViews the stored count of distinct profile viewers
+     */
+    public record UserVersion(LocalDateTime changedAt, long profileViews) {
+
+        /**
+         * Returns the version as an ETag part.
+         *
+         * @return the version
+         */
+        public String tag() {
+            return changedAt + "." + profileViews;
+        }
+    }
+
+    /**
+     * Creates a StoredVersions.
+     *
+     * @param jdbcTemplate the template used to read and touch the versions
+     */
+    public StoredVersions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns the versions of the posts of a feed page, read from the same range of
+     * posts, newest first, that the page is read from.
+     *
+     * @param authorId the id of the user whose posts the page lists, or {@code null} for all posts
+     * @param after the cursor the page starts after, or {@code null} for the first page
+     * @param count the number of posts the page reads
+     * @param viewerId the id of the user viewing the page, or {@code null}
+     * @return the versions, newest post first
+     */
+    public List<PostVersion> getPageVersions(Long authorId, FeedCursor after, int count, Long viewerId) {
+        reads.increment();
+        StringBuilder sql = new StringBuilder(POST_ROWS);
+        List<Object> args = new ArrayList<>();
+        args.add(viewerId);
+        if (authorId != null) {
+            sql.append("WHERE ").append(BY_AUTHOR);
+            args.add(authorId);
+        }
+        if (after != null) {
+            sql.append(authorId == null ? "WHERE " : "AND ").append(AFTER_CURSOR);
+            args.add(after.creationDate());
+            args.add(after.creationDate());
+            args.add(after.id());
+        }
+        sql.append(NEWEST_FIRST);
+        args.add(count);
+        return jdbcTemplate.query(sql.toString(), (rs, row) -> toPostVersion(rs), args.toArray());
+    }
+
+    /**
+     * Returns the versions of the given posts. Posts that do not exist have none.
+     *
+     * @param postIds the ids of the posts
+     * @param viewerId the id of the user viewing the posts, or {@code null}
+     * @return the versions, in no particular order
+     */
+    public List<PostVersion> getPostVersions(Collection<Long> postIds, Long viewerId) {
+        if (postIds.isEmpty()) {
+            return List.of();
+        }
+        reads.increment();
+        List<Object> args = new ArrayList<>(postIds.size() + 1);
+        args.add(viewerId);
+        args.addAll(postIds);
+        return jdbcTemplate.query(String.format(BY_IDS, String.join(",", Collections.nCopies(postIds.size(), "?"))),
+                (rs, row) -> toPostVersion(rs), args.toArray());
+    }
+
+    /**
+     * Returns the version of a post and its comments: the post row, its view count,
+     * its author's and commenters' rows and whether the viewer likes it.
+     *
+     * @param postId the id of the post
+     * @param viewerId the id of the user viewing the post, or {@code null} if the response does not show the viewer's like
+     * @return the version, or {@code null} if the post does not exist
+     */
+    public String getPostVersion(Long postId, Long viewerId) {
+        List<PostVersion> versions = getPostVersions(List.of(postId), viewerId);
+        if (versions.isEmpty()) {
+            return null;
+        }
+        PostVersion version = versions.get(0);
+        return version.tag() + "." + version.views();
+    }
+
+    /**
+     * Returns the version of a user's own row.
+     *
+     * @param userId the id of the user
+     * @return the version, or {@code null} if the user does not exist
+     */
+    public UserVersion getUserVersion(Long userId) {
+        reads.increment();
+        List<UserVersion> versions = jdbcTemplate.query(USER,
+                (rs, row) -> new UserVersion(rs.getObject(1, LocalDateTime.class), rs.getLong(2)), userId);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    private static PostVersion toPostVersion(ResultSet rs) throws SQLException {
+        return new PostVersion(rs.getLong(1), rs.getObject(2, LocalDateTime.class),
+                rs.getObject(3, LocalDateTime.class), rs.getBoolean(4), rs.getLong(5));
+    }
+
+    /**
+     * Returns a short digest of a version made of many parts, such as a feed page's,
+     * so the ETag stays the same length whatever the page size.
+     *
+     * @param version the version
+     * @return the first 128 bits of its SHA-256 digest, URL-safe Base64 encoded
+     */
+    public static String digest(CharSequence version) {
+        byte[] hash = SHA_256.get().digest(version.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+    }
+
+    /**
+     * Moves the version of posts whose responses changed without a change to their
+     * rows, such as an edited comment. Inside a transaction, this commits with it.
+     *
+     * @param postIds the ids of the posts
+     */
+    public void postsChanged(Collection<Long> postIds) {
+        touch(TOUCH_POSTS, postIds);
+    }
+
+    /**
+     * Moves the version of users whose feeds changed without a change to their rows,
+     * such as a new or removed friend. Inside a transaction, this commits with it.
+     *
+     * @param userIds the ids of the users
+     */
+    public void usersChanged(Collection<Long> userIds) {
+        touch(TOUCH_USERS, userIds);
+    }
+
+    private void touch(String sql, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(String.format(sql, String.join(",", Collections.nCopies(ids.size(), "?"))), ids.toArray());
+    }
+
+    public long getReadCount() {
+        return reads.sum();
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * Class Name: TimelineService
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.dto.FeedCursor;
+import com.musicApp.backend.features.feed.model.TimelineEntry;
+import com.musicApp.backend.features.feed.repository.TimelineEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This service keeps a materialized home timeline for every user: the ids of the
+ * newest posts written by the user's accepted friends. Posts are pushed to the
+ * friends' timelines when they are created (fan-out on write), so reading a
+ * timeline no longer has to search the posts of every friend. <br>
+ *
+ * Timelines are stored in the "timeline_entries" table and, for recently active
+ * users, in a bounded in-memory {@link HomeTimeline}. A user's buffer is loaded
+ * with one range read the first time the timeline is read, and is kept current by
+ * later pushes. Pushes and removals made on other instances only reach the table,
+ * so a buffer older than {@code feed.timeline.refresh-millis} is loaded from the
+ * table again on its next read. Each timeline holds at most {@code feed.timeline.capacity} posts;
+ * the table is trimmed to the same size in the background. <br>
+ *
+ * Timelines are repaired when posts are deleted and when friendships are accepted
+ * or removed. A timeline with no entries at all is rebuilt from the user's
+ * friendships the first time it is read.
+ */
+@Service
+public class TimelineService {
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    private static final String INSERT_ENTRY =
+            "INSERT IGNORE INTO timeline_entries (user_id, post_id, post_creation_date) VALUES (?, ?, ?)";
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final FeedVersions feedVersions;
+    private final StoredVersions storedVersions;
+    private final int capacity;
+    private final int maxCachedUsers;
+    private final long refreshNanos;
+
+    private final Map<Long, HomeTimeline> timelines = new ConcurrentHashMap<>();
+    private final Set<Long> untrimmed = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder fanOuts = new LongAdder();
+    private final LongAdder entriesWritten = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder repairs = new LongAdder();
+    private final LongAdder entriesTrimmed = new LongAdder();
+
+    /**
+     * Creates a TimelineService.
+     *
+     * @param timelineEntryRepository the repository timelines are stored in
+     * @param jdbcTemplate the template used to write a fan-out as one batch
+     * @param feedVersions the versions advanced when a timeline is repaired
+     * @param storedVersions the stored versions moved when friends are connected or disconnected
+     * @param capacity the maximum number of posts on one timeline
+     * @param maxCachedUsers the maximum number of timelines kept in memory
+     * @param refreshMillis how long an in-memory timeline is read before it is loaded from the table again
+     */
+    public TimelineService(TimelineEntryRepository timelineEntryRepository,
+                           JdbcTemplate jdbcTemplate,
+                           FeedVersions feedVersions,
+                           StoredVersions storedVersions,
+                           @Value("${feed.timeline.capacity:200}") int capacity,
+                           @Value("${feed.timeline.max-cached-users:5000}") int maxCachedUsers,
+                           @Value("${feed.timeline.refresh-millis:30000}") long refreshMillis) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.feedVersions = feedVersions;
+        this.storedVersions = storedVersions;
+        this.capacity = Math.max(1, capacity);
+        this.maxCachedUsers = Math.max(1, maxCachedUsers);
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+    }
+
+    /**
+     * Pushes a new post onto the timelines of the given users.
+     *
+     * @param postId the id of the new post
+     * @param creationDate the creation date of the new post
+     * @param userIds the ids of the users whose timelines receive the post, usually the author's friends
+     */
+    public void fanOut(Long postId, LocalDateTime creationDate, Collection<Long> userIds) {
+        if (postId == null || creationDate == null || userIds.isEmpty()) {
+            return;
+        }
+        // The column keeps microseconds; the in-memory copy must order the same way
+        LocalDateTime stored = creationDate.truncatedTo(ChronoUnit.MICROS);
+        List<Object[]> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(new Object[]{userId, postId, Timestamp.valueOf(stored)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, rows);
+
+        for (Long userId : userIds) {
+            HomeTimeline timeline = timelines.get(userId);
+            if (timeline != null) {
+                timeline.add(postId, stored);
+            }
+        }
+        untrimmed.addAll(userIds);
+        fanOuts.increment();
+        entriesWritten.add(userIds.size());
+    }
+
+    /**
+     * Removes a deleted post from every timeline.
+     *
+     * @param postId the id of the deleted post
+     * @param userIds the ids of the users whose in-memory timelines may hold the post
+     */
+    public void removePost(Long postId, Collection<Long> userIds) {
+        timelineEntryRepository.deleteByPostId(postId);
+        for (Long userId : userIds) {
+            HomeTimeline timeline = timelines.get(userId);
+            if (timeline != null) {
+                timeline.remove(postId);
+            }
+        }
+        repairs.increment();
+    }
+
+    /**
+     * Copies each user's newest posts onto the other's timeline, after the two
+     * became friends.
+     *
+     * @param userId the id of one friend
+     * @param friendId the id of the other friend
+     */
+    public void connect(Long userId, Long friendId) {
+        timelineEntryRepository.copyPostsOf(userId, friendId, capacity);
+        timelineEntryRepository.copyPostsOf(friendId, userId, capacity);
+        evict(userId, friendId);
+        untrimmed.add(userId);
+        untrimmed.add(friendId);
+        storedVersions.usersChanged(List.of(userId, friendId));
+        feedVersions.feedChanged();
+        repairs.increment();
+    }
+
+    /**
+     * Removes each user's posts from the other's timeline, after the two stopped
+     * being friends.
+     *
+     * @param userId the id of one former friend
+     * @param friendId the id of the other former friend
+     */
+    public void disconnect(Long userId, Long friendId) {
+        timelineEntryRepository.deletePostsOf(userId, friendId);
+        timelineEntryRepository.deletePostsOf(friendId, userId);
+        evict(userId, friendId);
+        storedVersions.usersChanged(List.of(userId, friendId));
+        feedVersions.feedChanged();
+        repairs.increment();
+    }
+
+    /**
+     * Returns posts of a user's timeline, newest first.
+     *
+     * @param userId the id of the timeline's owner
+     * @param after the position to start after, or {@code null} to start at the newest post
+     * @param count the maximum number of posts returned
+     * @return a {@link List} of post positions
+     */
+    public List<FeedCursor> read(Long userId, FeedCursor after, int count) {
+        reads.increment();
+        return load(userId).read(after, count);
+    }
+
+    private HomeTimeline load(Long userId) {
+        HomeTimeline timeline = timelines.get(userId);
+        if (timeline == null) {
+            if (timelines.size() >= maxCachedUsers) {
+                shrink();
+            }
+            timeline = timelines.computeIfAbsent(userId, id -> new HomeTimeline(capacity));
+        }
+        long now = System.nanoTime();
+        if (timeline.isFresh(now, refreshNanos)) {
+            return timeline;
+        }
+        synchronized (timeline) {
+            if (timeline.isFresh(now, refreshNanos)) {
+                return timeline;
+            }
+            List<TimelineEntry> entries = timelineEntryRepository.findNewest(userId, PageRequest.of(0, capacity));
+            if (entries.isEmpty() && timelineEntryRepository.rebuild(userId, capacity) > 0) {
+                rebuilds.increment();
+                entries = timelineEntryRepository.findNewest(userId, PageRequest.of(0, capacity));
+            }
+            // Pushes may reach the buffer before its first load, which merges with them;
+            // a reload replaces the buffer, so posts removed on other instances go too
+            if (timeline.isLoaded()) {
+                timeline.clear();
+                refreshes.increment();
+            }
+            entries.forEach(entry -> timeline.add(entry.getPostId(), entry.getPostCreationDate()));
+            timeline.markLoaded(now);
+            loads.increment();
+        }
+        return timeline;
+    }
+
+    private void evict(Long... userIds) {
+        for (Long userId : userIds) {
+            timelines.remove(userId);
+        }
+    }
+
+    /**
+     * Drops timelines in iteration order until a tenth of the capacity is free again;
+     * they are loaded from the table again when next read.
+     */
+    private void shrink() {
+        int target = maxCachedUsers - Math.max(1, maxCachedUsers / 10);
+        Iterator<HomeTimeline> iterator = timelines.values().iterator();
+        while (timelines.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Cuts the timelines that received posts since the last run back to their
+     * capacity.
+     */
+    @Scheduled(fixedDelayString = "${feed.timeline.trim-millis:600000}")
+    public void trim() {
+        Iterator<Long> iterator = untrimmed.iterator();
+        while (iterator.hasNext()) {
+            Long userId = iterator.next();
+            iterator.remove();
+            try {
+                entriesTrimmed.add(timelineEntryRepository.trim(userId, capacity));
+            } catch (RuntimeException e) {
+                untrimmed.add(userId);
+                logger.warn("Trimming the timeline of user {} failed; will retry", userId, e);
+                return;
+            }
+        }
+    }
+
+    public long getFanOutCount() {
+        return fanOuts.sum();
+    }
+
+    public long getEntriesWrittenCount() {
+        return entriesWritten.sum();
+    }
+
+    public long getReadCount() {
+        return reads.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    public long getRebuildCount() {
+        return rebuilds.sum();
+    }
+
+    public long getRepairCount() {
+        return repairs.sum();
+    }
+
+    public long getEntriesTrimmedCount() {
+        return entriesTrimmed.sum();
+    }
+
+    public int getCachedTimelineCount() {
+        return timelines.size();
+    }
+}
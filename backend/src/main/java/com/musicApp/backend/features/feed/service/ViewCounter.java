@@ -0,0 +1,238 @@
+/**
+ * Class Name: ViewCounter
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.service;
+
+import com.musicApp.backend.features.feed.utils.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class counts the distinct users who viewed each post and each profile.
+ * Every post and user row stores a {@link HyperLogLog} sketch of its viewers in a
+ * binary column and the count estimated from it, so the count stays within about
+ * 2% and a sketch never takes more than about 2 KB, however many users view it. <br>
+ *
+ * A view only adds the viewer to an in-memory sketch for the post or profile.
+ * Every {@code feed.views.flush-millis} the sketches are merged into the stored
+ * ones and written back in one batch, so a popular post costs one UPDATE per
+ * flush instead of one per view; counts include a view from the next flush on. As
+ * in {@link LikeCounter}, a flush swaps in an empty map under a write lock so no
+ * view is lost, keeps the sketches of a failed write for the next flush, and runs
+ * on shutdown. The stored sketches are read with {@code FOR UPDATE}, in id order,
+ * so when several instances flush at once each merges into the sketch the other
+ * wrote instead of overwriting it.
+ */
+@Component
+public class ViewCounter {
+    private static final Logger logger = LoggerFactory.getLogger(ViewCounter.class);
+
+    /**
+     * 2048 registers, a standard error of 2.3%. Stored sketches are only merged with
+     * sketches of the same precision, so changing it means clearing the columns.
+     */
+    static final int PRECISION = 11;
+    private static final int READ_BATCH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Target posts = new Target("posts", "view_sketch", "view_count");
+    private final Target profiles = new Target("users", "profile_view_sketch", "profile_view_count");
+
+    private final LongAdder views = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rowsFlushed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * The table a kind of view is stored in, and the sketches not written yet.
+     */
+    private static final class Target {
+        private final String table;
+        private final String readSketches;
+        private final String writeSketch;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile Map<Long, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+        private Target(String table, String sketchColumn, String countColumn) {
+            this.table = table;
+            this.readSketches = "SELECT id, " + sketchColumn + " FROM " + table + " WHERE id IN (%s) ORDER BY id FOR UPDATE";
+            // Keeps changed_at, so views do not move StoredVersions' table versions
+            this.writeSketch = "UPDATE " + table + " SET " + sketchColumn + " = ?, " + countColumn + " = ?, " +
+                    "changed_at = changed_at WHERE id = ?";
+        }
+    }
+
+    /**
+     * Creates a ViewCounter.
+     *
+     * @param jdbcTemplate the template used to read and write the sketches
+     * @param transactionManager the transaction manager a flush runs in
+     */
+    public ViewCounter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Records that a user viewed a post.
+     *
+     * @param postId the id of the post
+     * @param viewerId the id of the viewer
+     */
+    public void postViewed(Long postId, Long viewerId) {
+        record(posts, postId, viewerId);
+    }
+
+    /**
+     * Records that a user viewed another user's profile.
+     *
+     * @param userId the id of the user whose profile was viewed
+     * @param viewerId the id of the viewer
+     */
+    public void profileViewed(Long userId, Long viewerId) {
+        record(profiles, userId, viewerId);
+    }
+
+    private void record(Target target, Long id, Long viewerId) {
+        target.lock.readLock().lock();
+        try {
+            HyperLogLog sketch = target.pending.computeIfAbsent(id, key -> new HyperLogLog(PRECISION));
+            synchronized (sketch) {
+                sketch.add(viewerId);
+            }
+        } finally {
+            target.lock.readLock().unlock();
+        }
+        views.increment();
+    }
+
+    /**
+     * Merges the pending sketches into the stored ones and writes them, with their
+     * new counts, in one transaction per table. If a write fails its sketches are
+     * kept and written by the next flush.
+     */
+    @Scheduled(fixedDelayString = "${feed.views.flush-millis:10000}")
+    @PreDestroy
+    public void flush() {
+        flush(posts);
+        flush(profiles);
+    }
+
+    private void flush(Target target) {
+        Map<Long, HyperLogLog> drained;
+        target.lock.writeLock().lock();
+        try {
+            if (target.pending.isEmpty()) {
+                return;
+            }
+            drained = target.pending;
+            target.pending = new ConcurrentHashMap<>();
+        } finally {
+            target.lock.writeLock().unlock();
+        }
+
+        try {
+            Integer written = transactionTemplate.execute(status -> {
+                List<Object[]> rows = new ArrayList<>(drained.size());
+                for (Map.Entry<Long, byte[]> stored : readSketches(target, drained.keySet()).entrySet()) {
+                    HyperLogLog sketch = decode(target, stored.getKey(), stored.getValue());
+                    sketch.merge(drained.get(stored.getKey()));
+                    rows.add(new Object[]{sketch.toBytes(), sketch.estimate(), stored.getKey()});
+                }
+                jdbcTemplate.batchUpdate(target.writeSketch, rows);
+                return rows.size();
+            });
+            flushes.increment();
+            rowsFlushed.add(written == null ? 0 : written);
+        } catch (RuntimeException e) {
+            failures.increment();
+            drained.forEach((id, sketch) -> {
+                target.lock.readLock().lock();
+                try {
+                    HyperLogLog pending = target.pending.computeIfAbsent(id, key -> new HyperLogLog(PRECISION));
+                    synchronized (pending) {
+                        pending.merge(sketch);
+                    }
+                } finally {
+                    target.lock.readLock().unlock();
+                }
+            });
+            logger.warn("Writing {} view sketches to {} failed; will retry", drained.size(), target.table, e);
+        }
+    }
+
+    /**
+     * Reads and locks the stored sketches of the rows that still exist; a row
+     * without a sketch maps to an empty array. Must run in the flush's transaction.
+     */
+    private Map<Long, byte[]> readSketches(Target target, Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        Collections.sort(all);
+        Map<Long, byte[]> sketches = new HashMap<>();
+        for (int from = 0; from < all.size(); from += READ_BATCH) {
+            List<Long> batch = all.subList(from, Math.min(all.size(), from + READ_BATCH));
+            String sql = String.format(target.readSketches, String.join(",", Collections.nCopies(batch.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                byte[] bytes = rs.getBytes(2);
+                sketches.put(rs.getLong(1), bytes == null ? new byte[0] : bytes);
+            }, batch.toArray());
+        }
+        return sketches;
+    }
+
+    private static HyperLogLog decode(Target target, Long id, byte[] bytes) {
+        if (bytes.length == 0) {
+            return new HyperLogLog(PRECISION);
+        }
+        try {
+            HyperLogLog sketch = HyperLogLog.fromBytes(bytes);
+            if (sketch.getPrecision() == PRECISION) {
+                return sketch;
+            }
+        } catch (IllegalArgumentException e) {
+            // Falls through to start over
+        }
+        logger.warn("Replacing the unreadable view sketch of {} {}", target.table, id);
+        return new HyperLogLog(PRECISION);
+    }
+
+    public long getViewCount() {
+        return views.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    public long getRowsFlushedCount() {
+        return rowsFlushed.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public int getPendingCount() {
+        return posts.pending.size() + profiles.pending.size();
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Class Name: HyperLogLog
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.utils;
+
+import java.util.Arrays;
+
+/**
+ * An approximate count of distinct values in a fixed amount of memory. Each value
+ * is hashed to 64 bits; the first {@code precision} bits pick one of
+ * {@code 2^precision} registers, and the register keeps the longest run of leading
+ * zeros seen in the rest. The count is estimated from the registers, with a
+ * standard error of about {@code 1.04 / sqrt(2^precision)}, however many values
+ * are added. <br>
+ *
+ * Two sketches with the same precision merge by taking the larger of each pair of
+ * registers, which gives the sketch of both sets of values. {@link #toBytes()}
+ * writes only the registers in use while few are, so sketches of small audiences
+ * stay small. The class is not thread-safe.
+ */
+public final class HyperLogLog {
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final byte SPARSE = 1;
+    private static final byte DENSE = 2;
+    private static final int HEADER_BYTES = 2;
+    private static final int SPARSE_ENTRY_BYTES = 3;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param precision the number of index bits, from {@link #MIN_PRECISION} to {@link #MAX_PRECISION}
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Returns the largest number of bytes {@link #toBytes()} writes for a precision.
+     *
+     * @param precision the number of index bits
+     * @return the size of a dense sketch
+     */
+    public static int maxBytes(int precision) {
+        return HEADER_BYTES + (1 << precision);
+    }
+
+    /**
+     * Adds a value, such as a user id.
+     *
+     * @param value the value
+     * @return {@code true} if the sketch changed
+     */
+    public boolean add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank <= registers[index]) {
+            return false;
+        }
+        registers[index] = (byte) rank;
+        return true;
+    }
+
+    /**
+     * Adds every value counted by another sketch.
+     *
+     * @param other a sketch with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Sketches with different precisions cannot be merged");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated number of distinct values added.
+     *
+     * @return the estimate
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        // Below about 2.5m most registers are still empty and linear counting is closer
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the sketch. The first byte is the precision and the second the
+     * format: sparse sketches list each register in use as a two-byte index and a
+     * one-byte value, dense ones write every register.
+     *
+     * @return the encoded sketch, at most {@link #maxBytes(int)} long
+     */
+    public byte[] toBytes() {
+        int used = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                used++;
+            }
+        }
+        if (used * SPARSE_ENTRY_BYTES >= registers.length) {
+            byte[] bytes = new byte[HEADER_BYTES + registers.length];
+            bytes[0] = (byte) precision;
+            bytes[1] = DENSE;
+            System.arraycopy(registers, 0, bytes, HEADER_BYTES, registers.length);
+            return bytes;
+        }
+        byte[] bytes = new byte[HEADER_BYTES + used * SPARSE_ENTRY_BYTES];
+        bytes[0] = (byte) precision;
+        bytes[1] = SPARSE;
+        int position = HEADER_BYTES;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != 0) {
+                bytes[position++] = (byte) (i >>> 8);
+                bytes[position++] = (byte) i;
+                bytes[position++] = registers[i];
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Decodes a sketch written by {@link #toBytes()}.
+     *
+     * @param bytes the encoded sketch
+     * @return the sketch
+     * @throws IllegalArgumentException if the bytes are not a valid sketch
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_BYTES) {
+            throw new IllegalArgumentException("Sketch is too short");
+        }
+        HyperLogLog sketch = new HyperLogLog(bytes[0]);
+        int maxRank = 64 - sketch.precision + 1;
+        if (bytes[1] == DENSE) {
+            if (bytes.length != HEADER_BYTES + sketch.registers.length) {
+                throw new IllegalArgumentException("Dense sketch has the wrong length");
+            }
+            System.arraycopy(bytes, HEADER_BYTES, sketch.registers, 0, sketch.registers.length);
+        } else if (bytes[1] == SPARSE) {
+            if ((bytes.length - HEADER_BYTES) % SPARSE_ENTRY_BYTES != 0) {
+                throw new IllegalArgumentException("Sparse sketch has the wrong length");
+            }
+            for (int position = HEADER_BYTES; position < bytes.length; position += SPARSE_ENTRY_BYTES) {
+                int index = (bytes[position] & 0xFF) << 8 | (bytes[position + 1] & 0xFF);
+                if (index >= sketch.registers.length) {
+                    throw new IllegalArgumentException("Sparse sketch has a register out of range");
+                }
+                sketch.registers[index] = bytes[position + 2];
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown sketch format");
+        }
+        for (byte register : sketch.registers) {
+            if (register < 0 || register > maxRank) {
+                throw new IllegalArgumentException("Sketch has a register out of range");
+            }
+        }
+        return sketch;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof HyperLogLog sketch
+                && sketch.precision == precision && Arrays.equals(sketch.registers, registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * precision + Arrays.hashCode(registers);
+    }
+
+    /**
+     * Spreads the bits of a value over the whole hash (the SplitMix64 finalizer), so
+     * consecutive ids land in unrelated registers.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+}
@@ -0,0 +1,343 @@
+/**
+ * Class Name: PostingList
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.features.feed.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A sorted set of post ids, stored compressed: each id is written as its
+ * difference to the previous one in a variable-length encoding of seven bits per
+ * byte, so ids that are close together take one or two bytes each. <br>
+ *
+ * The ids are split into blocks of {@link #BLOCK_SIZE}. A skip table keeps, for
+ * each block, where its bytes start and the id before it, so a block can be
+ * decoded without the ones in front of it. {@link #newestBefore} and
+ * {@link #intersectNewestBefore} find the block below their bound by binary search
+ * and decode blocks backwards from there, so a page costs about the same however
+ * deep it is. <br>
+ *
+ * New posts have the highest ids, so adding one appends to the end. Adding an
+ * older id rewrites the list. Removing an id only marks it removed in a small
+ * sorted array that reads skip; once the removed ids reach an eighth of the list,
+ * it is rewritten without them, so removals cost one rewrite per many ids. The
+ * class is not thread-safe.
+ */
+public final class PostingList {
+
+    /** Number of ids in one block of the skip table. */
+    static final int BLOCK_SIZE = 128;
+
+    /** Number of removed ids kept before a rewrite, however short the list. */
+    static final int MIN_REMOVED = 16;
+
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int size;
+    private long last;
+    private int[] blockOffsets = new int[1];
+    private long[] blockBases = new long[1];
+    private int blocks;
+    private long[] removed = new long[0];
+    private int removedCount;
+
+    /**
+     * Adds a post id.
+     *
+     * @param id the post id, greater than 0
+     * @return {@code true} if the id was added, {@code false} if it was already present
+     */
+    public boolean add(long id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Post ids must be positive");
+        }
+        if (size == 0 || id > last) {
+            appendId(id);
+            return true;
+        }
+        int removedAt = Arrays.binarySearch(removed, 0, removedCount, id);
+        if (removedAt >= 0) {
+            System.arraycopy(removed, removedAt + 1, removed, removedAt, removedCount - removedAt - 1);
+            removedCount--;
+            return true;
+        }
+        long[] ids = toArray();
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        long[] updated = new long[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = id;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        rewrite(updated);
+        return true;
+    }
+
+    /**
+     * Removes a post id.
+     *
+     * @param id the post id
+     * @return {@code true} if the id was removed, {@code false} if it was not present
+     */
+    public boolean remove(long id) {
+        if (!new BlockReader().encodes(id)) {
+            return false;
+        }
+        int index = Arrays.binarySearch(removed, 0, removedCount, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (removedCount == removed.length) {
+            removed = Arrays.copyOf(removed, Math.max(4, removedCount * 2));
+        }
+        System.arraycopy(removed, insertAt, removed, insertAt + 1, removedCount - insertAt);
+        removed[insertAt] = id;
+        removedCount++;
+        if (removedCount > Math.max(MIN_REMOVED, size / 8)) {
+            rewrite(toArray());
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a post id is present.
+     *
+     * @param id the post id
+     * @return {@code true} if the id is in the list
+     */
+    public boolean contains(long id) {
+        return new BlockReader().contains(id);
+    }
+
+    public int size() {
+        return size - removedCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of bytes the ids take up, including the removed ids not
+     * rewritten yet.
+     *
+     * @return the encoded size
+     */
+    public int byteSize() {
+        return length + removed.length * Long.BYTES;
+    }
+
+    /**
+     * Returns all ids in ascending order.
+     *
+     * @return the ids
+     */
+    public long[] toArray() {
+        long[] ids = new long[size()];
+        Reader reader = new Reader(0, 0);
+        int found = 0;
+        int skipped = 0;
+        for (int i = 0; i < size; i++) {
+            long id = reader.next();
+            if (skipped < removedCount && removed[skipped] == id) {
+                skipped++;
+            } else {
+                ids[found++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the highest ids below a bound, highest first.
+     *
+     * @param beforeId the exclusive upper bound, or {@link Long#MAX_VALUE} for the newest ids
+     * @param limit the maximum number of ids
+     * @return at most {@code limit} ids below {@code beforeId}, in descending order
+     */
+    public long[] newestBefore(long beforeId, int limit) {
+        return intersectNewestBefore(List.of(this), beforeId, limit);
+    }
+
+    /**
+     * Returns the highest ids present in every list and below a bound, highest
+     * first. The shortest list is read backwards from the bound, block by block,
+     * and each of its ids is looked up in the other lists through their skip
+     * tables; reading stops once {@code limit} ids matched.
+     *
+     * @param lists the lists to intersect; an empty collection matches nothing
+     * @param beforeId the exclusive upper bound, or {@link Long#MAX_VALUE} for the newest ids
+     * @param limit the maximum number of ids
+     * @return at most {@code limit} ids below {@code beforeId}, in descending order
+     */
+    public static long[] intersectNewestBefore(List<PostingList> lists, long beforeId, int limit) {
+        if (lists.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        PostingList shortest = lists.get(0);
+        for (PostingList list : lists) {
+            if (list.size() < shortest.size()) {
+                shortest = list;
+            }
+        }
+        if (shortest.isEmpty() || beforeId <= 1) {
+            return new long[0];
+        }
+        BlockReader[] others = new BlockReader[lists.size() - 1];
+        int otherCount = 0;
+        for (PostingList list : lists) {
+            if (list != shortest) {
+                others[otherCount++] = list.new BlockReader();
+            }
+        }
+
+        long[] matches = new long[Math.min(limit, shortest.size())];
+        int found = 0;
+        BlockReader reader = shortest.new BlockReader();
+        for (int block = shortest.blockOf(beforeId - 1); block >= 0 && found < matches.length; block--) {
+            reader.load(block);
+            candidates:
+            for (int i = reader.count - 1; i >= 0 && found < matches.length; i--) {
+                long id = reader.ids[i];
+                if (id >= beforeId || shortest.isRemoved(id)) {
+                    continue;
+                }
+                for (int j = 0; j < otherCount; j++) {
+                    if (!others[j].contains(id)) {
+                        continue candidates;
+                    }
+                }
+                matches[found++] = id;
+            }
+        }
+        return found == matches.length ? matches : Arrays.copyOf(matches, found);
+    }
+
+    /**
+     * Returns the last block whose preceding id is lower than {@code id}; every id
+     * up to {@code id} is in that block or an earlier one.
+     */
+    private int blockOf(long id) {
+        int low = 0;
+        int high = blocks - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (blockBases[middle] < id) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private boolean isRemoved(long id) {
+        return removedCount > 0 && Arrays.binarySearch(removed, 0, removedCount, id) >= 0;
+    }
+
+    private void rewrite(long[] ids) {
+        bytes = new byte[Math.max(8, ids.length * 2)];
+        length = 0;
+        size = 0;
+        last = 0;
+        blocks = 0;
+        removed = new long[0];
+        removedCount = 0;
+        for (long id : ids) {
+            appendId(id);
+        }
+    }
+
+    private void appendId(long id) {
+        if (size % BLOCK_SIZE == 0) {
+            if (blocks == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                blockBases = Arrays.copyOf(blockBases, blocks * 2);
+            }
+            blockOffsets[blocks] = length;
+            blockBases[blocks] = last;
+            blocks++;
+        }
+        append(id - last);
+        last = id;
+        size++;
+    }
+
+    private void append(long delta) {
+        if (length + 10 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 10));
+        }
+        while ((delta & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        bytes[length++] = (byte) delta;
+    }
+
+    /**
+     * Reads the ids front to back, starting at a block or at the beginning.
+     */
+    private final class Reader {
+        private int position;
+        private long current;
+
+        Reader(int position, long current) {
+            this.position = position;
+            this.current = current;
+        }
+
+        long next() {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+            return current;
+        }
+    }
+
+    /**
+     * Decodes one block at a time through the skip table, keeping the last block
+     * decoded, so lookups of nearby ids decode it only once.
+     */
+    private final class BlockReader {
+        private final long[] ids = new long[BLOCK_SIZE];
+        private int count;
+        private int block = -1;
+
+        void load(int block) {
+            if (this.block == block) {
+                return;
+            }
+            Reader reader = new Reader(blockOffsets[block], blockBases[block]);
+            count = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+            for (int i = 0; i < count; i++) {
+                ids[i] = reader.next();
+            }
+            this.block = block;
+        }
+
+        boolean contains(long id) {
+            return encodes(id) && !isRemoved(id);
+        }
+
+        /** Returns whether the id is written in the list, removed or not. */
+        boolean encodes(long id) {
+            if (size == 0 || id <= 0 || id > last) {
+                return false;
+            }
+            load(blockOf(id));
+            return Arrays.binarySearch(ids, 0, count, id) >= 0;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.musicApp.backend.features.friendship.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.musicApp.backend.features.friendship.model.Friendship;
@@ -30,6 +31,9 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class FriendshipController {
 
+    /** Most recent friend posts included in the activity list; older ones are paged through /api/v1/feed/friends. */
+    private static final int ACTIVITY_POST_LIMIT = 50;
+
     @Autowired
     private FriendshipService friendshipService;
 
@@ -178,7 +182,8 @@ public class FriendshipController {
             List<Map<String, Object>> activity = new ArrayList<>();
 
             if (!friendIds.isEmpty()) {
-                List<Post> posts = postRepository.findByAuthorIdInOrderByCreationDateDesc(friendIds);
+                List<Post> posts = postRepository.findByAuthorIdInOrderByCreationDateDescIdDesc(
+                        friendIds, PageRequest.of(0, ACTIVITY_POST_LIMIT));
                 posts.forEach(post -> {
                     Map<String, Object> item = new HashMap<>();
                     item.put("type", "post");
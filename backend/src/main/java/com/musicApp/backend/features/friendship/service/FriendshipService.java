@@ -6,6 +6,7 @@ import com.musicApp.backend.features.friendship.model.Friendship;
 import com.musicApp.backend.features.friendship.repository.FriendshipRepository;
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
+import com.musicApp.backend.features.feed.service.TimelineService;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -14,6 +15,7 @@ import java.util.stream.Collectors;
  * Service layer for friendship operations.
  * Handles friend request creation, acceptance, decline, removal, and friendship queries.
  * Contains helper logic for matching friendship status in either direction.
+ * Accepting or removing a friendship repairs both users' home timelines.
  * @author Yasmin Zubair
  * Date: April 15th, 2026
  */
@@ -26,6 +28,9 @@ public class FriendshipService {
     @Autowired
     private AuthenticationUserRepository userRepository;
 
+    @Autowired
+    private TimelineService timelineService;
+
     /**
      * Retrieve a user by id or throw an exception if the user does not exist.
      * @param userId user id to look up
@@ -78,7 +83,9 @@ public class FriendshipService {
             Friendship existing = friendshipRepository.findByUser2AndUser1AndStatus(user2, user1, Friendship.STATUS_PENDING)
                     .orElseThrow(() -> new IllegalArgumentException("Pending friendship not found"));
             existing.setStatus(Friendship.STATUS_ACCEPTED);
-            return friendshipRepository.save(existing);
+            Friendship accepted = friendshipRepository.save(existing);
+            timelineService.connect(user1Id, user2Id);
+            return accepted;
         }
 
         if (friendshipRepository.existsByUser1_IdAndUser2_IdAndStatus(user1Id, user2Id, Friendship.STATUS_PENDING)) {
@@ -100,7 +107,9 @@ public class FriendshipService {
         Friendship friendship = friendshipRepository.findByUser1AndUser2AndStatus(requester, recipient, Friendship.STATUS_PENDING)
                 .orElseThrow(() -> new IllegalArgumentException("Pending friend request not found"));
         friendship.setStatus(Friendship.STATUS_ACCEPTED);
-        return friendshipRepository.save(friendship);
+        Friendship accepted = friendshipRepository.save(friendship);
+        timelineService.connect(requesterId, recipientId);
+        return accepted;
     }
 
     /**
@@ -128,7 +137,13 @@ public class FriendshipService {
         if (friendship.isEmpty()) {
             friendship = friendshipRepository.findByUser2AndUser1(user2, user1);
         }
-        friendship.ifPresent(friendshipRepository::delete);
+        if (friendship.isEmpty()) {
+            return;
+        }
+        friendshipRepository.delete(friendship.get());
+        if (Friendship.STATUS_ACCEPTED.equals(friendship.get().getStatus())) {
+            timelineService.disconnect(user1Id, user2Id);
+        }
     }
 
     /**
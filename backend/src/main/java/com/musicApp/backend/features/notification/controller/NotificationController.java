@@ -5,7 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.musicApp.backend.features.notification.model.Notification;
 import com.musicApp.backend.features.notification.service.NotificationService;
-import com.musicApp.backend.features.authentication.model.AuthenticationUser;
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,13 +30,13 @@ public class NotificationController {
      */
     /**
      * Retrieve all notifications for the authenticated user.
-     * @param user authenticated user obtained from request context
+     * @param principal authenticated caller obtained from request context
      * @return response entity containing a list of NotificationDTO objects
      */
     @GetMapping
-    public ResponseEntity<?> getNotifications(@RequestAttribute("authenticatedUser") AuthenticationUser user) {
+    public ResponseEntity<?> getNotifications(@RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal) {
         try {
-            List<Notification> notifications = notificationService.getNotifications(user);
+            List<Notification> notifications = notificationService.getNotifications(principal.id());
             List<NotificationDTO> dtos = notifications.stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
@@ -51,13 +51,13 @@ public class NotificationController {
      */
     /**
      * Retrieve unread notifications for the authenticated user.
-     * @param user authenticated user obtained from request context
+     * @param principal authenticated caller obtained from request context
      * @return response entity containing a list of unread NotificationDTO objects
      */
     @GetMapping("/unread")
-    public ResponseEntity<?> getUnreadNotifications(@RequestAttribute("authenticatedUser") AuthenticationUser user) {
+    public ResponseEntity<?> getUnreadNotifications(@RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal) {
         try {
-            List<Notification> notifications = notificationService.getUnreadNotifications(user);
+            List<Notification> notifications = notificationService.getUnreadNotifications(principal.id());
             List<NotificationDTO> dtos = notifications.stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
@@ -87,13 +87,13 @@ public class NotificationController {
 
     /**
      * Mark all notifications as read for the authenticated user.
-     * @param user authenticated user obtained from request context
+     * @param principal authenticated caller obtained from request context
      * @return response entity confirming that all notifications were marked read
      */
     @PutMapping("/read-all")
-    public ResponseEntity<?> markAllAsRead(@RequestAttribute("authenticatedUser") AuthenticationUser user) {
+    public ResponseEntity<?> markAllAsRead(@RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal) {
         try {
-            notificationService.markAllAsRead(user);
+            notificationService.markAllAsRead(principal.id());
             return ResponseEntity.ok(Map.of("message", "All notifications marked as read"));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Error marking notifications as read: " + e.getMessage());
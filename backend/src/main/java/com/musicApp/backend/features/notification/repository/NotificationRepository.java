@@ -1,7 +1,11 @@
 package com.musicApp.backend.features.notification.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.musicApp.backend.features.notification.model.Notification;
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import java.util.List;
@@ -25,6 +29,24 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     List<Notification> findByRecipientAndIsReadFalse(AuthenticationUser recipient);
     
+    /**
+     * Find all notifications for a user by the user's id.
+     */
+    List<Notification> findByRecipientId(Long recipientId);
+
+    /**
+     * Find unread notifications for a user by the user's id.
+     */
+    List<Notification> findByRecipientIdAndIsReadFalse(Long recipientId);
+
+    /**
+     * Mark all unread notifications of a user as read in one statement.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipient.id = :recipientId AND n.isRead = false")
+    int markAllAsReadByRecipientId(@Param("recipientId") Long recipientId);
+
     /**
      * Find notifications by type.
      */
@@ -34,20 +34,20 @@ public class NotificationService {
 
     /**
      * Get all notifications for a recipient user.
-     * @param recipient user whose notifications should be retrieved
+     * @param recipientId id of the user whose notifications should be retrieved
      * @return list of Notification objects for the recipient
      */
-    public List<Notification> getNotifications(AuthenticationUser recipient) {
-        return notificationRepository.findByRecipient(recipient);
+    public List<Notification> getNotifications(Long recipientId) {
+        return notificationRepository.findByRecipientId(recipientId);
     }
 
     /**
      * Get unread notifications for a recipient user.
-     * @param recipient user whose unread notifications should be retrieved
+     * @param recipientId id of the user whose unread notifications should be retrieved
      * @return list of unread Notification objects
      */
-    public List<Notification> getUnreadNotifications(AuthenticationUser recipient) {
-        return notificationRepository.findByRecipientAndIsReadFalse(recipient);
+    public List<Notification> getUnreadNotifications(Long recipientId) {
+        return notificationRepository.findByRecipientIdAndIsReadFalse(recipientId);
     }
 
     /**
@@ -74,12 +74,10 @@ public class NotificationService {
 
     /**
      * Mark all notifications for a recipient as read.
-     * @param recipient user whose unread notifications should be marked read
+     * @param recipientId id of the user whose unread notifications should be marked read
      */
-    public void markAllAsRead(AuthenticationUser recipient) {
-        List<Notification> unread = notificationRepository.findByRecipientAndIsReadFalse(recipient);
-        unread.forEach(n -> n.setIsRead(true));
-        notificationRepository.saveAll(unread);
+    public void markAllAsRead(Long recipientId) {
+        notificationRepository.markAllAsReadByRecipientId(recipientId);
     }
 
     /**
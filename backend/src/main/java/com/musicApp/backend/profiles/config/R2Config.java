@@ -10,15 +10,23 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
 
 /**
- * This class configures the Cloudflare R2 presigner used by the application.
- * It creates an S3Presigner bean with the required credentials, region,
- * and endpoint settings so the application can generate presigned URLs.
+ * This class configures the Cloudflare R2 clients used by the application.
+ * It creates an S3Presigner bean, used to generate presigned URLs, and an
+ * S3Client bean, used by background workers that read and write objects
+ * themselves. Both use the same credentials, region, and endpoint settings.
+ * The endpoint defaults to the account's R2 endpoint and can point at any
+ * S3-compatible store, such as the MinIO service in docker-compose.yml.
  */
 @Configuration
 public class R2Config {
@@ -28,21 +36,55 @@ public class R2Config {
      *
      * @param accessKeyId the access key ID for the R2 account
      * @param secretAccessKey the secret access key for the R2 account
-     * @param accountId the Cloudflare account ID used to build the R2 endpoint
+     * @param endpoint the storage endpoint, by default built from the Cloudflare account ID
+     * @param pathStyleAccess whether the bucket goes in the path instead of the host name
      * @return the configured {@link S3Presigner} object
      */
     @Bean
     public S3Presigner r2Presigner(
             @Value("${r2.accessKeyId}") String accessKeyId,
             @Value("${r2.secretAccessKey}") String secretAccessKey,
-            @Value("${r2.accountId}") String accountId
+            @Value("${r2.endpoint:https://${r2.accountId}.r2.cloudflarestorage.com}") String endpoint,
+            @Value("${r2.path-style-access:false}") boolean pathStyleAccess
     ) {
         var credentials = AwsBasicCredentials.create(accessKeyId, secretAccessKey);
 
         return S3Presigner.builder()
                 .credentialsProvider(StaticCredentialsProvider.create(credentials))
                 .region(Region.US_EAST_1)
-                .endpointOverride(URI.create("https://" + accountId + ".r2.cloudflarestorage.com"))
+                .endpointOverride(URI.create(endpoint))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates and returns an S3Client for Cloudflare R2 storage. Checksums are only
+     * sent where an operation requires them, which R2 and most S3-compatible stores
+     * expect.
+     *
+     * @param accessKeyId the access key ID for the R2 account
+     * @param secretAccessKey the secret access key for the R2 account
+     * @param endpoint the storage endpoint, by default built from the Cloudflare account ID
+     * @param pathStyleAccess whether the bucket goes in the path instead of the host name
+     * @return the configured {@link S3Client} object
+     */
+    @Bean(destroyMethod = "close")
+    public S3Client r2Client(
+            @Value("${r2.accessKeyId}") String accessKeyId,
+            @Value("${r2.secretAccessKey}") String secretAccessKey,
+            @Value("${r2.endpoint:https://${r2.accountId}.r2.cloudflarestorage.com}") String endpoint,
+            @Value("${r2.path-style-access:false}") boolean pathStyleAccess
+    ) {
+        var credentials = AwsBasicCredentials.create(accessKeyId, secretAccessKey);
+
+        return S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(credentials))
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create(endpoint))
+                .httpClient(UrlConnectionHttpClient.create())
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build())
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED)
+                .build();
+    }
+}
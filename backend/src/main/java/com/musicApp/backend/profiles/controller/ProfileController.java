@@ -7,11 +7,17 @@ package com.musicApp.backend.profiles.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.musicApp.backend.controller.ETags;
+
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
+import com.musicApp.backend.features.authentication.service.AuthenticatedUserCache;
 import com.musicApp.backend.features.authentication.service.AuthenticationService;
 import com.musicApp.backend.features.authentication.utils.EmailService;
-import com.musicApp.backend.features.authentication.utils.Encoder;
+import com.musicApp.backend.features.authentication.utils.PasswordHasher;
+import com.musicApp.backend.features.feed.service.StoredVersions;
 import com.musicApp.backend.profiles.dto.ProfileRequest;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
 
@@ -31,16 +37,28 @@ import java.util.stream.Collectors;
  * This class handles profile-related requests in the application.
  * It allows users to view and update profile information, manage
  * profile pictures, update account details, and search for other users.
+ * The profile read carries a strong ETag built from the user's version in the
+ * {@link AuthenticatedUserCache}, so an unchanged profile costs a 304. The
+ * approximate number of distinct viewers of the profile comes from the
+ * {@link ViewCounter}; behind that ETag it may be a few minutes old.
  */
 @CrossOrigin(origins = "http://127.0.0.1:5173")
 @RestController
 @RequestMapping("/api/v1/profile")
 public class ProfileController {
+    /**
+     * Presigned picture URLs live 10 minutes; the profile ETag changes every 5, so a
+     * client revalidating its copy never keeps a URL that is about to expire.
+     */
+    private static final long PICTURE_URL_REFRESH_MILLIS = Duration.ofMinutes(5).toMillis();
+
     private final AuthenticationService authenticationService;
     private final EmailService emailService;
     private final AuthenticationUserRepository authenticationUserRepository;
+    private final AuthenticatedUserCache userCache;
     private final S3Presigner presigner;
-    private final Encoder encoder;
+    private final PasswordHasher passwordHasher;
+    private final StoredVersions storedVersions;
     private final String bucket;
     private final String publicBaseUrl;
 
@@ -50,8 +68,10 @@ public class ProfileController {
      * @param authenticationUserRepository the repository used to store and retrieve user data
      * @param authenticationService the service used to access authenticated user information
      * @param emailService the service used for email-related features
+     * @param userCache the cache whose user versions are used for ETags
      * @param presigner the S3 presigner used to generate upload and download URLs
-     * @param encoder the encoder used to encrypt passwords
+     * @param passwordHasher the hasher used to hash new passwords
+     * @param storedVersions the stored user versions used for ETags, with the profile's view count
      * @param bucket the storage bucket used for profile pictures
      * @param publicBaseUrl the public base URL for stored profile pictures
      */
@@ -60,16 +80,20 @@ public class ProfileController {
             AuthenticationUserRepository authenticationUserRepository,
             AuthenticationService authenticationService,
             EmailService emailService,
+            AuthenticatedUserCache userCache,
             S3Presigner presigner,
-            Encoder encoder,
+            PasswordHasher passwordHasher,
+            StoredVersions storedVersions,
             @Value("${r2.bucket}") String bucket,
             @Value("${r2.url}") String publicBaseUrl
     ) {
         this.authenticationService = authenticationService;
         this.authenticationUserRepository = authenticationUserRepository;
         this.emailService = emailService;
+        this.userCache = userCache;
         this.presigner = presigner;
-        this.encoder = encoder;
+        this.passwordHasher = passwordHasher;
+        this.storedVersions = storedVersions;
         this.bucket = bucket;
         this.publicBaseUrl = publicBaseUrl;
     }
@@ -77,125 +101,135 @@ public class ProfileController {
     /**
      * Returns the profile information for the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
-     * @return a {@link ProfileRequest} containing the user's profile information
+     * @param principal the authenticated caller taken from the request
+     * @param request the request, checked for If-None-Match
+     * @return a {@link ProfileRequest} containing the user's profile information, or nothing with 304 if unchanged
      */
     @GetMapping
-    public ProfileRequest getProfile(@RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
-        return toProfileRequest(user);
+    public ProfileRequest getProfile(@RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
+                                     WebRequest request) {
+        StoredVersions.UserVersion stored = storedVersions.getUserVersion(principal.id());
+        if (stored == null) {
+            throw new IllegalArgumentException("User not found.");
+        }
+        String tag = ETags.of("profile", principal.id(), userCache.getVersion(principal.id()), stored.tag(),
+                System.currentTimeMillis() / PICTURE_URL_REFRESH_MILLIS);
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+        // A user changed on another instance may still be cached here; the stored version says so
+        AuthenticationUser user = authenticationService.getUserWithId(principal.id(), stored.changedAt());
+        return toProfileRequest(user, stored.profileViews());
     }
 
     /**
      * Updates the first name of the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param name the new first name to save
      */
     @PutMapping("/fname")
     public void updateName(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestParam String name
     ) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
+        AuthenticationUser user = authenticationService.getUserForUpdate(principal.id());
         user.setName(name);
-        authenticationUserRepository.save(user);
+        authenticationService.saveUser(user);
     }
 
     /**
      * Updates the last name of the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param lname the new last name to save
      */
     @PutMapping("/lname")
     public void updateLastName(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestParam String lname
     ) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
+        AuthenticationUser user = authenticationService.getUserForUpdate(principal.id());
         user.setLastName(lname);
-        authenticationUserRepository.save(user);
+        authenticationService.saveUser(user);
     }
 
     /**
      * Updates the username of the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param userName the new username to save
      */
     @PutMapping("/userName")
     public void updateUserName(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestParam String userName
     ) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
-        user.setUsername(userName);
-        authenticationUserRepository.save(user);
+        authenticationService.changeUsername(principal.id(), userName);
     }
 
     /**
      * Updates the biography of the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param bio the new biography text to save
      */
     @PutMapping("/bio")
     public void updateBio(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestParam String bio
     ) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
+        AuthenticationUser user = authenticationService.getUserForUpdate(principal.id());
         user.setBio(bio);
-        authenticationUserRepository.save(user);
+        authenticationService.saveUser(user);
     }
 
     /**
      * Updates the profile color of the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param color the new color value to save
      */
     @PutMapping("/color")
     public void updateColor(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestParam int color
     ) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
+        AuthenticationUser user = authenticationService.getUserForUpdate(principal.id());
         user.setColor(color);
-        authenticationUserRepository.save(user);
+        authenticationService.saveUser(user);
     }
 
     /**
      * Updates the favorite artists of the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param favoriteArtists the new favorite artists value to save
      */
     @PutMapping("/favorites/artists")
     public void updateFavoriteArtists(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestParam String favoriteArtists
     ) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
+        AuthenticationUser user = authenticationService.getUserForUpdate(principal.id());
         user.setFavoriteArtists(favoriteArtists);
-        authenticationUserRepository.save(user);
+        authenticationService.saveUser(user);
     }
 
     /**
      * Updates the favorite songs of the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param favoriteSongs the new favorite songs value to save
      */
     @PutMapping("/favorites/songs")
     public void updateFavoriteSongs(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestParam String favoriteSongs
     ) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
+        AuthenticationUser user = authenticationService.getUserForUpdate(principal.id());
         user.setFavoriteSongs(favoriteSongs);
-        authenticationUserRepository.save(user);
+        authenticationService.saveUser(user);
     }
 
     public record AccountUpdateRequest(String firstName, String lastName, String password) {}
@@ -203,15 +237,15 @@ public class ProfileController {
     /**
      * Updates account information for the authenticated user.
      *
-     * @param authenticationUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param request the request body containing updated first name, last name, or password
      */
     @PutMapping("/account")
     public void updateAccountInfo(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authenticationUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestBody AccountUpdateRequest request
     ) {
-        AuthenticationUser user = authenticationService.getUser(authenticationUser.getEmail());
+        AuthenticationUser user = authenticationService.getUserForUpdate(principal.id());
 
         if (request.firstName() != null && !request.firstName().isBlank()) {
             user.setName(request.firstName());
@@ -220,10 +254,10 @@ public class ProfileController {
             user.setLastName(request.lastName());
         }
         if (request.password() != null && !request.password().isBlank()) {
-            user.setPassword(encoder.encode(request.password()));
+            user.setPassword(passwordHasher.hash(request.password()));
         }
 
-        authenticationUserRepository.save(user);
+        authenticationService.saveUser(user);
     }
 
     public record UploadUrlRequest(String contentType, Long fileSize) {}
@@ -232,13 +266,13 @@ public class ProfileController {
     /**
      * Generates a presigned upload URL for a profile picture.
      *
-     * @param authUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param body the request body containing file type and file size information
      * @return an {@link UploadUrlResponse} containing the upload URL, object key, and expiration time
      */
     @PostMapping("/picture/upload-url")
     public UploadUrlResponse getProfilePicUploadUrl(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestBody UploadUrlRequest body
     ) {
         String contentType = body.contentType();
@@ -256,7 +290,7 @@ public class ProfileController {
             throw new IllegalArgumentException("File too large");
         }
 
-        long userId = authUser.getId();
+        long userId = principal.id();
         String objectKey = "avatars/" + userId + "/profile.jpg";
 
         PutObjectRequest putReq = PutObjectRequest.builder()
@@ -279,16 +313,16 @@ public class ProfileController {
     /**
      * Saves the profile picture key for the authenticated user.
      *
-     * @param authUser the authenticated user taken from the request
+     * @param principal the authenticated caller taken from the request
      * @param body the request body containing the object key for the uploaded image
      * @return a {@link ProfileRequest} containing the updated profile information
      */
     @PutMapping("/picture")
     public ProfileRequest saveProfilePictureKey(
-            @RequestAttribute("authenticatedUser") AuthenticationUser authUser,
+            @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal,
             @RequestBody SavePictureRequest body
     ) {
-        AuthenticationUser user = authenticationService.getUser(authUser.getEmail());
+        AuthenticationUser user = authenticationService.getUserForUpdate(principal.id());
 
         String expectedKey = "avatars/" + user.getId() + "/profile.jpg";
         if (body == null || body.objectKey() == null) {
@@ -300,7 +334,7 @@ public class ProfileController {
 
         user.setImageKey(expectedKey);
         user.setProfileImageUpdatedAt(System.currentTimeMillis());
-        authenticationUserRepository.save(user);
+        authenticationService.saveUser(user);
 
         return toProfileRequest(user);
     }
@@ -315,6 +349,17 @@ public class ProfileController {
      * @return a {@link ProfileRequest} containing formatted profile data
      */
     private ProfileRequest toProfileRequest(AuthenticationUser user) {
+        return toProfileRequest(user, user.getProfileViewCount());
+    }
+
+    /**
+     * Converts an AuthenticationUser object into a ProfileRequest object.
+     *
+     * @param user the user whose data will be converted
+     * @param profileViews the approximate number of distinct viewers of the profile
+     * @return a {@link ProfileRequest} containing formatted profile data
+     */
+    private ProfileRequest toProfileRequest(AuthenticationUser user, long profileViews) {
         String imageKey = user.getImageKey();
         Long updatedAt = user.getProfileImageUpdatedAt();
 
@@ -350,7 +395,8 @@ public class ProfileController {
                 presignedGetUrl,
                 expires,
                 user.getFavoriteArtists(),
-                user.getFavoriteSongs()
+                user.getFavoriteSongs(),
+                profileViews
         );
     }
 
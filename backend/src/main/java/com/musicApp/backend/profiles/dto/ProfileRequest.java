@@ -9,7 +9,8 @@ package com.musicApp.backend.profiles.dto;
 /**
  * This record represents the profile data returned by the application.
  * It stores user profile information such as name, username, email,
- * bio, color, profile image details, and favorite music preferences.
+ * bio, color, profile image details, favorite music preferences, and the
+ * approximate number of distinct users who viewed the profile.
  */
 public record ProfileRequest(
     long id,
@@ -24,7 +25,8 @@ public record ProfileRequest(
     String profileImageUrl,
     long profileImageUrlExpiresInSeconds,
     String favoriteArtists,
-    String favoriteSongs
+    String favoriteSongs,
+    long profileViews
 ) {}
 
 
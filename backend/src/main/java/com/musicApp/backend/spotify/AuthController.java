@@ -4,11 +4,12 @@
  */
 package com.musicApp.backend.spotify;
  
-import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
+import io.jsonwebtoken.JwtException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping; 
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -41,23 +42,16 @@ public class AuthController {
   }
 
   /**
-   * This method initiates Spotify OAuth login process by creating a token and storing it in the session, 
-   * then taking them to a permission page
+   * This method starts the Spotify OAuth login process for the logged-in user by creating
+   * a signed state that names the user, and returns the Spotify permission page to open
    * 
-   * @param session the current HTTP session used to store the OAuth state
-   * @return redirects a response to Spotify's login page, or shows any error that occured
+   * @param principal the authenticated caller
+   * @return the url of Spotify's login page, or shows any error that occured
    */
-  @GetMapping("/login")
-public ResponseEntity<?> login(HttpSession session) {
+  @GetMapping("/spotify/authorize")
+public ResponseEntity<?> authorize(@RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal) {
   try {
-    String state = auth.newState();
-    session.setAttribute("oauth_state", state);
-
-    String url = auth.buildLoginUrl(state);
-    // (Optional) log the redirect target for debugging
-    // log.info("Redirecting to Spotify: {}", url);
-
-    return ResponseEntity.status(302).location(URI.create(url)).build();
+    return ResponseEntity.ok(Map.of("url", auth.buildLinkUrl(principal.id())));
   } catch (Exception e) {
     log.error("Login failed", e);
     return ResponseEntity.internalServerError().body(Map.of(
@@ -70,23 +64,21 @@ public ResponseEntity<?> login(HttpSession session) {
 
 /**
    * Helps validate the state parameter, echange the authorization code
-   * for an access toke, and stores the user ID in the session
+   * for an access toke, and links the Spotify user ID to the user named by the state
    * 
    * If anything where to fail, such as missing code, invalid state, or an error
    * in Spotify itself, the error is returned
    * 
    * @param code the authorization code returned by Spotify
-   * @param state the OAuth value for validation
+   * @param state the signed OAuth value naming the user
    * @param errorParam error message returned by Spotify
-   * @param session the HTTP session used to retrieve and store the user's data
    * @return a redirect to "me/top" route as a sign of success, or an error response
    */
 @GetMapping("/callback")
 public ResponseEntity<?> callback(
         @RequestParam(name = "code", required = false) String code,
         @RequestParam(name = "state", required = false) String state,
-        @RequestParam(name = "error", required = false) String errorParam,
-        HttpSession session
+        @RequestParam(name = "error", required = false) String errorParam
 ) {
     try {
         log.info("Received /callback request with code: {}, state: {}, error: {}", code, state, errorParam);
@@ -103,20 +95,21 @@ public ResponseEntity<?> callback(
             return ResponseEntity.status(400).body(Map.of("error", "Missing authorization code"));
         }
 
-        // Validate state
-        String expectedState = (String) session.getAttribute("oauth_state");
-        session.removeAttribute("oauth_state");
-        if (expectedState != null && state != null && !expectedState.equals(state)) {
-            log.error("Invalid state parameter. Expected: {}, Got: {}", expectedState, state);
+        // Ensure state is present; it is verified when the account is linked
+        if (state == null || state.isBlank()) {
+            log.error("Missing 'state' parameter in /callback");
             return ResponseEntity.status(400).body(Map.of("error", "Invalid state"));
         }
 
-        // Attempt to exchange the code for an access token
+        // Attempt to exchange the code for an access token and link the account
         SpotifyAuthService.LoginResult result;
         try {
             log.info("Exchanging authorization code with Spotify...");
-            result = auth.exchangeCode(code);
+            result = auth.link(code, state);
             log.info("Exchange successful. User ID: {}", result.userId());
+        } catch (JwtException e) {
+            log.error("Invalid state parameter", e);
+            return ResponseEntity.status(400).body(Map.of("error", "Invalid state"));
         } catch (Exception e) {
             log.error("Spotify code exchange failed", e);
             return ResponseEntity.status(500).body(Map.of(
@@ -125,10 +118,6 @@ public ResponseEntity<?> callback(
             ));
         }
 
-        // Store user info in session
-        session.setAttribute("userId", result.userId());
-        log.info("User session updated with userId: {}", result.userId());
-
         // Redirect back to home
        // return ResponseEntity.status(302).location(URI.create("/me/top")).build();
         return ResponseEntity.status(302).location(URI.create("http://127.0.0.1:5173/home")).build();
@@ -144,15 +133,13 @@ public ResponseEntity<?> callback(
 }
 
   /**
-   * Logs out the user and removes their credentials from {@link AuthStore}
-   * @param session holds the current HTTP session containing user data
+   * Unlinks the user's Spotify account and removes its credentials from {@link AuthStore}
+   * @param principal the authenticated caller
    * @return a JSON message that user has logged out successfully
    */
   @PostMapping("/logout")
-  public ResponseEntity<?> logout(HttpSession session) {
-    String userId = (String) session.getAttribute("userId");
-    if (userId != null) AuthStore.remove(userId);
-    session.invalidate();
+  public ResponseEntity<?> logout(@RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal) {
+    auth.unlink(principal.id());
     return ResponseEntity.ok(Map.of("message", "Logged out"));
   }
 }
\ No newline at end of file
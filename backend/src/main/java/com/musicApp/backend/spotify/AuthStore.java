@@ -4,15 +4,16 @@
  */
 package com.musicApp.backend.spotify;
 
-import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
 
 /**
  * Storage for the user's tokens
  * 
  * The class holds the access token and refresh token for the authenticated user.
- * It allows for quick lookup and removal during a session
+ * Tokens are kept in the "spotify_tokens" table, so every backend node sees the
+ * same tokens and no HTTP session is needed
  */
-
+@Component
 public class AuthStore {
 
   /**
@@ -25,27 +26,35 @@ public class AuthStore {
   public record Tokens(String accessToken, String refreshToken, long expiresAtEpochSec) {}
 
   /**
-   * An internal map storing user IDs and their tokens
+   * The table storing Spotify user IDs and their tokens
+   */
+  private final SpotifyTokenRepository repository;
+
+  /**
+   * A constructor that is linked to the token table
+   * @param repository the repository the tokens are stored in
    */
-  private static final ConcurrentHashMap<String, Tokens> TOKENS = new ConcurrentHashMap<>();
+  public AuthStore(SpotifyTokenRepository repository) { this.repository = repository; }
 
   /**
    * Method to store or update a user's token info
    * @param userId is the User
    * @param t is both the access and refresh token
    */
-  public static void put(String userId, Tokens t) { TOKENS.put(userId, t); }
+  public void put(String userId, Tokens t) { repository.save(new SpotifyToken(userId, t)); }
 
   /**
    * Retrieves the token of a user
    * @param userId is the user
    * @return the Token of the user, but returns null if not found
    */
-  public static Tokens get(String userId) { return TOKENS.get(userId); }
+  public Tokens get(String userId) { return repository.findById(userId).map(SpotifyToken::toTokens).orElse(null); }
 
   /**
    * Removes a user's token data and logging them out
    * @param userId is the user
    */
-  public static void remove(String userId) { TOKENS.remove(userId); }
+  public void remove(String userId) {
+    if (repository.existsById(userId)) repository.deleteById(userId);
+  }
 }
\ No newline at end of file
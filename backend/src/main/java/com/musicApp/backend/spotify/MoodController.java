@@ -4,11 +4,10 @@
  */
 package com.musicApp.backend.spotify;
 
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.servlet.http.HttpSession;
-
 import java.util.Map;
 
 /**
@@ -28,11 +27,20 @@ public class MoodController {
    */
   private final MoodService moodService;
 
+  /**
+   * Finds the Spotify account linked to the caller
+   */
+  private final SpotifyAuthService auth;
+
   /**
    * A constructor that is linked to {@link MoodService}
    * @param moodService the "search engine" used to analyze user's listening habits
+   * @param auth is the Spotify authentication
    */
-  public MoodController(MoodService moodService) { this.moodService = moodService; }
+  public MoodController(MoodService moodService, SpotifyAuthService auth) {
+    this.moodService = moodService;
+    this.auth = auth;
+  }
 
 
   /**
@@ -40,18 +48,18 @@ public class MoodController {
    * It calls {@link MoodService} and generates the recommendations. It's important
    * that the user is logged in and if not, it returns a 401 error, or unauthorized access
    * @param mood holds the desired mood the user feels
-   * @param session the current session with the user's ID
+   * @param principal the authenticated caller, whose linked Spotify account is used
    * @param limit holds the number of artists considered in a pool of suggestions (max is 50)
    * @return a JSON the shows the recommendated music, an error message, or an exception
    */
   @GetMapping("/mood/by")
 public ResponseEntity<?> byMood(
     @RequestParam String mood,
-    HttpSession session
+    @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
 ) {
   try {
-    String userId = (String) session.getAttribute("userId");
-    if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "Not logged in"));
+    String userId = auth.linkedSpotifyUserId(principal.id());
+    if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "Spotify account not linked"));
     return ResponseEntity.ok(moodService.recommendBySelectedMood(userId, mood, 50));
   } catch (Exception e) {
     return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
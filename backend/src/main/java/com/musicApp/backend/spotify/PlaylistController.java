@@ -4,9 +4,9 @@
  */
 package com.musicApp.backend.spotify;
 
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import jakarta.servlet.http.HttpSession;
 import se.michaelthelin.spotify.SpotifyApi;
 
 import java.util.*;
@@ -46,15 +46,15 @@ public class PlaylistController {
    * Create a new private playlist 
    * 
    * @param body is the JSON that contains the playlist details and track URIs
-   * @param session is the current HTTP session
+   * @param principal is the authenticated caller, whose linked Spotify account is used
    * @return a {@link ResponseEntity} with the playlist or with an error message
    * 
    */
   @PostMapping("/playlist")
-  public ResponseEntity<?> createAndAdd(@RequestBody Map<String, Object> body, HttpSession session) {
+  public ResponseEntity<?> createAndAdd(@RequestBody Map<String, Object> body, @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal) {
     try {
-      String userId = (String) session.getAttribute("userId");
-      if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "Not logged in"));
+      String userId = auth.linkedSpotifyUserId(principal.id());
+      if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "Spotify account not linked"));
 
       String name = String.valueOf(body.getOrDefault("name", "My Mood Playlist"));
       @SuppressWarnings("unchecked")
@@ -84,16 +84,16 @@ public class PlaylistController {
    * Adds track(s) to a playlist
    * 
    * @param body contains a JSON of the Playlist ID and URIs to add
-   * @param session the current HTTP session 
+   * @param principal the authenticated caller, whose linked Spotify account is used
    * @return a {@link ResponseEntity} with the tracks added or an error
    */
 
   /** Add items to an existing playlist by ID. */
   @PostMapping("/playlist/add")
-  public ResponseEntity<?> addToExisting(@RequestBody Map<String, Object> body, HttpSession session) {
+  public ResponseEntity<?> addToExisting(@RequestBody Map<String, Object> body, @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal) {
     try {
-      String userId = (String) session.getAttribute("userId");
-      if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "Not logged in"));
+      String userId = auth.linkedSpotifyUserId(principal.id());
+      if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "Spotify account not linked"));
 
       String playlistId = String.valueOf(body.get("playlistId"));
       if (playlistId == null || playlistId.isBlank()) return ResponseEntity.badRequest().body(Map.of("error", "playlistId required"));
@@ -120,7 +120,7 @@ public class PlaylistController {
    * @param mood is the user's selected mood
    * @param name is the custom playlist name
    * @param limit is the number of songs allowed in a playlist
-   * @param session the current HTTP session
+   * @param principal the authenticated caller, whose linked Spotify account is used
    * @return a {@link ResponseEntity} containing the playlist generated, or an error
    */
   @RequestMapping(value = "/playlist/from-mood", method = { RequestMethod.GET, RequestMethod.POST })
@@ -128,11 +128,11 @@ public class PlaylistController {
       @RequestParam(name = "mood", required = false) String mood,
       @RequestParam(name = "name", required = false) String name,
       @RequestParam(name = "limit", required = false) Integer limit,
-      HttpSession session
+      @RequestAttribute("authenticatedPrincipal") AuthenticatedPrincipal principal
   ) {
     try {
-      String userId = (String) session.getAttribute("userId");
-      if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "Not logged in"));
+      String userId = auth.linkedSpotifyUserId(principal.id());
+      if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "Spotify account not linked"));
 
       var res = moodService.recommendBySelectedMood(userId, mood, limit);
 
@@ -4,6 +4,8 @@
  */
 package com.musicApp.backend.spotify;
 
+import com.musicApp.backend.features.authentication.service.AuthenticationService;
+import com.musicApp.backend.features.authentication.utils.JsonWebToken;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -19,7 +21,6 @@ import java.net.URI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.time.Instant;
-import java.util.UUID;
 
 /**
  * This file handles authentication, token management, and creating authorized sessions for users
@@ -49,19 +50,39 @@ public class SpotifyAuthService {
    */
   private final SpotifyApi baseApi;
 
+  /**
+   * Where the Spotify tokens are stored
+   */
+  private final AuthStore authStore;
+
+  /**
+   * Signs and verifies the OAuth state, and finds the Spotify account linked to a user
+   */
+  private final JsonWebToken jsonWebToken;
+  private final AuthenticationService authenticationService;
+
 
   /**
    * A constructor that builds the authentication service
    * @param redirectUri holds the redirect URI url, 
    * @param clientId holds an ID to use the API services
    * @param clientSecret holds a secret value to secure API use
+   * @param authStore holds the stored Spotify tokens
+   * @param jsonWebToken signs the OAuth state
+   * @param authenticationService links Spotify accounts to users
    * @throws IllegalStateException in case clientsecret or clientID aren't available or correct
    */
   public SpotifyAuthService(
       @Value("${app.redirectUri}") String redirectUri,
       @Value("${spotify.client-id}") String clientId,
-      @Value("${spotify.client-secret}") String clientSecret
+      @Value("${spotify.client-secret}") String clientSecret,
+      AuthStore authStore,
+      JsonWebToken jsonWebToken,
+      AuthenticationService authenticationService
   ) {
+    this.authStore = authStore;
+    this.jsonWebToken = jsonWebToken;
+    this.authenticationService = authenticationService;
     this.clientId = clientId;
     this.clientSecret = clientSecret;
     this.redirectUri = SpotifyHttpManager.makeUri(redirectUri);
@@ -92,6 +113,53 @@ public class SpotifyAuthService {
     return req.execute().toString();
   }
 
+  /**
+   * Builds the Spotify login URL for a logged-in user. The state names the user,
+   * so the callback can link the Spotify account to them
+   * @param appUserId the id of the user linking their Spotify account
+   * @return the url for Spotify authorization
+   */
+  public String buildLinkUrl(Long appUserId) {
+    return buildLoginUrl(jsonWebToken.generateSpotifyState(appUserId));
+  }
+
+  /**
+   * Finishes linking a Spotify account: checks the state, exchanges the code for
+   * tokens and stores the Spotify user id on the user named by the state
+   * @param code is the code recieved from Spotify's callback
+   * @param state the state from {@link #buildLinkUrl(Long)}
+   * @return the {@link LoginResult} with the tokens and the Spotify user ID
+   * @throws io.jsonwebtoken.JwtException if the state is invalid or expired
+   * @throws Exception if the exchange with Spotify fails
+   */
+  public LoginResult link(String code, String state) throws Exception {
+    Long appUserId = jsonWebToken.getUserIdFromSpotifyState(state);
+    LoginResult result = exchangeCode(code);
+    authenticationService.linkSpotifyAccount(appUserId, result.userId());
+    return result;
+  }
+
+  /**
+   * Finds the Spotify account linked to a user
+   * @param appUserId the id of the user
+   * @return the Spotify user ID, or null if the user has not linked an account
+   */
+  public String linkedSpotifyUserId(Long appUserId) {
+    return authenticationService.getLinkedSpotifyUserId(appUserId);
+  }
+
+  /**
+   * Unlinks a user's Spotify account and forgets its tokens
+   * @param appUserId the id of the user
+   */
+  public void unlink(Long appUserId) {
+    String spotifyUserId = linkedSpotifyUserId(appUserId);
+    if (spotifyUserId != null) {
+      authStore.remove(spotifyUserId);
+      authenticationService.linkSpotifyAccount(appUserId, null);
+    }
+  }
+
   /**
    * Exchanges authorization code for access and refresh tokens
    * @param code is the code recieved from Spotify's callback (or redirect URI)
@@ -118,7 +186,7 @@ public class SpotifyAuthService {
 
     // Persist tokens with expiry
     long expiresAt = Instant.now().getEpochSecond() + creds.getExpiresIn();
-    AuthStore.put(userId, new AuthStore.Tokens(
+    authStore.put(userId, new AuthStore.Tokens(
         creds.getAccessToken(), creds.getRefreshToken(), expiresAt
     ));
 
@@ -133,7 +201,7 @@ public class SpotifyAuthService {
    */
 
   public SpotifyApi apiForUser(String userId) throws Exception {
-    AuthStore.Tokens t = AuthStore.get(userId);
+    AuthStore.Tokens t = authStore.get(userId);
     if (t == null) throw new IllegalStateException("User not logged in");
 
     // Build a *fresh* instance for this user (do not reuse or mutate baseApi)
@@ -152,7 +220,7 @@ public class SpotifyAuthService {
       AuthorizationCodeRefreshRequest refreshReq = api.authorizationCodeRefresh().build();
       AuthorizationCodeCredentials refreshed = refreshReq.execute();
       long newExp = Instant.now().getEpochSecond() + refreshed.getExpiresIn();
-      AuthStore.put(userId, new AuthStore.Tokens(refreshed.getAccessToken(), t.refreshToken(), newExp));
+      authStore.put(userId, new AuthStore.Tokens(refreshed.getAccessToken(), t.refreshToken(), newExp));
       api.setAccessToken(refreshed.getAccessToken());
     }
 
@@ -175,12 +243,6 @@ public class SpotifyAuthService {
     return clientApi;
   }
 
-  /**
-   * Generates the state for requests to prevent CSRF attacks
-   * @return a random string
-   */
-  public String newState() { return UUID.randomUUID().toString(); }
-
   /**
    * A record of spotify logins and tokens
    * @param userId holds the user's Spotify ID
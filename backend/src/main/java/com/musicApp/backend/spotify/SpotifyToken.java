@@ -0,0 +1,53 @@
+/**
+ * Class Name: SpotifyToken
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.spotify;
+
+import jakarta.persistence.*;
+
+/**
+ * The Spotify access and refresh token of a linked Spotify account, keyed by the
+ * Spotify user id. Stored in the database so any backend node can call Spotify
+ * on the user's behalf.
+ */
+@Entity
+@Table(name = "spotify_tokens")
+public class SpotifyToken {
+
+  @Id
+  @Column(name = "spotify_user_id", length = 128)
+  private String spotifyUserId;
+
+  @Column(name = "access_token", nullable = false, length = 1024)
+  private String accessToken;
+
+  @Column(name = "refresh_token", length = 1024)
+  private String refreshToken;
+
+  @Column(name = "expires_at_epoch_sec", nullable = false)
+  private long expiresAtEpochSec;
+
+  public SpotifyToken() {
+  }
+
+  public SpotifyToken(String spotifyUserId, AuthStore.Tokens tokens) {
+    this.spotifyUserId = spotifyUserId;
+    this.accessToken = tokens.accessToken();
+    this.refreshToken = tokens.refreshToken();
+    this.expiresAtEpochSec = tokens.expiresAtEpochSec();
+  }
+
+  /**
+   * Returns the stored tokens in the form used by {@link SpotifyAuthService}
+   * @return the tokens
+   */
+  public AuthStore.Tokens toTokens() {
+    return new AuthStore.Tokens(accessToken, refreshToken, expiresAtEpochSec);
+  }
+
+  public String getSpotifyUserId() {
+    return spotifyUserId;
+  }
+}
@@ -0,0 +1,14 @@
+/**
+ * Class Name: SpotifyTokenRepository
+ * Date: October 17, 2026
+ *
+ */
+package com.musicApp.backend.spotify;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Spring Data JPA repository for Spotify tokens, keyed by Spotify user id.
+ */
+public interface SpotifyTokenRepository extends JpaRepository<SpotifyToken, String> {
+}
@@ -6,9 +6,17 @@ import com.musicApp.backend.features.authentication.dto.AuthenticationResponseBo
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
 import com.musicApp.backend.features.authentication.service.AuthenticationService;
+import com.musicApp.backend.features.authentication.service.AvailabilityIndex;
+import com.musicApp.backend.features.authentication.service.PresenceRegistry;
+import com.musicApp.backend.features.authentication.service.TokenRevocationService;
 import com.musicApp.backend.features.authentication.utils.EmailService;
 import com.musicApp.backend.features.authentication.utils.JsonWebToken;
+import com.musicApp.backend.features.authentication.utils.RateLimitExceededException;
+import com.musicApp.backend.features.authentication.utils.RateLimiter;
 
+import io.jsonwebtoken.Jwts;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -19,6 +27,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -45,6 +55,25 @@ class AuthenticationControllerTest {
     @MockBean
     private EmailService emailService;
 
+    @MockBean
+    private PresenceRegistry presenceRegistry;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @MockBean
+    private RateLimiter rateLimiter;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    // Secured requests pass through AuthenticationFilter, which verifies the bearer token once
+    @BeforeEach
+    void stubTokenVerification() {
+        when(jsonWebToken.verifyToken(anyString())).thenReturn(
+                Jwts.claims().subject("test@example.com").build());
+    }
+
     // -----------------------------------------------------
     // LOGIN TESTS                              
     // -----------------------------------------------------
@@ -103,6 +132,30 @@ class AuthenticationControllerTest {
 
     }
 
+    // Rate-limited Login
+    @Test
+    void loginPage_RateLimited() throws Exception {
+
+        AuthenticationRequestBody request = new AuthenticationRequestBody(
+                "Test",
+                "Testing",
+                "test",
+                "test@example.com",
+                "password"
+        );
+
+        doThrow(new RateLimitExceededException(30))
+                .when(rateLimiter).check(eq("login"), any(String[].class));
+
+        mockMvc.perform(post("/api/v1/authentication/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "30"));
+
+        verifyNoInteractions(authenticationService);
+    }
+
     // -----------------------------------------------------
     // EMAIL VERIFICATION TESTS           verifyEmail method
     // -----------------------------------------------------
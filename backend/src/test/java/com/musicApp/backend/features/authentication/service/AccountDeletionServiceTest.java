@@ -0,0 +1,131 @@
+package com.musicApp.backend.features.authentication.service;
+
+import com.musicApp.backend.features.authentication.model.AccountDeletionJob;
+import com.musicApp.backend.features.authentication.repository.AccountDeletionJobRepository;
+import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountDeletionServiceTest {
+
+    @Mock
+    private AccountDeletionJobRepository jobRepository;
+
+    @Mock
+    private AuthenticationUserRepository userRepository;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private AuthenticatedUserCache userCache;
+
+    @Mock
+    private PresenceRegistry presenceRegistry;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Query query;
+
+    private AccountDeletionService service;
+    private AccountDeletionJob job;
+
+    @BeforeEach
+    void setUp() {
+        service = new AccountDeletionService(jobRepository, userRepository, tokenRevocationService, userCache,
+                presenceRegistry, availabilityIndex, transactionManager, 500);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        job = new AccountDeletionJob(5L, "bob", "bob@test.com");
+        ReflectionTestUtils.setField(job, "id", 1L);
+        when(jobRepository.claimNext()).thenReturn(Optional.of(job));
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+    }
+
+    // A job whose chunks come back short moves through every step and frees the user's names at the end
+    @Test
+    void processPendingJobs_RunsAJobThroughEveryStep() {
+        when(query.executeUpdate()).thenReturn(0);
+
+        for (int run = 0; run < 100 && !job.isDone(); run++) {
+            service.processPendingJobs();
+        }
+
+        assertTrue(job.isDone());
+        assertNotNull(job.getCompletedAt());
+        assertEquals(AccountDeletionJob.Step.values().length - 1, service.getChunkCount());
+        assertEquals(1, service.getCompletedCount());
+        assertEquals(0, service.getFailureCount());
+        verify(availabilityIndex).release("bob", "bob@test.com");
+
+        ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(entityManager, atLeastOnce()).createNativeQuery(statements.capture());
+        List<String> sql = statements.getAllValues();
+        int postsDeleted = sql.indexOf("DELETE FROM posts WHERE author_id = :userId ORDER BY id LIMIT :limit");
+        int userDeleted = sql.indexOf("DELETE FROM users WHERE id = :userId LIMIT :limit");
+        assertEquals(sql.size() - 1, userDeleted);
+        // Likes, comments, friendships and notifications added late are cleared right before their parents go
+        assertTrue(sql.get(postsDeleted - 2).startsWith("DELETE FROM posts_likes WHERE post_id IN"));
+        assertTrue(sql.get(postsDeleted - 1).startsWith("DELETE FROM comments WHERE post_id IN"));
+        assertTrue(sql.get(userDeleted - 1).startsWith("DELETE FROM friendship"));
+        assertTrue(sql.get(userDeleted - 2).startsWith("DELETE FROM notifications"));
+        verify(query, times(sql.size() - 2)).setParameter("limit", 500);
+    }
+
+    // A full chunk keeps the job on its step until a short one shows the step is finished
+    @Test
+    void processPendingJobs_StaysOnAStepWhileChunksAreFull() {
+        when(query.executeUpdate()).thenReturn(500, 500, 499);
+
+        service.processPendingJobs();
+        assertEquals(AccountDeletionJob.Step.LIKES, job.getStep());
+
+        service.processPendingJobs();
+        assertEquals(AccountDeletionJob.Step.LIKES_ON_POSTS, job.getStep());
+        assertEquals(999, job.getRowsDeleted());
+    }
+
+    // A failed chunk leaves the saved job on its step and records the error
+    @Test
+    void processPendingJobs_RecordsAFailedChunk() {
+        AccountDeletionJob saved = new AccountDeletionJob(5L, "bob", "bob@test.com");
+        when(query.executeUpdate()).thenThrow(new IllegalStateException("foreign key"));
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(saved));
+
+        service.processPendingJobs();
+
+        assertEquals(AccountDeletionJob.Step.LIKES, saved.getStep());
+        assertEquals(1, saved.getAttempts());
+        assertEquals("foreign key", saved.getLastError());
+        verify(jobRepository).save(saved);
+        assertEquals(1, service.getFailureCount());
+        assertEquals(0, service.getChunkCount());
+        verifyNoInteractions(availabilityIndex);
+    }
+}
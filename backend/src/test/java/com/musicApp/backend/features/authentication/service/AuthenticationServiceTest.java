@@ -7,6 +7,8 @@ import com.musicApp.backend.features.authentication.dto.AuthenticationResponseBo
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
 import com.musicApp.backend.features.authentication.utils.JsonWebToken;
+import com.musicApp.backend.features.authentication.utils.PasswordHasher;
+import com.musicApp.backend.features.email.service.EmailOutboxService;
 
 import org.junit.jupiter.api.Test;
 import java.util.Optional;
@@ -35,6 +37,27 @@ class AuthenticationServiceTest {
     @Mock
     private JsonWebToken jwt;
 
+    @Mock
+    private AuthenticatedUserCache userCache;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private PresenceRegistry presenceRegistry;
+
+    @Mock
+    private EmailOutboxService emailOutbox;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private AccountDeletionService accountDeletionService;
+
     @InjectMocks
     private AuthenticationService authService;
 
@@ -103,19 +126,32 @@ class AuthenticationServiceTest {
     @Test
     void login_InvalidPassword() {
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
-        when(encoder.matches("wrongPass", testUser.getPassword())).thenReturn(false);
+        when(passwordHasher.matches("wrongPass", testUser.getPassword())).thenReturn(false);
         AuthenticationRequestBody loginReq = new AuthenticationRequestBody();
         loginReq.setEmail("test@example.com");
         loginReq.setPassword("wrongPass");
         assertThrows(IllegalArgumentException.class, () -> authService.login(loginReq));
     }
 
+    // Account queued for deletion
+    @Test
+    void login_DisabledUser() {
+        testUser.setDisabled(true);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        AuthenticationRequestBody loginReq = new AuthenticationRequestBody();
+        loginReq.setEmail("test@example.com");
+        loginReq.setPassword("password");
+        assertThrows(IllegalArgumentException.class, () -> authService.login(loginReq));
+        verifyNoInteractions(passwordHasher, jwt);
+    }
+
     // Successful login
     @Test
     void login_Success() {
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
-        when(encoder.matches("password", testUser.getPassword())).thenReturn(true);
-        when(jwt.generateToken("test@example.com")).thenReturn("jwtToken");
+        when(passwordHasher.matches("password", testUser.getPassword())).thenReturn(true);
+        when(passwordHasher.needsRehash(testUser.getPassword())).thenReturn(false);
+        when(jwt.generateToken(testUser)).thenReturn("jwtToken");
 
         AuthenticationRequestBody loginReq = new AuthenticationRequestBody();
         loginReq.setEmail("test@example.com");
@@ -124,5 +160,79 @@ class AuthenticationServiceTest {
         AuthenticationResponseBody response = authService.login(loginReq);
         assertEquals("jwtToken", response.getToken());
         assertTrue(testUser.isLoginStatus());
+        assertEquals("encodedPass", testUser.getPassword());
+        verify(presenceRegistry).heartbeat(testUser.getId(), "test");
+        verify(userRepository, never()).save(any());
+    }
+
+    // Successful login with a legacy hash upgrades it
+    @Test
+    void login_RehashesLegacyPassword() {
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches("password", "encodedPass")).thenReturn(true);
+        when(passwordHasher.needsRehash("encodedPass")).thenReturn(true);
+        when(passwordHasher.hash("password")).thenReturn("pbkdf2$1$salt$hash");
+        when(jwt.generateToken(testUser)).thenReturn("jwtToken");
+
+        AuthenticationRequestBody loginReq = new AuthenticationRequestBody();
+        loginReq.setEmail("test@example.com");
+        loginReq.setPassword("password");
+
+        authService.login(loginReq);
+        assertEquals("pbkdf2$1$salt$hash", testUser.getPassword());
+        verify(userRepository).save(testUser);
+        verify(userCache).invalidate(testUser);
+    }
+
+    // -------------------------
+    // register tests
+    // -------------------------
+
+    // Successful registration stores the user with a single insert
+    @Test
+    void register_SavesOnce() {
+        when(jwt.generateToken(any(AuthenticationUser.class))).thenReturn("jwtToken");
+        AuthenticationRequestBody registerReq = new AuthenticationRequestBody("New", "User", "newuser", "new@example.com", "password");
+
+        AuthenticationResponseBody response = authService.register(registerReq);
+
+        assertEquals("jwtToken", response.getToken());
+        verify(availabilityIndex).reserve("newuser", "new@example.com");
+        verify(userRepository, times(1)).save(any(AuthenticationUser.class));
+    }
+
+    // Taken username or email is rejected before any insert
+    @Test
+    void register_NameTaken() {
+        doThrow(new IllegalArgumentException("Username already taken."))
+                .when(availabilityIndex).reserve("test", "other@example.com");
+        AuthenticationRequestBody registerReq = new AuthenticationRequestBody("Test", "Testing", "test", "other@example.com", "password");
+
+        assertThrows(IllegalArgumentException.class, () -> authService.register(registerReq));
+        verify(userRepository, never()).save(any());
+    }
+
+    // -------------------------
+    // linkSpotifyAccount tests
+    // -------------------------
+
+    // A Spotify account already linked to another user moves to the new user
+    @Test
+    void linkSpotifyAccount_MovesFromPreviousUser() {
+        testUser.setId(1L);
+        AuthenticationUser previous = new AuthenticationUser("Old", "Owner", "old", "old@example.com", "encodedPass");
+        previous.setId(2L);
+        previous.setSpotifyUserId("spotify-1");
+        when(userRepository.findBySpotifyUserId("spotify-1")).thenReturn(Optional.of(previous));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(testUser)).thenReturn(testUser);
+
+        authService.linkSpotifyAccount(1L, "spotify-1");
+
+        assertNull(previous.getSpotifyUserId());
+        assertEquals("spotify-1", testUser.getSpotifyUserId());
+        verify(userRepository).saveAndFlush(previous);
+        verify(userCache).invalidateId(2L);
+        verify(userCache).invalidate(testUser);
     }
 }
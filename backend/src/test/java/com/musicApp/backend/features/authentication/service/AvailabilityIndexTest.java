@@ -0,0 +1,85 @@
+package com.musicApp.backend.features.authentication.service;
+
+import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+
+    @Mock
+    private AuthenticationUserRepository userRepository;
+
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AvailabilityIndex(userRepository, 100);
+        when(userRepository.findAllUsernames()).thenReturn(List.of("Alice", "bob"));
+        when(userRepository.findAllEmails()).thenReturn(List.of("alice@test.com", "bob@test.com"));
+        index.rebuild();
+    }
+
+    // Loaded names are taken regardless of case
+    @Test
+    void rebuild_LoadsTakenNames() {
+        assertFalse(index.isUsernameAvailable("alice"));
+        assertFalse(index.isEmailAvailable("BOB@test.com"));
+        assertTrue(index.isUsernameAvailable("carol"));
+        assertEquals(2, index.size());
+    }
+
+    // Names freed on another instance become available after a rebuild
+    @Test
+    void rebuild_FreesNamesNoLongerInTheTable() {
+        when(userRepository.findAllUsernames()).thenReturn(List.of("alice2"));
+        when(userRepository.findAllEmails()).thenReturn(List.of("alice@test.com"));
+
+        index.rebuild();
+
+        assertTrue(index.isUsernameAvailable("bob"));
+        assertTrue(index.isUsernameAvailable("Alice"));
+        assertFalse(index.isUsernameAvailable("alice2"));
+        assertTrue(index.isEmailAvailable("bob@test.com"));
+        assertDoesNotThrow(() -> index.reserve("bob", "bob@test.com"));
+    }
+
+    // Changes made while the table is read are kept by the new index
+    @Test
+    void rebuild_KeepsChangesMadeWhileLoading() {
+        when(userRepository.findAllUsernames()).thenAnswer(invocation -> {
+            index.reserve("carol", "carol@test.com");
+            index.release("bob", "bob@test.com");
+            return List.of("Alice", "bob");
+        });
+
+        index.rebuild();
+
+        assertFalse(index.isUsernameAvailable("carol"));
+        assertFalse(index.isEmailAvailable("carol@test.com"));
+        assertTrue(index.isUsernameAvailable("bob"));
+        assertTrue(index.isEmailAvailable("bob@test.com"));
+    }
+
+    // A taken username or email cannot be reserved or renamed to
+    @Test
+    void reserveAndRename_RejectTakenNames() {
+        assertThrows(IllegalArgumentException.class, () -> index.reserve("carol", "alice@test.com"));
+        assertThrows(IllegalArgumentException.class, () -> index.reserve("ALICE", "carol@test.com"));
+        assertTrue(index.isEmailAvailable("carol@test.com"));
+        assertThrows(IllegalArgumentException.class, () -> index.rename("bob", "alice"));
+
+        index.rename("bob", "bobby");
+
+        assertTrue(index.isUsernameAvailable("bob"));
+        assertFalse(index.isUsernameAvailable("bobby"));
+    }
+}
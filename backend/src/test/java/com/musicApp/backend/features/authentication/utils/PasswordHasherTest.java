@@ -0,0 +1,48 @@
+package com.musicApp.backend.features.authentication.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+
+    @BeforeEach
+    void setUp() {
+        hasher = new PasswordHasher(Mockito.mock(Encoder.class), 1, 4, 100, 5000, 1000);
+        hasher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    // A hash matches its own password only
+    @Test
+    void matches_AcceptsOnlyTheHashedPassword() {
+        String hash = hasher.hash("secret");
+
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("other", hash));
+    }
+
+    // Malformed stored hashes fail the check instead of throwing
+    @Test
+    void matches_RejectsMalformedHashes() {
+        String salt = "AAAAAAAAAAAAAAAAAAAAAA==";
+        String hash = hasher.hash("secret").split("\\$")[3];
+
+        assertFalse(hasher.matches("secret", "pbkdf2$x$" + salt + "$" + hash));
+        assertFalse(hasher.matches("secret", "pbkdf2$1000$not base64!$" + hash));
+        assertFalse(hasher.matches("secret", "pbkdf2$1000$" + salt + "$"));
+        assertFalse(hasher.matches("secret", "pbkdf2$0$" + salt + "$" + hash));
+        assertFalse(hasher.matches("secret", "pbkdf2$2147483647$" + salt + "$" + hash));
+        assertFalse(hasher.matches("secret", "pbkdf2$1000$" + salt));
+        assertFalse(hasher.matches("secret", "pbkdf2$1000$" + salt + "$" + hash + "$extra"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.musicApp.backend.features.authentication.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static RateLimiter limiter(int maxKeys, long capacity, long refillPerMinute) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("rate-limit.login.capacity", String.valueOf(capacity))
+                .withProperty("rate-limit.login.refill-per-minute", String.valueOf(refillPerMinute));
+        return new RateLimiter(environment, maxKeys);
+    }
+
+    // A key may spend its whole capacity, then is rejected with the wait until its next token
+    @Test
+    void check_RejectsOnceTheBucketIsEmpty() {
+        RateLimiter rateLimiter = limiter(100, 2, 1);
+        rateLimiter.check("login", "1.2.3.4");
+        rateLimiter.check("login", "1.2.3.4");
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.check("login", "1.2.3.4"));
+        assertTrue(exception.getRetryAfterSeconds() > 0);
+        rateLimiter.check("login", "5.6.7.8");
+        assertEquals(3, rateLimiter.getAllowedCount());
+        assertEquals(1, rateLimiter.getLimitedCount());
+    }
+
+    // A full map frees a tenth of its capacity at once, so the next new keys are added without another sweep
+    @Test
+    void check_EvictsATenthOfTheBuckets_whenFull() {
+        RateLimiter rateLimiter = limiter(100, 1, 1);
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.check("login", "key" + i);
+        }
+        assertEquals(100, rateLimiter.size());
+
+        rateLimiter.check("login", "key100");
+        assertEquals(91, rateLimiter.size());
+        assertEquals(10, rateLimiter.getEvictionCount());
+
+        for (int i = 101; i < 110; i++) {
+            rateLimiter.check("login", "key" + i);
+        }
+        assertEquals(100, rateLimiter.size());
+        assertEquals(10, rateLimiter.getEvictionCount());
+    }
+
+    // The scheduled sweep drops buckets that have refilled completely and keeps the rest
+    @Test
+    void evictIdle_RemovesOnlyRefilledBuckets() throws InterruptedException {
+        RateLimiter rateLimiter = limiter(100, 1, 60_000_000_000L);
+        rateLimiter.check("login", "1.2.3.4");
+        Thread.sleep(5);
+        rateLimiter.evictIdle();
+        assertEquals(0, rateLimiter.size());
+
+        RateLimiter slow = limiter(100, 1, 1);
+        slow.check("login", "1.2.3.4");
+        slow.evictIdle();
+        assertEquals(1, slow.size());
+        assertEquals(0, slow.getEvictionCount());
+    }
+}
@@ -0,0 +1,137 @@
+package com.musicApp.backend.features.email.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.musicApp.backend.features.authentication.utils.EmailService;
+import com.musicApp.backend.features.email.model.EmailOutboxMessage;
+import com.musicApp.backend.features.email.repository.EmailOutboxRepository;
+
+import jakarta.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailDispatcherTest {
+
+    // Local SMTP server standing in for Gmail
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailDispatcher dispatcherFor(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return new EmailDispatcher(outboxRepository, new EmailService(mailSender), transactionManager,
+                50, 3, 30, 3600, 300, 7);
+    }
+
+    private void claim(List<EmailOutboxMessage> messages) {
+        when(outboxRepository.claimDue(any(LocalDateTime.class), eq(50))).thenReturn(messages);
+        when(outboxRepository.saveAll(messages)).thenReturn(messages);
+    }
+
+    // Due messages are delivered in one batch and marked as sent
+    @Test
+    void dispatch_SendsBatch() throws Exception {
+        EmailOutboxMessage first = new EmailOutboxMessage("a@example.com", "Email Verification", "Code 12345");
+        EmailOutboxMessage second = new EmailOutboxMessage("b@example.com", "Password Reset", "Code 67890");
+        claim(List.of(first, second));
+
+        int delivered = dispatcherFor(ServerSetupTest.SMTP.getPort()).dispatch();
+
+        assertEquals(2, delivered);
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("Email Verification", received[0].getSubject());
+        assertEquals(EmailOutboxMessage.Status.SENT, first.getStatus());
+        assertEquals(EmailOutboxMessage.Status.SENT, second.getStatus());
+        // The codes are not kept once delivered
+        assertEquals("", first.getBody());
+        verify(outboxRepository, times(2)).saveAll(List.of(first, second));
+    }
+
+    // A claimed batch is hidden from other instances until it is sent or retried
+    @Test
+    void dispatch_PushesClaimedMessagesBackWhileSending() {
+        EmailOutboxMessage message = new EmailOutboxMessage("a@example.com", "Email Verification", "Code 12345");
+        when(outboxRepository.claimDue(any(LocalDateTime.class), eq(50))).thenReturn(List.of(message));
+        when(outboxRepository.saveAll(List.of(message))).thenAnswer(invocation -> {
+            assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(200)));
+            return List.of(message);
+        }).thenReturn(List.of(message));
+
+        dispatcherFor(ServerSetupTest.SMTP.getPort()).dispatch();
+
+        verify(outboxRepository, times(2)).saveAll(List.of(message));
+    }
+
+    // Nothing is sent when every due message is claimed by another instance
+    @Test
+    void dispatch_DoesNothingWhenNothingIsClaimed() {
+        claim(List.of());
+
+        assertEquals(0, dispatcherFor(ServerSetupTest.SMTP.getPort()).dispatch());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    // Finished messages older than the retention period are purged
+    @Test
+    void purge_DeletesFinishedMessagesPastRetention() {
+        when(outboxRepository.deleteFinishedBefore(any(LocalDateTime.class))).thenReturn(4);
+        EmailDispatcher dispatcher = dispatcherFor(ServerSetupTest.SMTP.getPort());
+
+        assertEquals(4, dispatcher.purge());
+
+        verify(outboxRepository).deleteFinishedBefore(argThat(before ->
+                before.isBefore(LocalDateTime.now().minusDays(6)) && before.isAfter(LocalDateTime.now().minusDays(8))));
+        assertEquals(4, dispatcher.getPurgedCount());
+    }
+
+    // An unreachable server leaves the message pending with a backoff
+    @Test
+    void dispatch_SchedulesRetryOnFailure() {
+        EmailOutboxMessage message = new EmailOutboxMessage("a@example.com", "Email Verification", "Code 12345");
+        claim(List.of(message));
+
+        int delivered = dispatcherFor(ServerSetupTest.SMTP.getPort() + 1).dispatch();
+
+        assertEquals(0, delivered);
+        assertEquals(EmailOutboxMessage.Status.PENDING, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(20)));
+    }
+
+    // The last allowed attempt marks the message as failed
+    @Test
+    void dispatch_GivesUpAfterMaxAttempts() {
+        EmailOutboxMessage message = new EmailOutboxMessage("a@example.com", "Email Verification", "Code 12345");
+        message.setAttempts(2);
+        claim(List.of(message));
+
+        dispatcherFor(ServerSetupTest.SMTP.getPort() + 1).dispatch();
+
+        assertEquals(EmailOutboxMessage.Status.FAILED, message.getStatus());
+        assertEquals(3, message.getAttempts());
+        assertEquals("", message.getBody());
+    }
+}
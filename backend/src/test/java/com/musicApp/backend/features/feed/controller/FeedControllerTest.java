@@ -0,0 +1,104 @@
+package com.musicApp.backend.features.feed.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import com.musicApp.backend.controller.ETags;
+import com.musicApp.backend.features.authentication.model.AuthenticatedPrincipal;
+import com.musicApp.backend.features.authentication.service.AuthenticatedUserCache;
+import com.musicApp.backend.features.feed.dto.FeedItem;
+import com.musicApp.backend.features.feed.dto.FeedPage;
+import com.musicApp.backend.features.feed.service.FeedService;
+import com.musicApp.backend.features.feed.service.FeedVersions;
+import com.musicApp.backend.features.feed.service.PostImageService;
+import com.musicApp.backend.features.feed.service.StoredVersions;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+class FeedControllerTest {
+
+    private FeedService feedService;
+    private StoredVersions storedVersions;
+    private FeedController feedController;
+
+    private final AuthenticatedPrincipal principal = new AuthenticatedPrincipal(1L, "user", "user@example.com", "token");
+    private final FeedPage<FeedItem> page = new FeedPage<>(List.of(), null);
+
+    @BeforeEach
+    void setUp() {
+        feedService = Mockito.mock(FeedService.class);
+        storedVersions = Mockito.mock(StoredVersions.class);
+        feedController = new FeedController(feedService, new FeedVersions(), storedVersions,
+                Mockito.mock(AuthenticatedUserCache.class), Mockito.mock(PostImageService.class));
+    }
+
+    private static ServletWebRequest get(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/feed");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+
+    @Test
+    void getFeedPosts_shouldReturnNotModified_whenThePageVersionIsUnchanged() {
+        when(feedService.getFeedVersion(1L, null, 10)).thenReturn("v1");
+        when(feedService.getFeedPage(1L, null, 10)).thenReturn(page);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertSame(page, feedController.getFeedPosts(principal, null, 10, get(null, first)).getBody());
+        String tag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(tag);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertNull(feedController.getFeedPosts(principal, null, 10, get(tag, second)));
+        assertEquals(304, second.getStatus());
+        verify(feedService, times(1)).getFeedPage(1L, null, 10);
+    }
+
+    @Test
+    void getFeedPosts_shouldReturnThePage_whenThePageVersionMoved() {
+        when(feedService.getFeedVersion(1L, null, 10)).thenReturn("v1", "v2");
+        when(feedService.getFeedPage(1L, null, 10)).thenReturn(page);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        feedController.getFeedPosts(principal, null, 10, get(null, first));
+        String tag = first.getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertSame(page, feedController.getFeedPosts(principal, null, 10, get(tag, second)).getBody());
+        assertEquals(200, second.getStatus());
+        assertNotEquals(tag, second.getHeader(HttpHeaders.ETAG));
+        verify(feedService, times(2)).getFeedPage(1L, null, 10);
+    }
+
+    @Test
+    void getPostsByUserId_shouldMatchTagsIssuedByAnyInstance() {
+        when(feedService.getPostsByUserIdVersion(2L, 1L, null, null)).thenReturn("v1");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String tag = ETags.ofStored("user", 2L, 1L, null, null, "v1");
+        assertNull(feedController.getPostsByUserId(2L, principal, null, null, get(tag, response)));
+        assertEquals(304, response.getStatus());
+        verify(feedService, never()).getPostsByUserIdPage(any(), any(), any(), any());
+    }
+
+    @Test
+    void getPost_shouldNotTagTheResponse_whenThePostHasNoStoredVersion() {
+        when(storedVersions.getPostVersion(5L, 1L)).thenReturn(null);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        feedController.getPost(5L, principal, get("\"anything\"", response));
+
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+        verify(feedService).viewPost(5L, 1L);
+    }
+}
@@ -0,0 +1,107 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import com.musicApp.backend.features.feed.repository.CommentRepository;
+import com.musicApp.backend.features.feed.repository.PostRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class AffinityIndexTest {
+
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private AffinityIndex affinityIndex;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = Mockito.mock(PostRepository.class);
+        commentRepository = Mockito.mock(CommentRepository.class);
+        affinityIndex = new AffinityIndex(postRepository, commentRepository, 1, 3, 14, 3, 100);
+    }
+
+    @Test
+    void topAuthors_shouldSeedFromLikesAndComments() {
+        when(postRepository.sumDecayedLikesByAuthor(eq(1L), any(), any(), anyDouble())).thenReturn(List.<Object[]>of(new Object[]{2L, 4L}, new Object[]{3L, 1L}));
+        when(commentRepository.sumDecayedCommentsByPostAuthor(eq(1L), any(), any(), anyDouble())).thenReturn(List.<Object[]>of(new Object[]{3L, 2L}));
+
+        Map<Long, Double> authors = affinityIndex.topAuthors(1L, 10);
+
+        assertEquals(4.0, authors.get(2L), 0.01);
+        assertEquals(7.0, authors.get(3L), 0.01);
+        affinityIndex.topAuthors(1L, 10);
+        verify(postRepository, times(1)).countLikesByAuthor(1L);
+        assertEquals(1, affinityIndex.getSeedCount());
+    }
+
+    @Test
+    void topAuthors_shouldSeedDecayedInteractions_fromARecentWindow() {
+        when(postRepository.sumDecayedLikesByAuthor(eq(1L), any(), any(), anyDouble())).thenReturn(List.<Object[]>of(new Object[]{2L, 0.5}));
+        when(commentRepository.sumDecayedCommentsByPostAuthor(eq(1L), any(), any(), anyDouble())).thenReturn(List.<Object[]>of(new Object[]{2L, 0.25}));
+
+        assertEquals(1.25, affinityIndex.topAuthors(1L, 10).get(2L), 0.01);
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(commentRepository).sumDecayedCommentsByPostAuthor(eq(1L), since.capture(), now.capture(), eq(14 * 24 * 60 * 60.0));
+        assertEquals(Duration.ofDays(7 * 14), Duration.between(since.getValue(), now.getValue()));
+    }
+
+    @Test
+    void topAuthors_shouldReturnOnlyTheStrongestAuthors() {
+        when(postRepository.sumDecayedLikesByAuthor(eq(1L), any(), any(), anyDouble())).thenReturn(List.<Object[]>of(
+                new Object[]{2L, 1L}, new Object[]{3L, 5L}, new Object[]{4L, 3L}));
+
+        assertEquals(Map.of(3L, 5.0, 4L, 3.0).keySet(), affinityIndex.topAuthors(1L, 2).keySet());
+    }
+
+    @Test
+    void record_shouldBeIgnored_untilTheUserIsSeeded() {
+        affinityIndex.recordLike(1L, 2L, true);
+        assertEquals(0, affinityIndex.getUpdateCount());
+
+        affinityIndex.topAuthors(1L, 10);
+        affinityIndex.recordLike(1L, 2L, true);
+        affinityIndex.recordComment(1L, 2L, true);
+        affinityIndex.recordLike(1L, 1L, true);
+
+        assertEquals(4.0, affinityIndex.topAuthors(1L, 10).get(2L), 0.01);
+        assertEquals(2, affinityIndex.getUpdateCount());
+    }
+
+    @Test
+    void record_shouldDropTheAuthor_whenTheScoreFallsToZero() {
+        affinityIndex.topAuthors(1L, 10);
+        affinityIndex.recordLike(1L, 2L, true);
+
+        affinityIndex.recordLike(1L, 2L, false);
+
+        assertTrue(affinityIndex.topAuthors(1L, 10).isEmpty());
+    }
+
+    @Test
+    void record_shouldDropTheWeakestAuthor_whenTheUserIsFull() {
+        when(postRepository.sumDecayedLikesByAuthor(eq(1L), any(), any(), anyDouble())).thenReturn(List.<Object[]>of(
+                new Object[]{2L, 1L}, new Object[]{3L, 5L}, new Object[]{4L, 3L}));
+        affinityIndex.topAuthors(1L, 10);
+
+        affinityIndex.recordComment(1L, 5L, true);
+
+        assertEquals(Map.of(3L, 0, 4L, 0, 5L, 0).keySet(), affinityIndex.topAuthors(1L, 10).keySet());
+        assertEquals(1, affinityIndex.getAuthorsDroppedCount());
+    }
+}
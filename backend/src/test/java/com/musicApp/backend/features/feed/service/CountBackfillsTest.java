@@ -0,0 +1,57 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.musicApp.backend.features.feed.repository.PostRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class CountBackfillsTest {
+
+    private PostRepository postRepository;
+    private JdbcTemplate jdbcTemplate;
+    private CountBackfills countBackfills;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = Mockito.mock(PostRepository.class);
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        countBackfills = new CountBackfills(postRepository, jdbcTemplate, Mockito.mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void run_shouldRecountComments_whenTheMarkerIsNew() {
+        when(jdbcTemplate.update(anyString(), eq(CountBackfills.COMMENT_COUNTS))).thenReturn(1);
+
+        countBackfills.run();
+
+        verify(postRepository).recountComments();
+    }
+
+    @Test
+    void run_shouldSkipTheRecount_whenTheMarkerExists() {
+        when(jdbcTemplate.update(anyString(), eq(CountBackfills.COMMENT_COUNTS))).thenReturn(0);
+
+        countBackfills.run();
+
+        verify(postRepository, never()).recountComments();
+    }
+
+    @Test
+    void run_shouldBackfillLikeCountsOnce_independentlyOfComments() {
+        when(jdbcTemplate.update(anyString(), eq(CountBackfills.COMMENT_COUNTS))).thenReturn(0);
+        when(jdbcTemplate.update(anyString(), eq(CountBackfills.LIKE_COUNTS))).thenReturn(1, 0);
+
+        countBackfills.run();
+        countBackfills.run();
+
+        verify(postRepository, times(1)).recountLikes();
+        verify(postRepository, never()).recountComments();
+    }
+}
@@ -0,0 +1,93 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import com.musicApp.backend.features.feed.model.FeedChange;
+import com.musicApp.backend.features.feed.repository.FeedChangeRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class FeedChangeLogTest {
+
+    private FeedChangeRepository feedChangeRepository;
+    private FeedChangeLog feedChangeLog;
+
+    @BeforeEach
+    void setUp() {
+        feedChangeRepository = Mockito.mock(FeedChangeRepository.class);
+        feedChangeLog = new FeedChangeLog(feedChangeRepository, 500, 2000, 7);
+    }
+
+    private FeedChange change(long id) {
+        FeedChange change = new FeedChange(FeedChange.Type.POST_SAVED, id * 10, null);
+        ReflectionTestUtils.setField(change, "id", id);
+        return change;
+    }
+
+    @Test
+    void read_shouldReturnSettledChangesAfterTheToken() {
+        when(feedChangeRepository.findFrom(eq(5L), any()))
+                .thenReturn(List.of(change(5), change(6), change(8), change(9)));
+        when(feedChangeRepository.findFirstIdYoungerThan(2_000_000L)).thenReturn(9L);
+
+        FeedChangeLog.Batch batch = feedChangeLog.read(5L);
+
+        assertFalse(batch.reset());
+        assertEquals(List.of(6L, 8L), batch.changes().stream().map(FeedChange::getId).toList());
+        assertEquals(8L, batch.token());
+    }
+
+    @Test
+    void read_shouldKeepTheToken_whenNothingChanged() {
+        when(feedChangeRepository.findFrom(eq(5L), any())).thenReturn(List.of(change(5)));
+
+        FeedChangeLog.Batch batch = feedChangeLog.read(5L);
+
+        assertFalse(batch.reset());
+        assertTrue(batch.changes().isEmpty());
+        assertEquals(5L, batch.token());
+        verify(feedChangeRepository, never()).findFirstIdYoungerThan(anyLong());
+    }
+
+    @Test
+    void read_shouldReturnEveryChange_whenAllHaveSettled() {
+        when(feedChangeRepository.findFrom(eq(5L), any())).thenReturn(List.of(change(5), change(6), change(7)));
+
+        FeedChangeLog.Batch batch = feedChangeLog.read(5L);
+
+        assertEquals(List.of(6L, 7L), batch.changes().stream().map(FeedChange::getId).toList());
+        assertEquals(7L, batch.token());
+    }
+
+    @Test
+    void read_shouldReset_whenTheTokenWasPruned() {
+        when(feedChangeRepository.findFrom(eq(5L), any())).thenReturn(List.of(change(7)));
+        when(feedChangeRepository.findFirstIdYoungerThan(2_000_000L)).thenReturn(12L);
+        when(feedChangeRepository.findLastIdBelow(12L)).thenReturn(11L);
+
+        FeedChangeLog.Batch batch = feedChangeLog.read(5L);
+
+        assertTrue(batch.reset());
+        assertTrue(batch.changes().isEmpty());
+        assertEquals(11L, batch.token());
+    }
+
+    @Test
+    void decodeToken_shouldRejectMalformedTokens() {
+        assertNull(FeedChangeLog.decodeToken(" "));
+        assertEquals(42L, FeedChangeLog.decodeToken("42"));
+        assertThrows(IllegalArgumentException.class, () -> FeedChangeLog.decodeToken("-1"));
+        assertThrows(IllegalArgumentException.class, () -> FeedChangeLog.decodeToken("abc"));
+    }
+}
@@ -0,0 +1,228 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musicApp.backend.features.feed.dto.FeedEvent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class FeedEventHubTest {
+
+    /** Sender tasks; run by the test instead of a thread pool. */
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    /**
+     * An emitter that keeps what is sent to it, since no response is attached.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new ArrayList<>();
+        private volatile boolean completed;
+
+        @Override
+        public synchronized void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            StringBuilder message = new StringBuilder();
+            items.forEach(item -> message.append(item.getData()));
+            sent.add(message.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        private synchronized List<String> postEvents() {
+            return sent.stream().filter(message -> message.contains("event:POST_")).toList();
+        }
+    }
+
+    /**
+     * A client that stops reading: every write blocks until the writing thread is interrupted.
+     */
+    private static final class StalledEmitter extends RecordingEmitter {
+        private final CountDownLatch writing = new CountDownLatch(1);
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            writing.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                throw new IOException("Write interrupted", e);
+            }
+        }
+    }
+
+    private FeedEventHub hub(int bufferSize, int maxPerUser) {
+        FeedEventHub hub = new FeedEventHub(new ObjectMapper(), bufferSize, maxPerUser, 60_000, 1, 0) {
+            @Override
+            SseEmitter createEmitter() {
+                return new RecordingEmitter();
+            }
+        };
+        ReflectionTestUtils.setField(hub, "sender", new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        return hub;
+    }
+
+    private void runSenders() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publish_shouldDropTheOldestEvents_whenAClientFallsBehind() {
+        FeedEventHub hub = hub(2, 3);
+        RecordingEmitter emitter = (RecordingEmitter) hub.subscribe(1L, List.of(2L));
+
+        hub.publish(FeedEvent.postCreated(10L, 2L));
+        hub.publish(FeedEvent.postCreated(11L, 2L));
+        hub.publish(FeedEvent.postCreated(12L, 2L));
+        runSenders();
+
+        List<String> events = emitter.postEvents();
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).contains("\"postId\":11"));
+        assertTrue(events.get(1).contains("\"postId\":12"));
+        assertEquals(2, hub.getDroppedCount());
+        assertEquals(2, hub.getDeliveredCount());
+    }
+
+    @Test
+    void publish_shouldReachTheSubscribersOfTheAuthor() {
+        FeedEventHub hub = hub(8, 3);
+        RecordingEmitter friend = (RecordingEmitter) hub.subscribe(1L, List.of(2L));
+        RecordingEmitter author = (RecordingEmitter) hub.subscribe(2L, List.of());
+        RecordingEmitter stranger = (RecordingEmitter) hub.subscribe(3L, List.of(4L));
+        runSenders();
+
+        hub.publish(FeedEvent.postCreated(10L, 2L));
+        runSenders();
+
+        assertEquals(1, friend.postEvents().size());
+        assertEquals(1, author.postEvents().size());
+        assertTrue(stranger.postEvents().isEmpty());
+        assertEquals(1, hub.getPublishedCount());
+    }
+
+    @Test
+    void subscribe_shouldCloseTheOldestStream_whenTheUserHasTooMany() {
+        FeedEventHub hub = hub(8, 2);
+        RecordingEmitter first = (RecordingEmitter) hub.subscribe(1L, List.of(2L));
+        RecordingEmitter second = (RecordingEmitter) hub.subscribe(1L, List.of(2L));
+        RecordingEmitter third = (RecordingEmitter) hub.subscribe(1L, List.of(2L));
+
+        hub.publish(FeedEvent.postCreated(10L, 2L));
+        runSenders();
+
+        assertTrue(first.completed);
+        assertFalse(second.completed);
+        assertTrue(first.postEvents().isEmpty());
+        assertEquals(1, second.postEvents().size());
+        assertEquals(1, third.postEvents().size());
+        assertEquals(2, hub.getSubscriberCount());
+        assertEquals(1, hub.getDisconnectCount());
+    }
+
+    @Test
+    void publish_shouldDeliverAfterTheTransactionCommits() {
+        FeedEventHub hub = hub(8, 3);
+        RecordingEmitter emitter = (RecordingEmitter) hub.subscribe(1L, List.of(2L));
+        TransactionSynchronizationManager.initSynchronization();
+
+        hub.publish(FeedEvent.postCreated(10L, 2L));
+        runSenders();
+        assertTrue(emitter.postEvents().isEmpty());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        runSenders();
+
+        assertEquals(1, emitter.postEvents().size());
+    }
+
+    @Test
+    void publish_shouldNotDeliver_whenTheTransactionRollsBack() {
+        FeedEventHub hub = hub(8, 3);
+        RecordingEmitter emitter = (RecordingEmitter) hub.subscribe(1L, List.of(2L));
+        TransactionSynchronizationManager.initSynchronization();
+
+        hub.publish(FeedEvent.postCreated(10L, 2L));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        runSenders();
+
+        assertTrue(emitter.postEvents().isEmpty());
+        assertEquals(0, hub.getPublishedCount());
+    }
+
+    @Test
+    void expireSlowSends_shouldCloseAStalledStream_andKeepTheOthersGoing() throws Exception {
+        StalledEmitter stalled = new StalledEmitter();
+        FeedEventHub hub = new FeedEventHub(new ObjectMapper(), 8, 3, 60_000, 1, 0) {
+            private boolean first = true;
+
+            @Override
+            SseEmitter createEmitter() {
+                if (first) {
+                    first = false;
+                    return stalled;
+                }
+                return new RecordingEmitter();
+            }
+        };
+        hub.init();
+        try {
+            hub.subscribe(1L, List.of(2L));
+            assertTrue(stalled.writing.await(5, TimeUnit.SECONDS));
+            RecordingEmitter other = (RecordingEmitter) hub.subscribe(3L, List.of(2L));
+
+            hub.expireSlowSends();
+            hub.publish(FeedEvent.postCreated(10L, 2L));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((other.postEvents().isEmpty() || !stalled.completed) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, other.postEvents().size());
+            assertTrue(stalled.completed);
+            assertEquals(1, hub.getExpiredCount());
+            assertEquals(1, hub.getSubscriberCount());
+        } finally {
+            hub.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FeedRankerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+    private FeedRanker feedRanker;
+
+    @BeforeEach
+    void setUp() {
+        feedRanker = new FeedRanker(24, 2);
+    }
+
+    private static FeedRanker.Candidate candidate(long postId, long authorId, int hoursOld, long likes) {
+        return new FeedRanker.Candidate(postId, authorId, NOW.minusHours(hoursOld), likes, 0);
+    }
+
+    private static List<Long> ids(List<FeedRanker.Ranked> ranked) {
+        return ranked.stream().map(FeedRanker.Ranked::postId).toList();
+    }
+
+    @Test
+    void score_shouldHalveAfterTheHalfLife() {
+        double fresh = feedRanker.score(candidate(1, 1, 0, 0), 0, NOW);
+        double dayOld = feedRanker.score(candidate(1, 1, 24, 0), 0, NOW);
+
+        assertEquals(1.0, fresh, 1e-9);
+        assertEquals(0.5, dayOld, 1e-9);
+    }
+
+    @Test
+    void score_shouldGrowWithAffinityAndEngagement() {
+        FeedRanker.Candidate post = new FeedRanker.Candidate(1L, 1L, NOW, 1, 1);
+
+        assertEquals(2 * (1 + Math.log1p(3)), feedRanker.score(post, 1, NOW), 1e-9);
+    }
+
+    @Test
+    void topK_shouldReturnTheHighestScoresFirst() {
+        Map<Long, List<FeedRanker.Candidate>> candidates = Map.of(
+                1L, List.of(candidate(10, 1, 0, 0), candidate(11, 1, 48, 0)),
+                2L, List.of(candidate(20, 2, 1, 0)));
+
+        List<FeedRanker.Ranked> ranked = feedRanker.topK(candidates, Map.of(2L, 3.0), NOW, Set.of(), 2);
+
+        assertEquals(List.of(20L, 10L), ids(ranked));
+        assertTrue(ranked.get(0).score() > ranked.get(1).score());
+    }
+
+    @Test
+    void topK_shouldPreferAnOlderPost_whenItsEngagementOutweighsItsAge() {
+        Map<Long, List<FeedRanker.Candidate>> candidates = Map.of(
+                1L, List.of(candidate(10, 1, 0, 0), candidate(11, 1, 24, 1000)));
+
+        assertEquals(List.of(11L, 10L), ids(feedRanker.topK(candidates, Map.of(), NOW, Set.of(), 5)));
+    }
+
+    @Test
+    void topK_shouldSkipServedPosts() {
+        Map<Long, List<FeedRanker.Candidate>> candidates = Map.of(
+                1L, List.of(candidate(10, 1, 0, 0), candidate(11, 1, 1, 0), candidate(12, 1, 2, 0)));
+
+        List<FeedRanker.Ranked> ranked = feedRanker.topK(candidates, Map.of(), NOW, Set.of(10L, 12L), 5);
+
+        assertEquals(List.of(11L), ids(ranked));
+    }
+
+    @Test
+    void topK_shouldBreakTiesByTheHigherId() {
+        Map<Long, List<FeedRanker.Candidate>> candidates = Map.of(
+                1L, List.of(candidate(10, 1, 5, 0)),
+                2L, List.of(candidate(30, 2, 5, 0)),
+                3L, List.of(candidate(20, 3, 5, 0)));
+
+        assertEquals(List.of(30L, 20L, 10L), ids(feedRanker.topK(candidates, Map.of(), NOW, Set.of(), 3)));
+        assertEquals(List.of(30L, 20L), ids(feedRanker.topK(candidates, Map.of(), NOW, Set.of(), 2)));
+        assertEquals(List.of(20L, 10L), ids(feedRanker.topK(candidates, Map.of(), NOW, Set.of(30L), 2)));
+    }
+
+    @Test
+    void topK_shouldReturnNothing_whenEveryPostWasServed() {
+        Map<Long, List<FeedRanker.Candidate>> candidates = Map.of(1L, List.of(candidate(10, 1, 0, 0)));
+
+        assertTrue(feedRanker.topK(candidates, Map.of(), NOW, Set.of(10L), 5).isEmpty());
+        assertEquals(1, feedRanker.getRankingCount());
+    }
+}
@@ -2,29 +2,60 @@ package com.musicApp.backend.features.feed.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
-import java.util.HashSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.musicApp.backend.features.authentication.model.AuthenticationUser;
 import com.musicApp.backend.features.authentication.repository.AuthenticationUserRepository;
+import com.musicApp.backend.features.feed.dto.CommentTarget;
+import com.musicApp.backend.features.feed.dto.FeedChanges;
+import com.musicApp.backend.features.feed.dto.FeedComment;
+import com.musicApp.backend.features.feed.dto.FeedCursor;
+import com.musicApp.backend.features.feed.dto.FeedEvent;
+import com.musicApp.backend.features.feed.dto.FeedItem;
+import com.musicApp.backend.features.feed.dto.FeedPage;
+import com.musicApp.backend.features.feed.dto.FeedPostRow;
+import com.musicApp.backend.features.feed.dto.LikeStatus;
 import com.musicApp.backend.features.feed.dto.PostDto;
+import com.musicApp.backend.features.feed.dto.PostLikeState;
+import com.musicApp.backend.features.feed.dto.RankedCursor;
 import com.musicApp.backend.features.feed.model.Comment;
+import com.musicApp.backend.features.feed.model.FeedChange;
 import com.musicApp.backend.features.feed.model.Post;
 import com.musicApp.backend.features.feed.repository.CommentRepository;
 import com.musicApp.backend.features.feed.repository.PostRepository;
+import com.musicApp.backend.features.friendship.service.FriendshipService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
 
 class FeedServiceTest {
 
     private PostRepository postRepository;
     private AuthenticationUserRepository userRepository;
     private CommentRepository commentRepository;
+    private FriendshipService friendshipService;
+    private TimelineService timelineService;
+    private LikeCounter likeCounter;
+    private FeedVersions feedVersions;
+    private StoredVersions storedVersions;
+    private AffinityIndex affinityIndex;
+    private PostImageService postImageService;
+    private FeedEventHub feedEventHub;
+    private PostSearchIndex postSearchIndex;
+    private FeedChangeLog feedChangeLog;
+    private ViewCounter viewCounter;
     private FeedService feedService;
 
     private AuthenticationUser author;
@@ -35,8 +66,21 @@ class FeedServiceTest {
         postRepository = Mockito.mock(PostRepository.class);
         userRepository = Mockito.mock(AuthenticationUserRepository.class);
         commentRepository = Mockito.mock(CommentRepository.class);
-
-        feedService = new FeedService(postRepository, userRepository, commentRepository);
+        friendshipService = Mockito.mock(FriendshipService.class);
+        timelineService = Mockito.mock(TimelineService.class);
+        likeCounter = Mockito.mock(LikeCounter.class);
+        feedVersions = new FeedVersions();
+        storedVersions = Mockito.mock(StoredVersions.class);
+        affinityIndex = Mockito.mock(AffinityIndex.class);
+        postImageService = Mockito.mock(PostImageService.class);
+        feedEventHub = Mockito.mock(FeedEventHub.class);
+        postSearchIndex = Mockito.mock(PostSearchIndex.class);
+        feedChangeLog = Mockito.mock(FeedChangeLog.class);
+        viewCounter = Mockito.mock(ViewCounter.class);
+
+        feedService = new FeedService(postRepository, userRepository, commentRepository, friendshipService,
+                timelineService, likeCounter, feedVersions, storedVersions, affinityIndex, new FeedRanker(24, 2), postImageService,
+                feedEventHub, postSearchIndex, feedChangeLog, viewCounter);
 
         author = new AuthenticationUser();
         author.setId(1L);
@@ -79,29 +123,32 @@ class FeedServiceTest {
     }
 
     @Test
-    void editPost_shouldUpdateAndSave_whenUserIsAuthor() {
+    void editPost_shouldUpdateInOneStatement_whenUserIsAuthor() {
         PostDto postDto = mock(PostDto.class);
         when(postDto.getContent()).thenReturn("Updated content");
         when(postDto.getPicture()).thenReturn("updated.jpg");
 
-        Post post = new Post("Old content", author);
-        post.setPicture("old.jpg");
+        Post post = new Post("Updated content", author);
+        post.setPicture("updated.jpg");
 
-        when(postRepository.findById(any())).thenReturn(Optional.of(post));
-        when(userRepository.findById(any())).thenReturn(Optional.of(author));
-        when(postRepository.save(post)).thenReturn(post);
+        when(postRepository.updateOwnPost(eq(10L), eq(1L), eq("Updated content"), eq("updated.jpg"), isNull(), any()))
+                .thenReturn(1);
+        when(postRepository.findById(10L)).thenReturn(Optional.of(post));
 
         Post result = feedService.editPost(10L, 1L, postDto);
 
         assertEquals("Updated content", result.getContent());
         assertEquals("updated.jpg", result.getPicture());
-        verify(postRepository).save(post);
+        verify(userRepository, never()).findById(any());
+        verify(postRepository, never()).save(any());
+        assertEquals(1L, feedVersions.getPostVersion(10L));
     }
 
     @Test
     void editPost_shouldThrowException_whenPostDoesNotExist() {
         PostDto postDto = mock(PostDto.class);
-        when(postRepository.findById(any())).thenReturn(Optional.empty());
+        when(postRepository.updateOwnPost(any(), any(), any(), any(), any(), any())).thenReturn(0);
+        when(postRepository.existsById(10L)).thenReturn(false);
 
         IllegalArgumentException ex = assertThrows(
                 IllegalArgumentException.class,
@@ -112,56 +159,278 @@ class FeedServiceTest {
     }
 
     @Test
-    void editPost_shouldThrowException_whenUserDoesNotExist() {
+    void editPost_shouldThrowException_whenUserIsNotAuthor() {
         PostDto postDto = mock(PostDto.class);
-        Post post = new Post("Old content", author);
-
-        when(postRepository.findById(any())).thenReturn(Optional.of(post));
-        when(userRepository.findById(any())).thenReturn(Optional.empty());
+        when(postRepository.updateOwnPost(any(), any(), any(), any(), any(), any())).thenReturn(0);
+        when(postRepository.existsById(10L)).thenReturn(true);
 
         IllegalArgumentException ex = assertThrows(
                 IllegalArgumentException.class,
-                () -> feedService.editPost(10L, 1L, postDto)
+                () -> feedService.editPost(10L, 2L, postDto)
         );
 
-        assertEquals("User not found", ex.getMessage());
+        assertEquals("User is not the author of the post", ex.getMessage());
+        verify(postRepository, never()).findById(any());
+        assertEquals(0L, feedVersions.getPostVersion(10L));
+    }
+
+    private FeedPostRow rowAt(long id, LocalDateTime creationDate) {
+        return rowAt(id, creationDate, 0L, 0L);
+    }
+
+    private FeedPostRow rowAt(long id, LocalDateTime creationDate, long likeCount, long commentCount) {
+        return new FeedPostRow(id, "Post " + id, null, null, creationDate, null, likeCount, commentCount,
+                1L, "authorUser", "Author", "User", null);
     }
 
     @Test
-    void editPost_shouldThrowException_whenUserIsNotAuthor() {
-        PostDto postDto = mock(PostDto.class);
-        Post post = new Post("Old content", author);
+    void getFeedPage_shouldReturnCursor_whenMorePostsExist() {
+        LocalDateTime now = LocalDateTime.now();
+        FeedPostRow newest = rowAt(3L, now);
+        FeedPostRow middle = rowAt(2L, now.minusMinutes(1));
+        FeedPostRow oldest = rowAt(1L, now.minusMinutes(2));
+        when(postRepository.findFeedRows(PageRequest.of(0, 3))).thenReturn(List.of(newest, middle, oldest));
 
-        when(postRepository.findById(any())).thenReturn(Optional.of(post));
-        when(userRepository.findById(any())).thenReturn(Optional.of(otherUser));
+        FeedPage<FeedItem> result = feedService.getFeedPage(1L, null, 2);
 
-        IllegalArgumentException ex = assertThrows(
-                IllegalArgumentException.class,
-                () -> feedService.editPost(10L, 2L, postDto)
-        );
+        assertEquals(List.of(3L, 2L), result.items().stream().map(FeedItem::id).toList());
+        assertEquals(new FeedCursor(middle.creationDate(), 2L), FeedCursor.decode(result.nextCursor()));
+    }
 
-        assertEquals("User is not the author of the post", ex.getMessage());
-        verify(postRepository, never()).save(any());
+    @Test
+    void getFeedPage_shouldContinueAfterCursor() {
+        LocalDateTime date = LocalDateTime.now();
+        FeedPostRow oldest = rowAt(1L, date.minusMinutes(2));
+        String cursor = new FeedCursor(date, 2L).encode();
+        when(postRepository.findFeedRowsBefore(date, 2L, PageRequest.of(0, 3))).thenReturn(List.of(oldest));
+
+        FeedPage<FeedItem> result = feedService.getFeedPage(1L, cursor, 2);
+
+        assertEquals(1, result.items().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getFeedPage_shouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> feedService.getFeedPage(1L, "not-a-cursor", 2));
+    }
+
+    // likedByMe and recent comments come from one query each for the whole page; counts come
+    // with the rows, like counts plus the changes not flushed yet
+    @Test
+    void getFeedPage_shouldAggregateCountsPerPage() {
+        LocalDateTime now = LocalDateTime.now();
+        List<FeedPostRow> rows = List.of(rowAt(2L, now, 4L, 0L), rowAt(1L, now.minusMinutes(1), 0L, 4L));
+        List<Long> ids = List.of(2L, 1L);
+        when(postRepository.findFeedRows(any())).thenReturn(rows);
+        when(likeCounter.pending(2L)).thenReturn(1L);
+        when(postRepository.findLikedPostIds(ids, 7L)).thenReturn(List.of(2L));
+        when(commentRepository.findRecentByPostIds(ids, FeedService.RECENT_COMMENTS))
+                .thenReturn(List.<Object[]>of(new Object[]{9L, 1L, 2L, "otherUser", "Nice", now}));
+
+        List<FeedItem> items = feedService.getFeedPage(7L, null, 10).items();
+
+        assertEquals(5L, items.get(0).likeCount());
+        assertTrue(items.get(0).likedByMe());
+        assertEquals(0L, items.get(0).commentCount());
+        assertEquals(0L, items.get(1).likeCount());
+        assertFalse(items.get(1).likedByMe());
+        assertEquals(4L, items.get(1).commentCount());
+        assertEquals("Nice", items.get(1).recentComments().get(0).content());
+        assertEquals("authorUser", items.get(1).author().username());
+        verify(postRepository, times(1)).findLikedPostIds(any(), any());
+        verify(commentRepository, times(1)).findRecentByPostIds(any(), anyInt());
     }
 
     @Test
-    void getFeedPosts_shouldReturnPostsFromRepository() {
-        List<Post> posts = List.of(mock(Post.class), mock(Post.class));
-        when(postRepository.findByAuthorIdNotOrderByCreationDateDesc(1L)).thenReturn(posts);
+    void getFriendsFeedPage_shouldReturnEmptyPage_whenTimelineIsEmpty() {
+        when(timelineService.read(1L, null, FeedService.DEFAULT_PAGE_SIZE + 1)).thenReturn(List.of());
 
-        List<Post> result = feedService.getFeedPosts(1L);
+        FeedPage<FeedItem> result = feedService.getFriendsFeedPage(1L, null, null);
 
-        assertEquals(posts, result);
+        assertTrue(result.items().isEmpty());
+        assertNull(result.nextCursor());
+        verifyNoInteractions(postRepository);
     }
 
     @Test
-    void getAllPosts_shouldReturnAllPosts() {
-        List<Post> posts = List.of(mock(Post.class), mock(Post.class));
-        when(postRepository.findAllByOrderByCreationDateDesc()).thenReturn(posts);
+    void getFriendsFeedPage_shouldLoadTimelinePostsInOrder_andSkipDeletedPosts() {
+        LocalDateTime now = LocalDateTime.now();
+        when(timelineService.read(1L, null, 3)).thenReturn(List.of(
+                new FeedCursor(now, 5L), new FeedCursor(now.minusMinutes(1), 4L), new FeedCursor(now.minusMinutes(2), 3L)));
+        when(postRepository.findFeedRowsByIds(List.of(5L, 4L))).thenReturn(List.of(rowAt(5L, now)));
 
-        List<Post> result = feedService.getAllPosts();
+        FeedPage<FeedItem> result = feedService.getFriendsFeedPage(1L, null, 2);
+
+        assertEquals(1, result.items().size());
+        assertEquals(5L, result.items().get(0).id());
+        assertEquals(new FeedCursor(now.minusMinutes(1), 4L), FeedCursor.decode(result.nextCursor()));
+    }
+
+    private StoredVersions.PostVersion versionOf(long id, LocalDateTime changedAt, boolean liked) {
+        return new StoredVersions.PostVersion(id, changedAt, changedAt, liked, 0L);
+    }
+
+    @Test
+    void getFeedVersion_shouldReadThePageRange_andIncludePendingLikes() {
+        LocalDateTime date = LocalDateTime.now();
+        FeedCursor after = new FeedCursor(date, 9L);
+        List<StoredVersions.PostVersion> versions = List.of(versionOf(8L, date, false), versionOf(7L, date, true));
+        when(storedVersions.getPageVersions(null, after, 3, 1L)).thenReturn(versions);
+
+        String version = feedService.getFeedVersion(1L, after.encode(), 2);
+        assertEquals(version, feedService.getFeedVersion(1L, after.encode(), 2));
+
+        when(likeCounter.pending(7L)).thenReturn(1L);
+        assertNotEquals(version, feedService.getFeedVersion(1L, after.encode(), 2));
+    }
+
+    @Test
+    void getFeedVersion_shouldChange_whenAPostOfThePageChanges() {
+        LocalDateTime date = LocalDateTime.now();
+        when(storedVersions.getPageVersions(null, null, FeedService.DEFAULT_PAGE_SIZE + 1, 1L))
+                .thenReturn(List.of(versionOf(2L, date, false), versionOf(1L, date, false)));
+        String version = feedService.getFeedVersion(1L, null, null);
+
+        when(storedVersions.getPageVersions(null, null, FeedService.DEFAULT_PAGE_SIZE + 1, 1L))
+                .thenReturn(List.of(versionOf(2L, date, false), versionOf(1L, date.plusNanos(1000), false)));
+        assertNotEquals(version, feedService.getFeedVersion(1L, null, null));
+
+        when(storedVersions.getPageVersions(null, null, FeedService.DEFAULT_PAGE_SIZE + 1, 1L))
+                .thenReturn(List.of(versionOf(2L, date, true), versionOf(1L, date, false)));
+        assertNotEquals(version, feedService.getFeedVersion(1L, null, null));
+    }
+
+    @Test
+    void getFriendsFeedVersion_shouldChange_whenATimelinePostIsDeleted() {
+        LocalDateTime now = LocalDateTime.now();
+        when(timelineService.read(1L, null, 3)).thenReturn(List.of(new FeedCursor(now, 5L), new FeedCursor(now, 4L)));
+        when(storedVersions.getPostVersions(List.of(5L, 4L), 1L))
+                .thenReturn(List.of(versionOf(4L, now, false), versionOf(5L, now, false)));
+        String version = feedService.getFriendsFeedVersion(1L, null, 2);
+
+        when(storedVersions.getPostVersions(List.of(5L, 4L), 1L)).thenReturn(List.of(versionOf(5L, now, false)));
+
+        assertNotEquals(version, feedService.getFriendsFeedVersion(1L, null, 2));
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void getHashtagPage_shouldLoadIndexedPostsNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        when(postSearchIndex.findByHashtag("jazz", null, 3)).thenReturn(List.of(9L, 7L, 4L));
+        when(postRepository.findFeedRowsByIds(List.of(9L, 7L)))
+                .thenReturn(List.of(rowAt(7L, now.minusMinutes(1)), rowAt(9L, now)));
+
+        FeedPage<FeedItem> result = feedService.getHashtagPage("jazz", 1L, null, 2);
+
+        assertEquals(List.of(9L, 7L), result.items().stream().map(FeedItem::id).toList());
+        assertEquals(new FeedCursor(now.minusMinutes(1), 7L), FeedCursor.decode(result.nextCursor()));
+    }
+
+    @Test
+    void searchPosts_shouldContinueAfterTheLastIdLookedUp_whenThePageIsAllDeletedPosts() {
+        LocalDateTime date = LocalDateTime.now();
+        String cursor = new FeedCursor(date, 10L).encode();
+        when(postSearchIndex.search("jazz", 10L, 3)).thenReturn(List.of(9L, 8L, 7L));
+        when(postRepository.findFeedRowsByIds(List.of(9L, 8L))).thenReturn(List.of());
+
+        FeedPage<FeedItem> result = feedService.searchPosts("jazz", 1L, cursor, 2);
+
+        assertTrue(result.items().isEmpty());
+        assertEquals(8L, FeedCursor.decode(result.nextCursor()).id());
+    }
+
+    @Test
+    void getChanges_shouldReturnTheLatestStateOfEachPostAndComment() {
+        LocalDateTime now = LocalDateTime.now();
+        when(feedChangeLog.read(7L)).thenReturn(new FeedChangeLog.Batch(12L, false, false, List.of(
+                new FeedChange(FeedChange.Type.POST_SAVED, 10L, null),
+                new FeedChange(FeedChange.Type.COMMENT_SAVED, 10L, 3L),
+                new FeedChange(FeedChange.Type.POST_SAVED, 11L, null),
+                new FeedChange(FeedChange.Type.COMMENT_SAVED, 11L, 4L),
+                new FeedChange(FeedChange.Type.POST_DELETED, 11L, null))));
+        when(postRepository.findFeedRowsByIds(List.of(10L))).thenReturn(List.of(rowAt(10L, now)));
+        when(commentRepository.findRowsByIds(List.of(3L)))
+                .thenReturn(List.of(new FeedComment(3L, 10L, 2L, "otherUser", "Nice", now)));
+
+        FeedChanges result = feedService.getChanges(1L, "7");
+
+        assertEquals("12", result.token());
+        assertEquals(List.of(10L), result.posts().stream().map(FeedItem::id).toList());
+        assertEquals(List.of(11L), result.deletedPostIds());
+        assertEquals(List.of(3L), result.comments().stream().map(FeedComment::id).toList());
+        assertEquals(List.of(), result.deletedCommentIds());
+    }
+
+    @Test
+    void getRankedFeedPage_shouldRankByAffinity_andPageAfterTheCursor() {
+        LocalDateTime now = LocalDateTime.now();
+        when(friendshipService.getAcceptedFriendIds(1L)).thenReturn(List.of(2L, 3L));
+        when(affinityIndex.topAuthors(1L, FeedService.RANKED_AFFINITY_AUTHORS)).thenReturn(Map.of(3L, 5.0));
+        when(postRepository.findRankingCandidates(any(), any(), any(), anyDouble(), anyDouble(), anyInt())).thenReturn(List.of(
+                new Object[]{10L, 2L, Timestamp.valueOf(now), 0L, 0L},
+                new Object[]{12L, 2L, Timestamp.valueOf(now.minusDays(2)), 0L, 0L},
+                new Object[]{11L, 3L, Timestamp.valueOf(now.minusHours(1)), 0L, 0L}));
+        when(postRepository.findFeedRowsByIds(List.of(11L, 10L)))
+                .thenReturn(List.of(rowAt(10L, now), rowAt(11L, now.minusHours(1))));
+
+        FeedPage<FeedItem> first = feedService.getRankedFeedPage(1L, null, 2);
+
+        assertEquals(List.of(11L, 10L), first.items().stream().map(FeedItem::id).toList());
+        RankedCursor cursor = RankedCursor.decode(first.nextCursor());
+        assertEquals(List.of(11L, 10L), cursor.servedIds());
+        assertEquals(2, cursor.served());
+
+        // Post 10 gained likes since the first page; it is still not served again
+        when(postRepository.findRankingCandidates(any(), any(), eq(cursor.rankedAt()), anyDouble(), anyDouble(), eq(5)))
+                .thenReturn(List.of(
+                        new Object[]{10L, 2L, Timestamp.valueOf(now), 500L, 0L},
+                        new Object[]{12L, 2L, Timestamp.valueOf(now.minusDays(2)), 0L, 0L},
+                        new Object[]{11L, 3L, Timestamp.valueOf(now.minusHours(1)), 0L, 0L}));
+        when(postRepository.findFeedRowsByIds(List.of(12L))).thenReturn(List.of(rowAt(12L, now.minusDays(2))));
+
+        FeedPage<FeedItem> second = feedService.getRankedFeedPage(1L, first.nextCursor(), 2);
+
+        assertEquals(List.of(12L), second.items().stream().map(FeedItem::id).toList());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void createPost_shouldQueueUploadedPicture() {
+        String key = "posts/1/0b6f1f0e-5f33-4d0a-9a59-2f1d8f3c1a7e.png";
+        when(userRepository.findById(1L)).thenReturn(Optional.of(author));
+        when(postImageService.isUpload(key)).thenReturn(true);
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> {
+            Post post = invocation.getArgument(0);
+            post.setId(10L);
+            return post;
+        });
+
+        PostDto postDto = new PostDto();
+        postDto.setContent("Post content");
+        postDto.setPicture(key);
+        Post result = feedService.createPost(postDto, 1L);
 
-        assertEquals(posts, result);
+        assertEquals(Post.PictureStatus.PENDING, result.getPictureStatus());
+        verify(postImageService).checkOwnUpload(1L, key);
+        verify(postImageService).submit(10L, key);
+    }
+
+    @Test
+    void createPost_shouldFanOutToFriends() {
+        Post saved = new Post("Post content", author);
+        saved.setId(10L);
+        saved.setCreationDate(LocalDateTime.now());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(author));
+        when(postRepository.save(any(Post.class))).thenReturn(saved);
+        when(friendshipService.getAcceptedFriendIds(1L)).thenReturn(List.of(2L, 3L));
+
+        PostDto postDto = new PostDto();
+        postDto.setContent("Post content");
+        feedService.createPost(postDto, 1L);
+
+        verify(timelineService).fanOut(10L, saved.getCreationDate(), List.of(2L, 3L));
     }
 
     @Test
@@ -187,23 +456,52 @@ class FeedServiceTest {
     }
 
     @Test
-    void deletePost_shouldDeletePost_whenUserIsAuthor() {
-        Post post = new Post("Post content", author);
+    void viewPost_shouldCountViewsByOtherUsersOnly() {
+        when(postRepository.findFeedRowsByIds(List.of(10L))).thenReturn(List.of(rowAt(10L, LocalDateTime.now())));
 
-        when(postRepository.findById(any())).thenReturn(Optional.of(post));
-        when(userRepository.findById(any())).thenReturn(Optional.of(author));
+        assertEquals(10L, feedService.viewPost(10L, 2L).id());
+        feedService.viewPost(10L, 1L);
+
+        verify(viewCounter).postViewed(10L, 2L);
+        verify(viewCounter, never()).postViewed(10L, 1L);
+    }
+
+    @Test
+    void getFeedItem_shouldIncludePendingLikes_andTheViewersLike() {
+        when(postRepository.findFeedRowsByIds(List.of(10L))).thenReturn(List.of(rowAt(10L, LocalDateTime.now(), 3L, 1L)));
+        when(likeCounter.pending(10L)).thenReturn(2L);
+        when(postRepository.findLikedPostIds(List.of(10L), 2L)).thenReturn(List.of(10L));
+
+        FeedItem item = feedService.getFeedItem(10L, 2L);
+
+        assertEquals(5L, item.likeCount());
+        assertEquals(1L, item.commentCount());
+        assertTrue(item.likedByMe());
+    }
+
+    @Test
+    void getFeedItem_shouldThrowException_whenNotFound() {
+        when(postRepository.findFeedRowsByIds(List.of(10L))).thenReturn(List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> feedService.getFeedItem(10L, 2L));
+    }
+
+    @Test
+    void deletePost_shouldDeletePost_whenUserIsAuthor() {
+        when(postRepository.deleteOwnPost(10L, 1L)).thenReturn(1);
 
         feedService.deletePost(10L, 1L);
 
-        verify(postRepository).delete(post);
+        verify(postRepository).deleteLikesOfOwnPost(10L, 1L);
+        verify(commentRepository).deleteOfOwnPost(10L, 1L);
+        verify(postRepository, never()).findById(any());
+        verify(feedEventHub).publish(FeedEvent.postDeleted(10L, 1L));
     }
 
     @Test
     void deletePost_shouldThrowException_whenUserIsNotAuthor() {
-        Post post = new Post("Post content", author);
-
-        when(postRepository.findById(any())).thenReturn(Optional.of(post));
-        when(userRepository.findById(any())).thenReturn(Optional.of(otherUser));
+        when(postRepository.deleteOwnPost(10L, 2L)).thenReturn(0);
+        when(postRepository.existsById(10L)).thenReturn(true);
 
         IllegalArgumentException ex = assertThrows(
                 IllegalArgumentException.class,
@@ -211,59 +509,71 @@ class FeedServiceTest {
         );
 
         assertEquals("User is not the author of the post", ex.getMessage());
-        verify(postRepository, never()).delete(any());
+        verify(timelineService, never()).removePost(any(), any());
     }
 
     @Test
-    void getPostsByUserId_shouldReturnPostsForThatUser() {
-        List<Post> posts = List.of(mock(Post.class));
-        when(postRepository.findByAuthorId(1L)).thenReturn(posts);
+    void getPostsByUserIdPage_shouldReturnPostsForThatUser() {
+        List<FeedPostRow> rows = List.of(rowAt(1L, LocalDateTime.now()));
+        when(postRepository.findFeedRowsByAuthor(1L, PageRequest.of(0, FeedService.DEFAULT_PAGE_SIZE + 1)))
+                .thenReturn(rows);
 
-        List<Post> result = feedService.getPostsByUserId(1L);
+        FeedPage<FeedItem> result = feedService.getPostsByUserIdPage(1L, 2L, null, null);
 
-        assertEquals(posts, result);
+        assertEquals(1, result.items().size());
+        assertEquals(1L, result.items().get(0).author().id());
+        assertNull(result.nextCursor());
+        verify(viewCounter).profileViewed(1L, 2L);
     }
 
     @Test
     void likePost_shouldAddLike_whenUserHasNotLikedYet() {
-        Post post = new Post("Post content", author);
-        if (post.getLikes() == null) {
-            post.setLikes(new HashSet<>());
-        }
-
-        when(postRepository.findById(any())).thenReturn(Optional.of(post));
-        when(userRepository.findById(any())).thenReturn(Optional.of(author));
-        when(postRepository.save(post)).thenReturn(post);
-
-        Post result = feedService.likePost(10L, 1L);
-
-        assertTrue(result.getLikes().contains(author));
-        verify(postRepository).save(post);
+        when(postRepository.findLikeState(10L)).thenReturn(Optional.of(new PostLikeState(2L, 3L)));
+        when(postRepository.addLike(10L, 1L)).thenReturn(1);
+        when(likeCounter.pending(10L)).thenReturn(1L);
+
+        LikeStatus result = feedService.likePost(10L, 1L);
+
+        assertTrue(result.liked());
+        assertEquals(4L, result.likeCount());
+        verify(likeCounter).add(10L, 1);
+        verify(affinityIndex).recordLike(1L, 2L, true);
+        verify(feedEventHub).publish(FeedEvent.likeChanged(10L, 2L, 1L, true, 4L));
+        assertEquals(1L, feedVersions.getPostVersion(10L));
+        verify(postRepository, never()).removeLike(any(), any());
+        verify(postRepository, never()).save(any());
     }
 
     @Test
     void likePost_shouldRemoveLike_whenUserAlreadyLiked() {
-        Post post = new Post("Post content", author);
-        HashSet<AuthenticationUser> likes = new HashSet<>();
-        likes.add(author);
-        post.setLikes(likes);
+        when(postRepository.findLikeState(10L)).thenReturn(Optional.of(new PostLikeState(2L, 3L)));
+        when(postRepository.addLike(10L, 1L)).thenReturn(0);
+        when(postRepository.removeLike(10L, 1L)).thenReturn(1);
+        when(likeCounter.pending(10L)).thenReturn(-1L);
 
-        when(postRepository.findById(any())).thenReturn(Optional.of(post));
-        when(userRepository.findById(any())).thenReturn(Optional.of(author));
-        when(postRepository.save(post)).thenReturn(post);
+        LikeStatus result = feedService.likePost(10L, 1L);
 
-        Post result = feedService.likePost(10L, 1L);
+        assertFalse(result.liked());
+        assertEquals(2L, result.likeCount());
+        verify(likeCounter).add(10L, -1);
+        verify(affinityIndex).recordLike(1L, 2L, false);
+    }
 
-        assertFalse(result.getLikes().contains(author));
-        verify(postRepository).save(post);
+    @Test
+    void likePost_shouldThrowException_whenPostDoesNotExist() {
+        when(postRepository.findLikeState(10L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> feedService.likePost(10L, 1L));
+        verify(postRepository, never()).addLike(any(), any());
     }
 
     @Test
-    void addComment_shouldSaveComment_whenPostAndUserExist() {
-        Post post = new Post("Post content", author);
+    void addComment_shouldSaveCommentWithReferences_whenPostExists() {
+        Post post = new Post("Post content", otherUser);
 
-        when(postRepository.findById(any())).thenReturn(Optional.of(post));
-        when(userRepository.findById(any())).thenReturn(Optional.of(author));
+        when(postRepository.findLikeState(10L)).thenReturn(Optional.of(new PostLikeState(2L, 0L)));
+        when(postRepository.getReferenceById(10L)).thenReturn(post);
+        when(userRepository.getReferenceById(1L)).thenReturn(author);
         when(commentRepository.save(any(Comment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Comment result = feedService.addComment(10L, 1L, "Nice post");
@@ -271,29 +581,61 @@ class FeedServiceTest {
         assertEquals("Nice post", result.getContent());
         assertEquals(author, result.getAuthor());
         assertEquals(post, result.getPost());
-        verify(commentRepository).save(any(Comment.class));
+        verify(postRepository, never()).findById(any());
+        verify(userRepository, never()).findById(any());
+        verify(postRepository).addToCommentCount(10L, 1);
+        verify(affinityIndex).recordComment(1L, 2L, true);
     }
 
     @Test
-    void editComment_shouldUpdateAndSave_whenUserIsAuthor() {
-        Comment comment = new Comment(new Post("Post content", author), author, "Old comment");
+    void addComment_shouldThrowException_whenPostDoesNotExist() {
+        when(postRepository.findLikeState(10L)).thenReturn(Optional.empty());
 
-        when(commentRepository.findById(any())).thenReturn(Optional.of(comment));
-        when(userRepository.findById(any())).thenReturn(Optional.of(author));
-        when(commentRepository.save(comment)).thenReturn(comment);
+        assertThrows(IllegalArgumentException.class, () -> feedService.addComment(10L, 1L, "Nice post"));
+        verify(commentRepository, never()).save(any());
+    }
+
+    @Test
+    void getCommentsPage_shouldReturnCursor_whenMoreCommentsExist() {
+        LocalDateTime now = LocalDateTime.now();
+        FeedComment newest = new FeedComment(3L, 10L, 2L, "otherUser", "Third", now);
+        FeedComment middle = new FeedComment(2L, 10L, 2L, "otherUser", "Second", now.minusMinutes(1));
+        FeedComment oldest = new FeedComment(1L, 10L, 1L, "authorUser", "First", now.minusMinutes(2));
+        when(commentRepository.findPageByPostId(10L, PageRequest.of(0, 3))).thenReturn(List.of(newest, middle, oldest));
+
+        FeedPage<FeedComment> result = feedService.getCommentsPage(10L, null, 2);
+
+        assertEquals(List.of(newest, middle), result.items());
+        assertEquals(new FeedCursor(middle.creationDate(), 2L), FeedCursor.decode(result.nextCursor()));
+        verify(postRepository, never()).existsById(any());
+    }
 
-        Comment result = feedService.editComment(5L, 1L, "Updated comment");
+    @Test
+    void getCommentsPage_shouldThrowException_whenPostDoesNotExist() {
+        when(commentRepository.findPageByPostId(eq(10L), any())).thenReturn(List.of());
+        when(postRepository.existsById(10L)).thenReturn(false);
 
-        assertEquals("Updated comment", result.getContent());
-        verify(commentRepository).save(comment);
+        assertThrows(IllegalArgumentException.class, () -> feedService.getCommentsPage(10L, null, null));
     }
 
     @Test
-    void editComment_shouldThrowException_whenUserIsNotAuthor() {
-        Comment comment = new Comment(new Post("Post content", author), author, "Old comment");
+    void editComment_shouldUpdateInOneStatement_whenUserIsAuthor() {
+        FeedComment updated = new FeedComment(5L, 10L, 1L, "authorUser", "Updated comment", LocalDateTime.now());
 
-        when(commentRepository.findById(any())).thenReturn(Optional.of(comment));
-        when(userRepository.findById(any())).thenReturn(Optional.of(otherUser));
+        when(commentRepository.updateOwnComment(eq(5L), eq(1L), eq("Updated comment"), any())).thenReturn(1);
+        when(commentRepository.findRow(5L)).thenReturn(Optional.of(updated));
+
+        FeedComment result = feedService.editComment(5L, 1L, "Updated comment");
+
+        assertEquals("Updated comment", result.content());
+        verify(commentRepository, never()).save(any());
+        assertEquals(1L, feedVersions.getPostVersion(10L));
+    }
+
+    @Test
+    void editComment_shouldThrowException_whenUserIsNotAuthor() {
+        when(commentRepository.updateOwnComment(eq(5L), eq(2L), any(), any())).thenReturn(0);
+        when(commentRepository.existsById(5L)).thenReturn(true);
 
         IllegalArgumentException ex = assertThrows(
                 IllegalArgumentException.class,
@@ -301,27 +643,46 @@ class FeedServiceTest {
         );
 
         assertEquals("User is not the author of the comment", ex.getMessage());
-        verify(commentRepository, never()).save(any());
+        verify(commentRepository, never()).findRow(any());
     }
 
     @Test
-    void deleteComment_shouldDeleteComment_whenUserIsAuthor() {
-        Comment comment = new Comment(new Post("Post content", author), author, "Comment");
+    void editComment_shouldThrowException_whenCommentDoesNotExist() {
+        when(commentRepository.updateOwnComment(eq(5L), eq(1L), any(), any())).thenReturn(0);
+        when(commentRepository.existsById(5L)).thenReturn(false);
 
-        when(commentRepository.findById(any())).thenReturn(Optional.of(comment));
-        when(userRepository.findById(any())).thenReturn(Optional.of(author));
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class,
+                () -> feedService.editComment(5L, 1L, "Updated comment")
+        );
+
+        assertEquals("Comment not found", ex.getMessage());
+    }
+
+    @Test
+    void deleteComment_shouldDeleteComment_whenUserIsAuthor() {
+        when(commentRepository.findOwnTarget(5L, 1L)).thenReturn(Optional.of(new CommentTarget(10L, 2L)));
+        when(commentRepository.deleteOwnComment(5L, 1L)).thenReturn(1);
 
         feedService.deleteComment(5L, 1L);
 
-        verify(commentRepository).delete(comment);
+        verify(postRepository).addToCommentCount(10L, -1);
+        verify(affinityIndex).recordComment(1L, 2L, false);
     }
 
     @Test
-    void deleteComment_shouldThrowException_whenUserIsNotAuthor() {
-        Comment comment = new Comment(new Post("Post content", author), author, "Comment");
+    void deleteComment_shouldNotLowerCount_whenDeletedConcurrently() {
+        when(commentRepository.findOwnTarget(5L, 1L)).thenReturn(Optional.of(new CommentTarget(10L, 2L)));
+        when(commentRepository.deleteOwnComment(5L, 1L)).thenReturn(0);
 
-        when(commentRepository.findById(any())).thenReturn(Optional.of(comment));
-        when(userRepository.findById(any())).thenReturn(Optional.of(otherUser));
+        assertThrows(IllegalArgumentException.class, () -> feedService.deleteComment(5L, 1L));
+        verify(postRepository, never()).addToCommentCount(any(), anyInt());
+    }
+
+    @Test
+    void deleteComment_shouldThrowException_whenUserIsNotAuthor() {
+        when(commentRepository.findOwnTarget(5L, 2L)).thenReturn(Optional.empty());
+        when(commentRepository.existsById(5L)).thenReturn(true);
 
         IllegalArgumentException ex = assertThrows(
                 IllegalArgumentException.class,
@@ -329,6 +690,6 @@ class FeedServiceTest {
         );
 
         assertEquals("User is not the author of the comment", ex.getMessage());
-        verify(commentRepository, never()).delete(any());
+        verify(commentRepository, never()).deleteOwnComment(any(), any());
     }
 }
\ No newline at end of file
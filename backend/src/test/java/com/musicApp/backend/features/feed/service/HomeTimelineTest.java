@@ -0,0 +1,130 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.musicApp.backend.features.feed.dto.FeedCursor;
+
+import org.junit.jupiter.api.Test;
+
+class HomeTimelineTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+    private static LocalDateTime at(int minute) {
+        return START.plusMinutes(minute);
+    }
+
+    private static List<Long> ids(HomeTimeline timeline) {
+        return timeline.read(null, Integer.MAX_VALUE).stream().map(FeedCursor::id).toList();
+    }
+
+    @Test
+    void add_shouldKeepTheNewestPosts_whenTheBufferIsFull() {
+        HomeTimeline timeline = new HomeTimeline(3);
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(timeline.add(i, at(i)));
+        }
+
+        assertEquals(3, timeline.size());
+        assertEquals(List.of(5L, 4L, 3L), ids(timeline));
+    }
+
+    @Test
+    void add_shouldIgnoreAPostOlderThanAFullBuffer() {
+        HomeTimeline timeline = new HomeTimeline(2);
+        timeline.add(2, at(2));
+        timeline.add(3, at(3));
+
+        assertFalse(timeline.add(1, at(1)));
+        assertEquals(List.of(3L, 2L), ids(timeline));
+    }
+
+    @Test
+    void add_shouldMoveAPostIntoPlace_whenItArrivesOutOfOrder() {
+        HomeTimeline timeline = new HomeTimeline(4);
+        timeline.add(1, at(1));
+        timeline.add(3, at(3));
+        timeline.add(2, at(2));
+        timeline.add(4, at(2));
+
+        assertEquals(List.of(3L, 4L, 2L, 1L), ids(timeline));
+    }
+
+    @Test
+    void add_shouldMoveAPostIntoPlace_whenTheRingHasWrapped() {
+        HomeTimeline timeline = new HomeTimeline(3);
+        for (int i = 1; i <= 4; i++) {
+            timeline.add(i * 10, at(i * 10));
+        }
+
+        assertTrue(timeline.add(35, at(35)));
+        assertTrue(timeline.add(33, at(33)));
+        assertFalse(timeline.add(25, at(25)));
+
+        assertEquals(List.of(40L, 35L, 33L), ids(timeline));
+    }
+
+    @Test
+    void add_shouldIgnoreAPostAlreadyOnTheTimeline() {
+        HomeTimeline timeline = new HomeTimeline(3);
+        timeline.add(1, at(1));
+
+        assertFalse(timeline.add(1, at(1)));
+        assertEquals(1, timeline.size());
+    }
+
+    @Test
+    void remove_shouldCloseTheGap_whenTheRingHasWrapped() {
+        HomeTimeline timeline = new HomeTimeline(3);
+        for (int i = 1; i <= 4; i++) {
+            timeline.add(i, at(i));
+        }
+
+        assertTrue(timeline.remove(3));
+        assertFalse(timeline.remove(1));
+        assertEquals(List.of(4L, 2L), ids(timeline));
+
+        timeline.add(5, at(5));
+        timeline.add(6, at(6));
+        assertEquals(List.of(6L, 5L, 4L), ids(timeline));
+    }
+
+    @Test
+    void read_shouldStartAfterTheCursor() {
+        HomeTimeline timeline = new HomeTimeline(5);
+        for (int i = 1; i <= 5; i++) {
+            timeline.add(i, at(i));
+        }
+
+        List<FeedCursor> page = timeline.read(new FeedCursor(at(4), 4L), 2);
+
+        assertEquals(List.of(new FeedCursor(at(3), 3L), new FeedCursor(at(2), 2L)), page);
+    }
+
+    @Test
+    void clear_shouldEmptyTheTimeline() {
+        HomeTimeline timeline = new HomeTimeline(2);
+        timeline.add(1, at(1));
+        timeline.add(2, at(2));
+        timeline.add(3, at(3));
+
+        timeline.clear();
+        timeline.add(4, at(4));
+
+        assertEquals(List.of(4L), ids(timeline));
+    }
+
+    @Test
+    void isFresh_shouldExpireAfterTheMaximumAge() {
+        HomeTimeline timeline = new HomeTimeline(2);
+        assertFalse(timeline.isFresh(0, 100));
+
+        timeline.markLoaded(1_000);
+
+        assertTrue(timeline.isFresh(1_099, 100));
+        assertFalse(timeline.isFresh(1_100, 100));
+    }
+}
@@ -0,0 +1,113 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.musicApp.backend.features.feed.repository.PostRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class LikeCounterTest {
+
+    private PostRepository postRepository;
+    private JdbcTemplate jdbcTemplate;
+    private LikeCounter likeCounter;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = Mockito.mock(PostRepository.class);
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        likeCounter = new LikeCounter(postRepository, jdbcTemplate, Mockito.mock(PlatformTransactionManager.class), false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Long> written() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        return rows.getValue().stream().collect(Collectors.toMap(row -> (Long) row[1], row -> (Long) row[0]));
+    }
+
+    @Test
+    void flush_shouldWriteTheSummedChangesOfEachPost() {
+        likeCounter.add(1L, 1);
+        likeCounter.add(1L, 1);
+        likeCounter.add(1L, 1);
+        likeCounter.add(1L, -1);
+        likeCounter.add(2L, 1);
+        likeCounter.add(3L, 1);
+        likeCounter.add(3L, -1);
+        assertEquals(2, likeCounter.pending(1L));
+
+        likeCounter.flush();
+
+        assertEquals(Map.of(1L, 2L, 2L, 1L, 3L, 0L), written());
+        assertEquals(0, likeCounter.pending(1L));
+        assertEquals(0, likeCounter.getPendingCount());
+        assertEquals(1, likeCounter.getFlushCount());
+    }
+
+    @Test
+    void flush_shouldDoNothing_whenNoChangeIsPending() {
+        likeCounter.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(0, likeCounter.getFlushCount());
+    }
+
+    @Test
+    void flush_shouldKeepChangesMadeWhileWriting() {
+        likeCounter.add(1L, 2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            likeCounter.add(1L, 5);
+            // The changes being written still count until the write commits
+            assertEquals(7, likeCounter.pending(1L));
+            return new int[]{1};
+        });
+
+        likeCounter.flush();
+
+        assertEquals(Map.of(1L, 2L), written());
+        assertEquals(5, likeCounter.pending(1L));
+    }
+
+    @Test
+    void flush_shouldKeepTheChanges_whenTheWriteFails() {
+        likeCounter.add(1L, 2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("down"));
+
+        likeCounter.flush();
+
+        assertEquals(2, likeCounter.pending(1L));
+        assertEquals(1, likeCounter.getFailureCount());
+
+        likeCounter.add(1L, 1);
+        Mockito.reset(jdbcTemplate);
+        likeCounter.flush();
+
+        assertEquals(Map.of(1L, 3L), written());
+        assertEquals(0, likeCounter.pending(1L));
+    }
+
+    @Test
+    void recount_shouldFlushBeforeRecounting() {
+        likeCounter.add(1L, 1);
+        when(postRepository.recountLikes()).thenReturn(4);
+
+        assertEquals(4, likeCounter.recount());
+
+        var order = inOrder(jdbcTemplate, postRepository);
+        order.verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        order.verify(postRepository).recountLikes();
+    }
+}
@@ -0,0 +1,120 @@
+package com.musicApp.backend.features.feed.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A local, in-memory stand-in for an S3-compatible store such as R2, for tests.
+ * It serves path-style PUT and GET of objects, accepting plain and aws-chunked
+ * bodies, and does not check signatures.
+ */
+final class LocalS3Server implements AutoCloseable {
+
+    private static final String NO_SUCH_KEY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message></Error>";
+
+    private record StoredObject(byte[] bytes, String contentType) {}
+
+    private final HttpServer server;
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    private LocalS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    static LocalS3Server start() throws IOException {
+        return new LocalS3Server();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    byte[] get(String bucket, String key) {
+        StoredObject object = objects.get(bucket + "/" + key);
+        return object == null ? null : object.bytes();
+    }
+
+    void put(String bucket, String key, byte[] bytes, String contentType) {
+        objects.put(bucket + "/" + key, new StoredObject(bytes, contentType));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath().substring(1);
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    byte[] body = exchange.getRequestBody().readAllBytes();
+                    String sha = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+                    String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+                    if ((sha != null && sha.startsWith("STREAMING-")) || (encoding != null && encoding.contains("aws-chunked"))) {
+                        body = decodeChunked(body);
+                    }
+                    objects.put(path, new StoredObject(body, exchange.getRequestHeaders().getFirst("Content-Type")));
+                    exchange.getResponseHeaders().add("ETag", "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET" -> {
+                    StoredObject object = objects.get(path);
+                    if (object == null) {
+                        byte[] error = NO_SUCH_KEY.getBytes(StandardCharsets.UTF_8);
+                        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+                        exchange.sendResponseHeaders(404, error.length);
+                        exchange.getResponseBody().write(error);
+                        return;
+                    }
+                    if (object.contentType() != null) {
+                        exchange.getResponseHeaders().add("Content-Type", object.contentType());
+                    }
+                    exchange.getResponseHeaders().add("ETag", "\"" + Integer.toHexString(Arrays.hashCode(object.bytes())) + "\"");
+                    exchange.sendResponseHeaders(200, object.bytes().length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(object.bytes());
+                    }
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    /**
+     * Strips the aws-chunked framing: {@code <hex size>[;extensions]\r\n<data>\r\n}
+     * repeated until a chunk of size 0.
+     */
+    private static byte[] decodeChunked(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < body.length) {
+            int lineEnd = position;
+            while (lineEnd + 1 < body.length && !(body[lineEnd] == '\r' && body[lineEnd + 1] == '\n')) {
+                lineEnd++;
+            }
+            String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.split(";")[0].trim(), 16);
+            position = lineEnd + 2;
+            if (size == 0) {
+                break;
+            }
+            out.write(body, position, size);
+            position += size + 2;
+        }
+        return out.toByteArray();
+    }
+}
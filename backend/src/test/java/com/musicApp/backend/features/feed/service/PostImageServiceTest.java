@@ -0,0 +1,243 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+
+import com.musicApp.backend.features.feed.dto.ImageUploadUrl;
+import com.musicApp.backend.features.feed.model.Post;
+import com.musicApp.backend.features.feed.repository.PostRepository;
+import com.musicApp.backend.profiles.config.R2Config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Runs the upload and resize flow against {@link LocalS3Server}, using the same
+ * client configuration as {@link R2Config}.
+ */
+class PostImageServiceTest {
+
+    private static final String BUCKET = "musicapp";
+
+    private LocalS3Server s3;
+    private S3Client s3Client;
+    private S3Presigner presigner;
+    private PostRepository postRepository;
+    private FeedVersions feedVersions;
+    private PostImageService postImageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3 = LocalS3Server.start();
+        R2Config config = new R2Config();
+        s3Client = config.r2Client("test", "test", s3.endpoint(), true);
+        presigner = config.r2Presigner("test", "test", s3.endpoint(), true);
+        postRepository = Mockito.mock(PostRepository.class);
+        feedVersions = new FeedVersions();
+        postImageService = new PostImageService(presigner, s3Client, postRepository, feedVersions,
+                BUCKET, s3.endpoint() + "/" + BUCKET + "/", 1, 10, 320, 1080, 0.8f);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Client.close();
+        presigner.close();
+        s3.close();
+    }
+
+    @Test
+    void uploadedPicture_shouldGetResizedVariants() throws IOException {
+        byte[] png = png(2000, 1000);
+        ImageUploadUrl upload = postImageService.createUploadUrl(1L, "image/png", (long) png.length);
+        String key = upload.objectKey();
+        assertTrue(key.startsWith("posts/1/") && key.endsWith(".png"));
+
+        HttpURLConnection connection = (HttpURLConnection) URI.create(upload.uploadUrl()).toURL().openConnection();
+        connection.setRequestMethod("PUT");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "image/png");
+        connection.setFixedLengthStreamingMode(png.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(png);
+        }
+        assertEquals(200, connection.getResponseCode());
+        assertArrayEquals(png, s3.get(BUCKET, key));
+
+        when(postRepository.updatePictureStatus(10L, key, Post.PictureStatus.READY)).thenReturn(1);
+        postImageService.process(10L, key);
+
+        BufferedImage small = ImageIO.read(new ByteArrayInputStream(s3.get(BUCKET, PostImageService.variantKey(key, "small"))));
+        BufferedImage medium = ImageIO.read(new ByteArrayInputStream(s3.get(BUCKET, PostImageService.variantKey(key, "medium"))));
+        assertEquals(320, small.getWidth());
+        assertEquals(160, small.getHeight());
+        assertEquals(1080, medium.getWidth());
+        assertEquals(540, medium.getHeight());
+        verify(postRepository).updatePictureStatus(10L, key, Post.PictureStatus.READY);
+        assertEquals(1L, feedVersions.getPostVersion(10L));
+        assertEquals(s3.endpoint() + "/" + BUCKET + "/" + PostImageService.variantKey(key, "small"),
+                postImageService.thumbnailUrl(key, Post.PictureStatus.READY));
+    }
+
+    @Test
+    void unreadablePicture_shouldBeMarkedFailed() {
+        String key = "posts/1/0b6f1f0e-5f33-4d0a-9a59-2f1d8f3c1a7e.png";
+        s3.put(BUCKET, key, "not an image".getBytes(StandardCharsets.UTF_8), "image/png");
+
+        postImageService.process(10L, key);
+
+        verify(postRepository).updatePictureStatus(10L, key, Post.PictureStatus.FAILED);
+        assertNull(s3.get(BUCKET, PostImageService.variantKey(key, "small")));
+        assertEquals(s3.endpoint() + "/" + BUCKET + "/" + key, postImageService.thumbnailUrl(key, Post.PictureStatus.FAILED));
+    }
+
+    @Test
+    void pictureThatBreaksTheDecoder_shouldBeMarkedFailed() {
+        String key = "posts/1/0b6f1f0e-5f33-4d0a-9a59-2f1d8f3c1a7e.png";
+        s3.put(BUCKET, key, "BOOM and then garbage".getBytes(StandardCharsets.UTF_8), "image/png");
+        ThrowingReaderSpi spi = new ThrowingReaderSpi();
+        IIORegistry.getDefaultInstance().registerServiceProvider(spi);
+        try {
+            postImageService.process(10L, key);
+        } finally {
+            IIORegistry.getDefaultInstance().deregisterServiceProvider(spi);
+        }
+
+        verify(postRepository).updatePictureStatus(10L, key, Post.PictureStatus.FAILED);
+        assertNull(s3.get(BUCKET, PostImageService.variantKey(key, "small")));
+    }
+
+    @Test
+    void missingPicture_shouldBeMarkedFailed() {
+        String key = "posts/1/0b6f1f0e-5f33-4d0a-9a59-2f1d8f3c1a7e.png";
+
+        postImageService.process(10L, key);
+
+        verify(postRepository).updatePictureStatus(10L, key, Post.PictureStatus.FAILED);
+    }
+
+    @Test
+    void createUploadUrl_shouldRejectUnsupportedTypesAndLargeFiles() {
+        assertThrows(IllegalArgumentException.class, () -> postImageService.createUploadUrl(1L, "image/gif", 100L));
+        assertThrows(IllegalArgumentException.class, () -> postImageService.createUploadUrl(1L, "image/png", 50L * 1024 * 1024));
+        assertThrows(IllegalArgumentException.class, () -> postImageService.createUploadUrl(1L, "image/png", null));
+    }
+
+    @Test
+    void checkOwnUpload_shouldRejectAnotherUsersKey() {
+        String key = "posts/2/0b6f1f0e-5f33-4d0a-9a59-2f1d8f3c1a7e.png";
+
+        assertDoesNotThrow(() -> postImageService.checkOwnUpload(2L, key));
+        assertThrows(IllegalArgumentException.class, () -> postImageService.checkOwnUpload(1L, key));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * An image reader that claims files starting with "BOOM" and fails on them with
+     * an unchecked exception, as some decoders do on malformed input.
+     */
+    private static final class ThrowingReaderSpi extends ImageReaderSpi {
+        ThrowingReaderSpi() {
+            inputTypes = new Class<?>[]{ImageInputStream.class};
+            names = new String[]{"throwing"};
+        }
+
+        @Override
+        public boolean canDecodeInput(Object source) throws IOException {
+            ImageInputStream input = (ImageInputStream) source;
+            byte[] magic = new byte[4];
+            input.mark();
+            try {
+                input.readFully(magic);
+            } catch (EOFException e) {
+                return false;
+            } finally {
+                input.reset();
+            }
+            return Arrays.equals(magic, "BOOM".getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public ImageReader createReaderInstance(Object extension) {
+            return new ImageReader(this) {
+                @Override
+                public int getNumImages(boolean allowSearch) {
+                    return 1;
+                }
+
+                @Override
+                public int getWidth(int imageIndex) {
+                    return 10;
+                }
+
+                @Override
+                public int getHeight(int imageIndex) {
+                    return 10;
+                }
+
+                @Override
+                public Iterator<ImageTypeSpecifier> getImageTypes(int imageIndex) {
+                    return Collections.emptyIterator();
+                }
+
+                @Override
+                public IIOMetadata getStreamMetadata() {
+                    return null;
+                }
+
+                @Override
+                public IIOMetadata getImageMetadata(int imageIndex) {
+                    return null;
+                }
+
+                @Override
+                public BufferedImage read(int imageIndex, ImageReadParam param) {
+                    throw new ArrayIndexOutOfBoundsException("Corrupt image data");
+                }
+            };
+        }
+
+        @Override
+        public String getDescription(Locale locale) {
+            return "Fails on every image";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import com.musicApp.backend.features.feed.model.FeedChange;
+import com.musicApp.backend.features.feed.repository.PostRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class PostSearchIndexTest {
+
+    private PostRepository postRepository;
+    private FeedChangeLog feedChangeLog;
+    private PostSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = Mockito.mock(PostRepository.class);
+        feedChangeLog = Mockito.mock(FeedChangeLog.class);
+        when(postRepository.findContentAfter(anyLong(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, "Live #Jazz tonight with @Miles.Davis"}));
+        when(feedChangeLog.read(null)).thenReturn(new FeedChangeLog.Batch(5L, true, false, List.of()));
+        index = new PostSearchIndex(postRepository, feedChangeLog, 256);
+        index.load();
+    }
+
+    @Test
+    void load_shouldIndexHashtagsMentionsAndWords() {
+        assertEquals(List.of(1L), index.findByHashtag("#jazz", null, 10));
+        assertEquals(List.of(1L), index.findByMention("miles.davis", null, 10));
+        assertEquals(List.of(1L), index.search("JAZZ tonight", null, 10));
+        assertEquals(List.of(), index.findByHashtag("tonight", null, 10));
+    }
+
+    @Test
+    void update_shouldReplaceTheTermsOfAnEditedPost() {
+        index.add(2L, "More #jazz");
+        index.update(1L, "Cancelled");
+
+        assertEquals(List.of(2L), index.findByHashtag("jazz", null, 10));
+        assertEquals(List.of(1L), index.search("cancelled", null, 10));
+        assertEquals(List.of(), index.findByMention("miles.davis", null, 10));
+    }
+
+    @Test
+    void update_shouldKeepTheTermsAnEditedPostStillHas() {
+        index.add(2L, "#jazz later");
+        index.update(1L, "Live #jazz, now at noon");
+        index.update(1L, "Live #jazz, now at noon");
+
+        assertEquals(List.of(2L, 1L), index.findByHashtag("jazz", null, 10));
+        assertEquals(List.of(1L), index.search("live noon", null, 10));
+        assertEquals(List.of(), index.search("tonight", null, 10));
+        assertEquals(2, index.getPostCount());
+    }
+
+    @Test
+    void search_shouldMatchEveryTerm_andPageBelowTheCursor() {
+        index.add(2L, "jazz tonight");
+        index.add(3L, "jazz tomorrow");
+        index.remove(3L);
+
+        assertEquals(List.of(2L, 1L), index.search("jazz", null, 10));
+        assertEquals(List.of(1L), index.search("tonight jazz", 2L, 10));
+        assertEquals(List.of(), index.search("jazz tomorrow", null, 10));
+        assertEquals(List.of(), index.search("  ", null, 10));
+    }
+
+    @Test
+    void sync_shouldApplyPostChangesMadeElsewhere() {
+        when(feedChangeLog.read(5L)).thenReturn(new FeedChangeLog.Batch(8L, false, false, List.of(
+                new FeedChange(FeedChange.Type.POST_SAVED, 2L, null),
+                new FeedChange(FeedChange.Type.COMMENT_SAVED, 2L, 9L),
+                new FeedChange(FeedChange.Type.POST_DELETED, 1L, null))));
+        when(postRepository.findContentByIds(Set.of(2L, 1L)))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, "Late #jazz set"}));
+
+        index.sync();
+
+        assertEquals(List.of(2L), index.findByHashtag("jazz", null, 10));
+        assertEquals(List.of(), index.search("tonight", null, 10));
+        assertEquals(1, index.getPostCount());
+        assertEquals(2, index.getSyncedCount());
+        verify(postRepository).findContentByIds(Set.of(2L, 1L));
+    }
+
+    @Test
+    void sync_shouldReload_whenTheChangeLogWasPrunedPastTheIndex() {
+        index.add(7L, "Only here #soon");
+        when(feedChangeLog.read(5L)).thenReturn(new FeedChangeLog.Batch(20L, true, false, List.of()));
+
+        index.sync();
+
+        assertEquals(List.of(), index.findByHashtag("soon", null, 10));
+        assertEquals(List.of(1L), index.findByHashtag("jazz", null, 10));
+        assertEquals(1, index.getReloadCount());
+    }
+}
@@ -0,0 +1,127 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.musicApp.backend.features.feed.dto.FeedCursor;
+import com.musicApp.backend.features.feed.model.TimelineEntry;
+import com.musicApp.backend.features.feed.repository.TimelineEntryRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class TimelineServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+    private TimelineEntryRepository timelineEntryRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        timelineEntryRepository = Mockito.mock(TimelineEntryRepository.class);
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    }
+
+    private TimelineService service(long refreshMillis) {
+        return new TimelineService(timelineEntryRepository, jdbcTemplate, new FeedVersions(),
+                Mockito.mock(StoredVersions.class), 3, 10, refreshMillis);
+    }
+
+    private static TimelineEntry entry(long postId) {
+        return new TimelineEntry(1L, postId, START.plusMinutes(postId));
+    }
+
+    private static List<Long> ids(List<FeedCursor> entries) {
+        return entries.stream().map(FeedCursor::id).toList();
+    }
+
+    @Test
+    void read_shouldLoadTheTimelineOnce_whileItIsFresh() {
+        TimelineService timelineService = service(60_000);
+        when(timelineEntryRepository.findNewest(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(entry(2), entry(1)));
+
+        assertEquals(List.of(2L, 1L), ids(timelineService.read(1L, null, 10)));
+        assertEquals(List.of(2L, 1L), ids(timelineService.read(1L, null, 10)));
+
+        verify(timelineEntryRepository, times(1)).findNewest(eq(1L), any(Pageable.class));
+        assertEquals(1, timelineService.getLoadCount());
+        assertEquals(1, timelineService.getCachedTimelineCount());
+    }
+
+    @Test
+    void read_shouldReloadTheTimeline_whenItIsNoLongerFresh() {
+        TimelineService timelineService = service(0);
+        when(timelineEntryRepository.findNewest(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(entry(2), entry(1)))
+                .thenReturn(List.of(entry(3), entry(1)));
+
+        timelineService.read(1L, null, 10);
+
+        // Post 2 was removed and post 3 pushed on another instance
+        assertEquals(List.of(3L, 1L), ids(timelineService.read(1L, null, 10)));
+        assertEquals(1, timelineService.getRefreshCount());
+    }
+
+    @Test
+    void read_shouldRebuildTheTimeline_whenTheTableHasNoEntries() {
+        TimelineService timelineService = service(60_000);
+        when(timelineEntryRepository.findNewest(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(entry(1)));
+        when(timelineEntryRepository.rebuild(1L, 3)).thenReturn(1);
+
+        assertEquals(List.of(1L), ids(timelineService.read(1L, null, 10)));
+        assertEquals(1, timelineService.getRebuildCount());
+    }
+
+    @Test
+    void fanOut_shouldPushThePostOntoLoadedTimelines() {
+        TimelineService timelineService = service(60_000);
+        when(timelineEntryRepository.findNewest(eq(1L), any(Pageable.class))).thenReturn(List.of(entry(1)));
+        timelineService.read(1L, null, 10);
+
+        timelineService.fanOut(5L, START.plusMinutes(5), List.of(1L, 2L));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        assertEquals(List.of(5L, 1L), ids(timelineService.read(1L, null, 10)));
+        assertEquals(1, timelineService.getCachedTimelineCount());
+        assertEquals(2, timelineService.getEntriesWrittenCount());
+    }
+
+    @Test
+    void fanOut_shouldDoNothing_whenThereAreNoReceivers() {
+        TimelineService timelineService = service(60_000);
+
+        timelineService.fanOut(5L, START, List.of());
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void removePost_shouldRemoveThePostFromTheTableAndLoadedTimelines() {
+        TimelineService timelineService = service(60_000);
+        when(timelineEntryRepository.findNewest(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(entry(2), entry(1)));
+        timelineService.read(1L, null, 10);
+
+        timelineService.removePost(2L, List.of(1L));
+
+        verify(timelineEntryRepository).deleteByPostId(2L);
+        assertEquals(List.of(1L), ids(timelineService.read(1L, null, 10)));
+    }
+}
@@ -0,0 +1,132 @@
+package com.musicApp.backend.features.feed.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import com.musicApp.backend.features.feed.utils.HyperLogLog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ViewCounterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ViewCounter viewCounter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        viewCounter = new ViewCounter(jdbcTemplate, Mockito.mock(PlatformTransactionManager.class));
+    }
+
+    private static HyperLogLog sketchOf(long from, long to) {
+        HyperLogLog sketch = new HyperLogLog(ViewCounter.PRECISION);
+        for (long id = from; id <= to; id++) {
+            sketch.add(id);
+        }
+        return sketch;
+    }
+
+    /**
+     * Makes the sketch reads of the posts table return the given stored sketches.
+     */
+    private void storePostSketches(Map<Long, byte[]> stored) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Long, byte[]> row : stored.entrySet()) {
+                ResultSet rs = Mockito.mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(row.getKey());
+                when(rs.getBytes(2)).thenReturn(row.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM posts"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> writtenPosts() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("UPDATE posts"), rows.capture());
+        return rows.getValue();
+    }
+
+    @Test
+    void flush_shouldMergeThePendingViewersIntoTheStoredSketch() throws Exception {
+        storePostSketches(Map.of(7L, sketchOf(1, 50).toBytes()));
+        for (long viewer = 26; viewer <= 100; viewer++) {
+            viewCounter.postViewed(7L, viewer);
+        }
+
+        viewCounter.flush();
+
+        List<Object[]> rows = writtenPosts();
+        assertEquals(1, rows.size());
+        assertEquals(sketchOf(1, 100), HyperLogLog.fromBytes((byte[]) rows.get(0)[0]));
+        assertEquals(sketchOf(1, 100).estimate(), rows.get(0)[1]);
+        assertEquals(7L, rows.get(0)[2]);
+        verify(jdbcTemplate).query(contains("FOR UPDATE"), any(RowCallbackHandler.class), any(Object[].class));
+        assertEquals(0, viewCounter.getPendingCount());
+    }
+
+    @Test
+    void flush_shouldStartANewSketch_whenNoneIsStored() throws Exception {
+        storePostSketches(Map.of(7L, new byte[0]));
+        viewCounter.postViewed(7L, 1L);
+        viewCounter.postViewed(7L, 1L);
+        viewCounter.postViewed(7L, 2L);
+
+        viewCounter.flush();
+
+        List<Object[]> rows = writtenPosts();
+        assertEquals(sketchOf(1, 2), HyperLogLog.fromBytes((byte[]) rows.get(0)[0]));
+        assertEquals(2L, rows.get(0)[1]);
+    }
+
+    @Test
+    void flush_shouldSkipDeletedRows() throws Exception {
+        storePostSketches(Map.of(7L, new byte[0]));
+        viewCounter.postViewed(7L, 1L);
+        viewCounter.postViewed(8L, 1L);
+
+        viewCounter.flush();
+
+        List<Object[]> rows = writtenPosts();
+        assertEquals(1, rows.size());
+        assertEquals(7L, rows.get(0)[2]);
+    }
+
+    @Test
+    void flush_shouldKeepThePendingViewers_whenTheWriteFails() throws Exception {
+        storePostSketches(Map.of(7L, new byte[0]));
+        for (long viewer = 1; viewer <= 20; viewer++) {
+            viewCounter.postViewed(7L, viewer);
+        }
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("down"));
+
+        viewCounter.flush();
+
+        assertEquals(1, viewCounter.getPendingCount());
+        assertEquals(1, viewCounter.getFailureCount());
+
+        viewCounter.postViewed(7L, 21L);
+        Mockito.reset(jdbcTemplate);
+        storePostSketches(Map.of(7L, new byte[0]));
+        viewCounter.flush();
+
+        assertEquals(sketchOf(1, 21), HyperLogLog.fromBytes((byte[]) writtenPosts().get(0)[0]));
+        assertEquals(0, viewCounter.getPendingCount());
+    }
+}
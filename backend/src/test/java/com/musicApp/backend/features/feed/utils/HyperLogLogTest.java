@@ -0,0 +1,73 @@
+package com.musicApp.backend.features.feed.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    // Repeated values are counted once
+    @Test
+    void estimate_CountsDistinctValues() {
+        HyperLogLog sketch = new HyperLogLog(11);
+        for (int round = 0; round < 3; round++) {
+            for (long id = 1; id <= 100; id++) {
+                sketch.add(id);
+            }
+        }
+        assertEquals(100, sketch.estimate(), 5);
+    }
+
+    // Large counts stay within a few standard errors (2.3% at precision 11)
+    @Test
+    void estimate_StaysWithinErrorForLargeCounts() {
+        HyperLogLog sketch = new HyperLogLog(11);
+        for (long id = 1; id <= 200_000; id++) {
+            sketch.add(id);
+        }
+        assertEquals(200_000, sketch.estimate(), 200_000 * 0.07);
+    }
+
+    // Merging two sketches counts the union of their values
+    @Test
+    void merge_CountsTheUnion() {
+        HyperLogLog first = new HyperLogLog(11);
+        HyperLogLog second = new HyperLogLog(11);
+        HyperLogLog both = new HyperLogLog(11);
+        for (long id = 1; id <= 30_000; id++) {
+            (id <= 20_000 ? first : second).add(id);
+            if (id > 10_000) {
+                second.add(id);
+            }
+            both.add(id);
+        }
+
+        first.merge(second);
+
+        assertEquals(both, first);
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(10)));
+    }
+
+    // Small sketches encode sparsely and every encoding decodes to the same sketch
+    @Test
+    void toBytes_RoundTripsSparseAndDense() {
+        HyperLogLog small = new HyperLogLog(11);
+        for (long id = 1; id <= 10; id++) {
+            small.add(id);
+        }
+        HyperLogLog large = new HyperLogLog(11);
+        for (long id = 1; id <= 50_000; id++) {
+            large.add(id);
+        }
+
+        byte[] sparse = small.toBytes();
+        byte[] dense = large.toBytes();
+
+        assertTrue(sparse.length <= 2 + 10 * 3);
+        assertEquals(HyperLogLog.maxBytes(11), dense.length);
+        assertEquals(small, HyperLogLog.fromBytes(sparse));
+        assertEquals(large, HyperLogLog.fromBytes(dense));
+        assertTrue(HyperLogLog.fromBytes(new HyperLogLog(11).toBytes()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{11, 9}));
+    }
+}
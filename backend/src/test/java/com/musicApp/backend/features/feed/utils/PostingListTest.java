@@ -0,0 +1,142 @@
+package com.musicApp.backend.features.feed.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingListTest {
+
+    // Ids added out of order, twice, or removed come back sorted and distinct
+    @Test
+    void addAndRemove_KeepIdsSortedAndDistinct() {
+        PostingList list = new PostingList();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            long id = 1 + random.nextInt(5_000);
+            assertEquals(expected.add(id), list.add(id));
+        }
+        for (int i = 0; i < 500; i++) {
+            long id = 1 + random.nextInt(5_000);
+            assertEquals(expected.remove(id), list.remove(id));
+        }
+
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), list.toArray());
+        assertEquals(expected.size(), list.size());
+        assertTrue(list.contains(expected.first()));
+    }
+
+    // Close ids take about one byte each
+    @Test
+    void add_CompressesNearbyIds() {
+        PostingList list = new PostingList();
+        for (long id = 1_000_000; id < 1_010_000; id += 3) {
+            list.add(id);
+        }
+        assertTrue(list.byteSize() < list.size() + 8);
+    }
+
+    // Pages run newest first and continue below the bound
+    @Test
+    void newestBefore_PagesNewestFirst() {
+        PostingList list = new PostingList();
+        for (long id = 1; id <= 10; id++) {
+            list.add(id);
+        }
+
+        assertArrayEquals(new long[]{10, 9, 8}, list.newestBefore(Long.MAX_VALUE, 3));
+        assertArrayEquals(new long[]{7, 6, 5}, list.newestBefore(8, 3));
+        assertArrayEquals(new long[]{2, 1}, list.newestBefore(3, 3));
+        assertArrayEquals(new long[0], list.newestBefore(1, 3));
+    }
+
+    // Only ids present in every list match
+    @Test
+    void intersectNewestBefore_MatchesIdsInEveryList() {
+        PostingList even = new PostingList();
+        PostingList threes = new PostingList();
+        for (long id = 1; id <= 60; id++) {
+            if (id % 2 == 0) {
+                even.add(id);
+            }
+            if (id % 3 == 0) {
+                threes.add(id);
+            }
+        }
+
+        assertArrayEquals(new long[]{60, 54, 48}, PostingList.intersectNewestBefore(List.of(even, threes), Long.MAX_VALUE, 3));
+        assertArrayEquals(new long[]{42, 36}, PostingList.intersectNewestBefore(List.of(threes, even), 48, 2));
+        assertArrayEquals(new long[0], PostingList.intersectNewestBefore(List.of(even, new PostingList()), Long.MAX_VALUE, 3));
+    }
+
+    // Pages deep in a long list start at the right block and cross block edges
+    @Test
+    void newestBefore_PagesAcrossBlocks() {
+        PostingList list = new PostingList();
+        for (long id = 1; id <= 10 * PostingList.BLOCK_SIZE; id++) {
+            list.add(id * 2);
+        }
+        long edge = 2L * (3 * PostingList.BLOCK_SIZE + 1);
+
+        assertArrayEquals(new long[]{edge - 2, edge - 4, edge - 6}, list.newestBefore(edge, 3));
+        assertArrayEquals(new long[]{edge, edge - 2}, list.newestBefore(edge + 1, 2));
+        assertArrayEquals(new long[]{4, 2}, list.newestBefore(5, 10));
+        assertTrue(list.contains(edge));
+        assertFalse(list.contains(edge + 1));
+        assertFalse(list.contains(20L * PostingList.BLOCK_SIZE + 2));
+    }
+
+    // Ids added out of order keep the skip table in step with the bytes
+    @Test
+    void intersectNewestBefore_MatchesAcrossBlocks_afterRewrites() {
+        PostingList all = new PostingList();
+        PostingList sevens = new PostingList();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (long id = 2_000; id >= 1; id--) {
+            all.add(id);
+            if (id % 7 == 0) {
+                sevens.add(id);
+                expected.add(id);
+            }
+        }
+        all.remove(700);
+        expected.remove(700L);
+
+        long[] page = PostingList.intersectNewestBefore(List.of(all, sevens), 1_000, 5);
+
+        assertArrayEquals(expected.headSet(1_000L, false).descendingSet().stream().limit(5).mapToLong(Long::longValue).toArray(), page);
+        assertArrayEquals(new long[]{714, 707, 693}, PostingList.intersectNewestBefore(List.of(sevens, all), 720, 3));
+    }
+
+    // Removed ids are skipped by every read until enough of them pile up for one rewrite
+    @Test
+    void remove_SkipsRemovedIds_untilTheListIsRewritten() {
+        PostingList list = new PostingList();
+        for (long id = 1; id <= 1_000; id++) {
+            list.add(id);
+        }
+        int encoded = list.byteSize();
+        for (long id = 1_000; id > 990; id--) {
+            assertTrue(list.remove(id));
+        }
+        assertFalse(list.remove(995));
+
+        assertEquals(990, list.size());
+        assertFalse(list.contains(995));
+        assertArrayEquals(new long[]{990, 989}, list.newestBefore(Long.MAX_VALUE, 2));
+        assertTrue(list.byteSize() > encoded);
+
+        assertTrue(list.add(995));
+        assertArrayEquals(new long[]{995, 990}, list.newestBefore(Long.MAX_VALUE, 2));
+
+        for (long id = 1; id <= 200; id++) {
+            list.remove(id);
+        }
+        assertEquals(791, list.size());
+        assertArrayEquals(new long[]{202, 201}, list.newestBefore(203, 2));
+    }
+}